@@ -83,6 +83,15 @@ public enum ExpressionOperation implements OperationPredicate {
 	LANGMATCHES("LangMatches", COL_TYPE.BOOLEAN, COL_TYPE.LITERAL, COL_TYPE.LITERAL),
 	REGEX("regex", COL_TYPE.BOOLEAN, COL_TYPE.LITERAL, COL_TYPE.LITERAL, COL_TYPE.LITERAL),
 	
+	/* SPARQL aggregates (only in the GROUP BY modifiers of queries) */
+
+	COUNT("COUNT", COL_TYPE.INTEGER, null),
+	SUM("SUM", null, null),
+	AVG("AVG", COL_TYPE.DECIMAL, null),
+	MIN("MIN", null, null),
+	MAX("MAX", null, null),
+	GROUP_CONCAT("GROUP_CONCAT", COL_TYPE.LITERAL, COL_TYPE.LITERAL),
+
 	// ROMAN (23 Dec 2015) THIS COMES ONLY FROM MAPPINGS
 	SQL_LIKE("like", COL_TYPE.BOOLEAN, COL_TYPE.LITERAL, COL_TYPE.LITERAL),
 	
@@ -38,7 +38,9 @@ public interface OBDADataFactory extends Serializable {
 	
 	public CQIE getCQIE(Function head, List<Function> body);
 	
-	public CQIE getFreshCQIECopy(CQIE rule);	
+	public CQIE getFreshCQIECopy(CQIE rule);
+
+	public CQIE getFreshCQIECopy(CQIE rule, int suffix);
 	
 
 	public OBDADataSource getDataSource(URI id);
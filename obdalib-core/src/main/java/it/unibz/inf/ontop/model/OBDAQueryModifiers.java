@@ -21,7 +21,9 @@ package it.unibz.inf.ontop.model;
  */
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class OBDAQueryModifiers {
 
@@ -32,11 +34,18 @@ public class OBDAQueryModifiers {
 
 	private List<OrderCondition> orderConditions;
 
+	private List<Variable> groupConditions;
+	private List<AggregateCondition> aggregateConditions;
+	private List<Function> havingConditions;
+
 	public OBDAQueryModifiers() {
 		isDistinct = false;
 		limit = -1;
 		offset = -1;
 		orderConditions = new ArrayList<>();
+		groupConditions = new ArrayList<>();
+		aggregateConditions = new ArrayList<>();
+		havingConditions = new ArrayList<>();
 	}
 
 	public OBDAQueryModifiers clone() {
@@ -51,6 +60,10 @@ public class OBDAQueryModifiers {
 				throw new RuntimeException(e);
 			}
 		}
+		clone.groupConditions.addAll(groupConditions);
+		clone.aggregateConditions.addAll(aggregateConditions);
+		for (Function c : havingConditions)
+			clone.havingConditions.add((Function) c.clone());
 		return clone;
 	}
 
@@ -60,6 +73,9 @@ public class OBDAQueryModifiers {
 		limit = other.limit;
 		offset = other.offset;
 		orderConditions.addAll(other.orderConditions); // ROMAN: this extends, not "copies"
+		groupConditions.addAll(other.groupConditions);
+		aggregateConditions.addAll(other.aggregateConditions);
+		havingConditions.addAll(other.havingConditions);
 	}
 
 	public void setDistinct() {
@@ -107,8 +123,60 @@ public class OBDAQueryModifiers {
 		return !orderConditions.isEmpty() ? true : false;
 	}
 
+	public void addGroupCondition(Variable var) {
+		groupConditions.add(var);
+	}
+
+	public List<Variable> getGroupConditions() {
+		return groupConditions;
+	}
+
+	/**
+	 * @param var       the variable bound to the value of the aggregate
+	 * @param operation one of the aggregate operations (COUNT, SUM, AVG, MIN, MAX or GROUP_CONCAT)
+	 * @param argument  the aggregated variable (null for COUNT(*))
+	 * @param distinct  whether the aggregate is applied to the distinct values only
+	 * @param separator the separator of GROUP_CONCAT (null for other aggregates)
+	 */
+	public void addAggregateCondition(Variable var, ExpressionOperation operation, Variable argument,
+									  boolean distinct, String separator) {
+		AggregateCondition condition = new AggregateCondition(var, operation, argument, distinct, separator);
+		aggregateConditions.add(condition);
+	}
+
+	public List<AggregateCondition> getAggregateConditions() {
+		return aggregateConditions;
+	}
+
+	/**
+	 * HAVING conditions are over the GROUP BY variables and the variables of the aggregates
+	 */
+	public void addHavingCondition(Function condition) {
+		havingConditions.add(condition);
+	}
+
+	public List<Function> getHavingConditions() {
+		return havingConditions;
+	}
+
+	public boolean hasGroup() {
+		return !groupConditions.isEmpty() || !aggregateConditions.isEmpty();
+	}
+
+	/**
+	 * Returns the variables the query has to compute before grouping:
+	 * the GROUP BY variables followed by the arguments of the aggregates
+	 */
+	public List<Variable> getGroupedVariables() {
+		Set<Variable> vars = new LinkedHashSet<>(groupConditions);
+		for (AggregateCondition c : aggregateConditions)
+			if (c.getArgument() != null)
+				vars.add(c.getArgument());
+		return new ArrayList<>(vars);
+	}
+
 	public boolean hasModifiers() {
-		return isDistinct || hasLimit() || hasOffset() || hasOrder();
+		return isDistinct || hasLimit() || hasOffset() || hasOrder() || hasGroup();
 	}
 
 	/**
@@ -139,4 +207,45 @@ public class OBDAQueryModifiers {
 			return (OrderCondition) super.clone();
 		}
 	}
+
+	/**
+	 * A helper class to store the aggregates of GROUP BY
+	 */
+	public class AggregateCondition {
+
+		private final Variable var;
+		private final ExpressionOperation operation;
+		private final Variable argument;
+		private final boolean distinct;
+		private final String separator;
+
+		AggregateCondition(Variable var, ExpressionOperation operation, Variable argument,
+						   boolean distinct, String separator) {
+			this.var = var;
+			this.operation = operation;
+			this.argument = argument;
+			this.distinct = distinct;
+			this.separator = separator;
+		}
+
+		public Variable getVariable() {
+			return var;
+		}
+
+		public ExpressionOperation getOperation() {
+			return operation;
+		}
+
+		public Variable getArgument() {
+			return argument;
+		}
+
+		public boolean isDistinct() {
+			return distinct;
+		}
+
+		public String getSeparator() {
+			return separator;
+		}
+	}
 }
@@ -56,4 +56,13 @@ public interface TupleResultSet extends ResultSet{
 
 	Constant getConstant(String name) throws OBDAException;
 
+	/***
+	 * Returns the value at column "column" (starting at 1) built by the given builder.
+	 * Result sets that read the database directly override this method to build
+	 * the value without creating a constant first.
+	 */
+	default <T> T getValue(int column, ValueBuilder<T> builder) throws OBDAException {
+		return builder.getValue(getConstant(column));
+	}
+
 }
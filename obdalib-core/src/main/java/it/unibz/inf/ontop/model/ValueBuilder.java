@@ -0,0 +1,64 @@
+package it.unibz.inf.ontop.model;
+
+/*
+ * #%L
+ * ontop-obdalib-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+
+/**
+ * Builds the values of an RDF API (e.g., Sesame values) directly from the
+ * lexical forms read from a result set, without creating Ontop constants first
+ * (see {@link TupleResultSet#getValue(int, ValueBuilder)}).
+ *
+ * @param <T> the type of the values
+ */
+public interface ValueBuilder<T> {
+
+	T getURI(String uri);
+
+	T getBNode(String name);
+
+	/**
+	 * @param language the language tag, or null for a plain literal
+	 */
+	T getLiteral(String value, String language);
+
+	T getLiteral(String value, COL_TYPE type);
+
+	/**
+	 * Returns the value of a constant (or null if the constant is null)
+	 */
+	default T getValue(Constant c) {
+		if (c instanceof ValueConstant) {
+			ValueConstant literal = (ValueConstant) c;
+			COL_TYPE type = literal.getType();
+			if (type == COL_TYPE.LITERAL || type == COL_TYPE.LITERAL_LANG)
+				return getLiteral(literal.getValue(), literal.getLanguage());
+			if (type == COL_TYPE.OBJECT)
+				return getLiteral(literal.getValue(), COL_TYPE.STRING);
+			return getLiteral(literal.getValue(), type);
+		}
+		if (c instanceof URIConstant)
+			return getURI(((URIConstant) c).getURI());
+		if (c instanceof BNode)
+			return getBNode(((BNode) c).getName());
+		return null;
+	}
+}
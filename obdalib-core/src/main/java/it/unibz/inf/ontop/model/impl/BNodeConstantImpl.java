@@ -51,7 +51,7 @@ public class BNodeConstantImpl implements BNode {
 			return false;
 		}
 		BNodeConstantImpl uri2 = (BNodeConstantImpl) obj;
-		return this.identifier == uri2.identifier;
+		return this.identifier == uri2.identifier && this.name.equals(uri2.name);
 	}
 
 	@Override
@@ -136,11 +136,16 @@ public class CQIEImpl implements CQIE, ListListener {
 		listChanged();
 	}
 
+	/**
+	 * Combines the (cached) hash codes of the head and the body atoms.
+	 */
 	@Override
 	public int hashCode() {
 		if (rehash) {
-			string = toString();
-			hash = string.hashCode();
+			int h = head.hashCode();
+			for (Function atom : body)
+				h = 31 * h + atom.hashCode();
+			hash = h;
 			rehash = false;
 		}
 		return hash;
@@ -194,11 +199,16 @@ public class CQIEImpl implements CQIE, ListListener {
 
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (!(obj instanceof CQIEImpl)) {
 			return false;
 		}
 		CQIEImpl q2 = (CQIEImpl) obj;
-		return hashCode() == q2.hashCode();
+		return hashCode() == q2.hashCode() 
+				&& head.equals(q2.head) 
+				&& body.equals(q2.body);
 	}
 
 	@Override
@@ -91,20 +91,35 @@ public class FunctionalTermImpl implements Function, ListListener {
 		}
 	}
 
+	/**
+	 * Structural equality: same function symbol and equal arguments
+	 * (the cached hash codes are compared first).
+	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null || !(obj instanceof FunctionalTermImpl)) {
 			return false;
 		}
 		FunctionalTermImpl other = (FunctionalTermImpl) obj;
-		return this.hashCode() == other.hashCode();
+		return this.hashCode() == other.hashCode()
+				&& functor.equals(other.functor)
+				&& terms.equals(other.terms);
 	}
 
+	/**
+	 * Combines the hash codes of the function symbol and of the arguments
+	 * (the hash codes of nested functions are cached in the same way).
+	 */
 	@Override
 	public int hashCode() {
 		if (rehash) {
-			string = toString();
-			identifier = string.hashCode();
+			int h = functor.hashCode();
+			for (Term term : terms)
+				h = 31 * h + term.hashCode();
+			identifier = h;
 			rehash = false;
 		}
 		return identifier;
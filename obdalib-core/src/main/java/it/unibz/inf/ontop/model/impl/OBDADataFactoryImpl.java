@@ -21,6 +21,8 @@ package it.unibz.inf.ontop.model.impl;
  */
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import it.unibz.inf.ontop.model.*;
 import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
 import it.unibz.inf.ontop.utils.IDGenerator;
@@ -33,6 +35,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class OBDADataFactoryImpl implements OBDADataFactory {
 
@@ -44,7 +47,15 @@ public class OBDADataFactoryImpl implements OBDADataFactory {
 	private final JdbcTypeMapper jdbcTypeMapper =  new JdbcTypeMapper(); 
 	
 
-	private static int counter = 0;
+	private static final AtomicInteger counter = new AtomicInteger();
+
+	/*
+	 * Variables and URI constants are immutable and shared by all the rules that
+	 * use them, so that equal terms are (mostly) the same object. The interners
+	 * keep weak references, so the fresh variables of a query are garbage collected.
+	 */
+	private static final Interner<Variable> variables = Interners.newWeakInterner();
+	private static final Interner<URIConstant> uriConstants = Interners.newWeakInterner();
 	
 	private OBDADataFactoryImpl() {
 		// protected constructor prevents instantiation from other classes.
@@ -132,7 +143,7 @@ public class OBDADataFactoryImpl implements OBDADataFactory {
 	@Override
 	@Deprecated
 	public URIConstant getConstantURI(String uriString) {
-		return new URIConstantImpl(uriString);
+		return uriConstants.intern(new URIConstantImpl(uriString));
 	}
 	
 	@Override
@@ -175,12 +186,12 @@ public class OBDADataFactoryImpl implements OBDADataFactory {
 	@Override
 	public ValueConstant getConstantFreshLiteral() {
 		// TODO: a bit more elaborate name is needed to avoid conflicts
-		return new ValueConstantImpl("f" + (counter++), COL_TYPE.LITERAL);
+		return new ValueConstantImpl("f" + counter.getAndIncrement(), COL_TYPE.LITERAL);
 	}
 
 	@Override
 	public Variable getVariable(String name) {
-		return new VariableImpl(name);
+		return variables.intern(new VariableImpl(name));
 	}
 
 	@Override
@@ -424,7 +435,7 @@ public class OBDADataFactoryImpl implements OBDADataFactory {
 		return getFunction(PredicateImpl.QUEST_TRIPLE_PRED, subject, predicate, object);
 	}
 
-	private int suffix = 0;
+	private final AtomicInteger suffix = new AtomicInteger();
 	
 	/***
 	 * Replaces each variable 'v' in the query for a new variable constructed
@@ -450,9 +461,17 @@ public class OBDADataFactoryImpl implements OBDADataFactory {
 	 */
 	@Override
 	public CQIE getFreshCQIECopy(CQIE rule) {
-		
-		int suff = ++suffix;
-		
+		return getFreshCQIECopy(rule, suffix.incrementAndGet());
+	}
+
+	/**
+	 * Same as {@link #getFreshCQIECopy(CQIE)}, but with the suffix provided by
+	 * the caller (for instance, by a counter that is local to the translation
+	 * of one query, which makes the result independent of concurrent translations).
+	 */
+	@Override
+	public CQIE getFreshCQIECopy(CQIE rule, int suff) {
+
 		// This method doesn't support nested functional terms
 		CQIE freshRule = rule.clone();
 		Function head = freshRule.getHead();
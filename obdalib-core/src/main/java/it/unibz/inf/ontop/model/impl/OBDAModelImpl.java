@@ -68,7 +68,7 @@ public class OBDAModelImpl implements OBDAModel {
 		queryController = new QueryController();
 		prefixManager = new SimplePrefixManager();
 
-		datasources = new HashMap<URI, OBDADataSource>();
+		datasources = new LinkedHashMap<URI, OBDADataSource>();
 		sourceslisteners = new ArrayList<OBDAModelListener>();
 
 		mappings = new Hashtable<URI, ArrayList<OBDAMappingAxiom>>();
@@ -414,13 +414,15 @@ public class OBDAModelImpl implements OBDAModel {
 		OBDAModel clone = dfac.getOBDAModel();
 		for (OBDADataSource source : datasources.values()) {
 			clone.addSource((OBDADataSource) source.clone());
-			for (ArrayList<OBDAMappingAxiom> mappingList : mappings.values()) {
-				for (OBDAMappingAxiom mapping : mappingList) {
-					try {
-						clone.addMapping(source.getSourceID(), (OBDAMappingAxiom) mapping.clone(), false);
-					} catch (DuplicateMappingException e) {
-						// Does nothing
-					}
+			// only the mappings of the source (the first source would otherwise get all of them)
+			ArrayList<OBDAMappingAxiom> mappingList = mappings.get(source.getSourceID());
+			if (mappingList == null)
+				continue;
+			for (OBDAMappingAxiom mapping : mappingList) {
+				try {
+					clone.addMapping(source.getSourceID(), (OBDAMappingAxiom) mapping.clone(), false);
+				} catch (DuplicateMappingException e) {
+					// Does nothing
 				}
 			}
 		}
@@ -54,7 +54,9 @@ public class PredicateImpl implements Predicate {
 			return false;
 		}
 		PredicateImpl pred2 = (PredicateImpl) obj;
-		return this.identifier == pred2.identifier;
+		// the identifier is the hash of the name, so different names may share it
+		return this.identifier == pred2.identifier 
+				&& this.arity == pred2.arity && this.name.equals(pred2.name);
 	}
 
 	@Override
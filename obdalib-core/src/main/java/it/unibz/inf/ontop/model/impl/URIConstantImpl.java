@@ -40,11 +40,14 @@ public class URIConstantImpl implements URIConstant {
 	
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null || !(obj instanceof URIConstantImpl)) {
 			return false;
 		}
 		URIConstantImpl uri2 = (URIConstantImpl) obj;
-		return this.identifier == uri2.identifier;
+		return this.identifier == uri2.identifier && this.iristr.equals(uri2.iristr);
 	}
 
 	@Override
@@ -95,7 +95,7 @@ public class ValueConstantImpl implements ValueConstant {
 			return false;
 		}
 		ValueConstantImpl value2 = (ValueConstantImpl) obj;
-		return this.hashCode() == value2.hashCode();
+		return this.string.equals(value2.string);
 	}
 
 	@Override
@@ -39,11 +39,14 @@ public class VariableImpl implements Variable {
 
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null || !(obj instanceof VariableImpl)) {
 			return false;
 		}
 		VariableImpl name2 = (VariableImpl) obj;
-		return this.identifier == name2.identifier;
+		return this.identifier == name2.identifier && this.name.equals(name2.name);
 	}
 
 	@Override
@@ -57,31 +57,43 @@ public class SQLQueryDeepParser {
 	 * @return A ParsedQuery (or a SELECT * FROM table with the generated view)
 	 */
 	public static ParsedSQLQuery parse(DBMetadata dbMetaData, String query) {
-    	
-		boolean errors = false;
-		ParsedSQLQuery queryParser = null;
-		
+		ParsedSQLQuery queryParser = tryParse(dbMetaData.getQuotedIDFactory(), query);
+		if (queryParser == null)
+			queryParser = parseAsView(dbMetaData, query);
+		return queryParser;
+	}
+
+	/**
+	 * Parses the query without changing the metadata (and so, can be called concurrently).
+	 *
+	 * @return the ParsedQuery, or null if the query couldn't be parsed
+	 */
+	public static ParsedSQLQuery tryParse(QuotedIDFactory idfac, String query) {
 		try {
-			queryParser = new ParsedSQLQuery(query, true, dbMetaData.getQuotedIDFactory());
+			return new ParsedSQLQuery(query, true, idfac);
 		} 
 		catch (JSQLParserException e) {
 			if (e.getCause() instanceof ParseException)
 				log.warn("Parse exception, check no SQL reserved keywords have been used "+ e.getCause().getMessage());
-			errors = true;
+			return null;
 		}
+	}
+
+	/**
+	 * Creates a view in the metadata for a query that couldn't be parsed.
+	 *
+	 * @return a SELECT * FROM table with the generated view
+	 */
+	public static ParsedSQLQuery parseAsView(DBMetadata dbMetaData, String query) {
+		log.warn("The following query couldn't be parsed. " +
+				"This means Quest will need to use nested subqueries (views) to use this mappings. " +
+				"This is not good for SQL performance, specially in MySQL. " + 
+				"Try to simplify your query to allow Quest to parse it. " + 
+				"If you think this query is already simple and should be parsed by Quest, " +
+				"please contact the authors. \nQuery: '{}'", query);
 		
-		if (queryParser == null || errors) {
-			log.warn("The following query couldn't be parsed. " +
-					"This means Quest will need to use nested subqueries (views) to use this mappings. " +
-					"This is not good for SQL performance, specially in MySQL. " + 
-					"Try to simplify your query to allow Quest to parse it. " + 
-					"If you think this query is already simple and should be parsed by Quest, " +
-					"please contact the authors. \nQuery: '{}'", query);
-			
-			ParserViewDefinition viewDef = createViewDefinition(dbMetaData, query);
-			queryParser = createParsedSqlForGeneratedView(dbMetaData.getQuotedIDFactory(), viewDef.getID());	
-		}
-		return queryParser;
+		ParserViewDefinition viewDef = createViewDefinition(dbMetaData, query);
+		return createParsedSqlForGeneratedView(dbMetaData.getQuotedIDFactory(), viewDef.getID());	
 	}
 
 	
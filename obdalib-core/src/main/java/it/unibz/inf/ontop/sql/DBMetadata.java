@@ -32,6 +32,7 @@ public class DBMetadata implements Serializable {
 	// relations include tables and views (views are only created for complex queries in mappings)
 	private final Map<RelationID, RelationDefinition> relations = new HashMap<>();
 	private final List<DatabaseRelationDefinition> listOfTables = new LinkedList<>();
+	private final List<ParserViewDefinition> listOfViews = new LinkedList<>();
 
 	private final String driverName;
 	private final String driverVersion;
@@ -89,6 +90,7 @@ public class DBMetadata implements Serializable {
 		
 		ParserViewDefinition view = new ParserViewDefinition(id, sql);
 		add(view, relations);
+		listOfViews.add(view);
 		return view;
 	}
 	
@@ -154,6 +156,13 @@ public class DBMetadata implements Serializable {
 		return Collections.unmodifiableCollection(listOfTables);
 	}
 
+	/**
+	 * Retrieves the parser views (in the order of their creation).
+	 */
+	public Collection<ParserViewDefinition> getParserViews() {
+		return Collections.unmodifiableCollection(listOfViews);
+	}
+
 
 	public String getDriverName() {
 		return driverName;
@@ -178,6 +178,21 @@ public class DBMetadataExtractor {
 	 */
 
 	public static void loadMetadata(DBMetadata metadata, Connection conn, Set<RelationID> realTables) throws SQLException {
+		loadMetadata(metadata, conn, realTables, false);
+	}
+
+	/**
+	 * Retrieves the database metadata (table schema and database constraints)
+	 *
+	 * In the bulk mode, the columns of all relations are retrieved by a single call to the JDBC metadata
+	 * and the keys by two set-based queries over the catalog views (for H2, PostgreSQL, MySQL and MS SQL Server;
+	 * other database engines retrieve the keys relation by relation). Only the unique indexes without
+	 * expressions and filters are taken into account.
+	 *
+	 * @param bulk whether to use the bulk mode instead of four JDBC metadata calls per relation
+	 */
+
+	public static void loadMetadata(DBMetadata metadata, Connection conn, Set<RelationID> realTables, boolean bulk) throws SQLException {
 		
 		if (printouts)
 			System.out.println("GETTING METADATA WITH " + conn + " ON " + realTables);
@@ -220,6 +235,21 @@ public class DBMetadataExtractor {
 		else if (productName.contains("MySQL"))
 			dt = MySQLTypeFixer;
 
+		if (bulk) {
+			KeyListProvider keyListProvider = null;
+			if (productName.contains("H2"))
+				keyListProvider = H2KeyListProvider;
+			else if (productName.contains("PostgreSQL"))
+				keyListProvider = PostgreSQLKeyListProvider;
+			else if (productName.contains("MySQL"))
+				keyListProvider = MySQLKeyListProvider;
+			else if (productName.contains("SQL Server"))
+				keyListProvider = MSSQLServerKeyListProvider;
+
+			loadMetadataInBulk(metadata, conn, seedRelationIds, dt, keyListProvider);
+			return;
+		}
+
 		List<DatabaseRelationDefinition> extractedRelations = new LinkedList<>();
 		
 		for (RelationID seedId : seedRelationIds) {
@@ -268,6 +298,169 @@ public class DBMetadataExtractor {
 	}
 	
 	
+	/**
+	 * Retrieves the columns of all the seed relations in one JDBC metadata call
+	 * and their keys in two queries (if the key list provider is not null)
+	 */
+
+	private static void loadMetadataInBulk(DBMetadata metadata, Connection conn, List<RelationID> seedRelationIds,
+										   DatatypeNormalizer dt, KeyListProvider keyListProvider) throws SQLException {
+
+		final DatabaseMetaData md = conn.getMetaData();
+		QuotedIDFactory idfac =  metadata.getQuotedIDFactory();
+
+		// as for the JDBC calls above, a seedId without schema matches the relations of any schema
+		Set<RelationID> seeds = new HashSet<>();
+		Set<RelationID> schemalessSeeds = new HashSet<>();
+		Set<String> schemas = new HashSet<>();
+		for (RelationID seedId : seedRelationIds) {
+			if (seedId.hasSchema())
+				seeds.add(seedId);
+			else
+				schemalessSeeds.add(seedId);
+			schemas.add(seedId.getSchemaName());
+		}
+		// restrict the call to the only schema if there is one
+		String schemaPattern = (schemas.size() == 1) ? schemas.iterator().next() : null;
+
+		Map<RelationID, DatabaseRelationDefinition> extractedRelations = new LinkedHashMap<>();
+		// catalog is ignored for now (rs.getString("TABLE_CAT"))
+		try (ResultSet rs = md.getColumns(null, schemaPattern, null, null)) {
+			DatabaseRelationDefinition currentRelation = null;
+			RelationID currentId = null;
+			boolean skip = true;
+			while (rs.next()) {
+				RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, rs.getString("TABLE_SCHEM"),
+									rs.getString("TABLE_NAME"));
+				if (!relationId.equals(currentId)) {
+					currentId = relationId;
+					currentRelation = extractedRelations.get(relationId);
+					skip = (currentRelation == null) && !seeds.contains(relationId)
+									&& !schemalessSeeds.contains(relationId.getSchemalessID());
+					if (!skip && currentRelation == null) {
+						currentRelation = metadata.createDatabaseRelation(relationId);
+						extractedRelations.put(relationId, currentRelation);
+					}
+				}
+				if (skip)
+					continue;
+
+				QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+				// columnNoNulls, columnNullable, columnNullableUnknown
+				boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+				String typeName = rs.getString("TYPE_NAME");
+				int dataType = dt.getCorrectedDatatype(rs.getInt("DATA_TYPE"), typeName);
+
+				currentRelation.addAttribute(attributeId, dataType, typeName, isNullable);
+			}
+		}
+
+		if (keyListProvider == null) {
+			for (DatabaseRelationDefinition relation : extractedRelations.values()) {
+				getPrimaryKey(md, relation, idfac);
+				getUniqueAttributes(md, relation, idfac);
+				getForeignKeys(md, relation, metadata);
+			}
+			return;
+		}
+
+		try (Statement stmt = conn.createStatement()) {
+			try (ResultSet rs = stmt.executeQuery(keyListProvider.getKeyQuery())) {
+				getKeys(rs, extractedRelations, idfac);
+			}
+			try (ResultSet rs = stmt.executeQuery(keyListProvider.getForeignKeyQuery())) {
+				getForeignKeys(rs, extractedRelations, metadata);
+			}
+		}
+	}
+
+	/**
+	 * Adds the keys returned by the query of a key list provider
+	 */
+
+	private static void getKeys(ResultSet rs, Map<RelationID, DatabaseRelationDefinition> relations, QuotedIDFactory idfac) throws SQLException {
+		DatabaseRelationDefinition relation = null;
+		UniqueConstraint.Builder builder = null;
+		String currentName = null;
+		boolean currentIsPK = false;
+		RelationID currentId = null;
+		while (rs.next()) {
+			RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac,
+								rs.getString("TABLE_SCHEM"), rs.getString("TABLE_NAME"));
+			String name = rs.getString("KEY_NAME");
+			if (!relationId.equals(currentId) || !Objects.equals(name, currentName)) {
+				if (builder != null)
+					relation.addUniqueConstraint(builder.build(currentName, currentIsPK));
+
+				currentId = relationId;
+				currentName = name;
+				currentIsPK = rs.getBoolean("IS_PK");
+				relation = relations.get(relationId);
+				builder = (relation != null) ? UniqueConstraint.builder(relation) : null;
+			}
+			if (builder != null) {
+				QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+				Attribute attr = relation.getAttribute(attrId);
+				if (attr != null)
+					builder.add(attr);
+				else
+					builder = null; // do not add a key over unknown attributes
+			}
+		}
+		if (builder != null)
+			relation.addUniqueConstraint(builder.build(currentName, currentIsPK));
+	}
+
+	/**
+	 * Adds the foreign keys returned by the query of a key list provider
+	 */
+
+	private static void getForeignKeys(ResultSet rs, Map<RelationID, DatabaseRelationDefinition> relations, DBMetadata metadata) throws SQLException {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+		DatabaseRelationDefinition relation = null, ref = null;
+		ForeignKeyConstraint.Builder builder = null;
+		String currentName = null;
+		RelationID currentId = null;
+		while (rs.next()) {
+			RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac,
+								rs.getString("FKTABLE_SCHEM"), rs.getString("FKTABLE_NAME"));
+			String name = rs.getString("FK_NAME");
+			if (!relationId.equals(currentId) || !Objects.equals(name, currentName)) {
+				if (builder != null)
+					relation.addForeignKeyConstraint(builder.build(currentName));
+
+				currentId = relationId;
+				currentName = name;
+				relation = relations.get(relationId);
+				builder = null;
+				if (relation != null) {
+					RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac,
+										rs.getString("PKTABLE_SCHEM"), rs.getString("PKTABLE_NAME"));
+					ref = metadata.getDatabaseRelation(refId);
+					if (ref != null)
+						builder = new ForeignKeyConstraint.Builder(relation, ref);
+					else
+						// do not add this foreign key because there is no table it refers to
+						System.err.println("Cannot find table: " + refId + " for FK " + currentName);
+				}
+			}
+			if (builder != null) {
+				QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("FKCOLUMN_NAME"));
+				QuotedID refAttrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("PKCOLUMN_NAME"));
+				Attribute attr = relation.getAttribute(attrId);
+				Attribute refAttr = ref.getAttribute(refAttrId);
+				if (attr != null && refAttr != null)
+					builder.add(attr, refAttr);
+				else
+					builder = null; // do not add a foreign key over unknown attributes
+			}
+		}
+		if (builder != null)
+			relation.addForeignKeyConstraint(builder.build(currentName));
+	}
+
+
 	/**
 	 * Retrieve the normalized list of tables from a given list of RelationIDs
 	 */
@@ -428,6 +621,131 @@ public class DBMetadataExtractor {
 */	
 	
 	
+	/**
+	 * Set-based queries for the keys of all relations (used in the bulk mode)
+	 *
+	 * The key query returns TABLE_SCHEM, TABLE_NAME, KEY_NAME, IS_PK and COLUMN_NAME
+	 * ordered by the relation, with the primary key first, and the position in the key.
+	 * The foreign key query returns FKTABLE_SCHEM, FKTABLE_NAME, FK_NAME, FKCOLUMN_NAME,
+	 * PKTABLE_SCHEM, PKTABLE_NAME and PKCOLUMN_NAME ordered by the relation,
+	 * the foreign key and the position in the foreign key.
+	 */
+
+	private interface KeyListProvider {
+		String getKeyQuery();
+		String getForeignKeyQuery();
+	}
+
+	private static final KeyListProvider H2KeyListProvider = new KeyListProvider() {
+		@Override
+		public String getKeyQuery() {
+			// the same as in getPrimaryKeys and getIndexInfo of the H2 JDBC driver
+			return "SELECT TABLE_SCHEMA AS TABLE_SCHEM, TABLE_NAME, " +
+					"    CASE WHEN PRIMARY_KEY THEN IFNULL(CONSTRAINT_NAME, INDEX_NAME) ELSE INDEX_NAME END AS KEY_NAME, " +
+					"    PRIMARY_KEY AS IS_PK, COLUMN_NAME " +
+					"FROM INFORMATION_SCHEMA.INDEXES " +
+					"WHERE NON_UNIQUE = FALSE " +
+					"ORDER BY TABLE_SCHEMA, TABLE_NAME, PRIMARY_KEY DESC, INDEX_NAME, ORDINAL_POSITION";
+		}
+
+		@Override
+		public String getForeignKeyQuery() {
+			return "SELECT FKTABLE_SCHEMA AS FKTABLE_SCHEM, FKTABLE_NAME, FK_NAME, FKCOLUMN_NAME, " +
+					"    PKTABLE_SCHEMA AS PKTABLE_SCHEM, PKTABLE_NAME, PKCOLUMN_NAME " +
+					"FROM INFORMATION_SCHEMA.CROSS_REFERENCES " +
+					"ORDER BY FKTABLE_SCHEMA, FKTABLE_NAME, FK_NAME, ORDINAL_POSITION";
+		}
+	};
+
+	private static final KeyListProvider PostgreSQLKeyListProvider = new KeyListProvider() {
+		@Override
+		public String getKeyQuery() {
+			// indkey is an int2vector with subscripts starting at 0
+			return "SELECT n.nspname AS TABLE_SCHEM, t.relname AS TABLE_NAME, i.relname AS KEY_NAME, " +
+					"    ix.indisprimary AS IS_PK, a.attname AS COLUMN_NAME " +
+					"FROM pg_index ix " +
+					"    CROSS JOIN generate_subscripts(ix.indkey, 1) AS k(pos) " +
+					"    JOIN pg_class t ON t.oid = ix.indrelid " +
+					"    JOIN pg_class i ON i.oid = ix.indexrelid " +
+					"    JOIN pg_namespace n ON n.oid = t.relnamespace " +
+					"    JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = ix.indkey[k.pos] " +
+					"WHERE ix.indisunique AND ix.indexprs IS NULL AND ix.indpred IS NULL " +
+					"ORDER BY n.nspname, t.relname, ix.indisprimary DESC, i.relname, k.pos";
+		}
+
+		@Override
+		public String getForeignKeyQuery() {
+			// constraint names are unique only for each table
+			return "SELECT fn.nspname AS FKTABLE_SCHEM, ft.relname AS FKTABLE_NAME, c.conname AS FK_NAME, " +
+					"    fa.attname AS FKCOLUMN_NAME, " +
+					"    pn.nspname AS PKTABLE_SCHEM, pt.relname AS PKTABLE_NAME, pa.attname AS PKCOLUMN_NAME " +
+					"FROM pg_constraint c " +
+					"    CROSS JOIN generate_subscripts(c.conkey, 1) AS k(pos) " +
+					"    JOIN pg_class ft ON ft.oid = c.conrelid " +
+					"    JOIN pg_namespace fn ON fn.oid = ft.relnamespace " +
+					"    JOIN pg_attribute fa ON fa.attrelid = c.conrelid AND fa.attnum = c.conkey[k.pos] " +
+					"    JOIN pg_class pt ON pt.oid = c.confrelid " +
+					"    JOIN pg_namespace pn ON pn.oid = pt.relnamespace " +
+					"    JOIN pg_attribute pa ON pa.attrelid = c.confrelid AND pa.attnum = c.confkey[k.pos] " +
+					"WHERE c.contype = 'f' " +
+					"ORDER BY fn.nspname, ft.relname, c.conname, k.pos";
+		}
+	};
+
+	private static final KeyListProvider MySQLKeyListProvider = new KeyListProvider() {
+		// MySQL databases are JDBC catalogs: the schema in relation IDs is NULL (as in getColumns)
+		@Override
+		public String getKeyQuery() {
+			return "SELECT NULL AS TABLE_SCHEM, TABLE_NAME, INDEX_NAME AS KEY_NAME, " +
+					"    (INDEX_NAME = 'PRIMARY') AS IS_PK, COLUMN_NAME " +
+					"FROM INFORMATION_SCHEMA.STATISTICS " +
+					"WHERE TABLE_SCHEMA = DATABASE() AND NON_UNIQUE = 0 " +
+					"ORDER BY TABLE_NAME, (INDEX_NAME = 'PRIMARY') DESC, INDEX_NAME, SEQ_IN_INDEX";
+		}
+
+		@Override
+		public String getForeignKeyQuery() {
+			return "SELECT NULL AS FKTABLE_SCHEM, TABLE_NAME AS FKTABLE_NAME, CONSTRAINT_NAME AS FK_NAME, " +
+					"    COLUMN_NAME AS FKCOLUMN_NAME, " +
+					"    NULL AS PKTABLE_SCHEM, REFERENCED_TABLE_NAME AS PKTABLE_NAME, REFERENCED_COLUMN_NAME AS PKCOLUMN_NAME " +
+					"FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE " +
+					"WHERE TABLE_SCHEMA = DATABASE() AND REFERENCED_TABLE_NAME IS NOT NULL " +
+					"ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION";
+		}
+	};
+
+	private static final KeyListProvider MSSQLServerKeyListProvider = new KeyListProvider() {
+		@Override
+		public String getKeyQuery() {
+			return "SELECT s.name AS TABLE_SCHEM, t.name AS TABLE_NAME, i.name AS KEY_NAME, " +
+					"    i.is_primary_key AS IS_PK, c.name AS COLUMN_NAME " +
+					"FROM sys.indexes i " +
+					"    JOIN sys.tables t ON t.object_id = i.object_id " +
+					"    JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+					"    JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+					"    JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id " +
+					"WHERE i.is_unique = 1 AND i.has_filter = 0 AND ic.is_included_column = 0 " +
+					"ORDER BY s.name, t.name, i.is_primary_key DESC, i.name, ic.key_ordinal";
+		}
+
+		@Override
+		public String getForeignKeyQuery() {
+			return "SELECT fs.name AS FKTABLE_SCHEM, ft.name AS FKTABLE_NAME, fk.name AS FK_NAME, " +
+					"    fc.name AS FKCOLUMN_NAME, " +
+					"    ps.name AS PKTABLE_SCHEM, pt.name AS PKTABLE_NAME, pc.name AS PKCOLUMN_NAME " +
+					"FROM sys.foreign_keys fk " +
+					"    JOIN sys.foreign_key_columns fkc ON fkc.constraint_object_id = fk.object_id " +
+					"    JOIN sys.tables ft ON ft.object_id = fkc.parent_object_id " +
+					"    JOIN sys.schemas fs ON fs.schema_id = ft.schema_id " +
+					"    JOIN sys.columns fc ON fc.object_id = fkc.parent_object_id AND fc.column_id = fkc.parent_column_id " +
+					"    JOIN sys.tables pt ON pt.object_id = fkc.referenced_object_id " +
+					"    JOIN sys.schemas ps ON ps.schema_id = pt.schema_id " +
+					"    JOIN sys.columns pc ON pc.object_id = fkc.referenced_object_id AND pc.column_id = fkc.referenced_column_id " +
+					"ORDER BY fs.name, ft.name, fk.name, fkc.constraint_column_id";
+		}
+	};
+
+
 	/**
 	 * A method of fixing discrepancies in datatype correspondence
 	 */
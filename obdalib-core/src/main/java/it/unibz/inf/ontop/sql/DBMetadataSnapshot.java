@@ -0,0 +1,420 @@
+package it.unibz.inf.ontop.sql;
+
+/*
+ * #%L
+ * ontop-obdalib-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the database metadata (relations, attributes, unique and foreign key constraints)
+ * extracted by DBMetadataExtractor to a file and loads it back.
+ *
+ * A snapshot is used only if its format version, checksum, database engine (product and driver
+ * names and versions), scope (the list of extracted relations) and schema fingerprint
+ * (a hash of the columns of the relations) match; otherwise, the metadata has to be extracted
+ * again (and the snapshot saved again).
+ *
+ * The fingerprint does not cover the keys and indexes: invalidate the snapshot
+ * when only the constraints of the database schema change.
+ *
+ * Parser views and user-supplied constraints are not part of the snapshot.
+ */
+
+public class DBMetadataSnapshot {
+
+	private static final int MAGIC = 0x4F4D4453; // OMDS
+	private static final int FORMAT_VERSION = 2;
+
+	private static final String FULL_SCOPE = "*";
+
+	private static Logger log = LoggerFactory.getLogger(DBMetadataSnapshot.class);
+
+	/**
+	 * returns the scope of the metadata extracted for the given list of tables
+	 *
+	 * @param realTables the list of tables given to DBMetadataExtractor.loadMetadata (null for all tables)
+	 * @return the scope description
+	 */
+
+	public static String getScope(Set<RelationID> realTables) {
+		if (realTables == null || realTables.isEmpty())
+			return FULL_SCOPE;
+
+		List<String> ids = new ArrayList<>(realTables.size());
+		for (RelationID id : realTables)
+			ids.add(id.getSQLRendering());
+		Collections.sort(ids);
+
+		StringBuilder bf = new StringBuilder();
+		for (String id : ids)
+			bf.append(id).append('\n');
+		return bf.toString();
+	}
+
+	/**
+	 * returns a hash of the columns (names, datatypes and nullability) of the given tables,
+	 * which are retrieved by a single JDBC metadata call (as in the bulk mode of DBMetadataExtractor)
+	 *
+	 * @param metadata the metadata created by DBMetadataExtractor.createMetadata (for the quoted ID factory)
+	 * @param conn
+	 * @param realTables the list of tables given to DBMetadataExtractor.loadMetadata (null for all tables)
+	 * @return the schema fingerprint
+	 * @throws SQLException
+	 */
+
+	public static long getSchemaFingerprint(DBMetadata metadata, Connection conn, Set<RelationID> realTables) throws SQLException {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+		// as in DBMetadataExtractor, a table without schema matches the relations of any schema
+		Set<RelationID> tables = new HashSet<>();
+		Set<RelationID> schemalessTables = new HashSet<>();
+		Set<String> schemas = new HashSet<>();
+		if (realTables != null)
+			for (RelationID id : realTables) {
+				if (id.hasSchema())
+					tables.add(id);
+				else
+					schemalessTables.add(id);
+				schemas.add(id.getSchemaName());
+			}
+		boolean all = tables.isEmpty() && schemalessTables.isEmpty();
+		String schemaPattern = (schemas.size() == 1) ? schemas.iterator().next() : null;
+
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		DatabaseMetaData md = conn.getMetaData();
+		// the rows are ordered by the schema, table name and ordinal position
+		try (ResultSet rs = md.getColumns(null, schemaPattern, null, null)) {
+			while (rs.next()) {
+				String schema = rs.getString("TABLE_SCHEM");
+				String table = rs.getString("TABLE_NAME");
+				if (!all) {
+					RelationID id = RelationID.createRelationIdFromDatabaseRecord(idfac, schema, table);
+					if (!tables.contains(id) && !schemalessTables.contains(id.getSchemalessID()))
+						continue;
+				}
+				hasher.putUnencodedChars(String.valueOf(schema)).putChar('.')
+						.putUnencodedChars(table).putChar('.')
+						.putUnencodedChars(rs.getString("COLUMN_NAME")).putChar(':')
+						.putInt(rs.getInt("DATA_TYPE"))
+						.putUnencodedChars(String.valueOf(rs.getString("TYPE_NAME")))
+						.putInt(rs.getInt("NULLABLE"));
+			}
+		}
+		return hasher.hash().asLong();
+	}
+
+	/**
+	 * deletes the snapshot file (if any), so that the metadata is extracted again on the next run
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+
+	public static void invalidate(File file) throws IOException {
+		Files.deleteIfExists(file.toPath());
+	}
+
+	/**
+	 * saves the database relations of the metadata to the file
+	 * (the file is replaced only once the snapshot is completely written)
+	 *
+	 * @param metadata
+	 * @param scope see getScope
+	 * @param fingerprint see getSchemaFingerprint
+	 * @param file
+	 * @throws IOException
+	 */
+
+	public static void save(DBMetadata metadata, String scope, long fingerprint, File file) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			writeRelations(metadata, out);
+		}
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		File tmp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			writeNullableString(out, metadata.getDbmsProductName());
+			writeNullableString(out, metadata.getDbmsVersion());
+			writeNullableString(out, metadata.getDriverName());
+			writeNullableString(out, metadata.getDriverVersion());
+			writeLongString(out, scope);
+			out.writeLong(fingerprint);
+			out.writeInt(payload.length);
+			out.writeLong(crc.getValue());
+			out.write(payload);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * loads the database relations from the snapshot file into the metadata
+	 * (the metadata is not modified if the snapshot cannot be used)
+	 *
+	 * @param metadata the metadata created by DBMetadataExtractor.createMetadata (no relations loaded)
+	 * @param scope see getScope
+	 * @param fingerprint see getSchemaFingerprint
+	 * @param file
+	 * @return true if the snapshot has been loaded
+	 */
+
+	public static boolean load(DBMetadata metadata, String scope, long fingerprint, File file) {
+		if (!file.exists())
+			return false;
+
+		byte[] payload;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				log.warn("Ignoring the database metadata snapshot {}: unknown format", file);
+				return false;
+			}
+			if (!Objects.equals(readNullableString(in), metadata.getDbmsProductName())
+					|| !Objects.equals(readNullableString(in), metadata.getDbmsVersion())
+					|| !Objects.equals(readNullableString(in), metadata.getDriverName())
+					|| !Objects.equals(readNullableString(in), metadata.getDriverVersion())) {
+				log.info("Ignoring the database metadata snapshot {}: taken for another database engine", file);
+				return false;
+			}
+			if (!readLongString(in).equals(scope)) {
+				log.info("Ignoring the database metadata snapshot {}: taken for other relations", file);
+				return false;
+			}
+			if (in.readLong() != fingerprint) {
+				log.info("Ignoring the database metadata snapshot {}: the database schema has changed", file);
+				return false;
+			}
+			payload = new byte[in.readInt()];
+			long checksum = in.readLong();
+			in.readFully(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if (crc.getValue() != checksum) {
+				log.warn("Ignoring the database metadata snapshot {}: checksum mismatch", file);
+				return false;
+			}
+		}
+		catch (IOException e) {
+			log.warn("Ignoring the database metadata snapshot {}: {}", file, e.toString());
+			return false;
+		}
+
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			readRelations(metadata, in);
+		}
+		catch (IOException e) {
+			// cannot happen: the checksum is correct and the data is in memory
+			throw new IllegalStateException("Corrupt database metadata snapshot " + file, e);
+		}
+		log.debug("Loaded {} database relations from the metadata snapshot {}", metadata.getDatabaseRelations().size(), file);
+		return true;
+	}
+
+	/**
+	 * writes the database relations of the metadata (without the header of the snapshot)
+	 *
+	 * @param metadata
+	 * @param out
+	 * @throws IOException
+	 */
+
+	public static void writeRelations(DBMetadata metadata, DataOutputStream out) throws IOException {
+		Collection<DatabaseRelationDefinition> relations = metadata.getDatabaseRelations();
+		out.writeInt(relations.size());
+		for (DatabaseRelationDefinition relation : relations) {
+			writeNullableString(out, relation.getID().getSchemaName());
+			out.writeUTF(relation.getID().getTableName());
+			out.writeInt(relation.getAttributes().size());
+			for (Attribute attr : relation.getAttributes()) {
+				out.writeUTF(attr.getID().getName());
+				out.writeInt(attr.getType());
+				writeNullableString(out, attr.getSQLTypeName());
+				out.writeBoolean(attr.canNull());
+			}
+			// the primary key comes first (as in the database relation)
+			out.writeInt(relation.getUniqueConstraints().size());
+			for (UniqueConstraint uc : relation.getUniqueConstraints()) {
+				writeNullableString(out, uc.getName());
+				out.writeBoolean(uc.isPrimaryKey());
+				out.writeInt(uc.getAttributes().size());
+				for (Attribute attr : uc.getAttributes())
+					out.writeInt(attr.getIndex());
+			}
+		}
+		// foreign keys are written after all relations they can refer to
+		for (DatabaseRelationDefinition relation : relations) {
+			out.writeInt(relation.getForeignKeys().size());
+			for (ForeignKeyConstraint fk : relation.getForeignKeys()) {
+				writeNullableString(out, fk.getName());
+				RelationID refId = fk.getReferencedRelation().getID();
+				writeNullableString(out, refId.getSchemaName());
+				out.writeUTF(refId.getTableName());
+				out.writeInt(fk.getComponents().size());
+				for (ForeignKeyConstraint.Component component : fk.getComponents()) {
+					out.writeInt(component.getAttribute().getIndex());
+					out.writeInt(component.getReference().getIndex());
+				}
+			}
+		}
+	}
+
+	/**
+	 * reads the database relations written by writeRelations into the metadata
+	 *
+	 * @param metadata the metadata created by DBMetadataExtractor.createMetadata (no relations loaded)
+	 * @param in
+	 * @throws IOException
+	 */
+
+	public static void readRelations(DBMetadata metadata, DataInputStream in) throws IOException {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+		int size = in.readInt();
+		List<DatabaseRelationDefinition> relations = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			RelationID id = RelationID.createRelationIdFromDatabaseRecord(idfac, readNullableString(in), in.readUTF());
+			DatabaseRelationDefinition relation = metadata.createDatabaseRelation(id);
+			relations.add(relation);
+			int attributes = in.readInt();
+			for (int j = 0; j < attributes; j++) {
+				QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, in.readUTF());
+				int type = in.readInt();
+				String typeName = readNullableString(in);
+				relation.addAttribute(attributeId, type, typeName, in.readBoolean());
+			}
+			int ucs = in.readInt();
+			for (int j = 0; j < ucs; j++) {
+				String name = readNullableString(in);
+				boolean isPK = in.readBoolean();
+				UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
+				int components = in.readInt();
+				for (int k = 0; k < components; k++)
+					builder.add(relation.getAttribute(in.readInt()));
+				relation.addUniqueConstraint(builder.build(name, isPK));
+			}
+		}
+		for (DatabaseRelationDefinition relation : relations) {
+			int fks = in.readInt();
+			for (int j = 0; j < fks; j++) {
+				String name = readNullableString(in);
+				RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac, readNullableString(in), in.readUTF());
+				DatabaseRelationDefinition ref = metadata.getDatabaseRelation(refId);
+				ForeignKeyConstraint.Builder builder = new ForeignKeyConstraint.Builder(relation, ref);
+				int components = in.readInt();
+				for (int k = 0; k < components; k++)
+					builder.add(relation.getAttribute(in.readInt()), ref.getAttribute(in.readInt()));
+				relation.addForeignKeyConstraint(builder.build(name));
+			}
+		}
+	}
+
+	/**
+	 * writes the parser views of the metadata (in the order of their creation)
+	 *
+	 * @param metadata
+	 * @param out
+	 * @throws IOException
+	 */
+
+	public static void writeParserViews(DBMetadata metadata, DataOutputStream out) throws IOException {
+		Collection<ParserViewDefinition> views = metadata.getParserViews();
+		out.writeInt(views.size());
+		for (ParserViewDefinition view : views) {
+			out.writeUTF(view.getID().getTableName());
+			writeLongString(out, view.getStatement());
+			out.writeInt(view.getAttributes().size());
+			for (Attribute attr : view.getAttributes()) {
+				QualifiedAttributeID id = attr.getQualifiedID();
+				out.writeBoolean(id.getRelation() != null);
+				if (id.getRelation() != null) {
+					writeNullableString(out, id.getRelation().getSchemaSQLRendering());
+					out.writeUTF(id.getRelation().getTableNameSQLRendering());
+				}
+				out.writeUTF(id.getAttribute().getSQLRendering());
+			}
+		}
+	}
+
+	/**
+	 * reads the parser views written by writeParserViews into the metadata
+	 * (the views are created again, so the metadata must have no parser views)
+	 *
+	 * @param metadata
+	 * @param in
+	 * @throws IOException if the views cannot be created with the same names
+	 */
+
+	public static void readParserViews(DBMetadata metadata, DataInputStream in) throws IOException {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String name = in.readUTF();
+			ParserViewDefinition view = metadata.createParserView(readLongString(in));
+			if (!view.getID().getTableName().equals(name))
+				throw new IOException("Parser view " + name + " has been created as " + view.getID());
+			int attributes = in.readInt();
+			for (int j = 0; j < attributes; j++) {
+				RelationID relation = in.readBoolean() ? idfac.createRelationID(readNullableString(in), in.readUTF()) : null;
+				view.addAttribute(new QualifiedAttributeID(relation, idfac.createAttributeID(in.readUTF())));
+			}
+		}
+	}
+
+	private static void writeNullableString(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	// the scope can exceed the 64K limit of writeUTF
+	private static void writeLongString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readLongString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+}
@@ -185,5 +185,18 @@ public class ImplicitDBConstraintsReader {
 		else
 			return idfac.createRelationID(names[0], names[1]);			
 	}
+
+	/**
+	 * Lists the constraints as in the file (unique constraints first)
+	 */
+	@Override
+	public String toString() {
+		StringBuilder bf = new StringBuilder();
+		for (String[] uc : ucs)
+			bf.append(String.join(":", uc)).append('\n');
+		for (String[] fk : fks)
+			bf.append(String.join(":", fk)).append('\n');
+		return bf.toString();
+	}
 		
 }
@@ -45,10 +45,15 @@ import net.sf.jsqlparser.statement.select.SubSelect;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -57,24 +62,127 @@ public class Mapping2DatalogConverter {
 	private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
 
 	/**
-	 * Creates a mapping analyzer by taking into account the OBDA model.
+	 * The mappings with the same source query: the query is parsed and
+	 * its body atoms are constructed only once.
+	 */
+	private static final class SourceQuery {
+		private final String sql;
+		private final List<Integer> mappingIndexes = new ArrayList<>();
+		private ParsedSQLQuery parsedSQLQuery;
+		private AttributeLookupTable lookupTable;
+		private List<Function> bodyAtoms;
+		private Exception error;
+
+		SourceQuery(String sql) {
+			this.sql = sql;
+		}
+	}
+
+	/**
+	 * Creates a mapping analyzer by taking into account the OBDA model
+	 * (the rules are constructed in the calling thread).
 	 */
 	public static List<CQIE> constructDatalogProgram(Collection<OBDAMappingAxiom> mappings, DBMetadata dbMetadata) {
-		
-		List<CQIE> datalogProgram = new LinkedList<>();
-		List<String> errorMessages = new ArrayList<>();
-		
-		QuotedIDFactory idfac = dbMetadata.getQuotedIDFactory();
-		
-		for (OBDAMappingAxiom mappingAxiom : mappings) {
-			try {
-				// Obtain the target and source query from each mapping axiom in
-				// the model.
+		return constructDatalogProgram(mappings, dbMetadata, null);
+	}
 
-				OBDASQLQuery sourceQuery = mappingAxiom.getSourceQuery();
+	/**
+	 * Creates a mapping analyzer by taking into account the OBDA model.
+	 *
+	 * The source queries can be parsed and the rules constructed concurrently. The result
+	 * does not depend on the scheduling: the rules are in the order of the mappings and the
+	 * views for the source queries that cannot be parsed are created in the order of the mappings.
+	 * All the mappings are analyzed and the errors are reported together.
+	 *
+	 * @param executor runs the parsing and conversion tasks (null to run them in the calling thread);
+	 *                 it is not shut down
+	 */
+	public static List<CQIE> constructDatalogProgram(Collection<OBDAMappingAxiom> mappings, DBMetadata dbMetadata,
+													 ExecutorService executor) {
+
+		final List<OBDAMappingAxiom> mappingList = new ArrayList<>(mappings);
+		final QuotedIDFactory idfac = dbMetadata.getQuotedIDFactory();
+
+		Map<String, SourceQuery> sourceQueryIndex = new LinkedHashMap<>();
+		for (int i = 0; i < mappingList.size(); i++) {
+			// Obtain the source query from each mapping axiom in the model
+			String sql = mappingList.get(i).getSourceQuery().toString();
+			SourceQuery sourceQuery = sourceQueryIndex.get(sql);
+			if (sourceQuery == null) {
+				sourceQuery = new SourceQuery(sql);
+				sourceQueryIndex.put(sql, sourceQuery);
+			}
+			sourceQuery.mappingIndexes.add(i);
+		}
+		List<SourceQuery> sourceQueries = new ArrayList<>(sourceQueryIndex.values());
+
+		// the rules of each mapping and the errors of each mapping
+		final List<List<CQIE>> mappingRules = new ArrayList<>(Collections.nCopies(mappingList.size(), (List<CQIE>)null));
+		final String[] errorMessages = new String[mappingList.size()];
+
+		// Parse the SQL query tree from each source query (without changing the metadata)
+		List<Callable<Void>> parsingTasks = new ArrayList<>(sourceQueries.size());
+		for (final SourceQuery sourceQuery : sourceQueries)
+			parsingTasks.add(() -> {
+				try {
+					sourceQuery.parsedSQLQuery = SQLQueryDeepParser.tryParse(idfac, sourceQuery.sql);
+				}
+				catch (Exception e) {
+					sourceQuery.error = e;
+				}
+				return null;
+			});
+		runAll(executor, parsingTasks);
+
+		// Create the views for the queries that could not be parsed (sequentially, the names
+		// of the views are numbered)
+		for (SourceQuery sourceQuery : sourceQueries)
+			if (sourceQuery.parsedSQLQuery == null && sourceQuery.error == null) {
+				try {
+					sourceQuery.parsedSQLQuery = SQLQueryDeepParser.parseAsView(dbMetadata, sourceQuery.sql);
+				}
+				catch (Exception e) {
+					sourceQuery.error = e;
+				}
+			}
+
+		List<Callable<Void>> conversionTasks = new ArrayList<>(sourceQueries.size());
+		for (final SourceQuery sourceQuery : sourceQueries)
+			conversionTasks.add(() -> {
+				convert(sourceQuery, mappingList, dbMetadata, mappingRules, errorMessages);
+				return null;
+			});
+		runAll(executor, conversionTasks);
+
+		List<CQIE> datalogProgram = new ArrayList<>();
+		StringBuilder errors = new StringBuilder();
+		for (int i = 0; i < mappingList.size(); i++) {
+			if (errorMessages[i] != null)
+				errors.append(errorMessages[i] + "\n");
+			else
+				datalogProgram.addAll(mappingRules.get(i));
+		}
+
+		if (errors.length() > 0) {
+			final String msg = "There was an error analyzing the following mappings. Please correct the issue(s) to continue.\n"
+					+ errors.toString();
+
+			throw  new IllegalArgumentException(msg);
+		}
 
-				// Parse the SQL query tree from the source query
-				ParsedSQLQuery parsedSQLQuery = SQLQueryDeepParser.parse(dbMetadata, sourceQuery.toString());
+		return datalogProgram;
+	}
+
+	/**
+	 * Constructs the rules of the mappings with the given source query
+	 */
+	private static void convert(SourceQuery sourceQuery, List<OBDAMappingAxiom> mappingList, DBMetadata dbMetadata,
+								List<List<CQIE>> mappingRules, String[] errorMessages) {
+
+		QuotedIDFactory idfac = dbMetadata.getQuotedIDFactory();
+		if (sourceQuery.error == null) {
+			try {
+				ParsedSQLQuery parsedSQLQuery = sourceQuery.parsedSQLQuery;
 
 				// Create a lookup table for variable swapping
 				AttributeLookupTable lookupTable = createLookupTable(parsedSQLQuery, dbMetadata, idfac);
@@ -82,60 +190,106 @@ public class Mapping2DatalogConverter {
 				// Construct the body from the source query
 				List<Function> bodyAtoms = new ArrayList<>();
 
-                // For each table, creates an atom and adds it to the body
-                addTableAtoms(bodyAtoms, parsedSQLQuery, lookupTable, dbMetadata);
+				// For each table, creates an atom and adds it to the body
+				addTableAtoms(bodyAtoms, parsedSQLQuery, lookupTable, dbMetadata);
 
-                // For each join condition, creates an atom and adds it to the body
-                List<Expression> joinConditions = parsedSQLQuery.getJoinConditions();
-                for (Expression condition : joinConditions) {
-                    Expression2FunctionConverter visitor = new Expression2FunctionConverter(lookupTable, idfac);
-                    Term atom = visitor.visitEx(condition);
-                    bodyAtoms.add((Function) atom);
-                }
+				// For each join condition, creates an atom and adds it to the body
+				List<Expression> joinConditions = parsedSQLQuery.getJoinConditions();
+				for (Expression condition : joinConditions) {
+					Expression2FunctionConverter visitor = new Expression2FunctionConverter(lookupTable, idfac);
+					Term atom = visitor.visitEx(condition);
+					bodyAtoms.add((Function) atom);
+				}
 
-                // For the "where" clause, creates an atom and adds it to the body
-                Expression conditions = parsedSQLQuery.getWhereClause();
-                if (conditions != null) {
-                    Expression2FunctionConverter converter = new Expression2FunctionConverter(lookupTable, idfac);
-                    Function filterFunction =  converter.convert(conditions);
-                    bodyAtoms.add(filterFunction);
-                }
+				// For the "where" clause, creates an atom and adds it to the body
+				Expression conditions = parsedSQLQuery.getWhereClause();
+				if (conditions != null) {
+					Expression2FunctionConverter converter = new Expression2FunctionConverter(lookupTable, idfac);
+					Function filterFunction =  converter.convert(conditions);
+					bodyAtoms.add(filterFunction);
+				}
 
-                // For each body atom in the target query,
-                //  (1) renameVariables its variables and
-                //  (2) use it as the head atom of a new rule
-                List<Function> targetQuery = mappingAxiom.getTargetQuery();
-                for (Function atom : targetQuery) {
-                    // Construct the head from the target query 
-                	// (includes dealing with functions like concat as well).
-                    Function head = (Function)renameVariables(atom, lookupTable, idfac);
-                    // Create a new rule from the new head and the body
-                    CQIE rule = fac.getCQIE(head, bodyAtoms);
-                    datalogProgram.add(rule);
-                }
-			} 
+				sourceQuery.lookupTable = lookupTable;
+				sourceQuery.bodyAtoms = bodyAtoms;
+			}
 			catch (Exception e) {
-				errorMessages.add("Error in mapping with id: " + mappingAxiom.getId()
-                        + " \n Description: " + e.getMessage()
-                        + " \nMapping: [" + mappingAxiom.toString() + "]");
-				break;
+				sourceQuery.error = e;
 			}
 		}
 
-		if (errorMessages.size() > 0) {
-			StringBuilder errors = new StringBuilder();
-			for (String error : errorMessages) {
-				errors.append(error + "\n");
+		boolean first = true;
+		for (int i : sourceQuery.mappingIndexes) {
+			OBDAMappingAxiom mappingAxiom = mappingList.get(i);
+			try {
+				if (sourceQuery.error != null)
+					throw sourceQuery.error;
+
+				// the mappings do not share the body atoms
+				List<Function> bodyAtoms = sourceQuery.bodyAtoms;
+				if (!first) {
+					bodyAtoms = new ArrayList<>(sourceQuery.bodyAtoms.size());
+					for (Function atom : sourceQuery.bodyAtoms)
+						bodyAtoms.add((Function) atom.clone());
+				}
+				first = false;
+
+				// For each body atom in the target query,
+				//  (1) renameVariables its variables and
+				//  (2) use it as the head atom of a new rule
+				List<Function> targetQuery = mappingAxiom.getTargetQuery();
+				List<CQIE> rules = new ArrayList<>(targetQuery.size());
+				for (Function atom : targetQuery) {
+					// Construct the head from the target query
+					// (includes dealing with functions like concat as well).
+					Function head = (Function)renameVariables(atom, sourceQuery.lookupTable, idfac);
+					// Create a new rule from the new head and the body
+					CQIE rule = fac.getCQIE(head, bodyAtoms);
+					rules.add(rule);
+				}
+				mappingRules.set(i, rules);
+			}
+			catch (Exception e) {
+				errorMessages[i] = "Error in mapping with id: " + mappingAxiom.getId()
+						+ " \n Description: " + e.getMessage()
+						+ " \nMapping: [" + mappingAxiom.toString() + "]";
 			}
-			final String msg = "There was an error analyzing the following mappings. Please correct the issue(s) to continue.\n"
-					+ errors.toString();
-
-			throw  new IllegalArgumentException(msg);
 		}
-
-		return datalogProgram;
 	}
 
+	/**
+	 * runs the tasks and waits for all of them to complete
+	 * (in the calling thread if there is no executor)
+	 */
+	private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) {
+		if (executor == null) {
+			for (Callable<Void> task : tasks)
+				try {
+					task.call();
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			return;
+		}
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks))
+				future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Mapping analysis interrupted", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
 
     
     /**
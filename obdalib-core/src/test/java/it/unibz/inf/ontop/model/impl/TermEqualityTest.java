@@ -0,0 +1,64 @@
+package it.unibz.inf.ontop.model.impl;
+
+import it.unibz.inf.ontop.model.CQIE;
+import it.unibz.inf.ontop.model.Function;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.model.Variable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class TermEqualityTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    private final Predicate p = fac.getPredicate("p", 2);
+    private final Predicate q = fac.getPredicate("q", 1);
+
+    @Test
+    public void testInterning() {
+        assertSame(fac.getVariable("x"), fac.getVariable("x"));
+        assertSame(fac.getConstantURI("http://example.org/a"), fac.getConstantURI("http://example.org/a"));
+    }
+
+    @Test
+    public void testHashCollision() {
+        // "Aa" and "BB" have the same String hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(fac.getVariable("Aa"), fac.getVariable("BB"));
+        assertNotEquals(fac.getFunction(q, fac.getVariable("Aa")), fac.getFunction(q, fac.getVariable("BB")));
+        assertNotEquals(fac.getConstantLiteral("Aa"), fac.getConstantLiteral("BB"));
+    }
+
+    @Test
+    public void testStructuralEquality() {
+        Variable x = fac.getVariable("x"), y = fac.getVariable("y");
+        Function a1 = fac.getFunction(p, x, fac.getFunction(q, y));
+        Function a2 = fac.getFunction(p, x, fac.getFunction(q, y));
+        assertEquals(a1, a2);
+        assertEquals(a1.hashCode(), a2.hashCode());
+
+        // changes in nested terms are taken into account
+        ((Function) a2.getTerm(1)).setTerm(0, x);
+        assertNotEquals(a1, a2);
+        ((Function) a1.getTerm(1)).setTerm(0, x);
+        assertEquals(a1, a2);
+        assertEquals(a1.hashCode(), a2.hashCode());
+    }
+
+    @Test
+    public void testRuleEquality() {
+        Variable x = fac.getVariable("x"), y = fac.getVariable("y");
+        CQIE r1 = fac.getCQIE(fac.getFunction(q, x), fac.getFunction(p, x, y));
+        CQIE r2 = r1.clone();
+        assertEquals(r1, r2);
+        assertEquals(r1.hashCode(), r2.hashCode());
+
+        r2.getBody().get(0).setTerm(1, x);
+        assertFalse(r1.equals(r2));
+    }
+}
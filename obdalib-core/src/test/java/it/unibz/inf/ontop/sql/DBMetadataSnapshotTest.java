@@ -0,0 +1,125 @@
+package it.unibz.inf.ontop.sql;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.sql.Types;
+
+import static org.junit.Assert.*;
+
+public class DBMetadataSnapshotTest {
+
+	private static final long FINGERPRINT = 42;
+
+	private DBMetadata md;
+	private QuotedIDFactory idfac;
+	private File file;
+
+	@Before
+	public void setupMetadata() throws IOException {
+		md = DBMetadataExtractor.createDummyMetadata();
+		idfac = md.getQuotedIDFactory();
+
+		DatabaseRelationDefinition td = md.createDatabaseRelation(idfac.createRelationID("S", "TABLE1"));
+		Attribute id = td.addAttribute(idfac.createAttributeID("ID"), Types.INTEGER, "INTEGER", false);
+		Attribute name = td.addAttribute(idfac.createAttributeID("NAME"), Types.VARCHAR, "VARCHAR", true);
+		td.addUniqueConstraint(UniqueConstraint.primaryKeyOf(id));
+		td.addUniqueConstraint(UniqueConstraint.builder(td).add(name).build("UC_NAME", false));
+
+		DatabaseRelationDefinition td2 = md.createDatabaseRelation(idfac.createRelationID(null, "TABLE2"));
+		Attribute ref = td2.addAttribute(idfac.createAttributeID("REF"), Types.INTEGER, "INTEGER", true);
+		td2.addForeignKeyConstraint(ForeignKeyConstraint.of("FK_REF", ref, id));
+
+		file = File.createTempFile("metadata", ".snapshot");
+	}
+
+	@After
+	public void deleteSnapshot() {
+		file.delete();
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		String scope = DBMetadataSnapshot.getScope(null);
+		DBMetadataSnapshot.save(md, scope, FINGERPRINT, file);
+
+		DBMetadata md2 = DBMetadataExtractor.createDummyMetadata();
+		assertTrue(DBMetadataSnapshot.load(md2, scope, FINGERPRINT, file));
+		assertEquals(2, md2.getDatabaseRelations().size());
+
+		DatabaseRelationDefinition td = md2.getDatabaseRelation(idfac.createRelationID("S", "TABLE1"));
+		assertEquals(2, td.getAttributes().size());
+		assertEquals(Types.VARCHAR, td.getAttribute(2).getType());
+		assertTrue(td.getAttribute(2).canNull());
+		assertEquals(ImmutableSet.of(td.getAttribute(1)), ImmutableSet.copyOf(td.getPrimaryKey().getAttributes()));
+		assertEquals(2, td.getUniqueConstraints().size());
+		assertEquals("UC_NAME", td.getUniqueConstraints().get(1).getName());
+
+		DatabaseRelationDefinition td2 = md2.getDatabaseRelation(idfac.createRelationID(null, "TABLE2"));
+		ForeignKeyConstraint fk = td2.getForeignKeys().get(0);
+		assertEquals("FK_REF", fk.getName());
+		assertSame(td, fk.getReferencedRelation());
+		assertEquals(td.getAttribute(1), fk.getComponents().get(0).getReference());
+	}
+
+	@Test
+	public void testScopeMismatch() throws IOException {
+		DBMetadataSnapshot.save(md, DBMetadataSnapshot.getScope(null), FINGERPRINT, file);
+
+		DBMetadata md2 = DBMetadataExtractor.createDummyMetadata();
+		String scope = DBMetadataSnapshot.getScope(ImmutableSet.of(idfac.createRelationID(null, "TABLE2")));
+		assertFalse(DBMetadataSnapshot.load(md2, scope, FINGERPRINT, file));
+		assertTrue(md2.getDatabaseRelations().isEmpty());
+	}
+
+	@Test
+	public void testEngineMismatch() throws IOException {
+		String scope = DBMetadataSnapshot.getScope(null);
+		DBMetadataSnapshot.save(md, scope, FINGERPRINT, file);
+
+		DBMetadata md2 = DBMetadataExtractor.createDummyMetadata("org.h2.Driver");
+		assertFalse(DBMetadataSnapshot.load(md2, scope, FINGERPRINT, file));
+	}
+
+	@Test
+	public void testSchemaChange() throws IOException {
+		String scope = DBMetadataSnapshot.getScope(null);
+		DBMetadataSnapshot.save(md, scope, FINGERPRINT, file);
+
+		DBMetadata md2 = DBMetadataExtractor.createDummyMetadata();
+		assertFalse(DBMetadataSnapshot.load(md2, scope, FINGERPRINT + 1, file));
+		assertTrue(md2.getDatabaseRelations().isEmpty());
+	}
+
+	@Test
+	public void testInvalidate() throws IOException {
+		String scope = DBMetadataSnapshot.getScope(null);
+		DBMetadataSnapshot.save(md, scope, FINGERPRINT, file);
+		DBMetadataSnapshot.invalidate(file);
+
+		assertFalse(file.exists());
+		assertFalse(DBMetadataSnapshot.load(DBMetadataExtractor.createDummyMetadata(), scope, FINGERPRINT, file));
+	}
+
+	@Test
+	public void testCorruptSnapshot() throws IOException {
+		String scope = DBMetadataSnapshot.getScope(null);
+		DBMetadataSnapshot.save(md, scope, FINGERPRINT, file);
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length() - 1);
+			int last = raf.read();
+			raf.seek(raf.length() - 1);
+			raf.write(last ^ 0xFF);
+		}
+
+		DBMetadata md2 = DBMetadataExtractor.createDummyMetadata();
+		assertFalse(DBMetadataSnapshot.load(md2, scope, FINGERPRINT, file));
+		assertTrue(md2.getDatabaseRelations().isEmpty());
+	}
+}
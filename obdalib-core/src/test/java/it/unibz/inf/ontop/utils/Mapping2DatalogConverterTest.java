@@ -37,6 +37,8 @@ import junit.framework.TestCase;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 public class Mapping2DatalogConverterTest extends TestCase {
@@ -248,4 +250,63 @@ public class Mapping2DatalogConverterTest extends TestCase {
 
 
 
+	private OBDAMappingAxiom mapping(String id, String source, String targetString) throws Exception {
+		TurtleOBDASyntaxParser targetParser = new TurtleOBDASyntaxParser(pm);
+		return ofac.getRDBMSMappingAxiom(id, ofac.getSQLQuery(source), targetParser.parse(targetString));
+	}
+
+	public void testSharedSourceQueries() throws Exception {
+		List<OBDAMappingAxiom> mappingList = new ArrayList<>();
+		mappingList.add(mapping("m1", "select id, first_name from Student", ":S_{id} a :Student ."));
+		mappingList.add(mapping("m2", "select cid from Course", ":C_{cid} a :Course ."));
+		mappingList.add(mapping("m3", "select id, first_name from Student", ":S_{id} :fname {first_name} ."));
+
+		List<CQIE> dp = Mapping2DatalogConverter.constructDatalogProgram(mappingList, md);
+
+		// in the order of the mappings
+		assertEquals(3, dp.size());
+		assertTrue(dp.get(0).getHead().getFunctionSymbol().getName().endsWith("Student"));
+		assertTrue(dp.get(1).getHead().getFunctionSymbol().getName().endsWith("Course"));
+		assertTrue(dp.get(2).getHead().getFunctionSymbol().getName().endsWith("fname"));
+		// the rules of the mappings with the same source query do not share the body atoms
+		assertEquals(dp.get(0).getBody(), dp.get(2).getBody());
+		assertNotSame(dp.get(0).getBody().get(0), dp.get(2).getBody().get(0));
+	}
+
+	public void testExecutor() throws Exception {
+		List<OBDAMappingAxiom> mappingList = new ArrayList<>();
+		mappingList.add(mapping("m1", "select id, first_name from Student", ":S_{id} a :Student ."));
+		mappingList.add(mapping("m2", "select cid from Course", ":C_{cid} a :Course ."));
+		mappingList.add(mapping("m3", "select id, first_name from Student", ":S_{id} :fname {first_name} ."));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			// the same rules in the same order as in the calling thread
+			List<CQIE> dp = Mapping2DatalogConverter.constructDatalogProgram(mappingList, md);
+			assertEquals(dp, Mapping2DatalogConverter.constructDatalogProgram(mappingList, md, executor));
+			// the executor is not shut down
+			assertFalse(executor.isShutdown());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testAllErrorsReported() throws Exception {
+		List<OBDAMappingAxiom> mappingList = new ArrayList<>();
+		mappingList.add(mapping("m1", "select id from Student", ":S_{id} a :Student ."));
+		mappingList.add(mapping("m2", "select id from Student", ":S_{unknown} a :Student ."));
+		mappingList.add(mapping("m3", "select cid from Course", ":C_{wrong} a :Course ."));
+
+		try {
+			Mapping2DatalogConverter.constructDatalogProgram(mappingList, md);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertFalse(e.getMessage().contains("id: m1 "));
+			assertTrue(e.getMessage().indexOf("id: m2 ") >= 0);
+			assertTrue(e.getMessage().indexOf("id: m3 ") > e.getMessage().indexOf("id: m2 "));
+		}
+	}
+
 }
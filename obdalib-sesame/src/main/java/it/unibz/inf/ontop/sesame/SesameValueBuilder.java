@@ -0,0 +1,83 @@
+package it.unibz.inf.ontop.sesame;
+
+/*
+ * #%L
+ * ontop-obdalib-sesame
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.DatatypeFactory;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.ValueBuilder;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * Builds Sesame values from the lexical forms of a result set (the same
+ * values as {@link SesameHelper#getValue}, without the intermediate constants).
+ * The datatype URIs are created once, for all the result sets.
+ */
+public class SesameValueBuilder implements ValueBuilder<Value> {
+
+	private static final SesameValueBuilder instance = new SesameValueBuilder();
+
+	private final ValueFactory fact = ValueFactoryImpl.getInstance();
+
+	// the datatype URIs indexed by the ordinals of the types (null for the unknown types)
+	private final URI[] datatypes;
+
+	private SesameValueBuilder() {
+		DatatypeFactory dtfac = OBDADataFactoryImpl.getInstance().getDatatypeFactory();
+		COL_TYPE[] types = COL_TYPE.values();
+		datatypes = new URI[types.length];
+		for (COL_TYPE type : types)
+			datatypes[type.ordinal()] = dtfac.getDatatypeURI(type);
+	}
+
+	public static SesameValueBuilder getInstance() {
+		return instance;
+	}
+
+	@Override
+	public Value getURI(String uri) {
+		return fact.createURI(uri);
+	}
+
+	@Override
+	public Value getBNode(String name) {
+		return fact.createBNode(name);
+	}
+
+	@Override
+	public Value getLiteral(String value, String language) {
+		return (language == null) ? fact.createLiteral(value) : fact.createLiteral(value, language);
+	}
+
+	@Override
+	public Value getLiteral(String value, COL_TYPE type) {
+		if (type == COL_TYPE.LITERAL || type == COL_TYPE.LITERAL_LANG)
+			return fact.createLiteral(value);
+
+		URI datatype = datatypes[type.ordinal()];
+		if (datatype == null)
+			throw new RuntimeException("Found unknown TYPE for constant: " + value + " with COL_TYPE=" + type);
+		return fact.createLiteral(value, datatype);
+	}
+}
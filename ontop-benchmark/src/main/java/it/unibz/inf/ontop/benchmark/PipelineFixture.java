@@ -0,0 +1,249 @@
+package it.unibz.inf.ontop.benchmark;
+
+/*
+ * #%L
+ * ontop-benchmark
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.ontology.Ontology;
+import it.unibz.inf.ontop.owlapi.OWLAPITranslatorUtility;
+import it.unibz.inf.ontop.owlrefplatform.core.QueryTranslationStages;
+import it.unibz.inf.ontop.owlrefplatform.core.Quest;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConnection;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestStatement;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.*;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasonerImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.TMappingExclusionConfig;
+import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.TMappingProcessor;
+import it.unibz.inf.ontop.owlrefplatform.core.resultset.QuestTupleResultSet;
+import it.unibz.inf.ontop.owlrefplatform.core.translator.SparqlQuery;
+import it.unibz.inf.ontop.sql.DBMetadata;
+import it.unibz.inf.ontop.utils.Mapping2DatalogConverter;
+import org.h2.tools.SimpleResultSet;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.parser.ParsedQuery;
+import org.openrdf.query.parser.QueryParser;
+import org.openrdf.query.parser.QueryParserUtil;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bundled university scenario (ontology, mappings and an H2 database of
+ * the given number of people) and the stages of the query translation
+ * pipeline of a Quest instance (see {@link QueryTranslationStages}), so that
+ * each stage can be measured on its own.
+ *
+ * <p>
+ * The stages do not modify their input programs (they work on clones).
+ * The context of a query is created empty and passed to {@link #translate},
+ * which reserves the suffixes of the variables of the query; a stage that
+ * starts from an intermediate program takes a context created from that
+ * program (see {@link QueryTranslationContext#QueryTranslationContext(DatalogProgram)}).
+ */
+public class PipelineFixture implements AutoCloseable {
+
+	public static final String QUERY_PREFIX = "university/queries/";
+
+	private static final String JDBC_URL = "jdbc:h2:mem:ontopbenchmark;DB_CLOSE_DELAY=-1";
+
+	private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+	private final Connection connection;
+	private final Quest quest;
+	private final QuestConnection questConnection;
+	private final QuestStatement questStatement;
+
+	private final Ontology ontology;
+	private final TBoxReasoner reasoner;
+	private final DBMetadata metadata;
+	private final List<OBDAMappingAxiom> mappings;
+	private final VocabularyValidator vocabularyValidator;
+	private final QueryTranslationStages stages;
+
+	/**
+	 * @param scale the number of people in the database (at least 10)
+	 */
+	public PipelineFixture(int scale) throws Exception {
+		connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+		String script = Resources.toString(Resources.getResource("university/university-h2.sql"), Charsets.UTF_8);
+		try (Statement st = connection.createStatement()) {
+			st.execute("DROP ALL OBJECTS");
+			for (String statement : script.replace("${scale}", Integer.toString(scale)).split(";"))
+				if (!statement.trim().isEmpty())
+					st.execute(statement);
+		}
+
+		try (InputStream in = Resources.getResource("university/university.owl").openStream()) {
+			OWLOntology owl = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(in);
+			ontology = OWLAPITranslatorUtility.translateImportsClosure(owl);
+		}
+		OBDAModel obdaModel = fac.getOBDAModel();
+		try (InputStream in = Resources.getResource("university/university.obda").openStream()) {
+			new ModelIOManager(obdaModel).load(in);
+		}
+
+		QuestPreferences preferences = new QuestPreferences();
+		preferences.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+		preferences.setCurrentValueOf(QuestPreferences.REWRITE, QuestConstants.TRUE);
+		quest = new Quest(ontology, obdaModel, preferences);
+		quest.setupRepository();
+		questConnection = quest.getConnection();
+		questStatement = questConnection.createStatement();
+
+		URI source = obdaModel.getSources().get(0).getSourceID();
+		// the mappings have been repaired by Quest
+		mappings = obdaModel.getMappings(source);
+		metadata = quest.getMetaData();
+
+		reasoner = TBoxReasonerImpl.create(ontology, true);
+		vocabularyValidator = new VocabularyValidator(reasoner, ontology.getVocabulary());
+		stages = new QueryTranslationStages(quest);
+	}
+
+	/**
+	 * @param name the name of a bundled query (in university/queries, without .rq)
+	 */
+	public static String loadQuery(String name) throws Exception {
+		return Resources.toString(Resources.getResource(QUERY_PREFIX + name + ".rq"), Charsets.UTF_8);
+	}
+
+	public ParsedQuery parse(String sparql) throws Exception {
+		QueryParser parser = QueryParserUtil.createParser(QueryLanguage.SPARQL);
+		return parser.parseQuery(sparql, null);
+	}
+
+	/**
+	 * @param context an empty context (the suffixes of the variables of the query are reserved in it)
+	 */
+	public SparqlQuery translate(ParsedQuery pq, QueryTranslationContext context) {
+		return stages.translateToDatalog(pq, context);
+	}
+
+	/**
+	 * The steps between the translation and the rewriting: owl:sameAs, equivalences,
+	 * flattening, join trees and the ABox dependencies
+	 */
+	public DatalogProgram normalize(SparqlQuery translation, QueryTranslationContext context) throws OBDAException {
+		return stages.normalize(translation.getProgram().clone(), context);
+	}
+
+	public DatalogProgram rewrite(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		return stages.rewrite(program.clone(), context);
+	}
+
+	/**
+	 * The unfolding with the mappings, without the auxiliary rules and with
+	 * the boolean expressions evaluated
+	 */
+	public DatalogProgram unfold(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		DatalogProgram unfolding = stages.unfold(program.clone(), context);
+		stages.evaluateExpressions(unfolding);
+		return unfolding;
+	}
+
+	public String generateSQL(DatalogProgram unfolding, List<String> signature) throws OBDAException {
+		return stages.generateSQL(unfolding.clone(), signature);
+	}
+
+	/**
+	 * The Datalog rules of the mappings (the input of the T-mapping construction)
+	 */
+	public List<CQIE> getMappingRules() {
+		return Mapping2DatalogConverter.constructDatalogProgram(vocabularyValidator.replaceEquivalences(mappings), metadata);
+	}
+
+	public List<CQIE> computeTMappings(List<CQIE> mappingRules) {
+		List<CQIE> rules = new ArrayList<>(mappingRules.size());
+		for (CQIE rule : mappingRules)
+			rules.add(rule.clone());
+		CQContainmentCheckUnderLIDs cqc = new CQContainmentCheckUnderLIDs(DBMetadataUtil.generateFKRules(metadata));
+		return TMappingProcessor.getTMappings(rules, reasoner, true, cqc, TMappingExclusionConfig.empty());
+	}
+
+	/**
+	 * Runs the SQL query and keeps its rows in memory (to decode them many times)
+	 */
+	public SimpleResultSet materialize(String sql) throws Exception {
+		SimpleResultSet result = new SimpleResultSet();
+		try (Statement st = connection.createStatement();
+			 ResultSet rs = st.executeQuery(sql)) {
+			ResultSetMetaData md = rs.getMetaData();
+			int columns = md.getColumnCount();
+			for (int i = 1; i <= columns; i++)
+				result.addColumn(md.getColumnLabel(i), md.getColumnType(i), md.getPrecision(i), md.getScale(i));
+			while (rs.next()) {
+				Object[] row = new Object[columns];
+				for (int i = 1; i <= columns; i++)
+					row[i - 1] = rs.getObject(i);
+				result.addRow(row);
+			}
+		}
+		result.setAutoClose(false);
+		return result;
+	}
+
+	/**
+	 * Decodes the SQL rows into RDF terms as the statements of Quest do
+	 */
+	public TupleResultSet decode(ResultSet rs, List<String> signature) throws OBDAException {
+		return new QuestTupleResultSet(rs, signature, questStatement);
+	}
+
+	/**
+	 * All the stages from the SPARQL string to the SQL string
+	 */
+	public String translateToSQL(String sparql) throws Exception {
+		QueryTranslationContext context = new QueryTranslationContext();
+		SparqlQuery translation = translate(parse(sparql), context);
+		DatalogProgram rewriting = rewrite(normalize(translation, context), context);
+		return generateSQL(unfold(rewriting, context), translation.getSignature());
+	}
+
+	@Override
+	public void close() throws Exception {
+		try {
+			questStatement.close();
+			questConnection.close();
+			quest.close();
+		}
+		finally {
+			try (Statement st = connection.createStatement()) {
+				st.execute("DROP ALL OBJECTS");
+			}
+			connection.close();
+		}
+	}
+}
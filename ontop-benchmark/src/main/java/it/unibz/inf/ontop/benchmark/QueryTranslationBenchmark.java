@@ -0,0 +1,106 @@
+package it.unibz.inf.ontop.benchmark;
+
+/*
+ * #%L
+ * ontop-benchmark
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import it.unibz.inf.ontop.model.DatalogProgram;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
+import it.unibz.inf.ontop.owlrefplatform.core.translator.SparqlQuery;
+import org.openjdk.jmh.annotations.*;
+import org.openrdf.query.parser.ParsedQuery;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages of the translation of the bundled SPARQL queries into SQL:
+ * parsing, translation into Datalog, tree-witness rewriting, unfolding with
+ * the T-mappings and SQL generation (and the whole pipeline). Each stage
+ * takes the output of the previous one, computed once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryTranslationBenchmark {
+
+	@Param({ "people", "enrollment", "advisors", "optional" })
+	public String query;
+
+	private PipelineFixture fixture;
+
+	private String sparql;
+	private ParsedQuery parsedQuery;
+	private SparqlQuery translation;
+	private DatalogProgram normalized;
+	private DatalogProgram rewriting;
+	private DatalogProgram unfolding;
+
+	@Setup
+	public void setUp() throws Exception {
+		fixture = new PipelineFixture(100);
+		sparql = PipelineFixture.loadQuery(query);
+
+		QueryTranslationContext context = new QueryTranslationContext();
+		parsedQuery = fixture.parse(sparql);
+		translation = fixture.translate(parsedQuery, context);
+		normalized = fixture.normalize(translation, context);
+		rewriting = fixture.rewrite(normalized, context);
+		unfolding = fixture.unfold(rewriting, context);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public ParsedQuery parse() throws Exception {
+		return fixture.parse(sparql);
+	}
+
+	@Benchmark
+	public SparqlQuery translate() {
+		return fixture.translate(parsedQuery, new QueryTranslationContext());
+	}
+
+	@Benchmark
+	public DatalogProgram rewrite() throws Exception {
+		// the fresh variables of the rewriting do not capture those of the normalized program
+		return fixture.rewrite(normalized, new QueryTranslationContext(normalized));
+	}
+
+	@Benchmark
+	public DatalogProgram unfold() throws Exception {
+		return fixture.unfold(rewriting, new QueryTranslationContext(rewriting));
+	}
+
+	@Benchmark
+	public String generateSQL() throws Exception {
+		return fixture.generateSQL(unfolding, translation.getSignature());
+	}
+
+	@Benchmark
+	public String pipeline() throws Exception {
+		return fixture.translateToSQL(sparql);
+	}
+}
@@ -0,0 +1,83 @@
+package it.unibz.inf.ontop.benchmark;
+
+/*
+ * #%L
+ * ontop-benchmark
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import it.unibz.inf.ontop.model.TupleResultSet;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The decoding of the rows of the SQL translation of the bundled queries into
+ * RDF terms by {@link it.unibz.inf.ontop.owlrefplatform.core.resultset.QuestTupleResultSet}.
+ * The rows are read from H2 once and kept in memory, so that the database is
+ * not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetDecodingBenchmark {
+
+	@Param({ "people", "enrollment" })
+	public String query;
+
+	@Param({ "1000", "10000" })
+	public int scale;
+
+	private PipelineFixture fixture;
+	private List<String> signature;
+	private SimpleResultSet rows;
+
+	@Setup
+	public void setUp() throws Exception {
+		fixture = new PipelineFixture(scale);
+		String sparql = PipelineFixture.loadQuery(query);
+		signature = fixture.translate(fixture.parse(sparql), new QueryTranslationContext()).getSignature();
+		rows = fixture.materialize(fixture.translateToSQL(sparql));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public int decode(Blackhole bh) throws Exception {
+		rows.beforeFirst();
+		// not closed, this would close the rows
+		TupleResultSet rs = fixture.decode(rows, signature);
+		int count = 0;
+		while (rs.nextRow()) {
+			for (int column = 1; column <= signature.size(); column++)
+				bh.consume(rs.getConstant(column));
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,60 @@
+package it.unibz.inf.ontop.benchmark;
+
+/*
+ * #%L
+ * ontop-benchmark
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import it.unibz.inf.ontop.model.CQIE;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The construction of the T-mappings of the bundled mappings (saturation
+ * with the class and property hierarchies of the ontology).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TMappingBenchmark {
+
+	private PipelineFixture fixture;
+	private List<CQIE> mappingRules;
+
+	@Setup
+	public void setUp() throws Exception {
+		fixture = new PipelineFixture(10);
+		mappingRules = fixture.getMappingRules();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public List<CQIE> computeTMappings() {
+		return fixture.computeTMappings(mappingRules);
+	}
+}
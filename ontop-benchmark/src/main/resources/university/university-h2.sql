@@ -0,0 +1,39 @@
+CREATE TABLE department (
+    id int NOT NULL PRIMARY KEY,
+    name character varying(100) NOT NULL
+);
+
+CREATE TABLE person (
+    id int NOT NULL PRIMARY KEY,
+    name character varying(100) NOT NULL,
+    email character varying(100),
+    kind character(2) NOT NULL,
+    dept_id int NOT NULL REFERENCES department(id),
+    advisor_id int
+);
+
+CREATE TABLE course (
+    id int NOT NULL PRIMARY KEY,
+    name character varying(100) NOT NULL,
+    graduate boolean NOT NULL,
+    teacher_id int NOT NULL REFERENCES person(id)
+);
+
+CREATE TABLE takes (
+    student_id int NOT NULL REFERENCES person(id),
+    course_id int NOT NULL REFERENCES course(id)
+);
+
+INSERT INTO department SELECT X, 'Department ' || X FROM SYSTEM_RANGE(1, 20);
+
+INSERT INTO person SELECT X, 'Person ' || X, 'p' || X || '@example.org',
+    CASE MOD(X, 10) WHEN 0 THEN 'PR' WHEN 1 THEN 'LE' WHEN 2 THEN 'GS' WHEN 3 THEN 'GS' ELSE 'UG' END,
+    MOD(X, 20) + 1,
+    CASE WHEN MOD(X, 10) IN (2, 3) THEN X - MOD(X, 10) + 10 END
+    FROM SYSTEM_RANGE(1, ${scale});
+
+INSERT INTO course SELECT X, 'Course ' || X, MOD(X, 4) = 0, 10 * X
+    FROM SYSTEM_RANGE(1, ${scale} / 10);
+
+INSERT INTO takes SELECT DISTINCT p.id, MOD(p.id * 7 + k.X, ${scale} / 10) + 1
+    FROM person p, SYSTEM_RANGE(0, 2) k WHERE p.kind IN ('UG', 'GS');
@@ -0,0 +1,4 @@
+package it.unibz.inf.ontop.benchmark.generated;
+public class QueryTranslationBenchmark_jmhType extends QueryTranslationBenchmark_jmhType_B3 {
+}
+
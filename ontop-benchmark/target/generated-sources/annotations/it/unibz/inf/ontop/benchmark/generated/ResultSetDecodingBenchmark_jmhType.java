@@ -0,0 +1,4 @@
+package it.unibz.inf.ontop.benchmark.generated;
+public class ResultSetDecodingBenchmark_jmhType extends ResultSetDecodingBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package it.unibz.inf.ontop.benchmark.generated;
+public class TMappingBenchmark_jmhType extends TMappingBenchmark_jmhType_B3 {
+}
+
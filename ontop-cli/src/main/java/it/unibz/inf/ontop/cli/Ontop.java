@@ -52,10 +52,10 @@ public class Ontop {
                         OntopMaterialize.class,
                         OntopBootstrap.class,
                         OntopValidate.class,
+                        OntopCompile.class
                         /**
                          * hidden commands
                          */
-                        OntopCompile.class
                         // OntopServer.class
                 );
 
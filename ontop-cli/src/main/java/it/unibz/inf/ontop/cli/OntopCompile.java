@@ -21,14 +21,81 @@ package it.unibz.inf.ontop.cli;
  */
 
 import com.github.rvesse.airline.annotations.Command;
+import it.unibz.inf.ontop.exception.InvalidMappingException;
+import it.unibz.inf.ontop.exception.InvalidPredicateDeclarationException;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.QuestOWL;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.QuestOWLConfiguration;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.QuestOWLFactory;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
 
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Sets up Quest in virtual mode and saves the result (the unfolding program with the T-mappings
+ * and the database metadata) to the output file, from which Quest can start with the same
+ * ontology and mapping (see the compiled_artifact option).
+ */
 @Command(name = "compile",
-        description = "compile the ontology axioms into  mappings",
-        hidden = true)
-public class OntopCompile implements OntopCommand {
+        description = "Compile the mapping and the OWL ontology into an artifact for a fast start (see the compiled_artifact option)")
+public class OntopCompile extends OntopReasoningCommandBase {
+
+    public OntopCompile() {
+    }
 
     @Override
     public void run() {
+        if (outputFile == null) {
+            System.err.println("Error: the output file of the compiled artifact is required (-o)");
+            System.exit(1);
+        }
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology;
+
+        try {
+            if (owlFile != null) {
+                ontology = manager.loadOntologyFromOntologyDocument((new File(owlFile)));
+
+                if (disableReasoning) {
+                /*
+                 * when reasoning is disabled, we extract only the declaration assertions for the vocabulary
+                 */
+                    ontology = extractDeclarations(manager, ontology);
+                }
+
+            } else {
+                ontology = manager.createOntology();
+            }
+        } catch (OWLOntologyCreationException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        QuestOWLFactory factory = null;
+        QuestOWLConfiguration config = null;
+        try {
+            OBDAModel obdaModel = loadMappingFile(mappingFile);
+            QuestOWLConfiguration.Builder builder = QuestOWLConfiguration.builder();
+            builder.obdaModel(obdaModel);
+            builder.queryingAnnotationsInOntology(enableAnnotations);
+            config = builder.build();
+            factory = new QuestOWLFactory();
+        } catch (IOException | InvalidPredicateDeclarationException | InvalidMappingException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
 
+        try (QuestOWL reasoner = factory.createReasoner(ontology, config)) {
+            reasoner.getQuestInstance().saveCompiledArtifact(new File(outputFile));
+            System.err.println("Compiled artifact saved to " + outputFile);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
     }
 }
@@ -31,13 +31,23 @@ import it.unibz.inf.ontop.model.Predicate;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
 import it.unibz.inf.ontop.ontology.Ontology;
 import it.unibz.inf.ontop.owlapi.OWLAPITranslatorUtility;
+import it.unibz.inf.ontop.ontology.Assertion;
 import it.unibz.inf.ontop.owlapi.QuestOWLIndividualAxiomIterator;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.MaterializationSink;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.QuestMaterializer;
 import it.unibz.inf.ontop.owlrefplatform.owlapi.OWLAPIMaterializer;
+import it.unibz.inf.ontop.sesame.SesameStatement;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.n3.N3Writer;
+import org.openrdf.rio.ntriples.NTriplesWriter;
+import org.openrdf.rio.rdfxml.RDFXMLWriter;
+import org.openrdf.rio.turtle.TurtleWriter;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.io.WriterDocumentTarget;
 import org.semanticweb.owlapi.model.*;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -51,19 +61,26 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
     private static final String OWL_XML = "owlxml";
     private static final String TURTLE = "turtle";
     private static final String N3 = "n3";
+    private static final String NTRIPLES = "ntriples";
 
     @Option(type = OptionType.COMMAND, name = {"-f", "--format"}, title = "outputFormat",
             description = "The format of the materialized ontology. " +
                     //" Options: rdfxml, owlxml, turtle, n3. " +
                     "Default: rdfxml")
-    @AllowedValues(allowedValues = {RDF_XML, OWL_XML, TURTLE, N3})
+    @AllowedValues(allowedValues = {RDF_XML, OWL_XML, TURTLE, N3, NTRIPLES})
     public String format;
 
     @Option(type = OptionType.COMMAND, name = {"--separate-files"}, title = "output to separate files",
-            description = "generating separate files for different classes/properties. This is useful for" +
+            description = "generating the output into several files of the output directory (part-N, one per worker," +
+                    " or one file per class/property with owlxml). This is useful for" +
                     " materializing large OBDA setting. Default: false.")
     public boolean separate = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--workers"}, title = "number of workers",
+            description = "number of predicates materialized concurrently with --separate-files, each worker" +
+                    " writing to its own file (at least 1, at most the connection pool size max_pool_size)." +
+                    " Default: number of processors.")
+    public int workers = Runtime.getRuntime().availableProcessors();
 
 
     @Option(type = OptionType.COMMAND, name = {"--no-streaming"}, title = "do not execute streaming of results",
@@ -86,6 +103,9 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         if (noStream){
             doStreamResults = false;
         }
+        if (workers < 1) {
+            throw new IllegalArgumentException("The number of workers must be at least 1!");
+        }
         if(separate) {
             runWithSeparateFiles();
         } else {
@@ -138,13 +158,19 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             obdaModel.getOntologyVocabulary().merge(inputOntology.getVocabulary());
 
 
-            int numPredicates = predicates.size();
+            if (OWL_XML.equals(format)) {
+                // OWL/XML cannot be streamed: one ontology per predicate
+                int numPredicates = predicates.size();
 
-            int i = 1;
-            for (Predicate predicate : predicates) {
-                System.err.println(String.format("Materializing %s (%d/%d)", predicate, i, numPredicates));
-                serializePredicate(ontology, inputOntology, obdaModel, predicate, outputFile, format);
-                i++;
+                int i = 1;
+                for (Predicate predicate : predicates) {
+                    System.err.println(String.format("Materializing %s (%d/%d)", predicate, i, numPredicates));
+                    serializePredicate(ontology, inputOntology, obdaModel, predicate, outputFile, format);
+                    i++;
+                }
+            }
+            else {
+                materializeInParallel(inputOntology, obdaModel, predicates);
             }
 
         } catch (OWLOntologyCreationException e) {
@@ -154,6 +180,97 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         }
     }
 
+    /**
+     * Sets up Quest once and materializes the predicates concurrently, each worker
+     * streaming its triples into its own file.
+     */
+    private void materializeInParallel(Ontology inputOntology, OBDAModel obdaModel,
+                                       Collection<Predicate> predicates) throws Exception {
+        final long startTime = System.currentTimeMillis();
+
+        final String suffix = getFileSuffix(format);
+        Files.createDirectories(Paths.get(outputFile));
+        QuestMaterializer materializer = new QuestMaterializer(obdaModel, inputOntology, predicates, doStreamResults);
+        long tripleCount = materializer.materialize(workers, new MaterializationSink.Factory() {
+            @Override
+            public MaterializationSink create(int worker) throws Exception {
+                File file = Paths.get(outputFile, "part-" + worker + suffix).toFile();
+                return new RDFWriterSink(file, (format == null) ? RDF_XML : format);
+            }
+        });
+
+        System.out.println("NR of TRIPLES: " + tripleCount);
+        System.out.println("VOCABULARY SIZE (NR of QUERIES): " + materializer.getVocabSize());
+
+        final long endTime = System.currentTimeMillis();
+        final long time = endTime - startTime;
+        System.out.println("Elapsed time to materialize: " + time + " {ms}");
+    }
+
+    /**
+     * Writes the assertions of a worker into a file, as they are produced.
+     */
+    private static class RDFWriterSink implements MaterializationSink {
+
+        private final Writer writer;
+        private final RDFHandler handler;
+
+        RDFWriterSink(File file, String format) throws Exception {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+            switch (format) {
+                case TURTLE:
+                    handler = new TurtleWriter(writer);
+                    break;
+                case N3:
+                    handler = new N3Writer(writer);
+                    break;
+                case NTRIPLES:
+                    handler = new NTriplesWriter(writer);
+                    break;
+                default:
+                    handler = new RDFXMLWriter(writer);
+            }
+            handler.startRDF();
+        }
+
+        @Override
+        public void add(Assertion assertion) throws Exception {
+            SesameStatement st = new SesameStatement(assertion);
+            if (st.getSubject() != null && st.getPredicate() != null && st.getObject() != null)
+                handler.handleStatement(st);
+        }
+
+        @Override
+        public void close() throws Exception {
+            try {
+                handler.endRDF();
+            }
+            finally {
+                writer.close();
+            }
+        }
+    }
+
+    private static String getFileSuffix(String format) throws Exception {
+        if (format == null)
+            return ".rdf";
+
+        switch (format) {
+            case RDF_XML:
+                return ".rdf";
+            case OWL_XML:
+                return ".owl";
+            case TURTLE:
+                return ".ttl";
+            case N3:
+                return ".n3";
+            case NTRIPLES:
+                return ".nt";
+            default:
+                throw new Exception("Unknown format: " + format);
+        }
+    }
+
     /**
      * Serializes the A-box corresponding to a predicate into one or multiple file.
      */
@@ -192,24 +309,7 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
      */
     private int serializeTripleBatch(OWLOntology ontology, QuestOWLIndividualAxiomIterator iterator,
                                             String filePrefix, String predicateName, int fileCount, String format) throws Exception {
-        String suffix;
-
-        switch (format) {
-            case RDF_XML:
-                suffix = ".rdf";
-                break;
-            case OWL_XML:
-                suffix = ".owl";
-                break;
-            case TURTLE:
-                suffix = ".ttl";
-                break;
-            case N3:
-                suffix = ".n3";
-                break;
-            default:
-                throw new Exception("Unknown format: " + format);
-        }
+        String suffix = getFileSuffix(format);
         String fileName = filePrefix + fileCount + suffix;
 
         OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
@@ -13,6 +13,7 @@ import it.unibz.inf.ontop.model.OBDAModel;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
 import it.unibz.inf.ontop.r2rml.R2RMLReader;
 import org.semanticweb.owlapi.formats.N3DocumentFormat;
+import org.semanticweb.owlapi.formats.NTriplesDocumentFormat;
 import org.semanticweb.owlapi.formats.OWLXMLDocumentFormat;
 import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
 import org.semanticweb.owlapi.formats.TurtleDocumentFormat;
@@ -58,6 +59,9 @@ public abstract class OntopReasoningCommandBase extends OntopMappingOntologyRela
 				break;
             case "n3":
                 ontoFormat = new N3DocumentFormat();
+                break;
+            case "ntriples":
+                ontoFormat = new NTriplesDocumentFormat();
                 break;
 			default:
 				throw new Exception("Unknown format: " + format);
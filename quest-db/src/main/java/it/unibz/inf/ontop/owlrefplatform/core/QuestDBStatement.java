@@ -141,6 +141,20 @@ public class QuestDBStatement implements OBDAStatement {
 		return st.execute(query);
 	}
 
+	/**
+	 * Executes a SELECT or ASK query given by its algebra
+	 */
+	public TupleResultSet execute(ParsedQuery query) throws OBDAException {
+		return st.execute(query);
+	}
+
+	/**
+	 * Returns the number of answers of a query given by its algebra (counted by the database)
+	 */
+	public long getTupleCount(ParsedQuery query) throws Exception {
+		return st.getTupleCount(query);
+	}
+
 	@Override
 	public int executeUpdate(String query) throws OBDAException {
 		return st.executeUpdate(query);
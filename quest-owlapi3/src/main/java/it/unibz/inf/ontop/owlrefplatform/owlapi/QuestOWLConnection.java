@@ -23,6 +23,7 @@ package it.unibz.inf.ontop.owlrefplatform.owlapi;
 import java.sql.Connection;
 
 import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.owlrefplatform.core.Quest;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestConnection;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestStatement;
 
@@ -59,6 +60,10 @@ public class QuestOWLConnection implements AutoCloseable {
 		this.conn = conn;
 	}
 
+	Quest getQuestInstance() {
+		return conn.getQuestInstance();
+	}
+
 	@Deprecated // used in one test only
 	public Connection getConnection() {
 		return conn.getConnection();
@@ -20,11 +20,13 @@ package it.unibz.inf.ontop.owlrefplatform.owlapi;
  * #L%
  */
 
+import it.unibz.inf.ontop.model.OBDAException;
 import it.unibz.inf.ontop.model.Predicate;
 import it.unibz.inf.ontop.ontology.DataPropertyExpression;
 import it.unibz.inf.ontop.ontology.OClass;
 import it.unibz.inf.ontop.ontology.ObjectPropertyExpression;
 import it.unibz.inf.ontop.ontology.Ontology;
+import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.MappingEmptiness;
 import org.semanticweb.owlapi.model.OWLException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +38,11 @@ import java.util.Iterator;
  * which is connected to a database via mappings, generate a suitable set of
  * queries that test if there are empty concepts, concepts that are no populated
  * to anything.
+ * 
+ * <p>
+ * The emptiness of most concepts and roles is given by the emptiness analysis of
+ * the T-mappings (see Quest.getMappingEmptiness), which checks all the mappings 
+ * at once. A SPARQL query is executed only for the others.
  */
 public class QuestOWLEmptyEntitiesChecker {
 
@@ -45,6 +52,12 @@ public class QuestOWLEmptyEntitiesChecker {
 	private int nEmptyConcepts = 0;
 	private int nEmptyRoles = 0;
 
+	// null until the first check, or if the analysis failed
+	private MappingEmptiness emptiness;
+	private boolean analysed = false;
+
+	private static final Logger log = LoggerFactory.getLogger(QuestOWLEmptyEntitiesChecker.class);
+
 
 	/**
 	 * Generate SPARQL queries to check if there are instances for each concept and role in the ontology
@@ -76,6 +89,19 @@ public class QuestOWLEmptyEntitiesChecker {
 	}
 
 
+	private MappingEmptiness getMappingEmptiness() {
+		if (!analysed) {
+			analysed = true;
+			try {
+				emptiness = conn.getQuestInstance().getMappingEmptiness();
+			}
+			catch (OBDAException e) {
+				log.warn("Cannot analyse the emptiness of the mappings, every entity is checked by a query: {}", e.getMessage());
+			}
+		}
+		return emptiness;
+	}
+
 	@Override
 	public String toString() {
 		String str = new String();
@@ -225,6 +251,18 @@ public class QuestOWLEmptyEntitiesChecker {
 
 		private boolean nextEmptyEntity(Predicate entity) {
 
+			MappingEmptiness emptiness = getMappingEmptiness();
+			if (emptiness != null) {
+				if (emptiness.isNonEmpty(entity))
+					return false;
+				if (emptiness.isEmpty(entity)) {
+					nextConcept = entity;
+					log.debug( "Empty " + entity );
+					hasNext = true;
+					return true;
+				}
+			}
+
 			String query =getQuery(entity);
 
 			//execute next query
@@ -0,0 +1,254 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+/*
+ * #%L
+ * ontop-quest-owlapi
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class to test GROUP BY and aggregates in SPARQL (translated into SQL aggregates).
+ * Uses the data of {@link BindTest}.
+ */
+
+public class AggregateTest {
+
+    private Connection conn;
+
+    private OBDAModel obdaModel;
+    private OWLOntology ontology;
+
+    final String owlfile = "src/test/resources/test/bind/sparqlBind.owl";
+    final String obdafile = "src/test/resources/test/bind/sparqlBind.obda";
+
+    private static final String PREFIXES = "PREFIX  dc:  <http://purl.org/dc/elements/1.1/>\n"
+            + "PREFIX  ns:  <http://example.org/ns#>\n";
+
+    @Before
+    public void setUp() throws Exception {
+        OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+        conn = DriverManager.getConnection("jdbc:h2:mem:questjunitdb", "sa", "");
+        executeScript("src/test/resources/test/bind/sparqlBind-create-h2.sql");
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        ontology = manager.loadOntologyFromOntologyDocument((new File(owlfile)));
+
+        obdaModel = fac.getOBDAModel();
+        ModelIOManager ioManager = new ModelIOManager(obdaModel);
+        ioManager.load(obdafile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executeScript("src/test/resources/test/bind/sparqlBind-drop-h2.sql");
+        conn.close();
+    }
+
+    private void executeScript(String file) throws Exception {
+        StringBuilder bf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(bf.toString());
+        }
+        conn.commit();
+    }
+
+    @Test
+    public void testAggregatesWithoutGroupBy() throws Exception {
+        String query = PREFIXES
+                + "SELECT (COUNT(?x) AS ?c) (SUM(?p) AS ?s) (MAX(?p) AS ?m) WHERE \n"
+                + "{  ?x ns:price ?p . }";
+
+        assertEquals(Arrays.asList("\"2\"^^xsd:integer"), getValues(query, "c"));
+        assertEquals(Arrays.asList("\"65\"^^xsd:integer"), getValues(query, "s"));
+        assertEquals(Arrays.asList("\"42\"^^xsd:integer"), getValues(query, "m"));
+    }
+
+    @Test
+    public void testGroupByHaving() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?title (SUM(?p) AS ?w) WHERE \n"
+                + "{  ?x ns:price ?p .\n"
+                + "   ?x dc:title ?title .\n"
+                + "}\n"
+                + "GROUP BY ?title\n"
+                + "HAVING (SUM(?p) > 30)";
+
+        assertEquals(Arrays.asList("\"42\"^^xsd:integer"), getValues(query, "w"));
+        assertEquals(Arrays.asList("\"SPARQL Tutorial\"@en"), getValues(query, "title"));
+    }
+
+    @Test
+    public void testCountStarOrderBy() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?d (COUNT(*) AS ?w) WHERE \n"
+                + "{  ?x ns:price ?p .\n"
+                + "   ?x ns:discount ?d .\n"
+                + "}\n"
+                + "GROUP BY ?d\n"
+                + "ORDER BY DESC(?d)";
+
+        assertEquals(Arrays.asList("\"1\"^^xsd:integer", "\"1\"^^xsd:integer"), getValues(query, "w"));
+    }
+
+    @Test
+    public void testGroupConcat() throws Exception {
+        String query = PREFIXES
+                + "SELECT (GROUP_CONCAT(?p; separator=\", \") AS ?w) WHERE \n"
+                + "{  ?x ns:price ?p .\n"
+                + "   FILTER (?p > 30)\n"
+                + "}";
+
+        assertEquals(Arrays.asList("\"42\""), getValues(query, "w"));
+    }
+
+    @Test
+    public void testNativeAggregateArgument() throws Exception {
+        String query = PREFIXES
+                + "SELECT (MAX(?p) AS ?m) WHERE \n"
+                + "{  ?x ns:price ?p . }";
+
+        // only the result of the aggregate is cast to a string
+        assertEquals(1, countCasts(getUnfolding(query)));
+    }
+
+    @Test
+    public void testAggregateArgumentOfDifferentTypes() throws Exception {
+        loadPricesModel();
+
+        String query = PREFIXES
+                + "SELECT (MAX(?p) AS ?m) (MIN(?p) AS ?n) WHERE \n"
+                + "{  ?x ns:price ?p . }";
+
+        // the prices are integers and decimals: the integer branch is cast to decimals
+        // (and both results of the aggregates to strings)
+        String sql = getUnfolding(query);
+        assertEquals(3, countCasts(sql));
+        assertTrue(sql.contains("AS DECIMAL)"));
+        // compared as numbers (as strings, 9.5 would be the maximum)
+        assertEquals(Arrays.asList("\"42\"^^xsd:decimal"), getValues(query, "m"));
+        assertEquals(Arrays.asList("\"0.2\"^^xsd:decimal"), getValues(query, "n"));
+    }
+
+    @Test
+    public void testSumAndAvgOfDifferentTypes() throws Exception {
+        loadPricesModel();
+
+        String query = PREFIXES
+                + "SELECT (SUM(?p) AS ?s) (AVG(?p) AS ?a) WHERE \n"
+                + "{  ?x ns:price ?p . }";
+
+        // 42 + 23 + 0.2 + 0.25 + 9.5
+        assertEquals(Arrays.asList("\"74.95\"^^xsd:decimal"), getValues(query, "s"));
+        assertEquals(Arrays.asList("\"14.99\"^^xsd:decimal"), getValues(query, "a"));
+    }
+
+    /**
+     * prices from an integer column (the prices of the books) and two decimal columns
+     */
+    private void loadPricesModel() throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE extra_prices (id int NOT NULL, price decimal);"
+                    + "INSERT INTO extra_prices VALUES (3, 9.5);");
+        }
+        conn.commit();
+
+        obdaModel = OBDADataFactoryImpl.getInstance().getOBDAModel();
+        new ModelIOManager(obdaModel).load("src/test/resources/test/bind/sparqlBindPrices.obda");
+    }
+
+    private static int countCasts(String sql) {
+        int count = 0;
+        for (int i = sql.indexOf("CAST("); i != -1; i = sql.indexOf("CAST(", i + 1))
+            count++;
+        return count;
+    }
+
+    private QuestOWL createReasoner() throws Exception {
+        QuestPreferences p = new QuestPreferences();
+        p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+        p.setCurrentValueOf(QuestPreferences.OPTIMIZE_EQUIVALENCES, "true");
+
+        QuestOWLFactory factory = new QuestOWLFactory();
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+        return factory.createReasoner(ontology, config);
+    }
+
+    private String getUnfolding(String query) throws Exception {
+        QuestOWL reasoner = createReasoner();
+        QuestOWLConnection conn = reasoner.getConnection();
+        QuestOWLStatement st = conn.createStatement();
+        try {
+            return st.getUnfolding(query);
+        }
+        finally {
+            conn.close();
+            reasoner.dispose();
+        }
+    }
+
+    private List<String> getValues(String query, String variable) throws Exception {
+        QuestOWL reasoner = createReasoner();
+
+        QuestOWLConnection conn = reasoner.getConnection();
+        QuestOWLStatement st = conn.createStatement();
+
+        List<String> values = new ArrayList<>();
+        try {
+            QuestOWLResultSet rs = st.executeTuple(query);
+            while (rs.nextRow())
+                values.add(rs.getOWLObject(variable).toString());
+        }
+        finally {
+            conn.close();
+            reasoner.dispose();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,313 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+/*
+ * #%L
+ * ontop-quest-owlapi
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the setup from a compiled artifact over two data sources (see FederationTest):
+ * the answers are the same as after a normal setup, and the artifact is ignored
+ * when the mappings, the options or the database schema have changed.
+ */
+
+public class CompiledArtifactTest {
+
+    private Connection booksConn;
+    private Connection authorsConn;
+
+    private OBDAModel obdaModel;
+    private OWLOntology ontology;
+    private File artifact;
+
+    final String owlfile = "src/test/resources/test/federation/federation.owl";
+    final String obdafile = "src/test/resources/test/federation/federation.obda";
+
+    private static final String PREFIXES = "PREFIX  dc:  <http://purl.org/dc/elements/1.1/>\n"
+            + "PREFIX  :  <http://example.org/>\n";
+
+    // the books of the first source with the authors of the second one
+    private static final String JOIN_QUERY = PREFIXES
+            + "SELECT ?t ?n WHERE \n"
+            + "{  ?b dc:title ?t ; :writtenBy ?a .\n"
+            + "   ?a :name ?n .\n"
+            + "}";
+
+    // the books of both sources
+    private static final String UNION_QUERY = PREFIXES
+            + "SELECT ?t WHERE \n"
+            + "{  ?b a :Book ; dc:title ?t . }";
+
+    @Before
+    public void setUp() throws Exception {
+        OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+        booksConn = DriverManager.getConnection("jdbc:h2:mem:federationbooks", "sa", "");
+        executeScript(booksConn, "src/test/resources/test/federation/federation-books-create-h2.sql");
+        authorsConn = DriverManager.getConnection("jdbc:h2:mem:federationauthors", "sa", "");
+        executeScript(authorsConn, "src/test/resources/test/federation/federation-authors-create-h2.sql");
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        ontology = manager.loadOntologyFromOntologyDocument((new File(owlfile)));
+
+        obdaModel = fac.getOBDAModel();
+        ModelIOManager ioManager = new ModelIOManager(obdaModel);
+        ioManager.load(obdafile);
+
+        artifact = File.createTempFile("ontop", ".artifact");
+        artifact.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executeScript(booksConn, "src/test/resources/test/federation/federation-books-drop-h2.sql");
+        booksConn.close();
+        executeScript(authorsConn, "src/test/resources/test/federation/federation-authors-drop-h2.sql");
+        authorsConn.close();
+        artifact.delete();
+    }
+
+    private static void executeScript(Connection conn, String file) throws Exception {
+        StringBuilder bf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(bf.toString());
+        }
+        conn.commit();
+    }
+
+    @Test
+    public void testSameAnswers() throws Exception {
+        QuestOWL reasoner = createReasoner(new QuestPreferences());
+        List<String> joinAnswers, unionAnswers;
+        try {
+            assertFalse(reasoner.getQuestInstance().isStartedFromCompiledArtifact());
+            joinAnswers = getSortedAnswers(reasoner, JOIN_QUERY, "t", "n");
+            unionAnswers = getSortedAnswers(reasoner, UNION_QUERY, "t");
+            // two books with an author, four books over the two sources
+            assertEquals(2, joinAnswers.size());
+            assertEquals(4, unionAnswers.size());
+            reasoner.getQuestInstance().saveCompiledArtifact(artifact);
+        }
+        finally {
+            reasoner.dispose();
+        }
+        assertTrue(artifact.exists());
+
+        reasoner = createReasoner(getArtifactPreferences());
+        try {
+            assertTrue(reasoner.getQuestInstance().isStartedFromCompiledArtifact());
+            // the join needs the data source of each relation
+            assertEquals(joinAnswers, getSortedAnswers(reasoner, JOIN_QUERY, "t", "n"));
+            assertEquals(unionAnswers, getSortedAnswers(reasoner, UNION_QUERY, "t"));
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testChangedOption() throws Exception {
+        compile();
+
+        QuestPreferences p = getArtifactPreferences();
+        p.setCurrentValueOf(QuestPreferences.OPTIMIZE_EQUIVALENCES, "false");
+        QuestOWL reasoner = createReasoner(p);
+        try {
+            assertFalse(reasoner.getQuestInstance().isStartedFromCompiledArtifact());
+            assertEquals(4, getSortedAnswers(reasoner, UNION_QUERY, "t").size());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testChangedMapping() throws Exception {
+        compile();
+
+        obdaModel.removeMapping(URI.create("authors"), "ebooks");
+        QuestOWL reasoner = createReasoner(getArtifactPreferences());
+        try {
+            assertFalse(reasoner.getQuestInstance().isStartedFromCompiledArtifact());
+            // the e-book is no longer a book
+            assertEquals(3, getSortedAnswers(reasoner, UNION_QUERY, "t").size());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testChangedSchema() throws Exception {
+        compile();
+
+        // a table of the second data source
+        try (Statement st = authorsConn.createStatement()) {
+            st.executeUpdate("ALTER TABLE authors ADD COLUMN birth int");
+        }
+        authorsConn.commit();
+
+        QuestOWL reasoner = createReasoner(getArtifactPreferences());
+        try {
+            assertFalse(reasoner.getQuestInstance().isStartedFromCompiledArtifact());
+            assertEquals(2, getSortedAnswers(reasoner, JOIN_QUERY, "t", "n").size());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testCorruptArtifact() throws Exception {
+        compile();
+
+        // the checksum does not match
+        try (RandomAccessFile file = new RandomAccessFile(artifact, "rw")) {
+            file.seek(file.length() - 1);
+            int b = file.read();
+            file.seek(file.length() - 1);
+            file.write(b ^ 0xFF);
+        }
+
+        QuestOWL reasoner = createReasoner(getArtifactPreferences());
+        try {
+            assertFalse(reasoner.getQuestInstance().isStartedFromCompiledArtifact());
+            assertEquals(4, getSortedAnswers(reasoner, UNION_QUERY, "t").size());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Rule
+    public ExpectedException expectedEx = ExpectedException.none();
+
+    @Test
+    public void testMetaMappings() throws Exception {
+        // the meta-mappings are expanded from the data, which may change
+        expectedEx.expect(OBDAException.class);
+        expectedEx.expectMessage("not supported with meta-mappings");
+
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:questjunitdb2;DATABASE_TO_UPPER=FALSE", "sa", "");
+        executeScript(conn, "src/test/resources/test/metamapping-create-h2.sql");
+        try {
+            OBDAModel metaModel = OBDADataFactoryImpl.getInstance().getOBDAModel();
+            new ModelIOManager(metaModel).load("src/test/resources/test/metamapping.obda");
+            OWLOntology metaOntology = OWLManager.createOWLOntologyManager()
+                    .loadOntologyFromOntologyDocument(new File("src/test/resources/test/metamapping.owl"));
+
+            QuestPreferences p = new QuestPreferences();
+            p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+            QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(metaModel).preferences(p).build();
+            QuestOWL reasoner = new QuestOWLFactory().createReasoner(metaOntology, config);
+            try {
+                reasoner.getQuestInstance().saveCompiledArtifact(artifact);
+            }
+            finally {
+                reasoner.dispose();
+            }
+        }
+        finally {
+            executeScript(conn, "src/test/resources/test/metamapping-drop-h2.sql");
+            conn.close();
+        }
+    }
+
+    private void compile() throws Exception {
+        QuestOWL reasoner = createReasoner(new QuestPreferences());
+        try {
+            reasoner.getQuestInstance().saveCompiledArtifact(artifact);
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    private QuestPreferences getArtifactPreferences() {
+        QuestPreferences p = new QuestPreferences();
+        p.setCurrentValueOf(QuestPreferences.COMPILED_ARTIFACT, artifact.getPath());
+        return p;
+    }
+
+    private QuestOWL createReasoner(QuestPreferences p) throws Exception {
+        p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+
+        QuestOWLFactory factory = new QuestOWLFactory();
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+        return factory.createReasoner(ontology, config);
+    }
+
+    private static List<String> getSortedAnswers(QuestOWL reasoner, String query, String... variables) throws Exception {
+        QuestOWLConnection conn = reasoner.getConnection();
+        QuestOWLStatement st = conn.createStatement();
+
+        List<String> answers = new ArrayList<>();
+        try {
+            QuestOWLResultSet rs = st.executeTuple(query);
+            while (rs.nextRow()) {
+                StringBuilder answer = new StringBuilder();
+                for (String variable : variables)
+                    answer.append(rs.getOWLObject(variable)).append(' ');
+                answers.add(answer.toString());
+            }
+        }
+        finally {
+            conn.close();
+        }
+        Collections.sort(answers);
+        return answers;
+    }
+}
@@ -0,0 +1,163 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Translates the same queries from many threads with a single Quest instance
+ * (with the SQL translation cache disabled, so that every call goes through the
+ * rewriting, unfolding and SQL generation) and checks that the SQL is the same
+ * as the one obtained by a single thread.
+ */
+public class ConcurrentQueryTranslationTest {
+
+    private static final String owlfile = "src/test/resources/npd-v2-ql_a.owl";
+
+    private static final String NPD = "http://sws.ifi.uio.no/data/npd-v2/";
+    private static final String NPDV = "http://sws.ifi.uio.no/vocab/npd-v2#";
+
+    private static final String PREFIXES =
+            "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> " +
+            "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> " +
+            "PREFIX npdv: <http://sws.ifi.uio.no/vocab/npd-v2#> ";
+
+    private static final String[] queries = {
+            PREFIXES + "SELECT DISTINCT ?wc WHERE { ?wc npdv:coreForWellbore [ rdf:type npdv:Wellbore ] . }",
+
+            PREFIXES + "SELECT DISTINCT ?name ?awc WHERE { ?awc npdv:coreForWellbore [ rdf:type npdv:Wellbore; " +
+                    "npdv:wellboreCompletionYear ?year ; npdv:name ?name ] . }",
+
+            PREFIXES + "SELECT DISTINCT ?wellbore (?length * 0.30 AS ?lenghtM) ?company (?year + 2 AS ?YearB) WHERE { " +
+                    "?wc npdv:coreForWellbore [ rdf:type npdv:Wellbore ; npdv:name ?wellbore ; " +
+                    "npdv:wellboreCompletionYear ?year ; npdv:drillingOperatorCompany [ npdv:name ?company ] ] . " +
+                    "{ ?wc npdv:coresTotalLength ?length } " +
+                    "FILTER(?year >= \"2008\"^^xsd:integer && ?length > 50) } ORDER BY ?wellbore",
+
+            PREFIXES + "SELECT * WHERE { [] a npdv:Facility ; npdv:name ?facility ; " +
+                    "npdv:registeredInCountry ?country ; npdv:idNPD ?id . " +
+                    "FILTER (?id > \"400000\"^^xsd:integer) } ORDER BY ?facility",
+
+            PREFIXES + "SELECT DISTINCT * WHERE { [] a npdv:DiscoveryWellbore ; npdv:name ?wellbore ; " +
+                    "npdv:dateUpdated ?date . FILTER (?date > \"2013-01-01T00:00:00.0\"^^xsd:dateTime) } ORDER BY ?wellbore",
+
+            PREFIXES + "SELECT ?w ?n WHERE { ?w a npdv:Wellbore . OPTIONAL { ?w npdv:name ?n } } LIMIT 10",
+
+            PREFIXES + "SELECT ?x WHERE { { ?x a npdv:Wellbore } UNION { ?x a npdv:Facility } }",
+
+            PREFIXES + "ASK { ?x npdv:name \"ALPHA\" }"
+    };
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 5;
+
+    private QuestOWL reasoner;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new File(owlfile));
+
+        // a few assertions, so that the semantic index is not empty
+        OWLDataFactory df = manager.getOWLDataFactory();
+        OWLNamedIndividual wellbore = df.getOWLNamedIndividual(IRI.create(NPD + "wellbore/1"));
+        OWLNamedIndividual core = df.getOWLNamedIndividual(IRI.create(NPD + "wellbore/1/core/1"));
+        OWLNamedIndividual company = df.getOWLNamedIndividual(IRI.create(NPD + "company/1"));
+        OWLNamedIndividual facility = df.getOWLNamedIndividual(IRI.create(NPD + "facility/1"));
+        manager.addAxiom(ontology, df.getOWLClassAssertionAxiom(df.getOWLClass(IRI.create(NPDV + "Wellbore")), wellbore));
+        manager.addAxiom(ontology, df.getOWLClassAssertionAxiom(df.getOWLClass(IRI.create(NPDV + "DiscoveryWellbore")), wellbore));
+        manager.addAxiom(ontology, df.getOWLClassAssertionAxiom(df.getOWLClass(IRI.create(NPDV + "Facility")), facility));
+        manager.addAxiom(ontology, df.getOWLObjectPropertyAssertionAxiom(
+                df.getOWLObjectProperty(IRI.create(NPDV + "coreForWellbore")), core, wellbore));
+        manager.addAxiom(ontology, df.getOWLObjectPropertyAssertionAxiom(
+                df.getOWLObjectProperty(IRI.create(NPDV + "drillingOperatorCompany")), wellbore, company));
+        manager.addAxiom(ontology, df.getOWLDataPropertyAssertionAxiom(
+                df.getOWLDataProperty(IRI.create(NPDV + "name")), wellbore, "ALPHA"));
+        manager.addAxiom(ontology, df.getOWLDataPropertyAssertionAxiom(
+                df.getOWLDataProperty(IRI.create(NPDV + "name")), company, "Statoil"));
+        manager.addAxiom(ontology, df.getOWLDataPropertyAssertionAxiom(
+                df.getOWLDataProperty(IRI.create(NPDV + "wellboreCompletionYear")), wellbore, 2010));
+        manager.addAxiom(ontology, df.getOWLDataPropertyAssertionAxiom(
+                df.getOWLDataProperty(IRI.create(NPDV + "coresTotalLength")), core, 60));
+
+        QuestPreferences pref = new QuestPreferences();
+        pref.setCurrentValueOf(QuestPreferences.DBTYPE, QuestConstants.SEMANTIC_INDEX);
+        pref.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.CLASSIC);
+        pref.setCurrentValueOf(QuestPreferences.REFORMULATION_TECHNIQUE, QuestConstants.TW);
+        pref.setCurrentValueOf(QuestPreferences.REWRITE, QuestConstants.TRUE);
+        // every call translates the query
+        pref.setCurrentValueOf(QuestPreferences.QUERY_CACHE_MAX_WEIGHT, "0");
+
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().preferences(pref).build();
+        reasoner = new QuestOWLFactory().createReasoner(ontology, config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        reasoner.dispose();
+    }
+
+    @Test
+    public void testConcurrentTranslation() throws Exception {
+        final List<String> expected = new ArrayList<>();
+        QuestOWLStatement st = reasoner.getConnection().createStatement();
+        for (String query : queries)
+            expected.add(st.getUnfolding(query));
+        st.close();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            futures.add(pool.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    QuestOWLStatement st = reasoner.getConnection().createStatement();
+                    List<String> sqls = new ArrayList<>();
+                    start.await();
+                    for (int r = 0; r < ROUNDS; r++)
+                        for (int i = 0; i < queries.length; i++) {
+                            // each thread goes through the queries in a different order
+                            int q = (i + offset) % queries.length;
+                            sqls.add(q + ": " + st.getUnfolding(queries[q]));
+                        }
+                    st.close();
+                    return sqls;
+                }
+            }));
+        }
+        start.countDown();
+
+        try {
+            for (Future<List<String>> future : futures)
+                for (String sql : future.get()) {
+                    int q = Integer.parseInt(sql.substring(0, sql.indexOf(':')));
+                    assertEquals(q + ": " + expected.get(q), sql);
+                }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.core.queryevaluation.SPARQLQueryUtility;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that the batched DESCRIBE returns the same triples as
+ * one CONSTRUCT query per described URI and position.
+ */
+public class DescribeQueryTest {
+
+	private static final String owlfile = "src/test/resources/test/lung-cancer3.owl";
+	private static final String obdafile = "src/test/resources/test/lung-cancer3.obda";
+
+	private Connection conn;
+	private QuestOWL reasoner;
+	private QuestOWLConnection qconn;
+
+	@Before
+	public void setUp() throws Exception {
+		conn = DriverManager.getConnection("jdbc:h2:mem:questjunitdb", "sa", "");
+		Statement st = conn.createStatement();
+		st.executeUpdate(new String(Files.readAllBytes(Paths.get("src/test/resources/test/lung-cancer3-create-h2.sql"))));
+		conn.commit();
+
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new File(owlfile));
+
+		OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+		OBDAModel obdaModel = fac.getOBDAModel();
+		new ModelIOManager(obdaModel).load(obdafile);
+
+		QuestPreferences p = new QuestPreferences();
+		p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+		QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+		reasoner = new QuestOWLFactory().createReasoner(ontology, config);
+		qconn = reasoner.getConnection();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		qconn.close();
+		reasoner.dispose();
+		Statement st = conn.createStatement();
+		st.executeUpdate(new String(Files.readAllBytes(Paths.get("src/test/resources/test/lung-cancer3-drop-h2.sql"))));
+		st.close();
+		conn.commit();
+		conn.close();
+	}
+
+	@Test
+	public void testDescribeUri() throws Exception {
+		List<String> expected = describeOneByOne(Collections.singletonList("http://example.org/db1/1"));
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, graph("DESCRIBE <http://example.org/db1/1>"));
+	}
+
+	@Test
+	public void testDescribeVar() throws Exception {
+		List<String> uris = new ArrayList<>();
+		QuestOWLStatement st = qconn.createStatement();
+		QuestOWLResultSet rs = st.executeTuple("PREFIX : <http://example.org/> SELECT DISTINCT ?x WHERE { ?x a :Person }");
+		while (rs.nextRow())
+			uris.add(rs.getOWLIndividual("x").toStringID());
+		rs.close();
+		st.close();
+
+		List<String> expected = describeOneByOne(uris);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, graph("PREFIX : <http://example.org/> DESCRIBE ?x WHERE { ?x a :Person }"));
+	}
+
+	private List<String> describeOneByOne(List<String> uris) throws Exception {
+		List<String> axioms = new ArrayList<>();
+		for (String uri : uris) {
+			axioms.addAll(graph(SPARQLQueryUtility.getConstructSubjQuery(uri)));
+			axioms.addAll(graph(SPARQLQueryUtility.getConstructObjQuery(uri)));
+		}
+		Collections.sort(axioms);
+		return axioms;
+	}
+
+	private List<String> graph(String query) throws Exception {
+		QuestOWLStatement st = qconn.createStatement();
+		List<String> axioms = new ArrayList<>();
+		for (OWLAxiom axiom : st.executeGraph(query))
+			axioms.add(axiom.toString());
+		st.close();
+		Collections.sort(axioms);
+		return axioms;
+	}
+}
@@ -0,0 +1,213 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+/*
+ * #%L
+ * ontop-quest-owlapi
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLException;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Class to test the virtual mode over two data sources (two H2 databases):
+ * the books are in the first one, the authors and the e-books in the second one.
+ */
+
+public class FederationTest {
+
+    private Connection booksConn;
+    private Connection authorsConn;
+
+    private OBDAModel obdaModel;
+    private OWLOntology ontology;
+
+    final String owlfile = "src/test/resources/test/federation/federation.owl";
+    final String obdafile = "src/test/resources/test/federation/federation.obda";
+
+    private static final String PREFIXES = "PREFIX  dc:  <http://purl.org/dc/elements/1.1/>\n"
+            + "PREFIX  :  <http://example.org/>\n";
+
+    @Before
+    public void setUp() throws Exception {
+        OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+        booksConn = DriverManager.getConnection("jdbc:h2:mem:federationbooks", "sa", "");
+        executeScript(booksConn, "src/test/resources/test/federation/federation-books-create-h2.sql");
+        authorsConn = DriverManager.getConnection("jdbc:h2:mem:federationauthors", "sa", "");
+        executeScript(authorsConn, "src/test/resources/test/federation/federation-authors-create-h2.sql");
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        ontology = manager.loadOntologyFromOntologyDocument((new File(owlfile)));
+
+        obdaModel = fac.getOBDAModel();
+        ModelIOManager ioManager = new ModelIOManager(obdaModel);
+        ioManager.load(obdafile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executeScript(booksConn, "src/test/resources/test/federation/federation-books-drop-h2.sql");
+        booksConn.close();
+        executeScript(authorsConn, "src/test/resources/test/federation/federation-authors-drop-h2.sql");
+        authorsConn.close();
+    }
+
+    private static void executeScript(Connection conn, String file) throws Exception {
+        StringBuilder bf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(bf.toString());
+        }
+        conn.commit();
+    }
+
+    @Test
+    public void testSecondSource() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?n WHERE \n"
+                + "{  ?a a :Author ; :name ?n . }";
+
+        assertEquals(Arrays.asList("\"Alice\"", "\"Bob\"", "\"Carol\""), getSortedValues(query, "n"));
+    }
+
+    @Test
+    public void testUnionOverSources() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?t WHERE \n"
+                + "{  ?b a :Book ; dc:title ?t . }";
+
+        assertEquals(Arrays.asList("\"Anonymous Notes\"", "\"SPARQL Tutorial\"", "\"SPARQL Tutorial\"", "\"The Semantic Web\""),
+                getSortedValues(query, "t"));
+    }
+
+    @Test
+    public void testDistinctLimitOverSources() throws Exception {
+        String query = PREFIXES
+                + "SELECT DISTINCT ?t WHERE \n"
+                + "{  ?b a :Book ; dc:title ?t . }\n"
+                + "LIMIT 3";
+
+        assertEquals(Arrays.asList("\"Anonymous Notes\"", "\"SPARQL Tutorial\"", "\"The Semantic Web\""),
+                getSortedValues(query, "t"));
+    }
+
+    @Test
+    public void testJoinAcrossSources() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?t ?n WHERE \n"
+                + "{  ?b dc:title ?t ; :writtenBy ?a .\n"
+                + "   ?a :name ?n .\n"
+                + "}";
+
+        assertEquals(Arrays.asList("\"SPARQL Tutorial\"", "\"The Semantic Web\""), getSortedValues(query, "t"));
+        assertEquals(Arrays.asList("\"Alice\"", "\"Bob\""), getSortedValues(query, "n"));
+    }
+
+    @Test
+    public void testJoinAcrossSourcesWithFilter() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?t WHERE \n"
+                + "{  ?b dc:title ?t ; :writtenBy ?a .\n"
+                + "   ?a :name ?n .\n"
+                + "   FILTER (?n = \"Bob\")\n"
+                + "}";
+
+        assertEquals(Collections.singletonList("\"The Semantic Web\""), getSortedValues(query, "t"));
+    }
+
+    @Test
+    public void testJoinAcrossSourcesOnNumbers() throws Exception {
+        // the integer ids of the books match the decimal ids of the reviews
+        String query = PREFIXES
+                + "SELECT ?t ?s WHERE \n"
+                + "{  ?b dc:title ?t ; :stars ?s . }";
+
+        assertEquals(Collections.singletonList("\"SPARQL Tutorial\""), getSortedValues(query, "t"));
+    }
+
+    @Test(expected = OWLException.class)
+    public void testJoinAcrossSourcesMaxRows() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?t ?n WHERE \n"
+                + "{  ?b dc:title ?t ; :writtenBy ?a .\n"
+                + "   ?a :name ?n .\n"
+                + "}";
+
+        QuestPreferences p = new QuestPreferences();
+        p.setCurrentValueOf(QuestPreferences.FEDERATED_JOIN_MAX_ROWS, "1");
+        getSortedValues(query, "t", p);
+    }
+
+    private List<String> getSortedValues(String query, String variable) throws Exception {
+        return getSortedValues(query, variable, new QuestPreferences());
+    }
+
+    private List<String> getSortedValues(String query, String variable, QuestPreferences p) throws Exception {
+        p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+        p.setCurrentValueOf(QuestPreferences.OPTIMIZE_EQUIVALENCES, "true");
+
+        QuestOWLFactory factory = new QuestOWLFactory();
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+        QuestOWL reasoner = factory.createReasoner(ontology, config);
+
+        QuestOWLConnection conn = reasoner.getConnection();
+        QuestOWLStatement st = conn.createStatement();
+
+        List<String> values = new ArrayList<>();
+        try {
+            QuestOWLResultSet rs = st.executeTuple(query);
+            while (rs.nextRow())
+                values.add(rs.getOWLObject(variable).toString());
+        }
+        finally {
+            conn.close();
+            reasoner.dispose();
+        }
+        Collections.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,195 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+/*
+ * #%L
+ * ontop-quest-owlapi
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.Quest;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.MappingEmptiness;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the emptiness analysis of the mappings over H2 (a populated and an empty table)
+ * and the removal of the mappings without answers from the unfolding.
+ */
+public class PruneEmptyMappingsTest {
+
+    private static final String owlfile = "src/test/resources/test/emptiness/emptiness.owl";
+    private static final String obdafile = "src/test/resources/test/emptiness/emptiness.obda";
+
+    private static final String NS = "http://example.org/emptiness#";
+
+    private static final String QUERY = "PREFIX : <" + NS + "> SELECT ?x WHERE { ?x a :Person }";
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+    private static final Predicate person = fac.getClassPredicate(NS + "Person");
+    private static final Predicate student = fac.getClassPredicate(NS + "Student");
+    private static final Predicate teacher = fac.getClassPredicate(NS + "Teacher");
+
+    private Connection conn;
+    private OBDAModel obdaModel;
+    private OWLOntology ontology;
+
+    @Before
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection("jdbc:h2:mem:emptiness_pruning", "sa", "");
+        executeScript("src/test/resources/test/emptiness/emptiness-create-h2.sql");
+
+        ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new File(owlfile));
+        obdaModel = fac.getOBDAModel();
+        new ModelIOManager(obdaModel).load(obdafile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    private void executeScript(String file) throws Exception {
+        StringBuilder bf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line).append('\n');
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(bf.toString());
+        }
+        conn.commit();
+    }
+
+    @Test
+    public void testEmptiness() throws Exception {
+        QuestOWL reasoner = createReasoner(false);
+        try {
+            MappingEmptiness emptiness = reasoner.getQuestInstance().getMappingEmptiness();
+            // one probe per mapping source
+            assertEquals(2, emptiness.getProbeCount());
+            assertTrue(emptiness.isNonEmpty(student));
+            assertTrue(emptiness.isNonEmpty(person));
+            assertTrue(emptiness.isEmpty(teacher));
+            assertTrue(emptiness.getUnknownPredicates().isEmpty());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testPruneEmptyMappings() throws Exception {
+        QuestOWL reasoner = createReasoner(false);
+        try {
+            String unfolding = getUnfolding(reasoner);
+            assertTrue(unfolding.contains("STUDENTS"));
+            assertTrue(unfolding.contains("TEACHERS"));
+            Set<String> answers = getAnswers(reasoner);
+            assertEquals(2, answers.size());
+
+            Quest quest = reasoner.getQuestInstance();
+            assertEquals(ImmutableSet.of(person, teacher), quest.pruneEmptyMappings());
+
+            // the branch over the empty table is no longer in the unfolding
+            unfolding = getUnfolding(reasoner);
+            assertTrue(unfolding.contains("STUDENTS"));
+            assertFalse(unfolding.contains("TEACHERS"));
+            assertEquals(answers, getAnswers(reasoner));
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testPruneEmptyMappingsPreference() throws Exception {
+        QuestOWL reasoner = createReasoner(true);
+        try {
+            String unfolding = getUnfolding(reasoner);
+            assertTrue(unfolding.contains("STUDENTS"));
+            assertFalse(unfolding.contains("TEACHERS"));
+            assertEquals(2, getAnswers(reasoner).size());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    private QuestOWL createReasoner(boolean pruneEmptyMappings) throws Exception {
+        QuestPreferences p = new QuestPreferences();
+        p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+        p.setCurrentValueOf(QuestPreferences.PRUNE_EMPTY_MAPPINGS, String.valueOf(pruneEmptyMappings));
+
+        QuestOWLFactory factory = new QuestOWLFactory();
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+        return factory.createReasoner(ontology, config);
+    }
+
+    private static String getUnfolding(QuestOWL reasoner) throws Exception {
+        QuestOWLConnection conn = reasoner.getConnection();
+        try {
+            return conn.createStatement().getUnfolding(QUERY).toUpperCase();
+        }
+        finally {
+            conn.close();
+        }
+    }
+
+    private static Set<String> getAnswers(QuestOWL reasoner) throws Exception {
+        QuestOWLConnection conn = reasoner.getConnection();
+        Set<String> answers = new HashSet<>();
+        try {
+            QuestOWLResultSet rs = conn.createStatement().executeTuple(QUERY);
+            while (rs.nextRow())
+                answers.add(rs.getOWLIndividual("x").toStringID());
+            rs.close();
+        }
+        finally {
+            conn.close();
+        }
+        return answers;
+    }
+}
@@ -0,0 +1,201 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+/*
+ * #%L
+ * ontop-quest-owlapi
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryMetricsRegistry;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryProfile;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryStage;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Class to test the per-stage metrics of the queries.
+ * Uses the data of {@link BindTest}.
+ */
+
+public class QueryMetricsTest {
+
+    private Connection conn;
+
+    private OBDAModel obdaModel;
+    private OWLOntology ontology;
+
+    final String owlfile = "src/test/resources/test/bind/sparqlBind.owl";
+    final String obdafile = "src/test/resources/test/bind/sparqlBind.obda";
+
+    private static final String PREFIXES = "PREFIX  dc:  <http://purl.org/dc/elements/1.1/>\n"
+            + "PREFIX  ns:  <http://example.org/ns#>\n";
+
+    @Before
+    public void setUp() throws Exception {
+        OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+        conn = DriverManager.getConnection("jdbc:h2:mem:questjunitdb", "sa", "");
+        executeScript("src/test/resources/test/bind/sparqlBind-create-h2.sql");
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        ontology = manager.loadOntologyFromOntologyDocument((new File(owlfile)));
+
+        obdaModel = fac.getOBDAModel();
+        ModelIOManager ioManager = new ModelIOManager(obdaModel);
+        ioManager.load(obdafile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executeScript("src/test/resources/test/bind/sparqlBind-drop-h2.sql");
+        conn.close();
+    }
+
+    private void executeScript(String file) throws Exception {
+        StringBuilder bf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null)
+                bf.append(line);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(bf.toString());
+        }
+        conn.commit();
+    }
+
+    @Test
+    public void testRegistry() throws Exception {
+        String query = PREFIXES
+                + "SELECT ?title WHERE \n"
+                + "{  ?x ns:price ?p .\n"
+                + "   ?x dc:title ?title .\n"
+                + "}";
+
+        QuestOWL reasoner = createReasoner();
+        try {
+            QueryMetricsRegistry registry = reasoner.getQuestInstance().getQueryMetricsRegistry();
+            assertEquals(2, execute(reasoner, query));
+            assertEquals(2, execute(reasoner, query));
+
+            assertEquals(2, registry.getQueryCount());
+            assertEquals(2, registry.getHistogram(QueryStage.PARSE).getCount());
+            assertEquals(2, registry.getHistogram(QueryStage.SQL_EXECUTION).getCount());
+            assertEquals(2, registry.getHistogram(QueryStage.FETCH).getCount());
+            // the second query is in the cache
+            assertEquals(1, registry.getHistogram(QueryStage.UNFOLD).getCount());
+            assertEquals(1, registry.getCQsAfterUnfoldingHistogram().getCount());
+            assertTrue(registry.getMeanCQsAfterUnfolding() >= 1);
+            assertEquals(0.5, registry.getParsedQueryCacheHitRatio(), 0);
+            assertTrue(registry.getQueryPlanCacheHitRatio() > 0 && registry.getQueryPlanCacheHitRatio() < 1);
+            assertTrue(registry.getMeanLatencies().containsKey("TOTAL"));
+
+            registry.reset();
+            assertEquals(0, registry.getQueryCount());
+            assertEquals(0, registry.getHistogram(QueryStage.PARSE).getCount());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testCustomMetrics() throws Exception {
+        String query = PREFIXES
+                + "ASK { ?x dc:title ?title . }";
+
+        QuestOWL reasoner = createReasoner();
+        try {
+            List<QueryProfile> profiles = new ArrayList<>();
+            reasoner.getQuestInstance().setQueryMetrics(profile -> {
+                synchronized (profiles) {
+                    profiles.add(profile);
+                }
+            });
+            QuestOWLConnection conn = reasoner.getConnection();
+            QuestOWLStatement st = conn.createStatement();
+            try {
+                QuestOWLResultSet rs = st.executeTuple(query);
+                assertTrue(rs.nextRow());
+            }
+            finally {
+                conn.close();
+            }
+
+            assertEquals(1, profiles.size());
+            QueryProfile profile = profiles.get(0);
+            assertEquals(query, profile.getSPARQL());
+            assertNotNull(profile.getSQL());
+            assertFalse(profile.isCached());
+            assertTrue(profile.getCQsBeforeUnfolding() >= 1);
+            assertEquals(0, reasoner.getQuestInstance().getQueryMetricsRegistry().getQueryCount());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+
+    private QuestOWL createReasoner() throws Exception {
+        QuestPreferences p = new QuestPreferences();
+        p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+        p.setCurrentValueOf(QuestPreferences.OPTIMIZE_EQUIVALENCES, "true");
+
+        QuestOWLFactory factory = new QuestOWLFactory();
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+        return factory.createReasoner(ontology, config);
+    }
+
+    private static int execute(QuestOWL reasoner, String query) throws Exception {
+        QuestOWLConnection conn = reasoner.getConnection();
+        QuestOWLStatement st = conn.createStatement();
+        int count = 0;
+        try {
+            QuestOWLResultSet rs = st.executeTuple(query);
+            while (rs.nextRow())
+                count++;
+        }
+        finally {
+            conn.close();
+        }
+        return count;
+    }
+}
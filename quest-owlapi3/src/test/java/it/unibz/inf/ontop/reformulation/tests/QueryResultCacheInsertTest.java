@@ -0,0 +1,142 @@
+package it.unibz.inf.ontop.reformulation.tests;
+
+/*
+ * #%L
+ * ontop-quest-owlapi
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryResultCache;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLException;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the answers and the SQL translations cached in classic mode
+ * are not used after data is inserted into the Semantic Index.
+ */
+public class QueryResultCacheInsertTest {
+
+    private static final String owlfile = "src/test/resources/test/cache/cache.owl";
+    private static final String abox = "src/test/resources/test/cache/cache-students.owl";
+
+    private static final String NS = "http://example.org/";
+
+    private QuestOWL reasoner;
+    private QuestOWLConnection conn;
+    private QuestOWLStatement st;
+
+    @Before
+    public void setUp() throws Exception {
+        QuestPreferences pref = new QuestPreferences();
+        pref.setCurrentValueOf(QuestPreferences.REFORMULATION_TECHNIQUE, QuestConstants.UCQBASED);
+        pref.setCurrentValueOf(QuestPreferences.DBTYPE, QuestConstants.SEMANTIC_INDEX);
+        pref.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.CLASSIC);
+        pref.setCurrentValueOf(QuestPreferences.OBTAIN_FROM_ONTOLOGY, "true");
+        pref.setCurrentValueOf(QuestPreferences.QUERY_RESULT_CACHE_MAX_WEIGHT, "1000000");
+
+        OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new File(owlfile));
+
+        QuestOWLFactory factory = new QuestOWLFactory();
+        QuestOWLConfiguration config = QuestOWLConfiguration.builder().preferences(pref).build();
+        reasoner = factory.createReasoner(ontology, config);
+        conn = reasoner.getConnection();
+        st = conn.createStatement();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        st.close();
+        conn.close();
+        reasoner.dispose();
+    }
+
+    private Set<String> getIndividuals(String query) throws OWLException {
+        Set<String> individuals = new HashSet<>();
+        QuestOWLResultSet rs = st.executeTuple("PREFIX : <" + NS + "> " + query);
+        try {
+            while (rs.nextRow())
+                individuals.add(rs.getOWLIndividual("x").toStringID());
+        }
+        finally {
+            rs.close();
+        }
+        return individuals;
+    }
+
+    @Test
+    public void testInsertDataInvalidatesCachedAnswer() throws Exception {
+        QueryResultCache cache = reasoner.getQuestInstance().getQueryResultCache();
+        String persons = "SELECT ?x WHERE { ?x a :Person }";
+        String courses = "SELECT ?x WHERE { ?x a :Course }";
+
+        assertEquals(ImmutableSet.of(NS + "a", NS + "d"), getIndividuals(persons));
+        assertEquals(ImmutableSet.of(NS + "c"), getIndividuals(courses));
+        assertEquals(ImmutableSet.of(NS + "a", NS + "d"), getIndividuals(persons));
+        assertEquals(1, cache.getStats().hitCount());
+
+        // a student is a person, but not a course
+        st.insertData(new File(abox), 1000, 100, NS);
+
+        assertEquals(ImmutableSet.of(NS + "a", NS + "b", NS + "d"), getIndividuals(persons));
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(ImmutableSet.of(NS + "c"), getIndividuals(courses));
+        assertEquals(2, cache.getStats().hitCount());
+    }
+
+    @Test
+    public void testInsertDataOfQueriedURI() throws Exception {
+        // :b is not in the dictionary of URIs when the queries are first translated
+        String filter = "SELECT ?x WHERE { ?x a :Person FILTER (?x = :b) }";
+        String triple = "SELECT ?x WHERE { :b a :Person . ?x a :Course }";
+
+        // the answers are empty because of :b, not of the data
+        assertEquals(ImmutableSet.of(NS + "a", NS + "d"), getIndividuals("SELECT ?x WHERE { ?x a :Person }"));
+        assertEquals(ImmutableSet.of(NS + "c"), getIndividuals("SELECT ?x WHERE { ?x a :Course }"));
+        assertEquals(ImmutableSet.of(), getIndividuals(filter));
+        assertEquals(ImmutableSet.of(), getIndividuals(triple));
+
+        st.insertData(new File(abox), 1000, 100, NS);
+
+        assertEquals(ImmutableSet.of(NS + "b"), getIndividuals(filter));
+        assertEquals(ImmutableSet.of(NS + "c"), getIndividuals(triple));
+    }
+
+    @Test
+    public void testNonDeterministicQueryIsNotCached() throws Exception {
+        QueryResultCache cache = reasoner.getQuestInstance().getQueryResultCache();
+        String query = "SELECT ?x ?r WHERE { ?x a :Person BIND (RAND() AS ?r) }";
+
+        assertEquals(ImmutableSet.of(NS + "a", NS + "d"), getIndividuals(query));
+        assertEquals(ImmutableSet.of(NS + "a", NS + "d"), getIndividuals(query));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getStats().hitCount());
+    }
+}
@@ -30,6 +30,7 @@ import it.unibz.inf.ontop.ontology.Ontology;
 import it.unibz.inf.ontop.owlapi.OWLAPITranslatorUtility;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.MaterializationSink;
 import it.unibz.inf.ontop.owlrefplatform.core.abox.QuestMaterializer;
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -45,7 +46,10 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class QuestOWLMaterializerTest extends TestCase {
 
@@ -171,4 +175,79 @@ public class QuestOWLMaterializerTest extends TestCase {
 			Assert.assertEquals(3, objAss); //3 since no subprop for obj prop
 
 	}
+
+	public void testParallelMaterialization() throws Exception {
+
+			File f = new File("src/test/resources/test/materializer/MaterializeTest.obda");
+			OBDAModel model = OBDADataFactoryImpl.getInstance().getOBDAModel();
+			ModelIOManager man = new ModelIOManager(model);
+			man.load(f);
+
+			Ontology onto =  OWLAPITranslatorUtility.loadOntologyFromFile("src/test/resources/test/materializer/MaterializeTest.owl");
+
+			QuestMaterializer mat = new QuestMaterializer(model, onto, prefs, false);
+			final List<List<Assertion>> sinks = new ArrayList<>();
+			long count = mat.materialize(3, new MaterializationSink.Factory() {
+				@Override
+				public MaterializationSink create(int worker) {
+					final List<Assertion> assertions = new ArrayList<>();
+					sinks.add(assertions);
+					return new MaterializationSink() {
+						@Override
+						public void add(Assertion assertion) {
+							assertions.add(assertion);
+						}
+
+						@Override
+						public void close() {
+						}
+					};
+				}
+			});
+			int total = 0;
+			for (List<Assertion> assertions : sinks)
+				total += assertions.size();
+
+			Assert.assertEquals(3, sinks.size());
+			Assert.assertEquals(51, count); //same as testDataWithModelAndOnto
+			Assert.assertEquals(51, total);
+	}
+
+	public void testSinkCreationFailure() throws Exception {
+
+			File f = new File("src/test/resources/test/materializer/MaterializeTest.obda");
+			OBDAModel model = OBDADataFactoryImpl.getInstance().getOBDAModel();
+			ModelIOManager man = new ModelIOManager(model);
+			man.load(f);
+
+			Ontology onto =  OWLAPITranslatorUtility.loadOntologyFromFile("src/test/resources/test/materializer/MaterializeTest.owl");
+
+			QuestMaterializer mat = new QuestMaterializer(model, onto, prefs, false);
+			final AtomicInteger closed = new AtomicInteger();
+			try {
+				// the third sink cannot be created
+				mat.materialize(3, new MaterializationSink.Factory() {
+					@Override
+					public MaterializationSink create(int worker) throws Exception {
+						if (worker == 2)
+							throw new IOException("no sink");
+						return new MaterializationSink() {
+							@Override
+							public void add(Assertion assertion) {
+							}
+
+							@Override
+							public void close() {
+								closed.incrementAndGet();
+							}
+						};
+					}
+				});
+				Assert.fail();
+			}
+			catch (IOException e) {
+				// the sinks already created are closed
+				Assert.assertEquals(2, closed.get());
+			}
+	}
 }
@@ -0,0 +1,11 @@
+CREATE TABLE students (
+    id integer NOT NULL PRIMARY KEY,
+    name character varying(100)
+);
+
+CREATE TABLE teachers (
+    id integer NOT NULL PRIMARY KEY
+);
+
+INSERT INTO students VALUES (1, 'Anna');
+INSERT INTO students VALUES (2, 'Bruno');
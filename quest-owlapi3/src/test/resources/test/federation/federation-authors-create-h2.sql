@@ -0,0 +1,23 @@
+CREATE TABLE authors (
+    id int NOT NULL PRIMARY KEY,
+    name character varying(100)
+);
+
+CREATE TABLE ebooks (
+    id int NOT NULL PRIMARY KEY,
+    title character varying(100)
+);
+
+CREATE TABLE reviews (
+    book_id decimal(10,2) NOT NULL PRIMARY KEY,
+    stars int
+);
+
+INSERT INTO authors VALUES (1, 'Alice');
+INSERT INTO authors VALUES (2, 'Bob');
+INSERT INTO authors VALUES (3, 'Carol');
+
+INSERT INTO ebooks VALUES (1, 'SPARQL Tutorial');
+
+INSERT INTO reviews VALUES (1.00, 5);
+INSERT INTO reviews VALUES (2.50, 3);
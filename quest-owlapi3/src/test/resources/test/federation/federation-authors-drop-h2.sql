@@ -0,0 +1,3 @@
+DROP TABLE authors;
+DROP TABLE ebooks;
+DROP TABLE reviews;
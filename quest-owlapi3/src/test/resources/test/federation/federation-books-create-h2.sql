@@ -0,0 +1,9 @@
+CREATE TABLE books (
+    id int NOT NULL PRIMARY KEY,
+    title character varying(100),
+    author_id int
+);
+
+INSERT INTO books VALUES (1, 'SPARQL Tutorial', 1);
+INSERT INTO books VALUES (2, 'The Semantic Web', 2);
+INSERT INTO books VALUES (3, 'Anonymous Notes', NULL);
@@ -20,10 +20,11 @@ package it.unibz.inf.ontop.sesame;
  * #L%
  */
 
-import info.aduna.iteration.CloseableIteration;
 import info.aduna.iteration.CloseableIteratorIteration;
+import info.aduna.iteration.EmptyIteration;
 import info.aduna.iteration.Iteration;
 import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.TupleResultSet;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestDBConnection;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestDBStatement;
@@ -39,6 +40,8 @@ import org.openrdf.repository.RepositoryResult;
 import org.openrdf.repository.UnknownTransactionStateException;
 import org.openrdf.rio.*;
 import org.openrdf.rio.helpers.BasicParserSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.URISyntaxException;
@@ -48,6 +51,8 @@ import java.util.*;
 
 public class RepositoryConnection implements org.openrdf.repository.RepositoryConnection, AutoCloseable {
 
+	private static final Logger log = LoggerFactory.getLogger(RepositoryConnection.class);
+
 	private SesameAbstractRepo repository;
 	private QuestDBConnection questConn;
     private boolean isOpen;
@@ -485,18 +490,15 @@ throw new RuntimeException(e);
 		//and/or object from the repository, optionally from the specified contexts. 
 		RepositoryResult<Statement> stms = getStatements(subj, pred, obj, includeInferred, contexts);
 
-		handler.startRDF();
-		// handle
-		if (stms != null) {
-			while (stms.hasNext()) {
-				{
-					Statement st = stms.next();
-					if (st!=null)
-						handler.handleStatement(st);
-				}
-			}
+		try {
+			handler.startRDF();
+			while (stms.hasNext())
+				handler.handleStatement(stms.next());
+			handler.endRDF();
+		} 
+		finally {
+			stms.close();
 		}
-		handler.endRDF();
 
 	}
 
@@ -553,58 +555,38 @@ throw new RuntimeException(e);
 		//predicate and/or object from the repository.
 		//The result is optionally restricted to the specified set of named contexts. 
 		
-		//construct query for it
-		String queryString = "CONSTRUCT {";
-		String s="", p="", o="";
-		if (subj == null)
-			s = "?s ";
-		else {		
-			s = subj.toString();
-			if (subj instanceof URI) {
-				s = "<" + s + ">";
-			}
-		}
-		
-		if (pred == null)
-			p = " ?p ";
-		else 
-			p = "<" + pred.stringValue()  + ">";
-		if (obj == null)
-			o = " ?o ";
-		else {
-			if (obj instanceof URI) {
-				o = "<" + obj.stringValue() + ">";
-			} else {
-				o = obj.stringValue();
-			}
-		}
-		queryString+= s+p+o+"} WHERE {"+s+p+o+"}";	
-		
-		//execute construct query
-		try {
-			List<Statement> list = new LinkedList<Statement>();
-			
-			if (contexts.length == 0 || (contexts.length > 0 && contexts[0] == null)) {
-					GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL,
-							queryString);
-					GraphQueryResult result = query.evaluate();
-
-					// System.out.println("result: "+result.hasNext());
-					while (result.hasNext())
-						list.add(result.next());
-					// result.close();
-			}
-			CloseableIteration<Statement, RepositoryException> iter = new CloseableIteratorIteration<Statement, RepositoryException>(
-					list.iterator());
-			RepositoryResult<Statement> repoResult = new RepositoryResult<Statement>(iter);
+		// the statements are read from the database while the result is consumed
+		SesameTriplePattern pattern = new SesameTriplePattern(subj, pred, obj);
+		if (!isDefaultGraph(contexts) || pattern.hasBlankNode())
+			return new RepositoryResult<Statement>(new EmptyIteration<Statement, RepositoryException>());
 
-			return repoResult;
-		} catch (MalformedQueryException e) {
+		QuestDBStatement stm = null;
+		try {
+			stm = questConn.createStatement();
+			// when all the positions are bound, the statement either exists or not
+			TupleResultSet res = stm.execute((subj != null && pred != null && obj != null)
+					? pattern.getAskQuery() : pattern.getSelectQuery());
+			return new RepositoryResult<Statement>(new SesameStatementIteration(pattern, res, stm));
+		} 
+		catch (OBDAException e) {
+			closeStatement(stm);
 			throw new RepositoryException(e);
+		}
+	}
 
-		} catch (QueryEvaluationException e) {
-			throw new RepositoryException(e);
+	/**
+	 * The statements are in the default graph only
+	 */
+	private static boolean isDefaultGraph(Resource... contexts) {
+		return contexts.length == 0 || contexts[0] == null;
+	}
 
+	private static void closeStatement(QuestDBStatement stm) {
+		try {
+			if (stm != null)
+				stm.close();
+		} catch (OBDAException e) {
+			log.warn("Error closing a statement", e);
 		}
 	}
 
@@ -628,14 +610,28 @@ throw new RuntimeException(e);
                                 boolean includeInferred, Resource... contexts) throws RepositoryException {
 		//Checks whether the repository contains statements with a specific subject, 
 		//predicate and/or object, optionally in the specified contexts. 
-		    RepositoryResult<Statement> stIter = getStatements(subj, pred,
-                     obj, includeInferred, contexts);
-             try {
-                 return stIter.hasNext();
-             } finally {
-                 stIter.close();
-             }
-         }
+		// ASK with LIMIT 1, whatever the bound positions
+		SesameTriplePattern pattern = new SesameTriplePattern(subj, pred, obj);
+		if (!isDefaultGraph(contexts) || pattern.hasBlankNode())
+			return false;
+
+		QuestDBStatement stm = null;
+		try {
+			stm = questConn.createStatement();
+			TupleResultSet res = stm.execute(pattern.getAskQuery());
+			try {
+				return res.nextRow();
+			} finally {
+				res.close();
+			}
+		} 
+		catch (OBDAException e) {
+			throw new RepositoryException(e);
+		} 
+		finally {
+			closeStatement(stm);
+		}
+	}
 
 
 
@@ -910,7 +906,21 @@ throw new RuntimeException(e);
 	@Override
     public long size(Resource... contexts) throws RepositoryException {
 		//Returns the number of (explicit) statements that are in the specified contexts in this repository. 
-		return 0;
+		if (!isDefaultGraph(contexts))
+			return 0;
+
+		// the statements are counted by the database, with the query of getStatements
+		QuestDBStatement stm = null;
+		try {
+			stm = questConn.createStatement();
+			return stm.getTupleCount(new SesameTriplePattern(null, null, null).getSelectQuery());
+		} 
+		catch (Exception e) {
+			throw new RepositoryException(e);
+		} 
+		finally {
+			closeStatement(stm);
+		}
 	}
 
 
@@ -91,6 +91,12 @@ public abstract class SesameAbstractQuery implements Query {
         this.queryTimeout = maxQueryTime;
     }
 
+    /**
+     * Substitutes the bindings in the query string. Plain string literals are
+     * turned back into parameters by the query processor, so evaluating the query
+     * again with other literal bindings reuses the same SQL translation and
+     * JDBC prepared statement.
+     */
     //all code below is copy-pasted from org.openrdf.repository.sparql.query.SPARQLOperation
     protected String getQueryString() {
         if (bindings.size() == 0)
@@ -0,0 +1,135 @@
+package it.unibz.inf.ontop.sesame;
+
+/*
+ * #%L
+ * ontop-quest-sesame
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openrdf.model.Value;
+import org.openrdf.query.Binding;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.impl.BindingImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bindings of one row of a tuple query result. The values are kept in an array,
+ * in the order of the binding names; the names and their positions are shared
+ * by all the rows of the result. Unbound names have null values.
+ */
+class SesameArrayBindingSet implements BindingSet {
+
+	private static final long serialVersionUID = 2781342163596433021L;
+
+	private final List<String> names;
+	private final Map<String, Integer> positions;
+	private final Value[] values;
+
+	SesameArrayBindingSet(List<String> names, Map<String, Integer> positions, Value[] values) {
+		this.names = names;
+		this.positions = positions;
+		this.values = values;
+	}
+
+	@Override
+	public Value getValue(String bindingName) {
+		Integer i = positions.get(bindingName);
+		return (i == null) ? null : values[i];
+	}
+
+	@Override
+	public Binding getBinding(String bindingName) {
+		Value value = getValue(bindingName);
+		return (value == null) ? null : new BindingImpl(bindingName, value);
+	}
+
+	@Override
+	public boolean hasBinding(String bindingName) {
+		return getValue(bindingName) != null;
+	}
+
+	@Override
+	public Set<String> getBindingNames() {
+		Set<String> bound = new LinkedHashSet<>(values.length * 2);
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != null)
+				bound.add(names.get(i));
+		return bound;
+	}
+
+	@Override
+	public Iterator<Binding> iterator() {
+		List<Binding> bindings = new ArrayList<>(values.length);
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != null)
+				bindings.add(new BindingImpl(names.get(i), values[i]));
+		return bindings.iterator();
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Value value : values)
+			if (value != null)
+				size++;
+		return size;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof BindingSet))
+			return false;
+
+		BindingSet bindings = (BindingSet) other;
+		if (bindings.size() != size())
+			return false;
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != null && !values[i].equals(bindings.getValue(names.get(i))))
+				return false;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		// same as MapBindingSet, so that equal binding sets have equal hash codes
+		int hashCode = 0;
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != null)
+				hashCode ^= names.get(i).hashCode() ^ values[i].hashCode();
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != null) {
+				if (sb.length() > 1)
+					sb.append(';');
+				sb.append(names.get(i)).append('=').append(values[i]);
+			}
+		return sb.append(']').toString();
+	}
+}
@@ -26,10 +26,11 @@ import it.unibz.inf.ontop.ontology.Assertion;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestDBConnection;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestDBStatement;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.Iterator;
+
+import info.aduna.iteration.LookAheadIteration;
 
 import org.openrdf.model.Statement;
 import org.openrdf.query.GraphQuery;
@@ -65,54 +66,85 @@ public class SesameGraphQuery extends SesameAbstractQuery implements GraphQuery
 
         @Override
 	public GraphQueryResult evaluate() throws QueryEvaluationException {
-		GraphResultSet res = null;
 		QuestDBStatement stm = null;
 		try {
 			stm = conn.createStatement();
-			res = (GraphResultSet) stm.execute(getQueryString());
-			
-			Map<String, String> namespaces = new HashMap<String, String>();
-			List<Statement> results = new LinkedList<Statement>();
-			if (res != null) {
-				while (res.hasNext()) {
-					List<Assertion> chunk = res.next();
-					for (Assertion as : chunk) {
-						Statement st = createStatement(as);
-						if (st!=null)
-							results.add(st);
+			GraphResultSet res = (GraphResultSet) stm.execute(getQueryString());
+			// the statements are created lazily while the result is consumed
+			return new GraphQueryResultImpl(new HashMap<String, String>(), new StatementIteration(res, stm));
+		} catch (OBDAException e) {
+			try {
+				if (stm != null)
+					stm.close();
+			} catch (OBDAException e1) {
+				e1.printStackTrace();
+			}
+			throw new QueryEvaluationException(e);
+		}
+	}
+
+        @Override
+	public void evaluate(RDFHandler handler) throws QueryEvaluationException,
+			RDFHandlerException {
+		GraphQueryResult result =  evaluate();
+		try {
+			handler.startRDF();
+			while (result.hasNext())
+				handler.handleStatement(result.next());
+			handler.endRDF();
+		}
+		finally {
+			result.close();
+		}
+	}
+
+	/**
+	 * Iterates over the statements of a graph result set, and closes
+	 * the result set and the statement when it is exhausted or closed.
+	 */
+	private class StatementIteration extends LookAheadIteration<Statement, QueryEvaluationException> {
+
+		private final GraphResultSet res;
+		private final QuestDBStatement stm;
+		private Iterator<Assertion> chunk = Collections.emptyIterator();
+
+		StatementIteration(GraphResultSet res, QuestDBStatement stm) {
+			this.res = res;
+			this.stm = stm;
+		}
+
+		@Override
+		protected Statement getNextElement() throws QueryEvaluationException {
+			try {
+				while (true) {
+					while (chunk.hasNext()) {
+						Statement st = createStatement(chunk.next());
+						if (st != null)
+							return st;
 					}
+					if (res == null || !res.hasNext())
+						return null;
+					chunk = res.next().iterator();
 				}
+			} catch (OBDAException e) {
+				throw new QueryEvaluationException(e);
 			}
-			
-			return new GraphQueryResultImpl(namespaces, results.iterator());
-			
-		} catch (OBDAException e) {
-			throw new QueryEvaluationException(e);
 		}
-		finally{
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
 			try {
 				if (res != null)
-				res.close();
+					res.close();
 			} catch (OBDAException e1) {
 				e1.printStackTrace();
 			}
 			try {
-				if (stm != null)
-						stm.close();
+				stm.close();
 			} catch (OBDAException e) {
 				e.printStackTrace();
 			}
+			super.handleClose();
 		}
 	}
-
-        @Override
-	public void evaluate(RDFHandler handler) throws QueryEvaluationException,
-			RDFHandlerException {
-		GraphQueryResult result =  evaluate();
-		handler.startRDF();
-		while (result.hasNext())
-			handler.handleStatement(result.next());
-		handler.endRDF();
-
-	}
 }
@@ -0,0 +1,102 @@
+package it.unibz.inf.ontop.sesame;
+
+/*
+ * #%L
+ * ontop-quest-sesame
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.aduna.iteration.LookAheadIteration;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.TupleResultSet;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestDBStatement;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Iterates over the statements matching a triple pattern while the rows are read 
+ * from the database (the values of the unbound positions are built directly from 
+ * the result set), and closes the result set and the statement when it is exhausted 
+ * or closed.
+ */
+class SesameStatementIteration extends LookAheadIteration<Statement, RepositoryException> {
+
+	private static final Logger log = LoggerFactory.getLogger(SesameStatementIteration.class);
+
+	private final SesameTriplePattern pattern;
+	private final TupleResultSet res;
+	private final QuestDBStatement stm;
+
+	// the columns of the subject, predicate and object in the result set (0 if bound)
+	private final int subjColumn, predColumn, objColumn;
+
+	private final SesameValueBuilder builder = SesameValueBuilder.getInstance();
+	private final ValueFactory fact = ValueFactoryImpl.getInstance();
+
+	SesameStatementIteration(SesameTriplePattern pattern, TupleResultSet res, QuestDBStatement stm) {
+		this.pattern = pattern;
+		this.res = res;
+		this.stm = stm;
+
+		List<String> signature = res.getSignature();
+		subjColumn = (pattern.getSubject() == null) ? signature.indexOf(SesameTriplePattern.SUBJECT) + 1 : 0;
+		predColumn = (pattern.getPredicate() == null) ? signature.indexOf(SesameTriplePattern.PREDICATE) + 1 : 0;
+		objColumn = (pattern.getObject() == null) ? signature.indexOf(SesameTriplePattern.OBJECT) + 1 : 0;
+	}
+
+	@Override
+	protected Statement getNextElement() throws RepositoryException {
+		try {
+			while (res.nextRow()) {
+				Value subj = (subjColumn > 0) ? res.getValue(subjColumn, builder) : pattern.getSubject();
+				Value pred = (predColumn > 0) ? res.getValue(predColumn, builder) : pattern.getPredicate();
+				Value obj = (objColumn > 0) ? res.getValue(objColumn, builder) : pattern.getObject();
+				// skips the rows that are not RDF statements (the query excludes the literal subjects)
+				if (subj instanceof Resource && pred instanceof URI && obj != null)
+					return fact.createStatement((Resource) subj, (URI) pred, obj);
+			}
+			return null;
+		} 
+		catch (OBDAException e) {
+			throw new RepositoryException(e);
+		}
+	}
+
+	@Override
+	protected void handleClose() throws RepositoryException {
+		try {
+			res.close();
+		} catch (OBDAException e) {
+			log.warn("Error closing the result set of a triple pattern", e);
+		}
+		try {
+			stm.close();
+		} catch (OBDAException e) {
+			log.warn("Error closing the statement of a triple pattern", e);
+		}
+		super.handleClose();
+	}
+}
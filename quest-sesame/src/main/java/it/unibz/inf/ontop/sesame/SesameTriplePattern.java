@@ -0,0 +1,132 @@
+package it.unibz.inf.ontop.sesame;
+
+/*
+ * #%L
+ * ontop-quest-sesame
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.algebra.Distinct;
+import org.openrdf.query.algebra.Filter;
+import org.openrdf.query.algebra.IsLiteral;
+import org.openrdf.query.algebra.Not;
+import org.openrdf.query.algebra.Projection;
+import org.openrdf.query.algebra.ProjectionElem;
+import org.openrdf.query.algebra.ProjectionElemList;
+import org.openrdf.query.algebra.Slice;
+import org.openrdf.query.algebra.StatementPattern;
+import org.openrdf.query.algebra.TupleExpr;
+import org.openrdf.query.algebra.Var;
+import org.openrdf.query.parser.ParsedBooleanQuery;
+import org.openrdf.query.parser.ParsedTupleQuery;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+/**
+ * The query algebra of a triple pattern (subject, predicate and object, each 
+ * of them possibly null), which is passed to the query processor directly
+ * rather than as a SPARQL string to be parsed. 
+ * 
+ * <p>
+ * The source strings of the queries are the equivalent SPARQL queries: they are
+ * the keys of the translations in the cache (so that, for instance, the patterns 
+ * with the same subject and predicate and a string literal as object share their
+ * translation when the queries are parameterized).
+ */
+class SesameTriplePattern {
+
+	static final String SUBJECT = "s", PREDICATE = "p", OBJECT = "o";
+
+	private final Resource subj;
+	private final URI pred;
+	private final Value obj;
+
+	SesameTriplePattern(Resource subj, URI pred, Value obj) {
+		this.subj = subj;
+		this.pred = pred;
+		this.obj = obj;
+	}
+
+	Resource getSubject() {
+		return subj;
+	}
+
+	URI getPredicate() {
+		return pred;
+	}
+
+	Value getObject() {
+		return obj;
+	}
+
+	/**
+	 * Blank nodes are local to the results of a query, so a pattern with 
+	 * a blank node does not match any statement
+	 */
+	boolean hasBlankNode() {
+		return subj instanceof BNode || obj instanceof BNode;
+	}
+
+	/**
+	 * SELECT DISTINCT * WHERE { s p o FILTER (!isLiteral(?s)) }
+	 * 
+	 * <p>
+	 * The answers are the distinct RDF statements of the pattern: the filter (only
+	 * when the subject is not bound) excludes the literal subjects of the mappings.
+	 */
+	ParsedTupleQuery getSelectQuery() {
+		ProjectionElemList elements = new ProjectionElemList();
+		if (subj == null)
+			elements.addElement(new ProjectionElem(SUBJECT));
+		if (pred == null)
+			elements.addElement(new ProjectionElem(PREDICATE));
+		if (obj == null)
+			elements.addElement(new ProjectionElem(OBJECT));
+
+		TupleExpr expr = getStatementPattern();
+		String source = getSource(SUBJECT, subj) + " " + getSource(PREDICATE, pred) + " " + getSource(OBJECT, obj);
+		if (subj == null) {
+			expr = new Filter(expr, new Not(new IsLiteral(new Var(SUBJECT))));
+			source += " FILTER (!isLiteral(?" + SUBJECT + "))";
+		}
+		expr = new Distinct(new Projection(expr, elements));
+		return new ParsedTupleQuery("SELECT DISTINCT * WHERE { " + source + " }", expr);
+	}
+
+	/**
+	 * ASK WHERE { s p o } LIMIT 1
+	 */
+	ParsedBooleanQuery getAskQuery() {
+		TupleExpr expr = new Slice(getStatementPattern(), -1, 1);
+		return new ParsedBooleanQuery("ASK WHERE " + getSource() + " LIMIT 1", expr);
+	}
+
+	private StatementPattern getStatementPattern() {
+		return new StatementPattern(new Var(SUBJECT, subj), new Var(PREDICATE, pred), new Var(OBJECT, obj));
+	}
+
+	private String getSource() {
+		return "{ " + getSource(SUBJECT, subj) + " " + getSource(PREDICATE, pred) + " " + getSource(OBJECT, obj) + " }";
+	}
+
+	private static String getSource(String name, Value value) {
+		return (value == null) ? "?" + name : NTriplesUtil.toNTriplesString(value);
+	}
+}
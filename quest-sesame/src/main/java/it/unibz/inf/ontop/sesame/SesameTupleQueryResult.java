@@ -24,28 +24,47 @@ package it.unibz.inf.ontop.sesame;
 import it.unibz.inf.ontop.model.OBDAException;
 import it.unibz.inf.ontop.model.TupleResultSet;
 
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
-import org.openrdf.query.Binding;
+import org.openrdf.model.Value;
 import org.openrdf.query.BindingSet;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.query.TupleQueryResult;
-import org.openrdf.query.impl.MapBindingSet;
 
+/**
+ * Builds the Sesame values of each row directly from the tuple result set
+ * (see {@link SesameValueBuilder}), reading the columns by their precomputed
+ * positions.
+ */
 public class SesameTupleQueryResult implements TupleQueryResult {
 
-	TupleResultSet res;
-	List<String> signature;
-	Set<String> bindingNames;
+	private final TupleResultSet res;
+	private final List<String> signature;
+
+	// the positions of the binding names in the signature
+	private final Map<String, Integer> positions;
+	// the columns of the binding names in the result set (0 for the names that are not in it)
+	private final int[] columns;
+
+	private final SesameValueBuilder builder = SesameValueBuilder.getInstance();
 	
 	SesameTupleQueryResult(TupleResultSet res, List<String> signature){
 		if(res == null)
 			throw new NullPointerException();
 		this.res = res;
 		this.signature = signature;
-		this.bindingNames = new HashSet<String>(signature);
+
+		List<String> resultSignature = res.getSignature();
+		positions = new HashMap<>(signature.size() * 2);
+		columns = new int[signature.size()];
+		for (int i = 0; i < signature.size(); i++) {
+			String name = signature.get(i);
+			if (!positions.containsKey(name))
+				positions.put(name, i);
+			columns[i] = resultSignature.indexOf(name) + 1;
+		}
 	}
 	
 	@Override
@@ -68,27 +87,21 @@ public class SesameTupleQueryResult implements TupleQueryResult {
 
 	@Override
 	public BindingSet next() throws QueryEvaluationException {
-		MapBindingSet set = new MapBindingSet(this.signature.size() * 2);
-		for (String name : this.signature) {
-			Binding binding = createBinding(name, res, this.bindingNames);
-			if (binding != null) {
-				set.addBinding(binding);
-			}
+		Value[] values = new Value[columns.length];
+		try {
+			for (int i = 0; i < columns.length; i++) 
+				if (columns[i] > 0)
+					values[i] = res.getValue(columns[i], builder);
+		} catch (OBDAException e) {
+			throw new QueryEvaluationException(e);
 		}
-		return set;
+		return new SesameArrayBindingSet(signature, positions, values);
 	}
 
 	@Override
 	public void remove() throws QueryEvaluationException {
 		throw new QueryEvaluationException("The query result is read-only. Elements cannot be removed");
 	}
-	
-
-	private Binding createBinding(String bindingName, TupleResultSet set, Set<String> bindingnames) {
-		SesameBindingSet bset = new SesameBindingSet(set, bindingnames);
-		return bset.getBinding(bindingName);
-	}
-
 
 	@Override
 	public List<String> getBindingNames() throws QueryEvaluationException {
@@ -0,0 +1,53 @@
+package it.unibz.inf.ontop.sesame;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import org.junit.Test;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.query.impl.MapBindingSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class SesameArrayBindingSetTest {
+
+    private static final SesameValueBuilder builder = SesameValueBuilder.getInstance();
+
+    private static SesameArrayBindingSet bindings(Value... values) {
+        return new SesameArrayBindingSet(ImmutableList.of("x", "y", "z"),
+                ImmutableMap.of("x", 0, "y", 1, "z", 2), values);
+    }
+
+    @Test
+    public void testUnboundNames() {
+        Value x = builder.getURI("http://example.org/a");
+        SesameArrayBindingSet set = bindings(x, null, builder.getLiteral("1", COL_TYPE.INTEGER));
+
+        assertEquals(2, set.size());
+        assertEquals(ImmutableSet.of("x", "z"), set.getBindingNames());
+        assertEquals(x, set.getValue("x"));
+        assertNull(set.getBinding("y"));
+        assertFalse(set.hasBinding("y"));
+        assertFalse(set.hasBinding("w"));
+    }
+
+    @Test
+    public void testEqualsMapBindingSet() {
+        SesameArrayBindingSet set = bindings(builder.getURI("http://example.org/a"), null,
+                builder.getLiteral("1", COL_TYPE.INTEGER));
+
+        MapBindingSet map = new MapBindingSet();
+        map.addBinding("x", ValueFactoryImpl.getInstance().createURI("http://example.org/a"));
+        map.addBinding("z", ValueFactoryImpl.getInstance().createLiteral("1", XMLSchema.INTEGER));
+
+        assertEquals(map, set);
+        assertEquals(set, map);
+        assertEquals(map.hashCode(), set.hashCode());
+        assertFalse(set.equals(bindings(null, null, builder.getLiteral("1", COL_TYPE.INTEGER))));
+    }
+}
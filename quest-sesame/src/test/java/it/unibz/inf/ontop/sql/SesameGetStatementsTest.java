@@ -0,0 +1,147 @@
+package it.unibz.inf.ontop.sql;
+
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.r2rml.R2RMLManager;
+import it.unibz.inf.ontop.sesame.RepositoryConnection;
+import it.unibz.inf.ontop.sesame.SesameVirtualRepo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.RepositoryResult;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests RepositoryConnection.getStatements, hasStatement and size, which
+ * are evaluated from the triple pattern without SPARQL queries.
+ */
+public class SesameGetStatementsTest {
+
+    static String owlfile = "src/test/resources/userconstraints/uc.owl";
+    static String r2rmlfile = "src/test/resources/userconstraints/uc.ttl";
+    static String uc_create = "src/test/resources/userconstraints/create.sql";
+
+    static String jdbcUrl = "jdbc:h2:mem:countries_statements_test";
+
+    static String NS = "http://www.semanticweb.org/ontologies/2013/7/untitled-ontology-150#";
+
+    private final ValueFactory fac = ValueFactoryImpl.getInstance();
+    private final URI hasVal1 = fac.createURI(NS + "hasVal1");
+    private final URI hasVal2 = fac.createURI(NS + "hasVal2");
+
+    private Connection sqlConnection;
+    private RepositoryConnection conn;
+
+    @Before
+    public void init() throws Exception {
+        sqlConnection = DriverManager.getConnection(jdbcUrl, "sa", "");
+        java.sql.Statement s = sqlConnection.createStatement();
+        Scanner sqlFile = new Scanner(new File(uc_create));
+        String text = sqlFile.useDelimiter("\\A").next();
+        sqlFile.close();
+        s.execute(text);
+        for (int i = 1; i <= 10; i++)
+            s.execute("INSERT INTO TABLE1 VALUES (" + i + "," + i + ");");
+        s.close();
+
+        OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new File(owlfile));
+
+        QuestPreferences preference = new QuestPreferences();
+        preference.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+        preference.setCurrentValueOf(QuestPreferences.DBNAME, "countries_statements_test");
+        preference.setCurrentValueOf(QuestPreferences.JDBC_URL, jdbcUrl);
+        preference.setCurrentValueOf(QuestPreferences.DBUSER, "sa");
+        preference.setCurrentValueOf(QuestPreferences.DBPASSWORD, "");
+        preference.setCurrentValueOf(QuestPreferences.JDBC_DRIVER, "org.h2.Driver");
+
+        SesameVirtualRepo repo = new SesameVirtualRepo("", ontology, new R2RMLManager(r2rmlfile).getModel(), preference);
+        repo.initialize();
+        conn = repo.getConnection();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+        java.sql.Statement s = sqlConnection.createStatement();
+        s.execute("DROP ALL OBJECTS DELETE FILES");
+        s.close();
+        sqlConnection.close();
+    }
+
+    private static List<Statement> asList(RepositoryResult<Statement> result) throws Exception {
+        List<Statement> list = new ArrayList<>();
+        try {
+            while (result.hasNext())
+                list.add(result.next());
+        }
+        finally {
+            result.close();
+        }
+        return list;
+    }
+
+    @Test
+    public void testPredicate() throws Exception {
+        List<Statement> statements = asList(conn.getStatements(null, hasVal1, null, true));
+        assertEquals(10, statements.size());
+        for (Statement st : statements) {
+            assertTrue(st.getSubject() instanceof URI);
+            assertEquals(hasVal1, st.getPredicate());
+        }
+
+        // a statement with all the positions bound (the object of hasVal1 is the column 
+        // of the URI of the subject, whose template gives a string and not an integer)
+        Statement first = asList(conn.getStatements(null, hasVal2, null, true)).get(0);
+        List<Statement> ground = asList(conn.getStatements(first.getSubject(), hasVal2, first.getObject(), true));
+        assertEquals(1, ground.size());
+        assertEquals(first, ground.get(0));
+    }
+
+    @Test
+    public void testSubject() throws Exception {
+        Set<URI> predicates = new HashSet<>();
+        for (Statement st : asList(conn.getStatements(fac.createURI(NS + "Class1-3"), null, null, true)))
+            predicates.add(st.getPredicate());
+        assertTrue(predicates.contains(hasVal1));
+        assertTrue(predicates.contains(hasVal2));
+    }
+
+    @Test
+    public void testHasStatement() throws Exception {
+        assertTrue(conn.hasStatement(fac.createURI(NS + "Class1-3"), hasVal1, null, true));
+        assertFalse(conn.hasStatement(fac.createURI(NS + "Class1-42"), hasVal1, null, true));
+        assertFalse(conn.hasStatement(fac.createBNode("b0"), hasVal1, null, true));
+        assertFalse(conn.hasStatement(null, hasVal1, null, true, fac.createURI(NS + "graph")));
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        long size = conn.size();
+        assertTrue(size >= 20);
+        // the statements are distinct and counted by the same query
+        List<Statement> statements = asList(conn.getStatements(null, null, null, true));
+        assertEquals(size, statements.size());
+        assertEquals(size, new HashSet<>(statements).size());
+        for (Statement st : statements)
+            assertTrue(st.getSubject() instanceof Resource);
+    }
+}
@@ -30,7 +30,9 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 import org.openrdf.model.Model;
+import org.openrdf.model.impl.LiteralImpl;
 import org.openrdf.model.impl.URIImpl;
+import org.openrdf.query.BindingSet;
 import org.openrdf.query.BooleanQuery;
 import org.openrdf.query.GraphQuery;
 import org.openrdf.query.GraphQueryResult;
@@ -139,6 +141,30 @@ public class TestSesameBindings {
         assertEquals(1, count);
     }
 
+    @Test
+    public void testSelectLiteralBindings() throws Exception {
+        String queryString
+                = "PREFIX : <http://www.semanticweb.org/ontologies/2013/7/untitled-ontology-150#> "
+                + "SELECT ?x WHERE {?x :hasVal1 ?v1. FILTER(str(?v1) = ?s) }";
+
+        // the same prepared query is evaluated with different literals
+        TupleQuery query = conn.prepareTupleQuery(QueryLanguage.SPARQL, queryString);
+        for (int i : new int[] { 1, 42, 100, 107 }) {
+            query.setBinding("s", new LiteralImpl(String.valueOf(i)));
+
+            TupleQueryResult result = query.evaluate();
+            int count = 0;
+            while (result.hasNext()) {
+                BindingSet bindings = result.next();
+                assertEquals("http://www.semanticweb.org/ontologies/2013/7/untitled-ontology-150#Class1-" + i,
+                        bindings.getValue("x").stringValue());
+                count++;
+            }
+            result.close();
+            assertEquals((i <= 100) ? 1 : 0, count);
+        }
+    }
+
     @Test
     public void testSelectNoBindings() throws Exception {
         String queryString
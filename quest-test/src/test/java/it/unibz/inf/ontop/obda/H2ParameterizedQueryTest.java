@@ -0,0 +1,128 @@
+package it.unibz.inf.ontop.obda;
+
+/*
+ * #%L
+ * ontop-test
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.io.ModelIOManager;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAModel;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestConstants;
+import it.unibz.inf.ontop.owlrefplatform.core.QuestPreferences;
+import it.unibz.inf.ontop.owlrefplatform.owlapi.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Scanner;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/***
+ * Tests the queries that share their translation (parameterize_queries)
+ * when a mapping has a constant literal in its head
+ */
+public class H2ParameterizedQueryTest {
+
+	final String owlfile = "src/test/resources/mappingConstants.owl";
+	final String obdafile = "src/test/resources/mappingConstantLiterals.obda";
+
+	private QuestOWL reasoner;
+	private QuestOWLConnection conn;
+	private Connection sqlConnection;
+
+	@Before
+	public void setUp() throws Exception {
+		sqlConnection = DriverManager.getConnection("jdbc:h2:mem:questjunitdb", "sa", "");
+		java.sql.Statement s = sqlConnection.createStatement();
+		s.execute(new Scanner(new File("src/test/resources/constantsDatabase-h2.sql")).useDelimiter("\\A").next());
+		s.close();
+
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new File(owlfile));
+
+		OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+		OBDAModel obdaModel = fac.getOBDAModel();
+		ModelIOManager ioManager = new ModelIOManager(obdaModel);
+		ioManager.load(obdafile);
+
+		QuestPreferences p = new QuestPreferences();
+		p.setCurrentValueOf(QuestPreferences.ABOX_MODE, QuestConstants.VIRTUAL);
+		p.setCurrentValueOf(QuestPreferences.OBTAIN_FULL_METADATA, QuestConstants.FALSE);
+		p.setCurrentValueOf(QuestPreferences.PARAMETERIZE_QUERIES, QuestConstants.TRUE);
+		QuestOWLFactory factory = new QuestOWLFactory();
+		QuestOWLConfiguration config = QuestOWLConfiguration.builder().obdaModel(obdaModel).preferences(p).build();
+		reasoner = factory.createReasoner(ontology, config);
+		conn = reasoner.getConnection();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		conn.close();
+		reasoner.dispose();
+		java.sql.Statement s = sqlConnection.createStatement();
+		try {
+			s.execute("DROP ALL OBJECTS DELETE FILES");
+		}
+		catch (SQLException sqle) {
+			System.out.println("Table not found, not dropping");
+		}
+		finally {
+			s.close();
+			sqlConnection.close();
+		}
+	}
+
+	private Set<String> getPersons(String name) throws Exception {
+		String query = "PREFIX : <http://www.semanticweb.org/smallDatabase#> SELECT ?x WHERE { ?x :firstName \"" + name + "\" }";
+		Set<String> persons = new HashSet<>();
+		QuestOWLStatement st = conn.createStatement();
+		try {
+			QuestOWLResultSet rs = st.executeTuple(query);
+			while (rs.nextRow())
+				persons.add(rs.getOWLObject("x").toString());
+		}
+		finally {
+			st.close();
+		}
+		return persons;
+	}
+
+	@Test
+	public void testConstantLiteralInMappingHead() throws Exception {
+		// the first query caches the translation of the query shape
+		assertEquals(1, getPersons("Joana").size());
+		assertEquals(0, getPersons("Mary").size());
+		// the mapping with the constant literal contributes to the answer
+		Set<String> persons = getPersons("Johnny");
+		assertEquals(1, persons.size());
+		assertEquals("<http://www.semanticweb.org/smallDatabase#person-111>", persons.iterator().next());
+		assertEquals(1, getPersons("John").size());
+	}
+}
@@ -51,7 +51,7 @@ public abstract class AbstractConstraintTest extends TestCase {
 			log.info(getConnectionString() + "\n");
 			Connection conn = DriverManager.getConnection(getConnectionString(), getConnectionUsername(), getConnectionPassword());
 			metadata = DBMetadataExtractor.createMetadata(conn);
-			DBMetadataExtractor.loadMetadata(metadata, conn, null);
+			DBMetadataExtractor.loadMetadata(metadata, conn, null, isBulkMetadata());
 		} 
 		catch (SQLException e) { 
 			e.printStackTrace();
@@ -111,6 +111,13 @@ public abstract class AbstractConstraintTest extends TestCase {
 		log.info(String.format("%s(%s)", tableName, keys.toString()));
 	}
 	
+	/**
+	 * whether the metadata is extracted in the bulk mode
+	 */
+	protected boolean isBulkMetadata() {
+		return false;
+	}
+
 	protected abstract String getDriverName();
 	protected abstract String getConnectionString();
 	protected abstract String getConnectionUsername();
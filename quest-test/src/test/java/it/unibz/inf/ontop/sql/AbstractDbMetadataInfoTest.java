@@ -35,13 +35,19 @@ public abstract class AbstractDbMetadataInfoTest extends TestCase {
 		try {
 			Connection conn = DriverManager.getConnection(getConnectionString(), getConnectionUsername(), getConnectionPassword());
 			metadata = DBMetadataExtractor.createMetadata(conn);
-			DBMetadataExtractor.loadMetadata(metadata, conn, null);
+			DBMetadataExtractor.loadMetadata(metadata, conn, null, isBulkMetadata());
 		} 
 		catch (SQLException e) { 
 			e.printStackTrace();
 		}
 	}
 	
+	public void testRelations() {
+		assertFalse(metadata.getDatabaseRelations().isEmpty());
+		for (DatabaseRelationDefinition relation : metadata.getDatabaseRelations())
+			assertFalse(relation.getAttributes().isEmpty());
+	}
+
 	public void testPropertyInfo() throws SQLException {
 		final Driver driver = DriverManager.getDriver(getConnectionString());
 
@@ -77,6 +83,13 @@ public abstract class AbstractDbMetadataInfoTest extends TestCase {
 		}
 	}
 	
+	/**
+	 * whether the metadata is extracted in the bulk mode
+	 */
+	protected boolean isBulkMetadata() {
+		return false;
+	}
+
 	protected abstract String getDriverName();
 	protected abstract String getConnectionString();
 	protected abstract String getConnectionUsername();
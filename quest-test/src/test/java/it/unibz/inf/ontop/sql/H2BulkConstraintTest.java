@@ -0,0 +1,36 @@
+package it.unibz.inf.ontop.sql;
+
+/*
+ * #%L
+ * ontop-test
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * The same tests as in H2ConstraintTest with the bulk mode of DBMetadataExtractor
+ */
+public class H2BulkConstraintTest extends H2ConstraintTest {
+
+	public H2BulkConstraintTest(String method) {
+		super(method);
+	}
+
+	@Override
+	protected boolean isBulkMetadata() {
+		return true;
+	}
+}
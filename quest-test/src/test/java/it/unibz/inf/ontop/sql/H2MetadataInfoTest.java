@@ -0,0 +1,45 @@
+package it.unibz.inf.ontop.sql;
+
+/*
+ * #%L
+ * ontop-test
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+public class H2MetadataInfoTest extends AbstractDbMetadataInfoTest {
+
+	@Override
+	protected String getConnectionPassword() {
+		return "";
+	}
+
+	@Override
+	protected String getConnectionString() {
+		// the in-memory database is created (if needed) by each connection
+		return "jdbc:h2:mem:dbmetadatainfo;INIT=RUNSCRIPT FROM 'src/test/resources/dbconstraints-h2.sql'";
+	}
+
+	@Override
+	protected String getConnectionUsername() {
+		return "sa";
+	}
+
+	@Override
+	protected String getDriverName() {
+		return "org.h2.Driver";
+	}
+}
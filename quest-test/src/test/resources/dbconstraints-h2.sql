@@ -0,0 +1,23 @@
+CREATE TABLE IF NOT EXISTS Book (
+  id INTEGER PRIMARY KEY,
+  title VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS Writer (
+  id INTEGER PRIMARY KEY,
+  name VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS Edition (
+  id INTEGER PRIMARY KEY,
+  book_id INTEGER,
+  edition_year INTEGER,
+  FOREIGN KEY (book_id) REFERENCES Book(id)
+);
+
+CREATE TABLE IF NOT EXISTS BookWriter (
+  book_id INTEGER NOT NULL,
+  writer_id INTEGER NOT NULL,
+  FOREIGN KEY (book_id) REFERENCES Book(id),
+  FOREIGN KEY (writer_id) REFERENCES Writer(id)
+);
@@ -0,0 +1,236 @@
+package it.unibz.inf.ontop.owlrefplatform.core;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.OBDAException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the SQL queries of the Quest statements on a shared executor service.
+ *
+ * <p>
+ * Admission control limits the number of queries that are queued or running
+ * at the same time, and a deadline can be set on the execution of each query.
+ * Queries are never stopped abruptly: when a deadline expires or the waiting
+ * thread is interrupted, the query is cancelled through its {@link Execution}
+ * (that is, by {@link java.sql.Statement#cancel()}).
+ *
+ * <p>
+ * Any executor service can be plugged in (for instance, one that starts
+ * a virtual thread per task on Java 21).
+ */
+public class QueryExecutor {
+
+	/**
+	 * A task that can be cancelled cooperatively
+	 */
+	public interface Execution extends Runnable {
+
+		void cancel() throws Exception;
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(QueryExecutor.class);
+
+	/**
+	 * Maximal time (ms) to wait for a cancelled query to return
+	 */
+	private static final long CANCEL_TIMEOUT = 5000;
+
+	private final ExecutorService executorService;
+	private final Semaphore permits; // null if the number of queries is not limited
+	private final long admissionTimeout;
+	private final long deadline;
+	private final long cancelTimeout;
+
+	/**
+	 * @param executorService the executor service running the queries
+	 * @param maxConcurrentQueries maximal number of queued or running queries (0 for no limit)
+	 * @param admissionTimeout time (ms) a query waits to be admitted before being rejected
+	 * @param deadline maximal execution time (ms) of a query, including the time spent
+	 *                 in the queue of the executor (0 for no deadline)
+	 */
+	public QueryExecutor(ExecutorService executorService, int maxConcurrentQueries, long admissionTimeout, long deadline) {
+		this(executorService, maxConcurrentQueries, admissionTimeout, deadline, CANCEL_TIMEOUT);
+	}
+
+	/**
+	 * @param cancelTimeout maximal time (ms) to wait for a cancelled query to return
+	 */
+	QueryExecutor(ExecutorService executorService, int maxConcurrentQueries, long admissionTimeout, long deadline, long cancelTimeout) {
+		this.executorService = executorService;
+		this.permits = (maxConcurrentQueries > 0) ? new Semaphore(maxConcurrentQueries, true) : null;
+		this.admissionTimeout = admissionTimeout;
+		this.deadline = deadline;
+		this.cancelTimeout = cancelTimeout;
+	}
+
+	/**
+	 * Creates a thread pool with at most the given number of (daemon) threads.
+	 * The idle threads are released after one minute.
+	 */
+	public static ExecutorService createThreadPool(int threads) {
+		return createThreadPool(threads, "ontop-query-");
+	}
+
+	/**
+	 * @param prefix the prefix of the names of the threads
+	 */
+	public static ExecutorService createThreadPool(int threads, final String prefix) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, prefix + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Runs the execution and waits for it to finish.
+	 *
+	 * @throws OBDAException if the query is not admitted, exceeds the deadline
+	 *                       or the waiting thread is interrupted
+	 */
+	public void execute(final Execution execution) throws OBDAException {
+		admit();
+
+		Future<?> future;
+		try {
+			future = executorService.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						execution.run();
+					}
+					finally {
+						release();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			release();
+			throw new OBDAException("The query executor is shut down", e);
+		}
+
+		try {
+			if (deadline > 0)
+				future.get(deadline, TimeUnit.MILLISECONDS);
+			else
+				future.get();
+		}
+		catch (TimeoutException e) {
+			cancel(execution, future);
+			throw new OBDAException("Query execution exceeded the deadline of " + deadline + " ms");
+		}
+		catch (InterruptedException e) {
+			cancel(execution, future);
+			Thread.currentThread().interrupt();
+			throw new OBDAException("Query execution was interrupted", e);
+		}
+		catch (ExecutionException e) {
+			throw new OBDAException("Error executing the query", e.getCause());
+		}
+	}
+
+	/**
+	 * Cancels the execution and waits for the task to return (cancelling the SQL
+	 * statement makes the driver abort the query and return promptly), so that
+	 * the statement can be reused. If the task has not returned after the
+	 * cancel timeout (e.g., the driver ignores the cancellation), it is 
+	 * interrupted and abandoned.
+	 */
+	private void cancel(Execution execution, Future<?> future) {
+		try {
+			execution.cancel();
+		}
+		catch (Exception e) {
+			log.warn("Error cancelling the query: " + e.getMessage());
+		}
+		boolean interrupted = false;
+		long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cancelTimeout);
+		while (true) {
+			try {
+				future.get(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+			catch (ExecutionException e) {
+				break;
+			}
+			catch (TimeoutException e) {
+				log.warn("The cancelled query did not return within " + cancelTimeout + " ms, it is abandoned");
+				future.cancel(true);
+				break;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private void admit() throws OBDAException {
+		if (permits == null)
+			return;
+		try {
+			if (!permits.tryAcquire(admissionTimeout, TimeUnit.MILLISECONDS))
+				throw new OBDAException("Too many concurrent queries: the query was not admitted within "
+						+ admissionTimeout + " ms");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OBDAException("Query admission was interrupted", e);
+		}
+	}
+
+	private void release() {
+		if (permits != null)
+			permits.release();
+	}
+
+	public ExecutorService getExecutorService() {
+		return executorService;
+	}
+
+	public void shutdown() {
+		executorService.shutdown();
+	}
+}
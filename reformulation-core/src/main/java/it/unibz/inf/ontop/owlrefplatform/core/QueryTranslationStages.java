@@ -0,0 +1,84 @@
+package it.unibz.inf.ontop.owlrefplatform.core;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.DatalogProgram;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
+import it.unibz.inf.ontop.owlrefplatform.core.translator.SparqlQuery;
+import org.openrdf.query.parser.ParsedQuery;
+
+import java.util.List;
+
+/**
+ * The stages of the translation of a query into SQL by the query processor
+ * of a Quest instance, one by one (for measuring each of them).
+ *
+ * <p>
+ * The stages take a context created by {@link #translateToDatalog} and
+ * modify their input programs (as in the translation of the queries).
+ */
+public class QueryTranslationStages {
+
+	private final QuestQueryProcessor engine;
+
+	public QueryTranslationStages(Quest quest) {
+		this.engine = quest.getEngine();
+	}
+
+	/**
+	 * The translation of the SPARQL algebra into Datalog (the suffixes of the
+	 * variables of the program are reserved in the context)
+	 */
+	public SparqlQuery translateToDatalog(ParsedQuery pq, QueryTranslationContext context) {
+		return engine.translateToDatalog(pq, context);
+	}
+
+	/**
+	 * The steps between the translation and the rewriting: owl:sameAs, equivalences,
+	 * flattening, join trees and the ABox dependencies
+	 */
+	public DatalogProgram normalize(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		return engine.normalize(program, context);
+	}
+
+	public DatalogProgram rewrite(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		return engine.rewrite(program, context);
+	}
+
+	/**
+	 * The unfolding with the mappings, without the auxiliary rules
+	 */
+	public DatalogProgram unfold(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		return engine.unfold(program, context);
+	}
+
+	public void evaluateExpressions(DatalogProgram unfolding) {
+		engine.evaluateExpressions(unfolding);
+	}
+
+	/**
+	 * The SQL query over the default data source
+	 */
+	public String generateSQL(DatalogProgram unfolding, List<String> signature) throws OBDAException {
+		return engine.generateSQL(unfolding, signature);
+	}
+}
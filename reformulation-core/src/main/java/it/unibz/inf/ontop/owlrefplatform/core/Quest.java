@@ -30,10 +30,17 @@ import it.unibz.inf.ontop.owlrefplatform.core.abox.RDBMSSIRepositoryManager;
 import it.unibz.inf.ontop.owlrefplatform.core.abox.RepositoryChangedListener;
 import it.unibz.inf.ontop.owlrefplatform.core.abox.SemanticIndexURIMap;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.LinearInclusionDependencies;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryPlanCache;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryResultCache;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.VocabularyValidator;
 import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
 import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasonerImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQueryGenerator;
+import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.MappingEmptiness;
+import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.MappingEmptinessAnalyzer;
 import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.TMappingExclusionConfig;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryMetrics;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryMetricsRegistry;
 import it.unibz.inf.ontop.owlrefplatform.core.queryevaluation.SQLAdapterFactory;
 import it.unibz.inf.ontop.owlrefplatform.core.queryevaluation.SQLDialectAdapter;
 import it.unibz.inf.ontop.owlrefplatform.core.reformulation.DummyReformulator;
@@ -49,23 +56,30 @@ import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.sql.Statement;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
 import java.security.InvalidParameterException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 
 public class Quest implements Serializable {
 
 	private static final long serialVersionUID = -6074403119825754295L;
 
-	private PoolProperties poolProperties = null;
 	private DataSource tomcatPool = null;
 	// Tomcat pool default properties
 	// These can be changed in the properties file
@@ -75,7 +89,46 @@ public class Quest implements Serializable {
 	protected boolean logAbandoned = false;
 	protected int abandonedTimeout = 60; // 60 seconds
 	protected boolean keepAlive = true;
+	protected boolean preparedStatements = false;
+	protected int statementCacheSize = 100;
+
+	// Query translation cache default properties
+	protected long queryCacheMaxWeight = 16000000;
+	protected int parsedQueryCacheSize = 1000;
+	protected boolean parameterizeQueries = true;
+
+	// Query result cache default properties (classic mode)
+	protected long queryResultCacheMaxWeight = 0; // disabled
+
+	// Whether the mapping rules without answers are removed on setup (virtual mode)
+	protected boolean pruneEmptyMappings = false;
+
+	// Query execution default properties
+	protected int queryExecutorThreads = 20;
+	protected int maxConcurrentQueries = 0; // no limit
+	protected long admissionTimeout = 30000; // 30 seconds
+	protected long queryDeadline = 0; // no deadline
+
+	// Memory (in bytes) for the rows already returned by a DISTINCT result set
+	protected long distinctResultSetMemory = 64 * 1024 * 1024;
+
+	// Rows kept in memory by a join of the results of several data sources (0 for no limit)
+	protected long federatedJoinMaxRows = 1000000;
 	
+	// Query metrics properties
+	protected boolean queryMetricsJMX = false;
+	protected long slowQueryThreshold = 0; // no slow-query log
+
+	// Number of threads constructing the rules of the mappings and the T-mappings (0 for the number of processors)
+	protected int mappingThreads = 0;
+
+	// Database metadata extraction properties
+	protected boolean bulkMetadata = false;
+	protected File metadataSnapshot = null; // no snapshot
+
+	// Compiled artifact property (virtual mode)
+	protected File compiledArtifact = null; // no artifact
+
 	// Whether to print primary and foreign keys to stdout.
 	private boolean printKeys;
 
@@ -95,7 +148,31 @@ public class Quest implements Serializable {
 	/* The input OBDA model */
 	private OBDAModel inputOBDAModel = null;
 
+	/* The fingerprint of the ontology, the mappings and the setup options (virtual mode only) */
+	private String setupFingerprint = null;
+
+	/* Whether the setup has started from the compiled artifact */
+	private boolean startedFromCompiledArtifact = false;
+
 	private QuestQueryProcessor engine;
+
+	/* The answers to the queries over the Semantic Index (null if disabled or in Virtual Mode) */
+	private transient QueryResultCache queryResultCache = null;
+
+	/* Runs the SQL queries of all the statements (created on demand) */
+	private transient QueryExecutor queryExecutor = null;
+
+	/* Whether the executor service of the query executor was created by this instance */
+	private transient boolean ownQueryExecutorService = false;
+
+	/* Finds the mapping rules without answers, and its last analysis (guarded by emptinessLock) */
+	private transient MappingEmptinessAnalyzer emptinessAnalyzer = null;
+	private transient MappingEmptiness mappingEmptiness = null;
+	private final Object emptinessLock = new Object();
+
+	/* The statistics of the queries (created with the engine) and the metrics receiving the query profiles */
+	private transient QueryMetricsRegistry queryMetricsRegistry = null;
+	private transient QueryMetrics queryMetrics = null;
 		
 	/**
 	 * This represents user-supplied constraints, i.e. primary
@@ -155,6 +232,16 @@ public class Quest implements Serializable {
 
 	private OBDADataSource obdaSource;
 
+	/* The other data sources in virtual mode and their connection pools (obdaSource is the default one) */
+	private final Map<URI, OBDADataSource> otherSources = new LinkedHashMap<>();
+	private final Map<URI, DataSource> otherPools = new HashMap<>();
+
+	/* Runs the SQL queries of a query over several data sources concurrently (created on demand) */
+	private transient ExecutorService sourceQueryExecutorService = null;
+
+	/* Constructs the rules of the mappings and the T-mappings (created on demand, none if a single thread is used) */
+	private transient ExecutorService mappingExecutorService = null;
+
 	private Properties preferences;
 
 	private boolean inmemory;
@@ -324,6 +411,56 @@ public class Quest implements Serializable {
 		startPoolSize = Integer.valueOf((String) preferences.get(QuestPreferences.INIT_POOL_SIZE));
 		maxPoolSize = Integer.valueOf((String) preferences.get(QuestPreferences.MAX_POOL_SIZE));
 
+		if (preferences.get(QuestPreferences.PREPARED_STATEMENTS) != null)
+			preparedStatements = Boolean.valueOf((String) preferences.get(QuestPreferences.PREPARED_STATEMENTS));
+		if (preferences.get(QuestPreferences.STATEMENT_CACHE_SIZE) != null)
+			statementCacheSize = Integer.valueOf((String) preferences.get(QuestPreferences.STATEMENT_CACHE_SIZE));
+
+		if (preferences.get(QuestPreferences.QUERY_CACHE_MAX_WEIGHT) != null)
+			queryCacheMaxWeight = Long.valueOf((String) preferences.get(QuestPreferences.QUERY_CACHE_MAX_WEIGHT));
+		if (preferences.get(QuestPreferences.PARSED_QUERY_CACHE_SIZE) != null)
+			parsedQueryCacheSize = Integer.valueOf((String) preferences.get(QuestPreferences.PARSED_QUERY_CACHE_SIZE));
+		if (preferences.get(QuestPreferences.PARAMETERIZE_QUERIES) != null)
+			parameterizeQueries = Boolean.valueOf((String) preferences.get(QuestPreferences.PARAMETERIZE_QUERIES));
+
+		if (preferences.get(QuestPreferences.QUERY_RESULT_CACHE_MAX_WEIGHT) != null)
+			queryResultCacheMaxWeight = Long.valueOf((String) preferences.get(QuestPreferences.QUERY_RESULT_CACHE_MAX_WEIGHT));
+
+		if (preferences.get(QuestPreferences.PRUNE_EMPTY_MAPPINGS) != null)
+			pruneEmptyMappings = Boolean.valueOf((String) preferences.get(QuestPreferences.PRUNE_EMPTY_MAPPINGS));
+
+		if (preferences.get(QuestPreferences.QUERY_EXECUTOR_THREADS) != null)
+			queryExecutorThreads = Integer.valueOf((String) preferences.get(QuestPreferences.QUERY_EXECUTOR_THREADS));
+		if (preferences.get(QuestPreferences.MAX_CONCURRENT_QUERIES) != null)
+			maxConcurrentQueries = Integer.valueOf((String) preferences.get(QuestPreferences.MAX_CONCURRENT_QUERIES));
+		if (preferences.get(QuestPreferences.ADMISSION_TIMEOUT) != null)
+			admissionTimeout = Long.valueOf((String) preferences.get(QuestPreferences.ADMISSION_TIMEOUT));
+		if (preferences.get(QuestPreferences.QUERY_DEADLINE) != null)
+			queryDeadline = Long.valueOf((String) preferences.get(QuestPreferences.QUERY_DEADLINE));
+
+		if (preferences.get(QuestPreferences.DISTINCT_RESULTSET_MEMORY) != null)
+			distinctResultSetMemory = Long.valueOf((String) preferences.get(QuestPreferences.DISTINCT_RESULTSET_MEMORY));
+		if (preferences.get(QuestPreferences.FEDERATED_JOIN_MAX_ROWS) != null)
+			federatedJoinMaxRows = Long.valueOf((String) preferences.get(QuestPreferences.FEDERATED_JOIN_MAX_ROWS));
+
+		if (preferences.get(QuestPreferences.QUERY_METRICS_JMX) != null)
+			queryMetricsJMX = Boolean.valueOf((String) preferences.get(QuestPreferences.QUERY_METRICS_JMX));
+		if (preferences.get(QuestPreferences.SLOW_QUERY_THRESHOLD) != null)
+			slowQueryThreshold = Long.valueOf((String) preferences.get(QuestPreferences.SLOW_QUERY_THRESHOLD));
+
+		if (preferences.get(QuestPreferences.MAPPING_THREADS) != null)
+			mappingThreads = Integer.valueOf((String) preferences.get(QuestPreferences.MAPPING_THREADS));
+
+		if (preferences.get(QuestPreferences.BULK_METADATA) != null)
+			bulkMetadata = Boolean.valueOf((String) preferences.get(QuestPreferences.BULK_METADATA));
+		String snapshot = (String) preferences.get(QuestPreferences.METADATA_SNAPSHOT);
+		if (snapshot != null && !snapshot.isEmpty())
+			metadataSnapshot = new File(snapshot);
+
+		String artifact = (String) preferences.get(QuestPreferences.COMPILED_ARTIFACT);
+		if (artifact != null && !artifact.isEmpty())
+			compiledArtifact = new File(artifact);
+
 		reformulate = Boolean.valueOf((String) preferences.get(QuestPreferences.REWRITE));
 		reformulationTechnique = (String) preferences.get(QuestPreferences.REFORMULATION_TECHNIQUE);
 		bOptimizeEquivalences = Boolean.valueOf((String) preferences.get(QuestPreferences.OPTIMIZE_EQUIVALENCES));
@@ -435,6 +572,9 @@ public class Quest implements Serializable {
 
 		final TBoxReasoner reformulationReasoner = TBoxReasonerImpl.create(inputOntology, bOptimizeEquivalences);
 
+		/* The connections to the other data sources in virtual mode (used during the initialization only) */
+		Map<URI, Connection> otherConnections = new LinkedHashMap<>();
+
 		try {
 
 			Collection<OBDAMappingAxiom> mappings = null;
@@ -510,34 +650,57 @@ public class Quest implements Serializable {
 			else if (aboxMode.equals(QuestConstants.VIRTUAL)) {
 				// log.debug("Working in virtual mode");
 
-				Collection<OBDADataSource> sources = this.inputOBDAModel.getSources();
+				setupFingerprint = QuestCompiledArtifact.getFingerprint(inputOntology, inputOBDAModel, getSetupOptions());
+
+				List<OBDADataSource> sources = this.inputOBDAModel.getSources();
 				if (sources == null || sources.size() == 0)
 					throw new Exception(
-							"No datasource has been defined. Virtual ABox mode requires exactly 1 data source in your OBDA model.");
-				if (sources.size() > 1)
-					throw new Exception(
-							"Quest in virtual ABox mode only supports OBDA models with 1 single data source. Your OBDA model contains "
-									+ sources.size() + " data sources. Please remove the aditional sources.");
+							"No datasource has been defined. Virtual ABox mode requires at least 1 data source in your OBDA model.");
 
 				// Setting up the OBDA model 
 
-				obdaSource = sources.iterator().next();
+				// the first data source is the default one, the others must have the same SQL dialect
+				obdaSource = sources.get(0);
+				String driver = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_DRIVER);
+				for (OBDADataSource source : sources.subList(1, sources.size())) {
+					if (!driver.equals(source.getParameter(RDBMSourceParameterConstants.DATABASE_DRIVER)))
+						throw new Exception(
+								"Quest in virtual ABox mode only supports data sources with the same JDBC driver. The data source "
+										+ source.getSourceID() + " does not use " + driver);
+					otherSources.put(source.getSourceID(), source);
+				}
 
 				log.debug("Testing DB connection...");
 				connect();
 
 				setupConnectionPool();
 
+				for (OBDADataSource source : otherSources.values()) {
+					otherConnections.put(source.getSourceID(), getSQLConnection(source));
+					otherPools.put(source.getSourceID(), createConnectionPool(source));
+				}
+
 				mappings = inputOBDAModel.getMappings(obdaSource.getSourceID());
 			}
 
 			
+			/* The result of a previous setup, which replaces the metadata extraction and the T-mappings */
+			QuestCompiledArtifact artifact = null;
+
 			//if the metadata was not already set
 			if (metadata == null) {
-				metadata = DBMetadataExtractor.createMetadata(localConnection);
+				if (compiledArtifact != null && aboxMode.equals(QuestConstants.VIRTUAL))
+					artifact = loadCompiledArtifact(otherConnections);
+				if (artifact == null)
+					metadata = DBMetadataExtractor.createMetadata(localConnection);
+
 				// if we have to parse the full metadata or just the table list in the mappings
-				if (obtainFullMetadata) {
-					DBMetadataExtractor.loadMetadata(metadata, localConnection, null);
+				if (artifact != null)
+					log.debug("Starting from the compiled artifact {}", compiledArtifact);
+				else if (obtainFullMetadata) {
+					loadMetadata(null);
+					for (Connection conn : otherConnections.values())
+						DBMetadataExtractor.loadMetadata(metadata, conn, null, bulkMetadata);
 				} 
 				else {
 					try {
@@ -553,7 +716,13 @@ public class Quest implements Serializable {
 							realTables.addAll(referredTables);
 						}
 
-						DBMetadataExtractor.loadMetadata(metadata, localConnection, realTables);
+						loadMetadata(realTables);
+
+						for (Map.Entry<URI, Connection> entry : otherConnections.entrySet()) {
+							Set<RelationID> sourceTables = MappingParser.getRealTables(metadata.getQuotedIDFactory(), 
+									inputOBDAModel.getMappings(entry.getKey()));
+							DBMetadataExtractor.loadMetadata(metadata, entry.getValue(), sourceTables, bulkMetadata);
+						}
 					}
 					catch (JSQLParserException e) {
 						System.out.println("Error obtaining the tables" + e);
@@ -564,8 +733,8 @@ public class Quest implements Serializable {
 				}
 			}
 
-			//Adds keys from the text file
-			if (applyUserConstraints) {
+			//Adds keys from the text file (already in the metadata of the artifact)
+			if (applyUserConstraints && artifact == null) {
 				userConstraints.insertUniqueConstraints(metadata);
 				userConstraints.insertForeignKeyConstraints(metadata);
 			}
@@ -601,20 +770,36 @@ public class Quest implements Serializable {
     		VocabularyValidator vocabularyValidator = new VocabularyValidator(reformulationReasoner, inputOntology.getVocabulary());
             
             final QuestUnfolder unfolder = new QuestUnfolder(metadata);
+            unfolder.setMappingExecutorService(getMappingExecutorService());
 
 			/*
 			 * T-Mappings and Fact mappings
 			 */
-			if (aboxMode.equals(QuestConstants.VIRTUAL)) 
-				unfolder.setupInVirtualMode(mappings, localConnection, vocabularyValidator, reformulationReasoner, inputOntology, excludeFromTMappings, queryingAnnotationsInOntology, sameAsInMapping);
+			startedFromCompiledArtifact = (artifact != null);
+			if (artifact != null)
+				unfolder.setupFromCompiledArtifact(artifact);
+			else if (aboxMode.equals(QuestConstants.VIRTUAL)) {
+				Map<URI, Collection<OBDAMappingAxiom>> sourceMappings = new LinkedHashMap<>();
+				Map<URI, Connection> connections = new HashMap<>(otherConnections);
+				sourceMappings.put(obdaSource.getSourceID(), mappings);
+				connections.put(obdaSource.getSourceID(), localConnection);
+				for (URI source : otherSources.keySet())
+					sourceMappings.put(source, inputOBDAModel.getMappings(source));
+				unfolder.setupInVirtualMode(sourceMappings, connections, vocabularyValidator, reformulationReasoner, inputOntology, excludeFromTMappings, queryingAnnotationsInOntology, sameAsInMapping);
+			}
 			else
 				unfolder.setupInSemanticIndexMode(mappings, reformulationReasoner);
 
 			if (dataRepository != null)
 				dataRepository.addRepositoryChangedListener(new RepositoryChangedListener() {
+					// the size of the dictionary of URIs when the plans were last checked
+					private int uriMapSize = dataRepository.getUriMap().size();
+
 					@Override
 					public void repositoryChanged() {
+						uriMapSize = dataRepository.getUriMap().size();
 						engine.clearSQLCache();
+						resetMappingEmptiness();
 						try {
 							// 
 							unfolder.setupInSemanticIndexMode(dataRepository.getMappings(), reformulationReasoner);
@@ -624,7 +809,39 @@ public class Quest implements Serializable {
 							log.error("Error updating Semantic Index mappings", e);
 						}
 					}
+
+					@Override
+					public void repositoryChanged(Set<Predicate> predicates) {
+						resetMappingEmptiness();
+						// the plans with URIs that were not in the dictionary may now return data
+						int size = dataRepository.getUriMap().size();
+						if (size != uriMapSize) {
+							uriMapSize = size;
+							engine.invalidateSQLCacheOfUnknownURIs();
+						}
+						// only the classes and properties that are no longer empty get new mappings
+						try {
+							Collection<OBDAMappingAxiom> newMappings = dataRepository.getNewMappings();
+							if (newMappings == null) {
+								repositoryChanged();
+								return;
+							}
+							Set<Predicate> changed = unfolder.addSemanticIndexMappings(newMappings, reformulationReasoner);
+							if (!changed.isEmpty()) {
+								engine.invalidateSQLCache(changed);
+								log.debug("Mappings of {} predicates have been updated after inserts to the semantic index DB", changed.size());
+							}
+						} 
+						catch (Exception e) {
+							log.error("Error updating Semantic Index mappings", e);
+						}
+					}
 				});
+
+			if (dataRepository != null && queryResultCacheMaxWeight > 0) {
+				queryResultCache = new QueryResultCache(queryResultCacheMaxWeight);
+				dataRepository.addRepositoryChangedListener(queryResultCache);
+			}
 			
 			
 			/* The active ABox dependencies */
@@ -652,7 +869,28 @@ public class Quest implements Serializable {
 			/*
 			 * Done, sending a new reasoner with the modules we just configured
 			 */
-			engine = new QuestQueryProcessor(rewriter, sigma, unfolder, vocabularyValidator, getUriMap(), datasourceQueryGenerator);
+			// the CQs over the other data sources are routed to them
+			FederatedQueryGenerator federatedQueryGenerator = otherSources.isEmpty() ? null
+					: new FederatedQueryGenerator(datasourceQueryGenerator, unfolder.getRelationSources(), obdaSource.getSourceID(),
+							metadata);
+
+			engine = new QuestQueryProcessor(rewriter, sigma, unfolder, vocabularyValidator, getUriMap(), datasourceQueryGenerator,
+					parsedQueryCacheSize, new QueryPlanCache(queryCacheMaxWeight), parameterizeQueries, federatedQueryGenerator);
+
+			emptinessAnalyzer = new MappingEmptinessAnalyzer(datasourceQueryGenerator, unfolder.getRelationSources(), obdaSource.getSourceID());
+			if (pruneEmptyMappings && aboxMode.equals(QuestConstants.VIRTUAL)) {
+				Set<Predicate> pruned = pruneEmptyMappings();
+				log.debug("Mapping rules without answers removed for {} classes and properties", pruned.size());
+			}
+
+			queryMetricsRegistry = new QueryMetricsRegistry(slowQueryThreshold, 
+					engine::getParsedQueryCacheStats, engine::getQueryPlanCacheStats);
+			if (queryMetricsJMX)
+				queryMetricsRegistry.registerMBean();
+			synchronized (this) {
+				if (queryMetrics == null)
+					queryMetrics = queryMetricsRegistry;
+			}
 			
 
 			log.debug("... Quest has been initialized.");
@@ -678,6 +916,14 @@ public class Quest implements Serializable {
 				 */
 				disconnect();
 			}
+			for (Connection conn : otherConnections.values()) {
+				try {
+					conn.close();
+				}
+				catch (SQLException e) {
+					log.debug(e.getMessage());
+				}
+			}
 		}
 	}
 
@@ -689,13 +935,152 @@ public class Quest implements Serializable {
 
 
 
+	/**
+	 * The options that change the result of the setup in virtual mode (for the fingerprint of the compiled artifacts)
+	 */
+	private List<String> getSetupOptions() {
+		return Arrays.asList(
+				QuestPreferences.OPTIMIZE_EQUIVALENCES + "=" + bOptimizeEquivalences,
+				QuestPreferences.OBTAIN_FULL_METADATA + "=" + obtainFullMetadata,
+				QuestPreferences.SAME_AS + "=" + sameAsInMapping,
+				QuestPreferences.ANNOTATIONS_IN_ONTO + "=" + queryingAnnotationsInOntology,
+				QuestPreferences.PRUNE_EMPTY_MAPPINGS + "=" + pruneEmptyMappings,
+				"T-mapping exclusions: " + excludeFromTMappings,
+				"user constraints: " + (applyUserConstraints ? userConstraints.toString() : ""));
+	}
+
+	/**
+	 * Saves the result of the setup in virtual mode (the unfolding program and the database 
+	 * metadata) to the file, so that other instances with the same ontology, mappings and options
+	 * can start from it (see QuestPreferences.COMPILED_ARTIFACT)
+	 */
+	public void saveCompiledArtifact(File file) throws IOException, OBDAException {
+		if (!aboxMode.equals(QuestConstants.VIRTUAL))
+			throw new OBDAException("Compiled artifacts are only supported in virtual mode");
+		if (engine == null)
+			throw new OBDAException("Quest has not been set up");
+		if (QuestCompiledArtifact.hasMetaMappings(inputOBDAModel))
+			throw new OBDAException("Compiled artifacts are not supported with meta-mappings, which are expanded from the data");
+
+		// the default data source first
+		Map<URI, Connection> connections = new LinkedHashMap<>();
+		try {
+			connections.put(obdaSource.getSourceID(), getSQLPoolConnection());
+			for (URI source : otherSources.keySet())
+				connections.put(source, getSQLPoolConnection(source));
+
+			long schemaFingerprint = getSchemaFingerprint(metadata, connections);
+			engine.unfolder.getCompiledArtifact().save(file, setupFingerprint, schemaFingerprint, metadata);
+		}
+		catch (SQLException | JSQLParserException e) {
+			throw new OBDAException(e);
+		}
+		finally {
+			for (Connection conn : connections.values())
+				releaseSQLPoolConnection(conn);
+		}
+		log.debug("Compiled artifact saved to {}", file);
+	}
+
+	/**
+	 * Whether the last setup has started from the compiled artifact (see QuestPreferences.COMPILED_ARTIFACT)
+	 */
+	public boolean isStartedFromCompiledArtifact() {
+		return startedFromCompiledArtifact;
+	}
+
+	/**
+	 * Loads the compiled artifact with new metadata, which replaces the metadata of Quest
+	 * only if the artifact can be used
+	 *
+	 * @param otherConnections the connections to the other data sources
+	 * @return the artifact or null if it cannot be used (the setup is then done as usual)
+	 */
+	private QuestCompiledArtifact loadCompiledArtifact(Map<URI, Connection> otherConnections) {
+		if (QuestCompiledArtifact.hasMetaMappings(inputOBDAModel)) {
+			log.info("Ignoring the compiled artifact {}: the meta-mappings are expanded from the data", compiledArtifact);
+			return null;
+		}
+
+		// the default data source first
+		Map<URI, Connection> connections = new LinkedHashMap<>();
+		connections.put(obdaSource.getSourceID(), localConnection);
+		connections.putAll(otherConnections);
+		try {
+			DBMetadata artifactMetadata = DBMetadataExtractor.createMetadata(localConnection);
+			long schemaFingerprint = getSchemaFingerprint(artifactMetadata, connections);
+			QuestCompiledArtifact artifact = QuestCompiledArtifact.load(compiledArtifact, setupFingerprint,
+					schemaFingerprint, artifactMetadata);
+			if (artifact != null)
+				metadata = artifactMetadata;
+			return artifact;
+		}
+		catch (SQLException | JSQLParserException e) {
+			log.warn("Ignoring the compiled artifact " + compiledArtifact + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * The fingerprint of the columns of the tables in the mappings of all the data sources
+	 * (of all their tables if the full metadata is obtained)
+	 *
+	 * @param metadata the metadata (for the quoted ID factory)
+	 * @param connections the connection to each data source, the default one first
+	 */
+	private long getSchemaFingerprint(DBMetadata metadata, Map<URI, Connection> connections)
+			throws SQLException, JSQLParserException {
+		long fingerprint = 0;
+		for (Map.Entry<URI, Connection> entry : connections.entrySet()) {
+			Set<RelationID> tables = null;
+			if (!obtainFullMetadata) {
+				tables = MappingParser.getRealTables(metadata.getQuotedIDFactory(),
+						inputOBDAModel.getMappings(entry.getKey()));
+				if (applyUserConstraints && entry.getKey().equals(obdaSource.getSourceID()))
+					tables.addAll(userConstraints.getReferredTables(metadata.getQuotedIDFactory()));
+			}
+			fingerprint = 31 * fingerprint
+					+ DBMetadataSnapshot.getSchemaFingerprint(metadata, entry.getValue(), tables);
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Loads the metadata of the given tables (null for all tables) from the metadata snapshot
+	 * if it can be used, and extracts it from the database otherwise (saving the snapshot)
+	 */
+	private void loadMetadata(Set<RelationID> realTables) throws SQLException {
+		if (metadataSnapshot == null) {
+			DBMetadataExtractor.loadMetadata(metadata, localConnection, realTables, bulkMetadata);
+			return;
+		}
+
+		String scope = DBMetadataSnapshot.getScope(realTables);
+		long fingerprint = DBMetadataSnapshot.getSchemaFingerprint(metadata, localConnection, realTables);
+		if (DBMetadataSnapshot.load(metadata, scope, fingerprint, metadataSnapshot))
+			return;
+
+		DBMetadataExtractor.loadMetadata(metadata, localConnection, realTables, bulkMetadata);
+
+		try {
+			DBMetadataSnapshot.save(metadata, scope, fingerprint, metadataSnapshot);
+		}
+		catch (IOException e) {
+			log.warn("Cannot save the database metadata snapshot " + metadataSnapshot + ": " + e);
+		}
+	}
+
 	private void setupConnectionPool() {
-		String url = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_URL);
-		String username = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_USERNAME);
-		String password = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_PASSWORD);
-		String driver = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_DRIVER);
+		tomcatPool = createConnectionPool(obdaSource);
+	}
+
+	private DataSource createConnectionPool(OBDADataSource source) {
+		String url = source.getParameter(RDBMSourceParameterConstants.DATABASE_URL);
+		String username = source.getParameter(RDBMSourceParameterConstants.DATABASE_USERNAME);
+		String password = source.getParameter(RDBMSourceParameterConstants.DATABASE_PASSWORD);
+		String driver = source.getParameter(RDBMSourceParameterConstants.DATABASE_DRIVER);
 
-		poolProperties = new PoolProperties();
+		PoolProperties poolProperties = new PoolProperties();
 		poolProperties.setUrl(url);
 		poolProperties.setDriverClassName(driver);
 		poolProperties.setUsername(username);
@@ -722,20 +1107,40 @@ public class Quest implements Serializable {
 		poolProperties.setMinEvictableIdleTimeMillis(30000);
 		poolProperties.setLogAbandoned(logAbandoned);
 		poolProperties.setRemoveAbandoned(removeAbandoned);
-		poolProperties.setJdbcInterceptors("org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
-				+ "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer");
-		tomcatPool = new DataSource();
-		tomcatPool.setPoolProperties(poolProperties);
-
-		log.debug("Connection Pool Properties:");
+		String interceptors = "org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
+				+ "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer";
+		if (preparedStatements && statementCacheSize > 0)
+			interceptors += ";org.apache.tomcat.jdbc.pool.interceptor.StatementCache(prepared=true,callable=false,max="
+					+ statementCacheSize + ")";
+		poolProperties.setJdbcInterceptors(interceptors);
+		DataSource pool = new DataSource();
+		pool.setPoolProperties(poolProperties);
+
+		log.debug("Connection Pool Properties of {}:", source.getSourceID());
 		log.debug("Start size: " + startPoolSize);
 		log.debug("Max size: " + maxPoolSize);
 		log.debug("Remove abandoned connections: " + removeAbandoned);
-
+		log.debug("Prepared statement cache size: " + (preparedStatements ? statementCacheSize : 0));
+		return pool;
 	}
 
 	public void close() {
+		if (queryMetricsRegistry != null)
+			queryMetricsRegistry.unregisterMBean();
 		tomcatPool.close();
+		for (DataSource pool : otherPools.values())
+			pool.close();
+		synchronized (this) {
+			if (queryExecutor != null && ownQueryExecutorService)
+				queryExecutor.shutdown();
+			queryExecutor = null;
+			if (sourceQueryExecutorService != null)
+				sourceQueryExecutorService.shutdown();
+			sourceQueryExecutorService = null;
+			if (mappingExecutorService != null)
+				mappingExecutorService.shutdown();
+			mappingExecutorService = null;
+		}
 	}
 
 	public void releaseSQLPoolConnection(Connection co) {
@@ -756,6 +1161,24 @@ public class Quest implements Serializable {
 		return conn;
 	}
 
+	/**
+	 * Returns a connection of the pool of the given data source (in virtual mode).
+	 * Closing the connection releases it to the pool.
+	 */
+	public Connection getSQLPoolConnection(URI sourceID) throws OBDAException {
+		if (sourceID.equals(obdaSource.getSourceID()))
+			return getSQLPoolConnection();
+
+		DataSource pool = otherPools.get(sourceID);
+		if (pool == null)
+			throw new OBDAException("Unknown data source: " + sourceID);
+		try {
+			return pool.getConnection();
+		} catch (SQLException e) {
+			throw new OBDAException(e);
+		}
+	}
+
 	/***
 	 * Establishes a new connection to the data source. This is a normal JDBC
 	 * connection. Used only internally to get metadata at the moment.
@@ -764,12 +1187,15 @@ public class Quest implements Serializable {
 	 * @throws OBDAException
 	 */
 	private Connection getSQLConnection() throws OBDAException {
+		return getSQLConnection(obdaSource);
+	}
+
+	private static Connection getSQLConnection(OBDADataSource source) throws OBDAException {
 		Connection conn;
 
-		String url = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_URL);
-		String username = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_USERNAME);
-		String password = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_PASSWORD);
-		String driver = obdaSource.getParameter(RDBMSourceParameterConstants.DATABASE_DRIVER);
+		String url = source.getParameter(RDBMSourceParameterConstants.DATABASE_URL);
+		String username = source.getParameter(RDBMSourceParameterConstants.DATABASE_USERNAME);
+		String password = source.getParameter(RDBMSourceParameterConstants.DATABASE_PASSWORD);
 
 		try {
 			conn = DriverManager.getConnection(url, username, password);
@@ -827,8 +1253,184 @@ public class Quest implements Serializable {
 		return distinctResultSet;		
 	}
 
+	/**
+	 * Memory budget (in bytes) of a DISTINCT result set, beyond which it spills to disk
+	 */
+	public long getDistinctResultSetMemory() {
+		return distinctResultSetMemory;
+	}
+
+	/**
+	 * Maximal number of rows kept in memory by a join of the results of several data sources
+	 * (0 for no limit)
+	 */
+	public long getFederatedJoinMaxRows() {
+		return federatedJoinMaxRows;
+	}
+
+	/**
+	 * Returns the maximal number of connections of the pool of each data source
+	 */
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	/**
+	 * Whether the SQL translations with parameters are executed as JDBC prepared statements 
+	 */
+	public boolean usePreparedStatements() {
+		return preparedStatements && parameterizeQueries;
+	}
+
 	public QuestQueryProcessor getEngine() {
 		return engine;
 	}
+
+	/**
+	 * Returns the cache of the answers to SELECT queries (null if it is disabled
+	 * or if there is no Semantic Index repository)
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return queryResultCache;
+	}
+
+	/**
+	 * Returns the classes and properties with and without instances according to the
+	 * rules of the unfolder (T-mappings). The analysis is computed on the first call, 
+	 * with one SQL query per distinct mapping source, and is kept until the data of the 
+	 * Semantic Index changes (or resetMappingEmptiness is called).
+	 */
+	public MappingEmptiness getMappingEmptiness() throws OBDAException {
+		synchronized (emptinessLock) {
+			if (mappingEmptiness == null) {
+				long start = System.currentTimeMillis();
+				QuestUnfolder unfolder = engine.unfolder;
+				mappingEmptiness = emptinessAnalyzer.analyze(unfolder.getRules(), unfolder.getIncompleteTMappings(), 
+						getSourceQueryExecutorService(), this::hasAnswers);
+				log.debug("Emptiness analysis: {} ({} ms)", mappingEmptiness, System.currentTimeMillis() - start);
+			}
+			return mappingEmptiness;
+		}
+	}
+
+	/**
+	 * Discards the last emptiness analysis (e.g., after the data sources have changed)
+	 */
+	public void resetMappingEmptiness() {
+		synchronized (emptinessLock) {
+			mappingEmptiness = null;
+		}
+	}
+
+	/**
+	 * Removes the rules of the unfolder that have no answers (see getMappingEmptiness),
+	 * so that the SQL translations of the queries no longer contain them. Only 
+	 * for data sources whose data does not change afterwards.
+	 * 
+	 * @return the classes and properties whose rules have been removed (the rules of the
+	 *         internal triple predicate are pruned as well, but it is not returned)
+	 */
+	public Set<Predicate> pruneEmptyMappings() throws OBDAException {
+		Map<Predicate, ? extends List<CQIE>> prunedRules = getMappingEmptiness().getPrunedRules();
+		engine.unfolder.replaceRules(new HashMap<Predicate, List<CQIE>>(prunedRules));
+		engine.invalidateSQLCache(prunedRules.keySet());
+		Set<Predicate> pruned = new HashSet<>();
+		for (Predicate predicate : prunedRules.keySet())
+			if (!predicate.isTriplePredicate())
+				pruned.add(predicate);
+		return pruned;
+	}
+
+	/**
+	 * Whether the SQL query has answers in the given data source (executed on a connection of its pool)
+	 */
+	private boolean hasAnswers(URI source, String sql) throws SQLException, OBDAException {
+		Connection connection = getSQLPoolConnection(source);
+		try (Statement statement = connection.createStatement();
+			 java.sql.ResultSet rs = statement.executeQuery(sql)) {
+			return rs.next();
+		}
+		finally {
+			releaseSQLPoolConnection(connection);
+		}
+	}
+
+	/**
+	 * Returns the latency histograms, unfolding sizes and cache hit ratios
+	 * of the queries (null before the repository is set up)
+	 */
+	public QueryMetricsRegistry getQueryMetricsRegistry() {
+		return queryMetricsRegistry;
+	}
+
+	/**
+	 * Returns the metrics receiving the profile of each query (the registry
+	 * unless other metrics have been set)
+	 */
+	public synchronized QueryMetrics getQueryMetrics() {
+		return queryMetrics;
+	}
+
+	/**
+	 * Replaces the metrics receiving the profile of each query, for instance,
+	 * by an adapter to a metrics library (which may also forward the profiles
+	 * to the registry). The slow-query log is part of the registry.
+	 */
+	public synchronized void setQueryMetrics(QueryMetrics queryMetrics) {
+		this.queryMetrics = queryMetrics;
+	}
+
+	/**
+	 * Returns the executor of the SQL queries. Unless an executor service has been
+	 * set, a pool of query_executor_threads threads is created on the first call.
+	 */
+	public synchronized QueryExecutor getQueryExecutor() {
+		if (queryExecutor == null) {
+			log.debug("Query executor threads: {}", queryExecutorThreads);
+			setQueryExecutor(QueryExecutor.createThreadPool(queryExecutorThreads), true);
+		}
+		return queryExecutor;
+	}
+
+	/**
+	 * Replaces the executor service running the SQL queries (for instance,
+	 * by a virtual-thread-per-task executor). The executor service is not 
+	 * shut down by Quest. Admission control and deadlines still apply.
+	 */
+	public synchronized void setQueryExecutorService(ExecutorService executorService) {
+		setQueryExecutor(executorService, false);
+	}
+
+	/**
+	 * Returns the executor service running the SQL queries of a query over several 
+	 * data sources (a pool of query_executor_threads threads, created on the first call).
+	 * These queries are run on behalf of a query already admitted by the query executor.
+	 */
+	public synchronized ExecutorService getSourceQueryExecutorService() {
+		if (sourceQueryExecutorService == null)
+			sourceQueryExecutorService = QueryExecutor.createThreadPool(queryExecutorThreads);
+		return sourceQueryExecutorService;
+	}
+
+	/**
+	 * Returns the executor service constructing the rules of the mappings and the T-mappings
+	 * (a pool of mapping_threads threads, created on the first call), or null if mapping_threads is 1.
+	 * The idle threads are terminated.
+	 */
+	public synchronized ExecutorService getMappingExecutorService() {
+		int threads = (mappingThreads > 0) ? mappingThreads : Runtime.getRuntime().availableProcessors();
+		if (threads == 1)
+			return null;
+		if (mappingExecutorService == null)
+			mappingExecutorService = QueryExecutor.createThreadPool(threads, "ontop-mapping-");
+		return mappingExecutorService;
+	}
+
+	private void setQueryExecutor(ExecutorService executorService, boolean own) {
+		if (queryExecutor != null && ownQueryExecutorService)
+			queryExecutor.shutdown();
+		queryExecutor = new QueryExecutor(executorService, maxConcurrentQueries, admissionTimeout, queryDeadline);
+		ownQueryExecutorService = own;
+	}
 	
 }
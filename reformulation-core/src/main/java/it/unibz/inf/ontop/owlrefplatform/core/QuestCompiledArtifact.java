@@ -0,0 +1,345 @@
+package it.unibz.inf.ontop.owlrefplatform.core;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.RDBMSourceParameterConstants;
+import it.unibz.inf.ontop.ontology.Ontology;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.DatalogCodec;
+import it.unibz.inf.ontop.sql.DBMetadata;
+import it.unibz.inf.ontop.sql.DBMetadataSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * The result of the setup of Quest in virtual mode (the unfolding program with the T-mappings,
+ * the facts of the ontology and the triple rules, the data source of each relation, the owl:sameAs
+ * predicates and the incomplete T-mappings), saved to a file together with the database metadata
+ * (relations, constraints and parser views).
+ *
+ * Quest starts from the artifact instead of parsing the mappings, extracting the metadata and
+ * computing the T-mappings, provided that the format version, the checksum, the database engine,
+ * the fingerprint (of the ontology, the mappings and the options of the setup) and the schema
+ * fingerprint (of the columns of the tables in the mappings) match.
+ *
+ * The mappings must not contain meta-mappings: their expansion depends on the data, which
+ * may change after the artifact has been compiled.
+ *
+ * The URI template matcher is created again from the rules, and the TBox reasoner is created
+ * from the ontology, as it is needed for the query rewriting anyway.
+ */
+
+public class QuestCompiledArtifact {
+
+	private static final int MAGIC = 0x4F514341; // OQCA
+	private static final int FORMAT_VERSION = 2;
+
+	private static final Logger log = LoggerFactory.getLogger(QuestCompiledArtifact.class);
+
+	private final ImmutableList<CQIE> program;
+	private final ImmutableMap<Predicate, URI> relationSources;
+	private final ImmutableSet<Predicate> sameAsDataPredicatesAndClasses;
+	private final ImmutableSet<Predicate> sameAsObjectPredicates;
+	private final ImmutableSet<Predicate> incompleteTMappings;
+
+	public QuestCompiledArtifact(List<CQIE> program, Map<Predicate, URI> relationSources,
+			Set<Predicate> sameAsDataPredicatesAndClasses, Set<Predicate> sameAsObjectPredicates, Set<Predicate> incompleteTMappings) {
+		this.program = ImmutableList.copyOf(program);
+		this.relationSources = ImmutableMap.copyOf(relationSources);
+		this.sameAsDataPredicatesAndClasses = ImmutableSet.copyOf(sameAsDataPredicatesAndClasses);
+		this.sameAsObjectPredicates = ImmutableSet.copyOf(sameAsObjectPredicates);
+		this.incompleteTMappings = ImmutableSet.copyOf(incompleteTMappings);
+	}
+
+	/**
+	 * Returns the unfolding program (not to be modified: the rules are shared with the unfolder)
+	 */
+	public ImmutableList<CQIE> getProgram() {
+		return program;
+	}
+
+	public ImmutableMap<Predicate, URI> getRelationSources() {
+		return relationSources;
+	}
+
+	public ImmutableSet<Predicate> getSameAsDataPredicatesAndClasses() {
+		return sameAsDataPredicatesAndClasses;
+	}
+
+	public ImmutableSet<Predicate> getSameAsObjectPredicates() {
+		return sameAsObjectPredicates;
+	}
+
+	public ImmutableSet<Predicate> getIncompleteTMappings() {
+		return incompleteTMappings;
+	}
+
+	/**
+	 * Returns the fingerprint of the input of the setup: the ontology, the data sources
+	 * and their mappings, and the options that change the result of the setup
+	 */
+	public static String getFingerprint(Ontology ontology, OBDAModel model, List<String> options) {
+		Hasher hasher = Hashing.sha256().newHasher();
+
+		putSorted(hasher, ontology.getVocabulary().getClasses());
+		putSorted(hasher, ontology.getVocabulary().getObjectProperties());
+		putSorted(hasher, ontology.getVocabulary().getDataProperties());
+		putSorted(hasher, ontology.getVocabulary().getAnnotationProperties());
+		putSorted(hasher, ontology.getSubClassAxioms());
+		putSorted(hasher, ontology.getSubDataRangeAxioms());
+		putSorted(hasher, ontology.getSubObjectPropertyAxioms());
+		putSorted(hasher, ontology.getSubDataPropertyAxioms());
+		putSorted(hasher, ontology.getSubAnnotationAxioms());
+		putSorted(hasher, ontology.getDisjointClassesAxioms());
+		putSorted(hasher, ontology.getDisjointObjectPropertiesAxioms());
+		putSorted(hasher, ontology.getDisjointDataPropertiesAxioms());
+		putSorted(hasher, ontology.getReflexiveObjectPropertyAxioms());
+		putSorted(hasher, ontology.getIrreflexiveObjectPropertyAxioms());
+		putSorted(hasher, ontology.getFunctionalObjectProperties());
+		putSorted(hasher, ontology.getFunctionalDataProperties());
+		putSorted(hasher, ontology.getClassAssertions());
+		putSorted(hasher, ontology.getObjectPropertyAssertions());
+		putSorted(hasher, ontology.getDataPropertyAssertions());
+		putSorted(hasher, ontology.getAnnotationAssertions());
+
+		// the order of the mappings is significant (e.g., for the names of the parser views)
+		for (OBDADataSource source : model.getSources()) {
+			putString(hasher, source.getSourceID().toString());
+			putString(hasher, source.getParameter(RDBMSourceParameterConstants.DATABASE_URL));
+			putString(hasher, source.getParameter(RDBMSourceParameterConstants.DATABASE_DRIVER));
+			putString(hasher, source.getParameter(RDBMSourceParameterConstants.DATABASE_USERNAME));
+			for (OBDAMappingAxiom mapping : model.getMappings(source.getSourceID())) {
+				putString(hasher, mapping.getId());
+				putString(hasher, mapping.getSourceQuery().toString());
+				putString(hasher, mapping.getTargetQuery().toString());
+			}
+		}
+
+		for (String option : options)
+			putString(hasher, option);
+
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Whether the model has meta-mappings (with a class or a property given by the data),
+	 * which cannot be compiled
+	 */
+	public static boolean hasMetaMappings(OBDAModel model) {
+		for (OBDADataSource source : model.getSources())
+			for (OBDAMappingAxiom mapping : model.getMappings(source.getSourceID()))
+				for (Function atom : mapping.getTargetQuery())
+					if (atom.getFunctionSymbol().isTriplePredicate())
+						return true;
+		return false;
+	}
+
+	private static void putSorted(Hasher hasher, Collection<?> elements) {
+		List<String> strings = new ArrayList<>(elements.size());
+		for (Object element : elements)
+			strings.add(element.toString());
+		Collections.sort(strings);
+		hasher.putInt(strings.size());
+		for (String s : strings)
+			putString(hasher, s);
+	}
+
+	private static void putString(Hasher hasher, String s) {
+		if (s == null) {
+			hasher.putInt(-1);
+			return;
+		}
+		hasher.putInt(s.length());
+		hasher.putString(s, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * saves the artifact and the database metadata to the file
+	 * (the file is replaced only once the artifact is completely written)
+	 *
+	 * @param file
+	 * @param fingerprint see getFingerprint
+	 * @param schemaFingerprint the fingerprint of the database schema (see DBMetadataSnapshot.getSchemaFingerprint)
+	 * @param metadata the metadata used by the setup (including the parser views)
+	 * @throws IOException
+	 */
+
+	public void save(File file, String fingerprint, long schemaFingerprint, DBMetadata metadata) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			DBMetadataSnapshot.writeRelations(metadata, out);
+			DBMetadataSnapshot.writeParserViews(metadata, out);
+
+			DatalogCodec.Encoder encoder = new DatalogCodec.Encoder(out);
+			out.writeInt(program.size());
+			for (CQIE rule : program)
+				encoder.writeRule(rule);
+			out.writeInt(relationSources.size());
+			for (Map.Entry<Predicate, URI> entry : relationSources.entrySet()) {
+				encoder.writePredicate(entry.getKey());
+				encoder.writeString(entry.getValue().toString());
+			}
+			writePredicates(encoder, out, sameAsDataPredicatesAndClasses);
+			writePredicates(encoder, out, sameAsObjectPredicates);
+			writePredicates(encoder, out, incompleteTMappings);
+		}
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		File tmp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(fingerprint);
+			out.writeLong(schemaFingerprint);
+			writeNullableString(out, metadata.getDbmsProductName());
+			writeNullableString(out, metadata.getDbmsVersion());
+			writeNullableString(out, metadata.getDriverName());
+			writeNullableString(out, metadata.getDriverVersion());
+			out.writeInt(payload.length);
+			out.writeLong(crc.getValue());
+			out.write(payload);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void writePredicates(DatalogCodec.Encoder encoder, DataOutputStream out, Set<Predicate> predicates) throws IOException {
+		out.writeInt(predicates.size());
+		for (Predicate predicate : predicates)
+			encoder.writePredicate(predicate);
+	}
+
+	/**
+	 * loads the artifact from the file and the database metadata into the given metadata,
+	 * which is to be discarded if the artifact cannot be used (it may then be partly filled)
+	 *
+	 * @param file
+	 * @param fingerprint see getFingerprint
+	 * @param schemaFingerprint the fingerprint of the database schema (see DBMetadataSnapshot.getSchemaFingerprint)
+	 * @param metadata new metadata created by DBMetadataExtractor.createMetadata (no relations loaded)
+	 * @return the artifact or null if it cannot be used
+	 */
+
+	public static QuestCompiledArtifact load(File file, String fingerprint, long schemaFingerprint, DBMetadata metadata) {
+		if (!file.exists()) {
+			log.info("Compiled artifact {} not found", file);
+			return null;
+		}
+
+		byte[] payload;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				log.warn("Ignoring the compiled artifact {}: unknown format", file);
+				return null;
+			}
+			if (!in.readUTF().equals(fingerprint)) {
+				log.info("Ignoring the compiled artifact {}: compiled for another ontology, mappings or options", file);
+				return null;
+			}
+			if (in.readLong() != schemaFingerprint) {
+				log.info("Ignoring the compiled artifact {}: compiled for another database schema", file);
+				return null;
+			}
+			if (!Objects.equals(readNullableString(in), metadata.getDbmsProductName())
+					|| !Objects.equals(readNullableString(in), metadata.getDbmsVersion())
+					|| !Objects.equals(readNullableString(in), metadata.getDriverName())
+					|| !Objects.equals(readNullableString(in), metadata.getDriverVersion())) {
+				log.info("Ignoring the compiled artifact {}: compiled for another database engine", file);
+				return null;
+			}
+			payload = new byte[in.readInt()];
+			long checksum = in.readLong();
+			in.readFully(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if (crc.getValue() != checksum) {
+				log.warn("Ignoring the compiled artifact {}: checksum mismatch", file);
+				return null;
+			}
+		}
+		catch (IOException e) {
+			log.warn("Ignoring the compiled artifact {}: {}", file, e.toString());
+			return null;
+		}
+
+		QuestCompiledArtifact artifact;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			DBMetadataSnapshot.readRelations(metadata, in);
+			DBMetadataSnapshot.readParserViews(metadata, in);
+
+			DatalogCodec.Decoder decoder = new DatalogCodec.Decoder(in);
+			int size = in.readInt();
+			List<CQIE> program = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				program.add(decoder.readRule());
+			size = in.readInt();
+			Map<Predicate, URI> relationSources = new HashMap<>();
+			for (int i = 0; i < size; i++)
+				relationSources.put(decoder.readPredicate(), URI.create(decoder.readString()));
+			Set<Predicate> sameAsDataPredicatesAndClasses = readPredicates(decoder, in);
+			Set<Predicate> sameAsObjectPredicates = readPredicates(decoder, in);
+			Set<Predicate> incompleteTMappings = readPredicates(decoder, in);
+			artifact = new QuestCompiledArtifact(program, relationSources,
+					sameAsDataPredicatesAndClasses, sameAsObjectPredicates, incompleteTMappings);
+		}
+		catch (IOException | RuntimeException e) {
+			// the checksum is correct, so the artifact has been written by another version of Quest
+			log.warn("Ignoring the compiled artifact {}: cannot be decoded ({})", file, e.toString());
+			return null;
+		}
+		log.debug("Loaded {} rules and {} database relations from the compiled artifact {}",
+				artifact.program.size(), metadata.getDatabaseRelations().size(), file);
+		return artifact;
+	}
+
+	private static Set<Predicate> readPredicates(DatalogCodec.Decoder decoder, DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Set<Predicate> predicates = new HashSet<>();
+		for (int i = 0; i < size; i++)
+			predicates.add(decoder.readPredicate());
+		return predicates;
+	}
+
+	private static void writeNullableString(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
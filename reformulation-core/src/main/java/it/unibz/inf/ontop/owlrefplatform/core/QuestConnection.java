@@ -24,6 +24,7 @@ import it.unibz.inf.ontop.model.OBDAConnection;
 import it.unibz.inf.ontop.model.OBDAException;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 /***
@@ -48,6 +49,10 @@ public class QuestConnection implements OBDAConnection {
 		isClosed = false;
 	}
 	
+	public Quest getQuestInstance() {
+		return questInstance;
+	}
+
 	@Deprecated // used only in QuestSemanticSIRepository
 	public Connection getConnection() {
 		return conn;
@@ -82,6 +87,16 @@ public class QuestConnection implements OBDAConnection {
 		}
 	}
 		
+	/**
+	 * Prepares a read-only SQL query on the wrapped JDBC connection. With a
+	 * pooled connection, closing the statement returns it to the statement cache
+	 * of the pool.
+	 */
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		return conn.prepareStatement(sql, java.sql.ResultSet.TYPE_FORWARD_ONLY,
+				java.sql.ResultSet.CONCUR_READ_ONLY);
+	}
+		
 	@Override
 	public void commit() throws OBDAException {
 		try {
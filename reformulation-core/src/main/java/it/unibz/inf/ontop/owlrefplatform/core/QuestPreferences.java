@@ -86,6 +86,43 @@ public class QuestPreferences extends Properties {
 	public static final String REMOVE_ABANDONED = "remove_abandoned";
 	public static final String ABANDONED_TIMEOUT = "abandoned_timeout";
 	public static final String KEEP_ALIVE = "keep_alive";	
+	public static final String PREPARED_STATEMENTS = "prepared_statements";
+	public static final String STATEMENT_CACHE_SIZE = "statement_cache_size";
+
+	// Query translation cache properties
+	public static final String QUERY_CACHE_MAX_WEIGHT = "query_cache_max_weight";
+	public static final String PARSED_QUERY_CACHE_SIZE = "parsed_query_cache_size";
+	public static final String PARAMETERIZE_QUERIES = "parameterize_queries";
+
+	// Query result cache properties (classic mode)
+	public static final String QUERY_RESULT_CACHE_MAX_WEIGHT = "query_result_cache_max_weight";
+
+	// Mapping emptiness properties (virtual mode)
+	public static final String PRUNE_EMPTY_MAPPINGS = "prune_empty_mappings";
+
+	// Query execution properties
+	public static final String QUERY_EXECUTOR_THREADS = "query_executor_threads";
+	public static final String MAX_CONCURRENT_QUERIES = "max_concurrent_queries";
+	public static final String ADMISSION_TIMEOUT = "admission_timeout";
+	public static final String QUERY_DEADLINE = "query_deadline";
+
+	// Mapping processing properties
+	public static final String MAPPING_THREADS = "mapping_threads";
+
+	// Database metadata properties
+	public static final String BULK_METADATA = "bulk_metadata";
+	public static final String METADATA_SNAPSHOT = "metadata_snapshot";
+
+	// Compiled artifact properties (virtual mode)
+	public static final String COMPILED_ARTIFACT = "compiled_artifact";
+
+	// Result set properties
+	public static final String DISTINCT_RESULTSET_MEMORY = "distinct_resultset_memory";
+	public static final String FEDERATED_JOIN_MAX_ROWS = "federated_join_max_rows";
+
+	// Query metrics properties
+	public static final String QUERY_METRICS_JMX = "query_metrics_jmx";
+	public static final String SLOW_QUERY_THRESHOLD = "slow_query_threshold";
 	
 	private Logger				log						= LoggerFactory.getLogger(QuestPreferences.class);
 
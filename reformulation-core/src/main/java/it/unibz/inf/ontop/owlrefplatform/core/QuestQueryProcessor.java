@@ -1,28 +1,51 @@
 package it.unibz.inf.ontop.owlrefplatform.core;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import it.unibz.inf.ontop.model.CQIE;
 import it.unibz.inf.ontop.model.DatalogProgram;
+import it.unibz.inf.ontop.model.Function;
 import it.unibz.inf.ontop.model.OBDAException;
 import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.model.Term;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
 import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
 import it.unibz.inf.ontop.owlrefplatform.core.abox.SemanticIndexURIMap;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.*;
 import it.unibz.inf.ontop.owlrefplatform.core.benchmark.OntopBenchmark;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.ParameterizedSPARQLQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.PreparedSQLQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryPlan;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryPlanCache;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryTranslation;
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQueryGenerator;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryProfile;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryStage;
 import it.unibz.inf.ontop.owlrefplatform.core.queryevaluation.SPARQLQueryUtility;
 import it.unibz.inf.ontop.owlrefplatform.core.reformulation.QueryRewriter;
 import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
 import it.unibz.inf.ontop.owlrefplatform.core.translator.*;
 import it.unibz.inf.ontop.owlrefplatform.core.unfolding.ExpressionEvaluator;
+import it.unibz.inf.ontop.parser.EncodeForURI;
 import it.unibz.inf.ontop.renderer.DatalogProgramRenderer;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.algebra.StatementPattern;
+import org.openrdf.query.algebra.ValueConstant;
+import org.openrdf.query.algebra.Var;
+import org.openrdf.query.algebra.helpers.QueryModelVisitorBase;
 import org.openrdf.query.parser.ParsedQuery;
 import org.openrdf.query.parser.QueryParser;
 import org.openrdf.query.parser.QueryParserUtil;
@@ -31,9 +54,9 @@ import org.slf4j.LoggerFactory;
 
 public class QuestQueryProcessor {
 	
-	private final Map<String, ParsedQuery> parsedQueryCache = new ConcurrentHashMap<>();
-	private final Map<ParsedQuery, List<String>> querySignatureCache = new ConcurrentHashMap<>();
-	private final Map<ParsedQuery, String> translatedSQLCache = new ConcurrentHashMap<>();
+	private final Cache<String, ParsedQuery> parsedQueryCache;
+	private final QueryPlanCache queryPlanCache;
+	private final boolean parameterizeQueries;
 	
 	private final QueryRewriter rewriter;
 	private final LinearInclusionDependencies sigma;
@@ -41,24 +64,38 @@ public class QuestQueryProcessor {
 	private final VocabularyValidator vocabularyValidator;
 	private final SemanticIndexURIMap uriMap;
 	private final SQLQueryGenerator datasourceQueryGenerator;
+	private final FederatedQueryGenerator federatedQueryGenerator; // null if there is a single data source
 		
 	private static final Logger log = LoggerFactory.getLogger(QuestQueryProcessor.class);
 	
 	// Davide> Benchmark
-	private OntopBenchmark benchmarkObj = null;
+	// the query processor is shared by all the statements, and each thread translates its own queries
+	private final ThreadLocal<OntopBenchmark> benchmarkObj = new ThreadLocal<>();
 		
+	/**
+	 * @param parsedQueryCacheSize maximal number of parsed SPARQL queries kept in memory
+	 * @param queryPlanCache cache for the SQL translations
+	 * @param parameterizeQueries whether queries that differ only in string literals share their translation
+	 * @param federatedQueryGenerator routes the CQs to the data sources (null if there is a single data source)
+	 */
 	public QuestQueryProcessor(QueryRewriter rewriter, LinearInclusionDependencies sigma, QuestUnfolder unfolder, 
-			VocabularyValidator vocabularyValidator, SemanticIndexURIMap uriMap, SQLQueryGenerator datasourceQueryGenerator) {
+			VocabularyValidator vocabularyValidator, SemanticIndexURIMap uriMap, SQLQueryGenerator datasourceQueryGenerator,
+			int parsedQueryCacheSize, QueryPlanCache queryPlanCache, boolean parameterizeQueries,
+			FederatedQueryGenerator federatedQueryGenerator) {
 		this.rewriter = rewriter;
 		this.sigma = sigma;
 		this.unfolder = unfolder;
 		this.vocabularyValidator = vocabularyValidator;
 		this.uriMap = uriMap;
 		this.datasourceQueryGenerator = datasourceQueryGenerator;
+		this.parsedQueryCache = CacheBuilder.newBuilder().maximumSize(parsedQueryCacheSize).recordStats().build();
+		this.queryPlanCache = queryPlanCache;
+		this.parameterizeQueries = parameterizeQueries;
+		this.federatedQueryGenerator = federatedQueryGenerator;
 	}
 	
 	public ParsedQuery getParsedQuery(String sparql) throws MalformedQueryException {
-		ParsedQuery pq = parsedQueryCache.get(sparql);
+		ParsedQuery pq = parsedQueryCache.getIfPresent(sparql);
 		if (pq == null) {
 			QueryParser parser = QueryParserUtil.createParser(QueryLanguage.SPARQL);
 			pq = parser.parseQuery(sparql, null);
@@ -68,24 +105,41 @@ public class QuestQueryProcessor {
 	}
 	
 	/**
-	 * CAN BE CALLED ONLY AFTER getSQL
+	 * Returns the signature of the query (computes the SQL translation
+	 * if it is not in the cache)
 	 * 
 	 * @param pq
 	 * @return
 	 */
-	public List<String> getQuerySignature(ParsedQuery pq) {
-		List<String> signature = querySignatureCache.get(pq);
-		return signature;
+	public List<String> getQuerySignature(ParsedQuery pq) throws OBDAException {
+		return getQueryPlan(pq, getParameterizedQuery(pq), false, null).getSignature();
 	}
 	
 	
-	private DatalogProgram translateAndPreProcess(ParsedQuery pq)  {
+	private DatalogProgram translateAndPreProcess(ParsedQuery pq, QueryTranslationContext context)  {
+		return preProcess(translateToDatalog(pq, context).getProgram(), context);
+	}
+
+	/*
+	 * The stages of the translation of a query into SQL (see translate)
+	 */
 
+	/**
+	 * Translates the SPARQL algebra into Datalog and reserves the suffixes of
+	 * the variables of the program in the context
+	 */
+	SparqlQuery translateToDatalog(ParsedQuery pq, QueryTranslationContext context) {
 		SparqlAlgebraToDatalogTranslator translator = new SparqlAlgebraToDatalogTranslator(unfolder.getUriTemplateMatcher(), uriMap);
 		SparqlQuery translation = translator.translate(pq);
-		DatalogProgram program = translation.getProgram();
-		log.debug("Datalog program translated from the SPARQL query: \n{}", program);
+		log.debug("Datalog program translated from the SPARQL query: \n{}", translation.getProgram());
+		context.reserveSuffixes(translation.getProgram());
+		return translation;
+	}
 
+	/**
+	 * owl:sameAs, equivalences and flattening of the nested rules
+	 */
+	private DatalogProgram preProcess(DatalogProgram program, QueryTranslationContext context) {
 		SameAsRewriter sameAs = new SameAsRewriter(unfolder.getSameAsDataPredicatesAndClasses(), unfolder.getSameAsObjectPredicates());
 		program = sameAs.getSameAsRewriting(program);
 		//System.out.println("SAMEAS" + program);
@@ -105,99 +159,345 @@ public class QuestQueryProcessor {
 			newprogramEq.appendRule(newquery);
 		}
 
-		SPARQLQueryFlattener fl = new SPARQLQueryFlattener(newprogramEq);
+		SPARQLQueryFlattener fl = new SPARQLQueryFlattener(newprogramEq, context);
 		List<CQIE> p = fl.flatten(newprogramEq.getRules(topLevelPredicate).get(0));
 		DatalogProgram newprogram = OBDADataFactoryImpl.getInstance().getDatalogProgram(program.getQueryModifiers(), p);
 
 		return newprogram;
 	}
+
+	/**
+	 * The steps between the translation and the rewriting: owl:sameAs, equivalences,
+	 * flattening, join trees and the ABox dependencies
+	 */
+	DatalogProgram normalize(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		DatalogProgram newprogram = preProcess(program, context);
+
+		for (CQIE q : newprogram.getRules()) 
+			DatalogNormalizer.unfoldJoinTrees(q);
+		log.debug("Normalized program: \n{}", newprogram);
+
+		if (newprogram.getRules().size() < 1)
+			throw new OBDAException("Error, the translation of the query generated 0 rules. This is not possible for any SELECT query (other queries are not supported by the translator).");
+
+		for (CQIE cq : newprogram.getRules())
+			CQCUtilities.optimizeQueryWithSigmaRules(cq.getBody(), sigma);
+		return newprogram;
+	}
+
+	DatalogProgram rewrite(DatalogProgram program, QueryTranslationContext context) throws OBDAException {
+		log.debug("Start the rewriting process...");
+		return rewriter.rewrite(program, context);
+	}
+
+	/**
+	 * The unfolding with the mappings, without the auxiliary rules
+	 */
+	DatalogProgram unfold(DatalogProgram programAfterRewriting, QueryTranslationContext context) throws OBDAException {
+		log.debug("Start the partial evaluation process...");
+		DatalogProgram programAfterUnfolding = unfolder.unfold(programAfterRewriting, context);
+
+		log.debug("Data atoms evaluated: \n{}", programAfterUnfolding);
+
+		List<CQIE> toRemove = new LinkedList<>();
+		for (CQIE rule : programAfterUnfolding.getRules()) {
+			Predicate headPredicate = rule.getHead().getFunctionSymbol();
+			if (!headPredicate.getName().equals(OBDAVocabulary.QUEST_QUERY)) {
+				toRemove.add(rule);
+			}
+		}
+		programAfterUnfolding.removeRules(toRemove);
+		log.debug("Irrelevant rules removed: \n{}", programAfterUnfolding);
+		return programAfterUnfolding;
+	}
+
+	void evaluateExpressions(DatalogProgram programAfterUnfolding) {
+		ExpressionEvaluator evaluator = new ExpressionEvaluator(unfolder.getUriTemplateMatcher());
+		evaluator.evaluateExpressions(programAfterUnfolding);
+	}
+
+	/**
+	 * The SQL query over the default data source
+	 */
+	String generateSQL(DatalogProgram programAfterUnfolding, List<String> signature) throws OBDAException {
+		return datasourceQueryGenerator.generateSourceQuery(programAfterUnfolding, signature);
+	}
 	
 	
 	public void clearSQLCache() {
-		translatedSQLCache.clear();
+		queryPlanCache.clear();
 	}
-	
-	
-	public String getSQL(ParsedQuery pq) throws OBDAException {
-			
-		String cachedSQL = translatedSQLCache.get(pq);
-		if (cachedSQL != null){
-		    // Davide> Benchmarking
-		    OntopBenchmark.Builder builder = new OntopBenchmark.Builder(0, 0);
-		    this.benchmarkObj = builder.build();
-		    return cachedSQL;
-		}
-		try {
-			// log.debug("Input query:\n{}", strquery);
-			
-			SparqlAlgebraToDatalogTranslator translator = new SparqlAlgebraToDatalogTranslator(unfolder.getUriTemplateMatcher(), uriMap);
-			SparqlQuery translation = translator.translate(pq);
-			DatalogProgram program = translation.getProgram();
-			log.debug("Datalog program translated from the SPARQL query: \n{}", program);
-			//System.out.println("OUT " + program);
-
-			SameAsRewriter sameAs = new SameAsRewriter(unfolder.getSameAsDataPredicatesAndClasses(), unfolder.getSameAsObjectPredicates());
-			program = sameAs.getSameAsRewriting(program);
-			//System.out.println("SAMEAS" + program);
-
-			log.debug("Replacing equivalences...");
-			DatalogProgram newprogramEq = OBDADataFactoryImpl.getInstance().getDatalogProgram(program.getQueryModifiers());
-			Predicate topLevelPredicate = null;
-			for (CQIE query : program.getRules()) {
-				// TODO: fix cloning
-				CQIE rule = query.clone();
-				// TODO: get rid of EQNormalizer
-				EQNormalizer.enforceEqualities(rule);
-
-				CQIE newquery = vocabularyValidator.replaceEquivalences(rule);
-				if (newquery.getHead().getFunctionSymbol().getName().equals(OBDAVocabulary.QUEST_QUERY))
-					topLevelPredicate = newquery.getHead().getFunctionSymbol();
-				newprogramEq.appendRule(newquery);
+
+	/**
+	 * Removes the SQL translations of the queries over some of the given predicates
+	 * (e.g., after their mappings have changed)
+	 */
+	public void invalidateSQLCache(Set<Predicate> predicates) {
+		queryPlanCache.invalidate(predicates);
+	}
+
+	/**
+	 * Removes the SQL translations of the queries with URIs that were not in the dictionary
+	 * of the Semantic Index (after URIs have been added to the dictionary)
+	 */
+	public void invalidateSQLCacheOfUnknownURIs() {
+		queryPlanCache.invalidateUnknownURIs();
+	}
+
+	/**
+	 * Returns true if some URI of the query (other than a class or a property) is not in the
+	 * dictionary of the Semantic Index, and so is translated into an id that matches no data
+	 */
+	private boolean hasUnknownURIs(ParsedQuery pq) {
+		if (uriMap == null)
+			return false;
+
+		final boolean[] found = { false };
+		pq.getTupleExpr().visit(new QueryModelVisitorBase<RuntimeException>() {
+			@Override
+			public void meet(StatementPattern triple) {
+				check(triple.getSubjectVar().getValue());
+				Value predicate = triple.getPredicateVar().getValue();
+				if (predicate == null || !predicate.equals(RDF.TYPE))
+					check(triple.getObjectVar().getValue());
+				if (triple.getContextVar() != null)
+					check(triple.getContextVar().getValue());
 			}
 
-			SPARQLQueryFlattener fl = new SPARQLQueryFlattener(newprogramEq);
-			List<CQIE> p = fl.flatten(newprogramEq.getRules(topLevelPredicate).get(0));
-			DatalogProgram newprogram = OBDADataFactoryImpl.getInstance().getDatalogProgram(program.getQueryModifiers(), p);
+			@Override
+			public void meet(Var var) {
+				check(var.getValue());
+			}
 
-			for (CQIE q : newprogram.getRules()) 
-				DatalogNormalizer.unfoldJoinTrees(q);
-			log.debug("Normalized program: \n{}", newprogram);
+			@Override
+			public void meet(ValueConstant constant) {
+				check(constant.getValue());
+			}
 
-			if (newprogram.getRules().size() < 1)
-				throw new OBDAException("Error, the translation of the query generated 0 rules. This is not possible for any SELECT query (other queries are not supported by the translator).");
+			private void check(Value value) {
+				if (value instanceof URI
+						&& uriMap.getId(EncodeForURI.decodeURIEscapeCodes(value.stringValue())) < 0)
+					found[0] = true;
+			}
+		});
+		return found[0];
+	}
 
-			log.debug("Start the rewriting process...");
+	/**
+	 * Returns the predicates of the atoms of the rules of a program (including the nested ones)
+	 */
+	private static Set<Predicate> getPredicates(DatalogProgram program) {
+		Set<Predicate> predicates = new HashSet<>();
+		for (CQIE rule : program.getRules())
+			for (Function atom : rule.getBody())
+				collectPredicates(predicates, atom);
+		return predicates;
+	}
 
-			for (CQIE cq : newprogram.getRules())
-				CQCUtilities.optimizeQueryWithSigmaRules(cq.getBody(), sigma);
-			
-			long startTime = System.currentTimeMillis();
-			
-			DatalogProgram programAfterRewriting = rewriter.rewrite(newprogram);
+	private static void collectPredicates(Set<Predicate> predicates, Function atom) {
+		if (atom.isAlgebraFunction()) {
+			for (Term term : atom.getTerms())
+				if (term instanceof Function)
+					collectPredicates(predicates, (Function) term);
+		}
+		else if (!atom.isOperation())
+			predicates.add(atom.getFunctionSymbol());
+	}
+	
+	/**
+	 * Returns the hit, miss and eviction counters of the SQL translation cache
+	 */
+	public CacheStats getQueryPlanCacheStats() {
+		return queryPlanCache.getStats();
+	}
+	
+	/**
+	 * Returns the hit, miss and eviction counters of the cache of parsed SPARQL queries
+	 */
+	public CacheStats getParsedQueryCacheStats() {
+		return parsedQueryCache.stats();
+	}
+	
+	
+	public String getSQL(ParsedQuery pq) throws OBDAException {
+		return getTranslation(pq, null).getSQL();
+	}
+	
+	/**
+	 * Returns the SQL translation of the query with JDBC placeholders for the 
+	 * string literals of the query, or null if the query does not have
+	 * a parametric translation (in which case getSQL should be used)
+	 */
+	public PreparedSQLQuery getPreparedSQL(ParsedQuery pq) throws OBDAException {
+		return getTranslation(pq, null).getPreparedSQL();
+	}
+
+	/**
+	 * Looks up (or computes) the plan of the query once, for all the forms of its
+	 * translation needed by its execution
+	 *
+	 * @param profile records the translation or the cache hit (null if there is no profile)
+	 */
+	public QueryTranslation getTranslation(ParsedQuery pq, QueryProfile profile) throws OBDAException {
+		ParameterizedSPARQLQuery query = getParameterizedQuery(pq);
+		QueryPlan plan = getQueryPlan(pq, query, true, profile);
+		List<String> values = plan.isParametric() ? query.getValues() : Collections.<String>emptyList();
+		return new QueryTranslation(plan, values, datasourceQueryGenerator);
+	}
+	
+	/**
+	 * Returns the translation of the query over several data sources, or null
+	 * if the query is over the default data source only (in which case getSQL
+	 * or getPreparedSQL should be used)
+	 */
+	public FederatedQuery getFederatedQuery(ParsedQuery pq) throws OBDAException {
+		return getFederatedQuery(pq, null);
+	}
+	
+	/**
+	 * As getFederatedQuery(pq), and records the translation of the query
+	 * (or the cache hit) in the profile, if any
+	 */
+	public FederatedQuery getFederatedQuery(ParsedQuery pq, QueryProfile profile) throws OBDAException {
+		return getQueryPlan(pq, getParameterizedQuery(pq), false, profile).getFederatedQuery();
+	}
+	
+	private ParameterizedSPARQLQuery getParameterizedQuery(ParsedQuery pq) {
+		if (parameterizeQueries && pq.getSourceString() != null)
+			return ParameterizedSPARQLQuery.create(pq.getSourceString());
+		return null;
+	}
+	
+	/**
+	 * Looks up the plan of the query shape first and then the plan of the query itself.
+	 * Queries without a source string are not cached.
+	 * 
+	 * @param profile records the translation or the cache hit (null if there is no profile)
+	 */
+	private QueryPlan getQueryPlan(ParsedQuery pq, ParameterizedSPARQLQuery query, boolean updateBenchmark, QueryProfile profile) throws OBDAException {
+		String sparql = pq.getSourceString();
+		if (sparql == null)
+			return translate(pq, profile);
+		
+		if (query != null && query.hasParameters() && isParametrizable(query)) {
+			QueryPlan plan = queryPlanCache.get(query.getTemplate());
+			if (plan == null) {
+				long generation = queryPlanCache.getGeneration();
+				plan = translateTemplate(query, profile);
+				queryPlanCache.put(query.getTemplate(), plan, generation);
+			}
+			else {
+				if (updateBenchmark)
+					setCachedBenchmark();
+				if (profile != null && plan.isParametric())
+					profile.setCached(true);
+			}
 			
-			long endTime = System.currentTimeMillis();
+			if (plan.isParametric()) 
+				return plan;
+		}
+		
+		QueryPlan plan = queryPlanCache.get(sparql);
+		if (plan == null) {
+			long generation = queryPlanCache.getGeneration();
+			plan = translate(pq, profile);
+			queryPlanCache.put(sparql, plan, generation);
+		}
+		else {
+			if (updateBenchmark)
+				setCachedBenchmark();
+			if (profile != null)
+				profile.setCached(true);
+		}
+		
+		return plan;
+	}
+
+	/**
+	 * The template of a query is translated with sentinel literals, which are not unified with
+	 * (and compare differently to) the literals of the rules: the branches of the unfolding where
+	 * a parameter meets a literal of a rule are missing from the plan of the template. So the
+	 * plan is valid only for the queries whose parameters are none of these literals (and not
+	 * the language range "*"); the other queries are translated (and cached) one by one.
+	 */
+	private boolean isParametrizable(ParameterizedSPARQLQuery query) {
+		Set<String> ruleValues = unfolder.getRuleLiteralValues();
+		for (String value : query.getValues())
+			if (ruleValues.contains(value) || value.equals("*"))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Translates the template of a query shape once, so that the plan can be 
+	 * instantiated for all the queries of the shape. If the sentinel literals
+	 * do not survive the translation unchanged, a non-parametric marker is returned. 
+	 */
+	private QueryPlan translateTemplate(ParameterizedSPARQLQuery query, QueryProfile profile) throws OBDAException {
+		ParsedQuery templatePq;
+		try {
+			QueryParser parser = QueryParserUtil.createParser(QueryLanguage.SPARQL);
+			templatePq = parser.parseQuery(query.getTemplate(), null);
+		} 
+		catch (MalformedQueryException e) {
+			log.debug("Cannot parse the query template: {}", e.getMessage());
+			return QueryPlan.nonParametric();
+		}
+		
+		QueryPlan templatePlan = translate(templatePq, profile);
+		if (templatePlan.isFederated())
+			return QueryPlan.nonParametric();
+		String sql = templatePlan.getSQL(Collections.<String>emptyList(), datasourceQueryGenerator);
+		QueryPlan plan = QueryPlan.createParametric(sql, templatePlan.getSignature(), 
+				query.getValues().size(), datasourceQueryGenerator);
+		if (plan == null) {
+			log.debug("The literals of the query cannot be used as parameters: \n{}", query.getTemplate());
+			return QueryPlan.nonParametric();
+		}
+		plan = plan.withPredicates(templatePlan.getPredicates());
+		return templatePlan.hasUnknownURIs() ? plan.withUnknownURIs() : plan;
+	}
+	
+	private void setCachedBenchmark() {
+	    // Davide> Benchmarking
+	    OntopBenchmark.Builder builder = new OntopBenchmark.Builder(0, 0);
+	    benchmarkObj.set(builder.build());
+	}
+	
+	/**
+	 * @param profile records the time of each stage and the size of the unfolding (null if there is no profile)
+	 */
+	private QueryPlan translate(ParsedQuery pq, QueryProfile profile) throws OBDAException {
+		if (profile == null)
+			profile = new QueryProfile(pq.getSourceString());
+		try {
+			// log.debug("Input query:\n{}", strquery);
 			
-			long rewritingTime = endTime - startTime;
+			// fresh variables of the rewriting and unfolding of this query
+			QueryTranslationContext context = new QueryTranslationContext();
 			
-			log.debug("Start the partial evaluation process...");
+			long start = System.nanoTime();
+			// checked before the translation: a URI added in the meantime invalidates the plan
+			boolean unknownURIs = hasUnknownURIs(pq);
+			SparqlQuery translation = translateToDatalog(pq, context);
+			profile.addSince(QueryStage.TRANSLATE, start);
 
-			startTime = System.currentTimeMillis();
-			DatalogProgram programAfterUnfolding = unfolder.unfold(programAfterRewriting);
+			start = System.nanoTime();
+			DatalogProgram newprogram = normalize(translation.getProgram(), context);
+			profile.addSince(QueryStage.SAME_AS, start);
 			
-			log.debug("Data atoms evaluated: \n{}", programAfterUnfolding);
-
-			List<CQIE> toRemove = new LinkedList<>();
-			for (CQIE rule : programAfterUnfolding.getRules()) {
-				Predicate headPredicate = rule.getHead().getFunctionSymbol();
-				if (!headPredicate.getName().equals(OBDAVocabulary.QUEST_QUERY)) {
-					toRemove.add(rule);
-				}
-			}
-			programAfterUnfolding.removeRules(toRemove);
-			log.debug("Irrelevant rules removed: \n{}", programAfterUnfolding);
+			start = System.nanoTime();
+			DatalogProgram programAfterRewriting = rewrite(newprogram, context);
+			profile.addSince(QueryStage.REWRITE, start);
+			
+			start = System.nanoTime();
+			DatalogProgram programAfterUnfolding = unfold(programAfterRewriting, context);
+			profile.addSince(QueryStage.UNFOLD, start);
 
-			ExpressionEvaluator evaluator = new ExpressionEvaluator(unfolder.getUriTemplateMatcher());
-			evaluator.evaluateExpressions(programAfterUnfolding);
+			start = System.nanoTime();
+			evaluateExpressions(programAfterUnfolding);
+			profile.addSince(QueryStage.EXPRESSION_EVALUATION, start);
+			profile.setUnfoldingSizes(programAfterRewriting.getRules().size(), programAfterUnfolding.getRules().size());
 			
 			/*
 				UnionOfSqlQueries ucq = new UnionOfSqlQueries(questInstance.getUnfolder().getCQContainmentCheck());
@@ -217,27 +517,44 @@ public class QuestQueryProcessor {
 			log.debug("Boolean expression evaluated: \n{}", programAfterUnfolding);
 			log.debug("Partial evaluation ended.");
 
-			querySignatureCache.put(pq, translation.getSignature());
-
 			String sql;
+			FederatedQuery federatedQuery = null;
 			
+			start = System.nanoTime();
 			if (programAfterUnfolding.getRules().size() > 0) {
 				log.debug("Producing the SQL string...");
-				sql = datasourceQueryGenerator.generateSourceQuery(programAfterUnfolding, translation.getSignature());
+				if (federatedQueryGenerator != null) {
+					federatedQuery = federatedQueryGenerator.generate(programAfterUnfolding, translation.getSignature());
+					List<FederatedQuery.SourceQuery> queries = federatedQuery.getSourceQueries();
+					// queries over the default data source only are executed as usual
+					if (queries.size() == 1 && queries.get(0).getSource().equals(federatedQueryGenerator.getDefaultSource())) {
+						sql = queries.get(0).getSQL();
+						federatedQuery = null;
+					}
+					else
+						sql = federatedQuery.toString();
+				}
+				else
+					sql = generateSQL(programAfterUnfolding, translation.getSignature());
 				log.debug("Resulting SQL: \n{}", sql);
 			}
 			else
 				sql = "";
+			profile.addSince(QueryStage.SQL_GENERATION, start);
 			
-			long unfoldingTime = System.currentTimeMillis() - startTime;
-			translatedSQLCache.put(pq, sql);
-			
-			// Davide> Benchmarking
+			// Davide> Benchmarking (in milliseconds, the unfolding includes the SQL generation)
+			long rewritingTime = profile.getNanos(QueryStage.REWRITE) / 1000000;
+			long unfoldingTime = (profile.getNanos(QueryStage.UNFOLD) + profile.getNanos(QueryStage.EXPRESSION_EVALUATION)
+					+ profile.getNanos(QueryStage.SQL_GENERATION)) / 1000000;
 			OntopBenchmark.Builder builder = new OntopBenchmark.Builder(unfoldingTime, rewritingTime);
 			builder.programAfterRewriting(programAfterRewriting).programAfterUnfolding(programAfterUnfolding);
-			this.benchmarkObj = builder.build();
+			benchmarkObj.set(builder.build());
 			
-			return sql;
+			Set<Predicate> predicates = getPredicates(programAfterRewriting);
+			QueryPlan plan = (federatedQuery != null)
+					? QueryPlan.createFederated(federatedQuery).withPredicates(predicates)
+					: QueryPlan.create(sql, translation.getSignature()).withPredicates(predicates);
+			return unknownURIs ? plan.withUnknownURIs() : plan;
 		} 
 		catch (Exception e) {
 			log.debug(e.getMessage(), e);
@@ -254,8 +571,9 @@ public class QuestQueryProcessor {
 	 */
 	public String getRewriting(ParsedQuery query) throws OBDAException {
 		try {
-			DatalogProgram program = translateAndPreProcess(query);
-			DatalogProgram rewriting = rewriter.rewrite(program);
+			QueryTranslationContext context = new QueryTranslationContext();
+			DatalogProgram program = translateAndPreProcess(query, context);
+			DatalogProgram rewriting = rewriter.rewrite(program, context);
 			return DatalogProgramRenderer.encode(rewriting);
 		}
 		catch (Exception e) {
@@ -290,10 +608,11 @@ public class QuestQueryProcessor {
 			ParsedQuery query = getParsedQuery(sparql);
 			
 			// Translate the SPARQL algebra to datalog program
-			DatalogProgram initialProgram = translateAndPreProcess(query);
+			QueryTranslationContext context = new QueryTranslationContext();
+			DatalogProgram initialProgram = translateAndPreProcess(query, context);
 			
 			// Perform the query rewriting
-			DatalogProgram programAfterRewriting = rewriter.rewrite(initialProgram);
+			DatalogProgram programAfterRewriting = rewriter.rewrite(initialProgram, context);
 			
 			// Translate the output datalog program back to SPARQL string
 			// TODO Re-enable the prefix manager using Sesame prefix manager
@@ -312,6 +631,6 @@ public class QuestQueryProcessor {
 
 	// Davide> Benchmark
 	public OntopBenchmark getBenchmarkObject() {
-	    return this.benchmarkObj;
+	    return benchmarkObj.get();
 	}
 }
@@ -20,9 +20,17 @@ package it.unibz.inf.ontop.owlrefplatform.core;
  * #L%
  */
 
+import com.google.common.collect.Iterables;
 import it.unibz.inf.ontop.model.*;
 import it.unibz.inf.ontop.ontology.Assertion;
 import it.unibz.inf.ontop.owlrefplatform.core.benchmark.OntopBenchmark;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.PreparedSQLQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryResultCache;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryTranslation;
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryMetrics;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryProfile;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryStage;
 import it.unibz.inf.ontop.owlrefplatform.core.queryevaluation.SPARQLQueryUtility;
 import it.unibz.inf.ontop.owlrefplatform.core.resultset.*;
 import it.unibz.inf.ontop.owlrefplatform.core.translator.SesameConstructTemplate;
@@ -31,13 +39,20 @@ import org.openrdf.query.parser.ParsedQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 /**
@@ -52,12 +67,18 @@ public class QuestStatement implements OBDAStatement {
 	private final Statement sqlStatement;
 
 
-	private QueryExecutionThread executionThread;
-	private boolean canceled = false;
+	private QueryExecution execution;
+	private volatile boolean canceled = false;
+
+	// the statement of the last prepared query (closing it releases it to the statement cache) 
+	private volatile PreparedStatement preparedStatement;
 
 	
 	private static final Logger log = LoggerFactory.getLogger(QuestStatement.class);
 
+	// maximal number of URIs described by a single SQL query
+	private static final int DESCRIBE_BATCH_SIZE = 100;
+
 
 	public QuestStatement(Quest questInstance, QuestConnection conn, Statement st) {
 		this.questInstance = questInstance;
@@ -73,25 +94,35 @@ public class QuestStatement implements OBDAStatement {
 		DESCRIBE
 	}
 
-	private class QueryExecutionThread extends Thread {
+	/**
+	 * Execution of the SQL query, run by the query executor of Quest
+	 */
+	private class QueryExecution implements QueryExecutor.Execution {
 
-		private final CountDownLatch monitor;
 		private final String sql;
+		private final PreparedSQLQuery preparedSQL; // null if the query is not prepared
+		private final FederatedQuery federatedQuery; // null if the query is over the default data source only
 		private final List<String> signature;
 		private final QueryType type;
 		private final SesameConstructTemplate templ; // only for CONSTRUCT and DESCRIBE queries
+		private final QueryProfile profile;
 		
 		private TupleResultSet tupleResult;	  // only for SELECT and ASK queries
 		private GraphResultSet graphResult;   // only for CONSTRUCT and DESCRIBE queries
 		private Exception exception = null;
 		private boolean executingSQL = false;
 
-		public QueryExecutionThread(String sql, List<String> signature, QueryType type, SesameConstructTemplate templ, CountDownLatch monitor) {
-			this.monitor = monitor;
+		// the statements of the SQL queries over the data sources (for federated queries)
+		private final List<Statement> sourceStatements = new ArrayList<>();
+
+		public QueryExecution(String sql, PreparedSQLQuery preparedSQL, FederatedQuery federatedQuery, List<String> signature, QueryType type, SesameConstructTemplate templ, QueryProfile profile) {
 			this.sql = sql;
+			this.preparedSQL = preparedSQL;
+			this.federatedQuery = federatedQuery;
 			this.signature = signature;
 			this.templ = templ;
 			this.type = type;
+			this.profile = profile;
 		}
 
 		public boolean errorStatus() {
@@ -110,12 +141,140 @@ public class QuestStatement implements OBDAStatement {
 			return graphResult;
 		}
 
-		public void cancel() throws SQLException {
+		/**
+		 * If the SQL query is not being executed yet, it will not be executed at all.
+		 * Otherwise, the database is asked to abort it.
+		 */
+		@Override
+		public synchronized void cancel() throws SQLException {
 			canceled = true;
-			if (!executingSQL) {
-				this.stop();
-			} else {
-				sqlStatement.cancel();
+			if (executingSQL) {
+				if (federatedQuery != null) {
+					for (Statement statement : sourceStatements)
+						statement.cancel();
+				}
+				else if (preparedSQL != null && preparedStatement != null) 
+					preparedStatement.cancel();
+				else 
+					sqlStatement.cancel();
+			}
+		}
+
+		private synchronized boolean startExecutingSQL() {
+			if (canceled)
+				return false;
+			executingSQL = true;
+			return true;
+		}
+
+		/**
+		 * The rows of the result set are timed, and the profile is recorded when they are exhausted
+		 */
+		private TupleResultSet profiled(TupleResultSet tuples) {
+			QueryMetrics metrics = questInstance.getQueryMetrics();
+			return (metrics != null) ? new ProfiledTupleResultSet(tuples, profile, metrics) : tuples;
+		}
+
+		/**
+		 * Records the profile of a query without rows to iterate
+		 */
+		private void record() {
+			QueryMetrics metrics = questInstance.getQueryMetrics();
+			if (metrics != null)
+				metrics.record(profile);
+		}
+
+		private synchronized boolean startExecutingSQL(Statement sourceStatement) {
+			if (canceled)
+				return false;
+			sourceStatements.add(sourceStatement);
+			executingSQL = true;
+			return true;
+		}
+
+		/**
+		 * Executes the SQL queries of a query over several data sources concurrently,
+		 * each on a connection of the pool of its data source. The statements and 
+		 * connections are closed with the result set.
+		 * 
+		 * @return the result set or null if the execution has been cancelled
+		 */
+		private TupleResultSet executeFederatedQuery() throws SQLException {
+			final List<Connection> connections = new ArrayList<>();
+			final List<Statement> statements = new ArrayList<>();
+			AutoCloseable resources = () -> {
+				SQLException exception = null;
+				for (Statement statement : statements) {
+					try {
+						statement.close();
+					}
+					catch (SQLException e) {
+						exception = e;
+					}
+				}
+				for (Connection connection : connections) 
+					questInstance.releaseSQLPoolConnection(connection);
+				if (exception != null)
+					throw exception;
+			};
+
+			try {
+				ExecutorService executor = questInstance.getSourceQueryExecutorService();
+				List<Future<java.sql.ResultSet>> futures = new ArrayList<>();
+				for (final FederatedQuery.SourceQuery query : federatedQuery.getSourceQueries()) {
+					Connection connection = questInstance.getSQLPoolConnection(query.getSource());
+					connections.add(connection);
+					final Statement statement = connection.createStatement();
+					statements.add(statement);
+					statement.setQueryTimeout(sqlStatement.getQueryTimeout());
+					statement.setFetchSize(sqlStatement.getFetchSize());
+					if (!startExecutingSQL(statement)) {
+						resources.close();
+						return null;
+					}
+					log.debug("Executing the SQL query over {}: \n{}", query.getSource(), query.getSQL());
+					futures.add(executor.submit(new Callable<java.sql.ResultSet>() {
+						@Override
+						public java.sql.ResultSet call() throws SQLException {
+							return statement.executeQuery(query.getSQL());
+						}
+					}));
+				}
+
+				List<java.sql.ResultSet> sets = new ArrayList<>();
+				for (Future<java.sql.ResultSet> future : futures) 
+					sets.add(future.get());
+
+				List<TupleResultSet> components = new ArrayList<>();
+				int i = 0;
+				for (FederatedQuery.Component component : federatedQuery.getComponents()) {
+					List<TupleResultSet> parts = new ArrayList<>();
+					for (FederatedQuery.SourceQuery query : component.getParts())
+						parts.add(new QuestTupleResultSet(sets.get(i++), query.getSignature(), QuestStatement.this));
+					components.add(component.isJoin() 
+							? new HashJoinTupleResultSet(parts, component, signature, QuestStatement.this,
+									questInstance.getFederatedJoinMaxRows())
+							: parts.get(0));
+				}
+				
+				boolean distinct = federatedQuery.isDistinct() || questInstance.hasDistinctResultSet();
+				return new ConcatenatedTupleResultSet(components, signature, QuestStatement.this, 
+						distinct ? questInstance.getDistinctResultSetMemory() : -1,
+						federatedQuery.getLimit(), federatedQuery.getOffset(), resources);
+			}
+			catch (Exception e) {
+				try {
+					resources.close();
+				}
+				catch (Exception e1) {
+					log.debug(e1.getMessage());
+				}
+				Throwable cause = (e instanceof ExecutionException) ? e.getCause() : e;
+				if (cause instanceof SQLException)
+					throw (SQLException) cause;
+				if (cause instanceof InterruptedException)
+					Thread.currentThread().interrupt();
+				throw new OBDAException(cause.getMessage(), cause);
 			}
 		}
 
@@ -130,6 +289,7 @@ public class QuestStatement implements OBDAStatement {
 						tupleResult = new EmptyTupleResultSet(signature, QuestStatement.this);
 					else
 						tupleResult = new BooleanResultSet(false, QuestStatement.this);
+					record();
 				} 
 				else {
 					try {
@@ -139,31 +299,64 @@ public class QuestStatement implements OBDAStatement {
 //                        } catch (SQLException e) {
 //                            e.printStackTrace();
 //                        }
+						if (federatedQuery != null) {
+							long start = System.nanoTime();
+							TupleResultSet tuples = executeFederatedQuery();
+							if (tuples == null) // cancelled
+								return;
+							profile.addSince(QueryStage.SQL_EXECUTION, start);
+							
+							switch (type) {
+							case SELECT:
+								tupleResult = profiled(tuples);
+								break;
+							
+							case ASK:
+								tupleResult = new BooleanResultSet(tuples.nextRow(), QuestStatement.this);
+								tuples.close();
+								record();
+								break;
+								
+							default: // CONSTRUCT and DESCRIBE
+								graphResult = new QuestGraphResultSet(profiled(tuples), templ);
+							}
+							log.debug("Execution finished.\n");
+							return;
+						}
+						
 						// Execute the SQL query string
-						executingSQL = true;
-						java.sql.ResultSet set = sqlStatement.executeQuery(sql);
+						if (!startExecutingSQL())
+							return;
+						long start = System.nanoTime();
+						java.sql.ResultSet set = (preparedSQL != null) 
+								? executePreparedQuery(preparedSQL, sql) 
+								: sqlStatement.executeQuery(sql);
+						if (set == null) // cancelled
+							return;
+						profile.addSince(QueryStage.SQL_EXECUTION, start);
 
 						// Store the SQL result to application result set.
 						switch (type) {
 						case SELECT:
 							if (questInstance.hasDistinctResultSet()) 
-								tupleResult = new QuestDistinctTupleResultSet(set, signature, QuestStatement.this);
+								tupleResult = profiled(new QuestDistinctTupleResultSet(set, signature, QuestStatement.this));
 							else
-								tupleResult = new QuestTupleResultSet(set, signature, QuestStatement.this);
+								tupleResult = profiled(new QuestTupleResultSet(set, signature, QuestStatement.this));
 							break;
 						
 						case ASK:
 							tupleResult = new BooleanResultSet(set, QuestStatement.this);
+							record();
 							break;
 						
 						case CONSTRUCT:
 							TupleResultSet tuples = new QuestTupleResultSet(set, signature, QuestStatement.this);
-							graphResult = new QuestGraphResultSet(tuples, templ, false);
+							graphResult = new QuestGraphResultSet(profiled(tuples), templ);
 							break;
 							
 						case DESCRIBE:
 							tuples = new QuestTupleResultSet(set, signature, QuestStatement.this);
-							graphResult = new QuestGraphResultSet(tuples, templ, true);
+							graphResult = new QuestGraphResultSet(profiled(tuples), templ);
 							break;
 						}
 					}
@@ -195,13 +388,9 @@ public class QuestStatement implements OBDAStatement {
 				log.debug("Execution finished.\n");
 			}
 			catch (Exception e) {
-				e.printStackTrace();
 				exception = e;
 				log.error(e.getMessage(), e);
 			}
-			finally {
-				monitor.countDown();
-			}
 		}
 
 
@@ -217,13 +406,14 @@ public class QuestStatement implements OBDAStatement {
 			throw new OBDAException("Cannot execute an empty query");
 		}
 		try {
-			ParsedQuery pq = engine.getParsedQuery(strquery);
+			QueryProfile profile = new QueryProfile(strquery);
+			ParsedQuery pq = parse(strquery, profile);
 			if (SPARQLQueryUtility.isSelectQuery(pq)) {
-				TupleResultSet executedQuery = executeTupleQuery(strquery, pq, QueryType.SELECT);
+				TupleResultSet executedQuery = executeTupleQuery(strquery, pq, profile, QueryType.SELECT);
 				return executedQuery;
 			} 
 			else if (SPARQLQueryUtility.isAskQuery(pq)) {
-				TupleResultSet executedQuery = executeTupleQuery(strquery, pq, QueryType.ASK);
+				TupleResultSet executedQuery = executeTupleQuery(strquery, pq, profile, QueryType.ASK);
 				return executedQuery;
 			} 
 			else if (SPARQLQueryUtility.isConstructQuery(pq)) {
@@ -232,15 +422,16 @@ public class QuestStatement implements OBDAStatement {
 			} 
 			else if (SPARQLQueryUtility.isDescribeQuery(pq)) {
 				// create list of URI constants we want to describe
-				List<String> constants = new LinkedList<>();
+				Set<String> constants = new LinkedHashSet<>();
 				if (SPARQLQueryUtility.isVarDescribe(strquery)) {
 					// if describe ?var, we have to do select distinct ?var first
 					String sel = SPARQLQueryUtility.getSelectVarDescribe(strquery);
-					ResultSet resultSet = executeTupleQuery(sel, engine.getParsedQuery(sel), QueryType.SELECT);
+					QueryProfile selectProfile = new QueryProfile(sel);
+					ResultSet resultSet = executeTupleQuery(sel, parse(sel, selectProfile), selectProfile, QueryType.SELECT);
 					if (resultSet instanceof EmptyTupleResultSet)
 						return null;
-					else if (resultSet instanceof QuestTupleResultSet) {
-						QuestTupleResultSet res = (QuestTupleResultSet) resultSet;
+					else if (resultSet instanceof TupleResultSet) {
+						TupleResultSet res = (TupleResultSet) resultSet;
 						while (res.nextRow()) {
 							Constant constant = res.getConstant(1);
 							if (constant instanceof URIConstant) {
@@ -248,6 +439,7 @@ public class QuestStatement implements OBDAStatement {
 								constants.add(((URIConstant)constant).getURI());
 							}
 						}
+						res.close();
 					}
 				} 
 				else if (SPARQLQueryUtility.isURIDescribe(strquery)) {
@@ -260,35 +452,14 @@ public class QuestStatement implements OBDAStatement {
 					}
 				}
 
-				GraphResultSet describeResultSet = null;
-				// execute describe <uriconst> in subject position
-				for (String constant : constants) {
-					// for each constant we execute a construct with
-					// the uri as subject, and collect the results
-					String str = SPARQLQueryUtility.getConstructSubjQuery(constant);
-					GraphResultSet set = executeGraphQuery(str, QueryType.DESCRIBE);
-					if (describeResultSet == null) { // just for the first time
-						describeResultSet = set;	
-					} 
-					else if (set != null) {
-						// 2nd and manyth times execute, but collect result into one object
-						while (set.hasNext()) 
-							describeResultSet.addNewResultSet(set.next());
-					}
-				}
-				// execute describe <uriconst> in object position
-				for (String constant : constants) {
-					String str = SPARQLQueryUtility.getConstructObjQuery(constant);
-					GraphResultSet set = executeGraphQuery(str, QueryType.DESCRIBE);
-					if (describeResultSet == null) { // just for the first time
-						describeResultSet = set;
-					} 
-					else if (set != null) {
-						while (set.hasNext()) 
-							describeResultSet.addNewResultSet(set.next());
-					}
-				}
-				return describeResultSet;
+				// the URIs are described in batches, each by a single CONSTRUCT query
+				// for the subject and object positions; the batches are executed lazily
+				List<String> queries = new ArrayList<>();
+				for (List<String> batch : Iterables.partition(constants, DESCRIBE_BATCH_SIZE))
+					queries.add(SPARQLQueryUtility.getConstructDescribeQuery(batch));
+
+				return new ConcatenatedGraphResultSet(queries.iterator(),
+						query -> executeGraphQuery(query, QueryType.DESCRIBE));
 			}
 		}
 		catch (MalformedQueryException e) {
@@ -297,6 +468,27 @@ public class QuestStatement implements OBDAStatement {
 		}
 		throw new OBDAException("Error, the result set was null");
 	}
+
+	/**
+	 * Executes a SELECT or ASK query given by its algebra (e.g., built by the caller 
+	 * rather than parsed). The source string of the query, if any, is the key of its 
+	 * translation in the cache.
+	 */
+	public TupleResultSet execute(ParsedQuery pq) throws OBDAException {
+		QueryProfile profile = new QueryProfile(pq.getSourceString());
+		if (SPARQLQueryUtility.isSelectQuery(pq)) 
+			return executeTupleQuery(pq.getSourceString(), pq, profile, QueryType.SELECT);
+		if (SPARQLQueryUtility.isAskQuery(pq)) 
+			return executeTupleQuery(pq.getSourceString(), pq, profile, QueryType.ASK);
+		throw new OBDAException("Only SELECT and ASK queries can be executed from their algebra");
+	}
+
+	private ParsedQuery parse(String sparql, QueryProfile profile) throws MalformedQueryException {
+		long start = System.nanoTime();
+		ParsedQuery pq = engine.getParsedQuery(sparql);
+		profile.addSince(QueryStage.PARSE, start);
+		return pq;
+	}
 	
 
 
@@ -311,12 +503,37 @@ public class QuestStatement implements OBDAStatement {
 	 * @return the obtained TupleResultSet result
 	 * @throws OBDAException
 	 */
-	private TupleResultSet executeTupleQuery(String strquery, ParsedQuery pq, QueryType type) throws OBDAException {
+	private TupleResultSet executeTupleQuery(String strquery, ParsedQuery pq, QueryProfile profile, QueryType type) throws OBDAException {
 
 		log.debug("Executing SPARQL query: \n{}", strquery);
 
-		QueryExecutionThread executionthread = startExecute(pq, type, null);
-		TupleResultSet result = executionthread.getTupleResult();
+		// the answers are not cached when the number of rows is limited by the statement
+		// or when they change at each execution
+		QueryResultCache resultCache = questInstance.getQueryResultCache();
+		if (resultCache == null || type != QueryType.SELECT || getMaxRows() > 0
+				|| QueryResultCache.isNonDeterministic(pq))
+			return executeTupleQuery(pq, profile, type);
+
+		String key = QueryResultCache.getKey(pq);
+		QueryResultCache.Result cached = resultCache.get(key);
+		if (cached != null) {
+			profile.setCached(true);
+			QueryMetrics metrics = questInstance.getQueryMetrics();
+			if (metrics != null)
+				metrics.record(profile);
+			return new CachedTupleResultSet(cached, this);
+		}
+
+		long generation = resultCache.getGeneration();
+		TupleResultSet result = executeTupleQuery(pq, profile, type);
+		if (result instanceof EmptyTupleResultSet)
+			return result;
+		return new CachingTupleResultSet(result, resultCache, key, generation, QueryResultCache.getPredicates(pq));
+	}
+
+	private TupleResultSet executeTupleQuery(ParsedQuery pq, QueryProfile profile, QueryType type) throws OBDAException {
+		QueryExecution execution = startExecute(pq, profile, type, null);
+		TupleResultSet result = execution.getTupleResult();
 		if (result == null)
 			throw new RuntimeException("Error, the result set was null");
 
@@ -331,10 +548,11 @@ public class QuestStatement implements OBDAStatement {
 			// Here we need to get the template for the CONSTRUCT query results
 			SesameConstructTemplate templ = new SesameConstructTemplate(strquery);
 			String query = SPARQLQueryUtility.getSelectFromConstruct(strquery);
-			ParsedQuery pq = engine.getParsedQuery(query);
+			QueryProfile profile = new QueryProfile(strquery);
+			ParsedQuery pq = parse(query, profile);
 			
-			QueryExecutionThread executionthread = startExecute(pq, type, templ);
-			GraphResultSet executedGraphQuery = executionthread.getGraphResult();
+			QueryExecution execution = startExecute(pq, profile, type, templ);
+			GraphResultSet executedGraphQuery = execution.getGraphResult();
 			return executedGraphQuery;
 		} 
 		catch (MalformedQueryException e) {
@@ -346,32 +564,82 @@ public class QuestStatement implements OBDAStatement {
 	
 
 	/**
-	 * Internal method to start a new query execution thread type defines the
-	 * query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 * Executes the prepared SQL query with a (pooled) JDBC prepared statement,
+	 * which inherits the timeout, fetch size and max rows of this statement. 
+	 * 
+	 * The parameters are bound as strings with the JDBC type of the dialect
+	 * (unspecified in PostgreSQL, as the string literals). If the database does 
+	 * not accept them, the SQL query with the literals is executed instead.
+	 * 
+	 * @param sql the SQL query with the literals
 	 */
-	private QueryExecutionThread startExecute(ParsedQuery pq, QueryType type, SesameConstructTemplate templ) throws OBDAException {
-		CountDownLatch monitor = new CountDownLatch(1);
-		String sql = engine.getSQL(pq);
-		List<String> signature = engine.getQuerySignature(pq);
-		QueryExecutionThread executionthread = new QueryExecutionThread(sql, signature, type, templ, monitor);
-		this.executionThread = executionthread;
-		executionthread.start();
+	private java.sql.ResultSet executePreparedQuery(PreparedSQLQuery query, String sql) throws SQLException {
+		closePreparedStatement();
+		
 		try {
-			monitor.await();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+			preparedStatement = conn.prepareStatement(query.getSQL());
+			if (canceled) // cancelled while the statement was being prepared
+				return null;
+			preparedStatement.setQueryTimeout(sqlStatement.getQueryTimeout());
+			preparedStatement.setFetchSize(sqlStatement.getFetchSize());
+			preparedStatement.setMaxRows(sqlStatement.getMaxRows());
+			
+			List<String> parameters = query.getParameters();
+			for (int i = 0; i < parameters.size(); i++)
+				preparedStatement.setObject(i + 1, parameters.get(i), query.getParameterType());
+			
+			log.debug("Executing the prepared SQL query: \n{}", query);
+			return preparedStatement.executeQuery();
+		}
+		catch (SQLException e) {
+			if (canceled)
+				throw e;
+			log.debug("The prepared SQL query failed ({}), executing the SQL query with the literals", e.getMessage());
+			closePreparedStatement();
+			return sqlStatement.executeQuery(sql);
+		}
+	}
+	
+	private void closePreparedStatement() throws SQLException {
+		if (preparedStatement != null) {
+			preparedStatement.close();
+			preparedStatement = null;
+		}
+	}
+
+	/**
+	 * Internal method to execute a query on the query executor of Quest 
+	 * and wait for the result. The type defines the query type SELECT, 
+	 * ASK, CONSTRUCT, or DESCRIBE
+	 */
+	private QueryExecution startExecute(ParsedQuery pq, QueryProfile profile, QueryType type, SesameConstructTemplate templ) throws OBDAException {
+		// the query is translated if its translation is not in the cache
+		QueryTranslation translation = engine.getTranslation(pq, profile);
+		FederatedQuery federatedQuery = translation.getFederatedQuery();
+		PreparedSQLQuery preparedSQL = (federatedQuery == null && questInstance.usePreparedStatements()) 
+				? translation.getPreparedSQL() : null;
+		String sql = translation.getSQL();
+		List<String> signature = translation.getSignature();
+		profile.setSQL(sql);
+		QueryExecution execution = new QueryExecution(sql, preparedSQL, federatedQuery, signature, type, templ, profile);
+		this.execution = execution;
+		try {
+			questInstance.getQueryExecutor().execute(execution);
+		}
+		catch (OBDAException e) {
+			canceled = false;
+			throw e;
 		}
-		if (executionthread.errorStatus()) {
-			OBDAException ex = new OBDAException(executionthread.getException().getMessage());
-			ex.setStackTrace(executionthread.getStackTrace());
-			throw ex;
+		if (execution.errorStatus()) {
+			Exception cause = execution.getException();
+			throw new OBDAException(cause.getMessage(), cause);
 		}
 
 		if (canceled == true) {
 			canceled = false;
 			throw new OBDAException("Query execution was cancelled");
 		}
-		return executionthread;
+		return execution;
 	}
 
 	
@@ -381,9 +649,16 @@ public class QuestStatement implements OBDAStatement {
 	 * Returns the number of tuples returned by the query
 	 */
 	public long getTupleCount(String query) throws Exception {
+		return getTupleCount(engine.getParsedQuery(query));
+	}
 
-		ParsedQuery pq = engine.getParsedQuery(query); 
+	/**
+	 * Returns the number of tuples returned by the query (counted by the database)
+	 */
+	public long getTupleCount(ParsedQuery pq) throws Exception {
 		String unf = engine.getSQL(pq);
+		if (unf.equals(""))
+			return 0;
 		String newsql = "SELECT count(*) FROM (" + unf + ") t1";
 		if (!canceled) {
 			java.sql.ResultSet set = sqlStatement.executeQuery(newsql);
@@ -400,6 +675,7 @@ public class QuestStatement implements OBDAStatement {
 	@Override
 	public void close() throws OBDAException {
 		try {
+			closePreparedStatement();
 			if (sqlStatement != null)
 				sqlStatement.close();
 		} catch (Exception e) {
@@ -412,7 +688,8 @@ public class QuestStatement implements OBDAStatement {
 	public void cancel() throws OBDAException {
 		canceled = true;
 		try {
-			QuestStatement.this.executionThread.cancel();
+			if (execution != null)
+				execution.cancel();
 		} catch (Exception e) {
 			throw new OBDAException(e);
 		}
@@ -526,6 +803,35 @@ public class QuestStatement implements OBDAStatement {
 		return result;
 	}
 
+	/***
+	 * Inserts a stream of ABox assertions into the repository through the
+	 * bulk load path of the database. Additional connections from the pool
+	 * (at most half of the pool) are used to load the data in parallel.
+	 *
+	 * @param data
+	 *
+	 * @throws SQLException
+	 */
+	public int bulkInsertData(Iterator<Assertion> data) throws SQLException {
+		int helpers = Math.min(Runtime.getRuntime().availableProcessors(), questInstance.maxPoolSize / 2) - 1;
+		List<Connection> helperConnections = new ArrayList<>();
+		try {
+			for (int i = 0; i < helpers; i++)
+				helperConnections.add(questInstance.getSQLPoolConnection());
+		}
+		catch (OBDAException e) {
+			log.debug("Bulk loading with {} additional connections: {}", helperConnections.size(), e.getMessage());
+		}
+
+		try {
+			return questInstance.getSemanticIndexRepository().bulkInsertData(conn.getConnection(), helperConnections, data);
+		}
+		finally {
+			for (Connection helper : helperConnections)
+				questInstance.releaseSQLPoolConnection(helper);
+		}
+	}
+
 
 
 
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.owlrefplatform.core;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import it.unibz.inf.ontop.model.*;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
@@ -8,6 +9,8 @@ import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
 import it.unibz.inf.ontop.model.impl.TermUtils;
 import it.unibz.inf.ontop.ontology.*;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.*;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.Equivalences;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.EquivalencesDAG;
 import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
 import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.MappingDataTypeRepair;
 import it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing.MappingSameAs;
@@ -25,14 +28,16 @@ import net.sf.jsqlparser.statement.select.Select;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 public class QuestUnfolder {
 
-	/* The active unfolding engine */
-	private DatalogUnfolder unfolder;
+	/* The active unfolding engine (replaced when the Semantic Index mappings change) */
+	private volatile DatalogUnfolder unfolder;
 
 	private final DBMetadata metadata;
 	private final Multimap<Predicate, List<Integer>> pkeys;
@@ -53,6 +58,52 @@ public class QuestUnfolder {
 	private Set<Predicate> dataPropertiesAndClassesMapped = new HashSet<>();
 	private Set<Predicate> objectPropertiesMapped = new HashSet<>();
 
+	// the data source of each relation in the mappings (virtual mode only)
+	private final Map<Predicate, URI> relationSources = new HashMap<>();
+
+	// the mappings of the Semantic Index, before and after applying the T-mappings (classic mode only)
+	private final List<CQIE> semanticIndexMappings = new ArrayList<>();
+	private final Map<Predicate, List<CQIE>> semanticIndexRules = new LinkedHashMap<>();
+
+	// the classes and properties that are (or have sub-classes) excluded from the T-mappings
+	private Set<Predicate> incompleteTMappings = Collections.emptySet();
+
+	// constructs the rules of the mappings and the T-mappings (null for the calling thread)
+	private ExecutorService mappingExecutorService = null;
+
+	// the literal values in the rules of the active unfolding engine (computed on demand)
+	private volatile RuleLiteralValues ruleLiteralValues;
+
+	private static final class RuleLiteralValues {
+		private final DatalogUnfolder unfolder;
+		private final ImmutableSet<String> values;
+
+		RuleLiteralValues(DatalogUnfolder unfolder) {
+			this.unfolder = unfolder;
+			Set<String> values = new HashSet<>();
+			for (List<CQIE> rules : unfolder.getRules().values())
+				for (CQIE rule : rules) {
+					collectLiteralValues(rule.getHead(), values);
+					for (Function atom : rule.getBody())
+						collectLiteralValues(atom, values);
+				}
+			this.values = ImmutableSet.copyOf(values);
+		}
+
+		private static void collectLiteralValues(Term term, Set<String> values) {
+			if (term instanceof Function) {
+				for (Term t : ((Function) term).getTerms())
+					collectLiteralValues(t, values);
+			}
+			else if (term instanceof ValueConstant) {
+				ValueConstant constant = (ValueConstant) term;
+				values.add(constant.getValue());
+				if (constant.getLanguage() != null)
+					values.add(constant.getLanguage());
+			}
+		}
+	}
+
 	/**
 	 * @throws SQLException
 	 * @throws JSQLParserException
@@ -67,33 +118,52 @@ public class QuestUnfolder {
 		this.foreignKeyCQC = new CQContainmentCheckUnderLIDs(foreignKeyRules);
 	}
 
-	public void setupInVirtualMode(Collection<OBDAMappingAxiom> mappings,  Connection localConnection, VocabularyValidator vocabularyValidator, TBoxReasoner reformulationReasoner, Ontology inputOntology, TMappingExclusionConfig excludeFromTMappings, boolean queryingAnnotationsInOntology, boolean sameAs)
+	/**
+	 * @param executorService constructs the rules of the mappings and the T-mappings
+	 *                        (null for the calling thread); it is not shut down
+	 */
+	public void setMappingExecutorService(ExecutorService executorService) {
+		this.mappingExecutorService = executorService;
+	}
+
+	/**
+	 * @param sourceMappings the mappings of each data source
+	 * @param connections the connection to each data source (for expanding the meta mappings)
+	 */
+	public void setupInVirtualMode(Map<URI, ? extends Collection<OBDAMappingAxiom>> sourceMappings, Map<URI, Connection> connections, VocabularyValidator vocabularyValidator, TBoxReasoner reformulationReasoner, Ontology inputOntology, TMappingExclusionConfig excludeFromTMappings, boolean queryingAnnotationsInOntology, boolean sameAs)
 					throws SQLException, JSQLParserException, OBDAException {
 
-		mappings = vocabularyValidator.replaceEquivalences(mappings);
+		List<CQIE> unfoldingProgram = new ArrayList<>();
+		for (Map.Entry<URI, ? extends Collection<OBDAMappingAxiom>> entry : sourceMappings.entrySet()) {
+			Collection<OBDAMappingAxiom> mappings = vocabularyValidator.replaceEquivalences(entry.getValue());
 
-		/**
-		 * add sameAsInverse
-		 */
-		mappings.addAll(MappingSameAs.addSameAsInverse(mappings));
+			/**
+			 * add sameAsInverse
+			 */
+			mappings.addAll(MappingSameAs.addSameAsInverse(mappings));
 
-		/** 
-		 * Substitute select * with column names  (performs the operation `in place')
-		 */
-		preprocessProjection(mappings, metadata);
+			/** 
+			 * Substitute select * with column names  (performs the operation `in place')
+			 */
+			preprocessProjection(mappings, metadata);
 
-		/**
-		 * Split the mapping (creates a new set of mappings)
-		 */
-		Collection<OBDAMappingAxiom> splittedMappings = MappingSplitter.splitMappings(mappings);
-		
-		/**
-		 * Expand the meta mapping (creates a new set of mappings)
-		 */
-		MetaMappingExpander metaMappingExpander = new MetaMappingExpander(localConnection, metadata.getQuotedIDFactory());
-		Collection<OBDAMappingAxiom> expandedMappings = metaMappingExpander.expand(splittedMappings);
-		
-		List<CQIE> unfoldingProgram = Mapping2DatalogConverter.constructDatalogProgram(expandedMappings, metadata);
+			/**
+			 * Split the mapping (creates a new set of mappings)
+			 */
+			Collection<OBDAMappingAxiom> splittedMappings = MappingSplitter.splitMappings(mappings);
+			
+			/**
+			 * Expand the meta mapping (creates a new set of mappings)
+			 */
+			MetaMappingExpander metaMappingExpander = new MetaMappingExpander(connections.get(entry.getKey()), metadata.getQuotedIDFactory());
+			Collection<OBDAMappingAxiom> expandedMappings = metaMappingExpander.expand(splittedMappings);
+			
+			List<CQIE> sourceProgram = Mapping2DatalogConverter.constructDatalogProgram(expandedMappings, metadata, mappingExecutorService);
+			for (CQIE rule : sourceProgram)
+				for (Function atom : rule.getBody())
+					addRelationSources(atom, entry.getKey());
+			unfoldingProgram.addAll(sourceProgram);
+		}
 		
 		
 		log.debug("Original mapping size: {}", unfoldingProgram.size());
@@ -103,6 +173,8 @@ public class QuestUnfolder {
 
 		// Apply TMappings
 		unfoldingProgram = applyTMappings(unfoldingProgram, reformulationReasoner, true, excludeFromTMappings);
+		if (!excludeFromTMappings.isEmpty())
+			incompleteTMappings = getIncompleteTMappings(reformulationReasoner, excludeFromTMappings);
 
 		// Adding data typing on the mapping axioms.
 		 // Adding NOT NULL conditions to the variables used in the head
@@ -142,7 +214,66 @@ public class QuestUnfolder {
 		this.ufp = unfoldingProgram;
 	}
 	
+
+	/**
+	 * Sets up the unfolder with the result of setupInVirtualMode saved in the artifact
+	 * (see getCompiledArtifact)
+	 */
+	public void setupFromCompiledArtifact(QuestCompiledArtifact artifact) {
+		List<CQIE> unfoldingProgram = new ArrayList<>(artifact.getProgram());
+
+		relationSources.putAll(artifact.getRelationSources());
+		dataPropertiesAndClassesMapped = new HashSet<>(artifact.getSameAsDataPredicatesAndClasses());
+		objectPropertiesMapped = new HashSet<>(artifact.getSameAsObjectPredicates());
+		incompleteTMappings = new HashSet<>(artifact.getIncompleteTMappings());
+
+		// the URI templates are collected before adding the triple rules
+		List<CQIE> rules = new ArrayList<>(unfoldingProgram.size());
+		for (CQIE rule : unfoldingProgram)
+			if (!rule.getHead().getFunctionSymbol().isTriplePredicate())
+				rules.add(rule);
+		uriTemplateMatcher = UriTemplateMatcher.create(rules);
+
+		log.debug("Unfolding program of {} rules loaded from the compiled artifact", unfoldingProgram.size());
+
+		unfolder = new DatalogUnfolder(unfoldingProgram, pkeys);
+
+		this.ufp = unfoldingProgram;
+	}
+
+	/**
+	 * Returns the state of the unfolder set up in virtual mode, to be saved
+	 * for setupFromCompiledArtifact
+	 */
+	public synchronized QuestCompiledArtifact getCompiledArtifact() {
+		List<CQIE> program = new ArrayList<>();
+		for (List<CQIE> predicateRules : unfolder.getRules().values())
+			program.addAll(predicateRules);
+		return new QuestCompiledArtifact(program, relationSources,
+				dataPropertiesAndClassesMapped, objectPropertiesMapped, incompleteTMappings);
+	}
 		
+	private void addRelationSources(Function atom, URI source) throws OBDAException {
+		if (atom.isAlgebraFunction()) {
+			for (Term t : atom.getTerms())
+				if (t instanceof Function)
+					addRelationSources((Function) t, source);
+		}
+		else if (atom.isDataFunction()) {
+			URI previous = relationSources.put(atom.getFunctionSymbol(), source);
+			if (previous != null && !previous.equals(source))
+				throw new OBDAException("The relation " + atom.getFunctionSymbol().getName()
+						+ " is used in the mappings of two data sources: " + previous + " and " + source);
+		}
+	}
+
+	/**
+	 * Returns the data source of each relation in the mappings (virtual mode only)
+	 */
+	public Map<Predicate, URI> getRelationSources() {
+		return Collections.unmodifiableMap(relationSources);
+	}
+	
 	/**
 	 * Setting up the unfolder and SQL generation
 	 * @param reformulationReasoner 
@@ -150,13 +281,19 @@ public class QuestUnfolder {
 	 * @throws OBDAException 
 	 */
 
-	public void setupInSemanticIndexMode(Collection<OBDAMappingAxiom> mappings, TBoxReasoner reformulationReasoner) throws OBDAException {
+	public synchronized void setupInSemanticIndexMode(Collection<OBDAMappingAxiom> mappings, TBoxReasoner reformulationReasoner) throws OBDAException {
 	
-		List<CQIE> unfoldingProgram = Mapping2DatalogConverter.constructDatalogProgram(mappings, metadata);
+		List<CQIE> unfoldingProgram = Mapping2DatalogConverter.constructDatalogProgram(mappings, metadata, mappingExecutorService);
+		semanticIndexMappings.clear();
+		for (CQIE mapping : unfoldingProgram)
+			semanticIndexMappings.add(mapping.clone());
 		
 		// this call is required to complete the T-mappings by rules taking account of 
 		// existential quantifiers and inverse roles
 		unfoldingProgram = applyTMappings(unfoldingProgram, reformulationReasoner, false, TMappingExclusionConfig.empty());
+		semanticIndexRules.clear();
+		for (CQIE rule : unfoldingProgram)
+			addRule(semanticIndexRules, rule);
 		
 		// Collecting URI templates
 		uriTemplateMatcher = UriTemplateMatcher.create(unfoldingProgram);
@@ -176,12 +313,128 @@ public class QuestUnfolder {
 		this.ufp = unfoldingProgram;
 	}
 
+	/**
+	 * Adds the mappings of the classes and properties of the Semantic Index that have
+	 * become non-empty (see RDBMSSIRepositoryManager.getNewMappings). The T-mappings are
+	 * re-computed only for the classes and properties that the new mappings contribute to,
+	 * and the rules of the other predicates are shared with the previous unfolder.
+	 *
+	 * @return the predicates whose rules have changed
+	 */
+	public synchronized Set<Predicate> addSemanticIndexMappings(Collection<OBDAMappingAxiom> mappings, TBoxReasoner reformulationReasoner) throws OBDAException {
+		if (mappings.isEmpty())
+			return Collections.emptySet();
+
+		List<CQIE> newMappings = Mapping2DatalogConverter.constructDatalogProgram(mappings, metadata, mappingExecutorService);
+		for (CQIE mapping : newMappings)
+			semanticIndexMappings.add(mapping.clone());
+
+		Set<Predicate> changed = new HashSet<>();
+		for (CQIE rule : applyTMappings(newMappings, reformulationReasoner, false, TMappingExclusionConfig.empty()))
+			changed.add(rule.getHead().getFunctionSymbol());
+
+		// the T-mappings of the changed predicates are computed from all their contributors
+		Set<String> contributors = getSubPredicateNames(changed, reformulationReasoner);
+		List<CQIE> relevant = new ArrayList<>();
+		for (CQIE mapping : semanticIndexMappings)
+			if (contributors.contains(mapping.getHead().getFunctionSymbol().getName()))
+				relevant.add(mapping.clone());
+
+		Map<Predicate, List<CQIE>> rules = new HashMap<>();
+		for (Predicate predicate : changed)
+			rules.put(predicate, new ArrayList<CQIE>());
+		for (CQIE rule : applyTMappings(relevant, reformulationReasoner, false, TMappingExclusionConfig.empty()))
+			if (changed.contains(rule.getHead().getFunctionSymbol()))
+				addRule(rules, rule);
+		semanticIndexRules.putAll(rules);
+
+		List<CQIE> program = new ArrayList<>();
+		for (List<CQIE> predicateRules : semanticIndexRules.values())
+			program.addAll(predicateRules);
+		uriTemplateMatcher = UriTemplateMatcher.create(program);
+
+		// the triple rules are derived from the rules of all the predicates
+		List<CQIE> tripleRules = generateTripleMappings(program);
+		if (!tripleRules.isEmpty()) {
+			Predicate triple = tripleRules.get(0).getHead().getFunctionSymbol();
+			rules.put(triple, tripleRules);
+			changed.add(triple);
+		}
+
+		log.debug("Semantic Index mappings added for {}", changed);
+		unfolder = new DatalogUnfolder(unfolder, rules);
+
+		program.addAll(tripleRules);
+		this.ufp = program;
+		return changed;
+	}
+
+	private static void addRule(Map<Predicate, List<CQIE>> rules, CQIE rule) {
+		Predicate head = rule.getHead().getFunctionSymbol();
+		List<CQIE> list = rules.get(head);
+		if (list == null) {
+			list = new ArrayList<>();
+			rules.put(head, list);
+		}
+		list.add(rule);
+	}
+
+	/**
+	 * Returns the names of the classes and properties that are sub-descriptions of the given
+	 * ones (the named classes, the properties of the existential restrictions and the sub-properties)
+	 */
+	private static Set<String> getSubPredicateNames(Set<Predicate> predicates, TBoxReasoner reasoner) {
+		Set<String> names = new HashSet<>();
+		for (Predicate predicate : predicates)
+			names.add(predicate.getName());
+
+		Set<String> subNames = new HashSet<>(names);
+		addSubPredicateNames(reasoner.getClassDAG(), names, subNames);
+		addSubPredicateNames(reasoner.getObjectPropertyDAG(), names, subNames);
+		addSubPredicateNames(reasoner.getDataPropertyDAG(), names, subNames);
+		return subNames;
+	}
+
+	private static <T extends Description> void addSubPredicateNames(EquivalencesDAG<T> dag, Set<String> names, Set<String> subNames) {
+		for (Equivalences<T> vertex : dag) {
+			boolean found = false;
+			for (T d : vertex) 
+				if (names.contains(getPredicateName(d))) {
+					found = true;
+					break;
+				}
+			if (!found)
+				continue;
+			for (Equivalences<T> sub : dag.getSub(vertex))
+				for (T d : sub) {
+					String name = getPredicateName(d);
+					if (name != null)
+						subNames.add(name);
+				}
+		}
+	}
+
+	private static String getPredicateName(Description d) {
+		if (d instanceof OClass)
+			return ((OClass) d).getName();
+		if (d instanceof ObjectSomeValuesFrom)
+			return ((ObjectSomeValuesFrom) d).getProperty().getName();
+		if (d instanceof DataSomeValuesFrom)
+			return ((DataSomeValuesFrom) d).getProperty().getName();
+		if (d instanceof ObjectPropertyExpression)
+			return ((ObjectPropertyExpression) d).getName();
+		if (d instanceof DataPropertyExpression)
+			return ((DataPropertyExpression) d).getName();
+		return null;
+	}
+
 	
 	private List<CQIE> applyTMappings(List<CQIE>  unfoldingProgram, TBoxReasoner reformulationReasoner, boolean full, TMappingExclusionConfig excludeFromTMappings) throws OBDAException  {
 		
 		final long startTime = System.currentTimeMillis();
 
-		unfoldingProgram = TMappingProcessor.getTMappings(unfoldingProgram, reformulationReasoner, full,  foreignKeyCQC, excludeFromTMappings);
+		unfoldingProgram = TMappingProcessor.getTMappings(unfoldingProgram, reformulationReasoner, full,  foreignKeyCQC, excludeFromTMappings,
+				mappingExecutorService);
 		
 		// Eliminating redundancy from the unfolding program
 		// TODO: move the foreign-key optimisation inside t-mapping generation 
@@ -202,6 +455,45 @@ public class QuestUnfolder {
 		return unfoldingProgram;
 	}
 
+	/**
+	 * Returns the classes and properties whose rules may miss some of their instances because
+	 * they are excluded from the T-mappings (a class also misses the instances of its excluded sub-classes)
+	 */
+	private static Set<Predicate> getIncompleteTMappings(TBoxReasoner reasoner, TMappingExclusionConfig excludeFromTMappings) {
+		Set<Predicate> predicates = new HashSet<>();
+		EquivalencesDAG<ClassExpression> classDAG = reasoner.getClassDAG();
+		for (Equivalences<ClassExpression> vertex : classDAG) 
+			if (hasExcludedClass(classDAG.getSub(vertex), excludeFromTMappings))
+				for (ClassExpression c : vertex) 
+					if (c instanceof OClass)
+						predicates.add(((OClass) c).getPredicate());
+
+		for (Equivalences<ObjectPropertyExpression> vertex : reasoner.getObjectPropertyDAG()) 
+			for (ObjectPropertyExpression p : vertex)
+				if (excludeFromTMappings.contains(p)) {
+					for (ObjectPropertyExpression q : vertex)
+						predicates.add(q.getPredicate());
+					break;
+				}
+
+		for (Equivalences<DataPropertyExpression> vertex : reasoner.getDataPropertyDAG()) 
+			for (DataPropertyExpression p : vertex)
+				if (excludeFromTMappings.contains(p)) {
+					for (DataPropertyExpression q : vertex)
+						predicates.add(q.getPredicate());
+					break;
+				}
+		return predicates;
+	}
+
+	private static boolean hasExcludedClass(Set<Equivalences<ClassExpression>> classes, TMappingExclusionConfig excludeFromTMappings) {
+		for (Equivalences<ClassExpression> set : classes)
+			for (ClassExpression c : set)
+				if (c instanceof OClass && excludeFromTMappings.contains((OClass) c))
+					return true;
+		return false;
+	}
+
 	/***
 	 * Adding data typing on the mapping axioms.
 	 * Adding NOT NULL conditions to the variables used in the head
@@ -398,10 +690,59 @@ public class QuestUnfolder {
 		return uriTemplateMatcher;
 	}
 	
+	/**
+	 * Returns the rules of each predicate (the T-mappings, the facts of the ontology and the triple rules)
+	 */
+	public Map<Predicate, List<CQIE>> getRules() {
+		return unfolder.getRules();
+	}
+
+	/**
+	 * Returns the lexical values (and language tags) of the literals in the heads and bodies
+	 * of the rules. A query literal with one of these values can be unified or compared with
+	 * a rule during the unfolding, so the unfolding of the query depends on its value.
+	 */
+	public Set<String> getRuleLiteralValues() {
+		DatalogUnfolder current = unfolder;
+		RuleLiteralValues values = ruleLiteralValues;
+		if (values == null || values.unfolder != current) {
+			values = new RuleLiteralValues(current);
+			ruleLiteralValues = values;
+		}
+		return values.values;
+	}
+
+	/**
+	 * Returns the classes and properties whose rules do not give all their instances
+	 * because of the exclusions from the T-mappings (virtual mode only)
+	 */
+	public Set<Predicate> getIncompleteTMappings() {
+		return Collections.unmodifiableSet(incompleteTMappings);
+	}
+
+	/**
+	 * Replaces the rules of the given predicates (the rules of the other predicates are kept)
+	 */
+	public synchronized void replaceRules(Map<Predicate, List<CQIE>> rules) {
+		if (rules.isEmpty())
+			return;
+
+		unfolder = new DatalogUnfolder(unfolder, rules);
+
+		List<CQIE> program = new ArrayList<>();
+		for (List<CQIE> predicateRules : unfolder.getRules().values())
+			program.addAll(predicateRules);
+		this.ufp = program;
+	}
+
 	public DatalogProgram unfold(DatalogProgram query) throws OBDAException {
 		return unfolder.unfold(query);
 	}
 
+	public DatalogProgram unfold(DatalogProgram query, QueryTranslationContext context) throws OBDAException {
+		return unfolder.unfold(query, context);
+	}
+
 
 	/***
 	 * Expands a SELECT * into a SELECT with all columns implicit in the *
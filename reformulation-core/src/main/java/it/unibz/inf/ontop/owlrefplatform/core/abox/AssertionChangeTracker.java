@@ -0,0 +1,131 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.ontology.Assertion;
+import it.unibz.inf.ontop.ontology.ClassAssertion;
+import it.unibz.inf.ontop.ontology.ClassExpression;
+import it.unibz.inf.ontop.ontology.DataPropertyAssertion;
+import it.unibz.inf.ontop.ontology.DataPropertyExpression;
+import it.unibz.inf.ontop.ontology.DataSomeValuesFrom;
+import it.unibz.inf.ontop.ontology.Description;
+import it.unibz.inf.ontop.ontology.OClass;
+import it.unibz.inf.ontop.ontology.ObjectPropertyAssertion;
+import it.unibz.inf.ontop.ontology.ObjectPropertyExpression;
+import it.unibz.inf.ontop.ontology.ObjectSomeValuesFrom;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.Equivalences;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.EquivalencesDAG;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Iterator over ABox assertions that records their classes and properties, in order
+ * to compute the classes and properties whose instances are changed by the insertion
+ * (see {@link RepositoryChangedListener#repositoryChanged(Set)}).
+ */
+class AssertionChangeTracker implements Iterator<Assertion> {
+
+	private final Iterator<Assertion> data;
+
+	// few distinct descriptions in practice
+	private final Set<Description> inserted = new HashSet<>();
+
+	AssertionChangeTracker(Iterator<Assertion> data) {
+		this.data = data;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return data.hasNext();
+	}
+
+	@Override
+	public Assertion next() {
+		Assertion ax = data.next();
+		if (ax instanceof ClassAssertion)
+			inserted.add(((ClassAssertion) ax).getConcept());
+		else if (ax instanceof ObjectPropertyAssertion)
+			inserted.add(((ObjectPropertyAssertion) ax).getProperty());
+		else if (ax instanceof DataPropertyAssertion)
+			inserted.add(((DataPropertyAssertion) ax).getProperty());
+		return ax;
+	}
+
+	/**
+	 * Returns the classes and properties whose instances may have changed: the
+	 * super-classes and super-properties of the inserted assertions and, for properties,
+	 * of their domains and ranges. The properties of the existential restrictions among
+	 * the super-classes are included as well (the tree-witness rewriting may answer
+	 * a query over such a property with instances of the class).
+	 */
+	Set<Predicate> getAffectedPredicates(TBoxReasoner reasoner) {
+		if (inserted.isEmpty())
+			return Collections.emptySet();
+
+		Set<Predicate> predicates = new HashSet<>();
+		Set<Description> visited = new HashSet<>();
+		Deque<Description> todo = new ArrayDeque<>(inserted);
+		while (!todo.isEmpty()) {
+			Description d = todo.pop();
+			if (!visited.add(d))
+				continue;
+
+			if (d instanceof ClassExpression) {
+				if (d instanceof OClass)
+					predicates.add(((OClass) d).getPredicate());
+				else if (d instanceof ObjectSomeValuesFrom)
+					todo.push(((ObjectSomeValuesFrom) d).getProperty());
+				else if (d instanceof DataSomeValuesFrom)
+					todo.push(((DataSomeValuesFrom) d).getProperty());
+				addSuper(reasoner.getClassDAG(), (ClassExpression) d, todo);
+			}
+			else if (d instanceof ObjectPropertyExpression) {
+				ObjectPropertyExpression ope = (ObjectPropertyExpression) d;
+				predicates.add(ope.getPredicate());
+				todo.push(ope.getDomain());
+				todo.push(ope.getRange());
+				addSuper(reasoner.getObjectPropertyDAG(), ope, todo);
+			}
+			else if (d instanceof DataPropertyExpression) {
+				DataPropertyExpression dpe = (DataPropertyExpression) d;
+				predicates.add(dpe.getPredicate());
+				todo.addAll(dpe.getAllDomainRestrictions());
+				addSuper(reasoner.getDataPropertyDAG(), dpe, todo);
+			}
+		}
+		return predicates;
+	}
+
+	private static <T extends Description> void addSuper(EquivalencesDAG<T> dag, T d, Deque<Description> todo) {
+		Equivalences<T> vertex = dag.getVertex(d);
+		if (vertex == null)
+			return;
+		for (Equivalences<T> s : dag.getSuper(vertex))
+			todo.addAll(s.getMembers());
+	}
+}
@@ -0,0 +1,44 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import it.unibz.inf.ontop.ontology.Assertion;
+
+/**
+ * Destination of the assertions produced by one worker of
+ * {@link QuestMaterializer#materialize(int, MaterializationSink.Factory)}.
+ * A sink is only used by the thread of its worker.
+ */
+public interface MaterializationSink {
+
+	void add(Assertion assertion) throws Exception;
+
+	void close() throws Exception;
+
+	interface Factory {
+
+		/**
+		 * @param worker index of the worker (from 0 to the number of workers - 1)
+		 */
+		MaterializationSink create(int worker) throws Exception;
+	}
+}
@@ -0,0 +1,58 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.postgresql.PGConnection;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * COPY FROM STDIN through the PostgreSQL JDBC driver
+ *
+ * A separate class so that the driver is required only when the Semantic Index
+ * repository is in PostgreSQL.
+ */
+
+final class PostgreSQLCopy {
+
+	static boolean isSupported(Connection conn) {
+		try {
+			return conn.isWrapperFor(PGConnection.class);
+		}
+		catch (SQLException | NoClassDefFoundError e) {
+			return false;
+		}
+	}
+
+	static void copyIn(Connection conn, String sql, File file) throws SQLException, IOException {
+		try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, reader);
+		}
+	}
+}
@@ -45,6 +45,15 @@ import it.unibz.inf.ontop.owlrefplatform.core.QuestStatement;
 import java.net.URI;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,6 +95,11 @@ public class QuestMaterializer {
 	private static final OntologyFactory ofac = OntologyFactoryImpl.getInstance();
 	private static int FETCH_SIZE = 50000;
 
+	private static final String query1 = "CONSTRUCT {?s <%s> ?o} WHERE {?s <%s> ?o}";
+	private static final String query2 = "CONSTRUCT {?s a <%s>} WHERE {?s a <%s>}";
+
+	private static final Logger log = LoggerFactory.getLogger(QuestMaterializer.class);
+
 	/***
 	 * 
 	 * 
@@ -279,6 +293,149 @@ public class QuestMaterializer {
 		return getTripleCount();
 	}
 
+	private static String getQuery(Predicate p) {
+		if (p.getArity() == 1)
+			return String.format(query2, p.toString(), p.toString());
+		else if (p.getArity() == 2)
+			return String.format(query1, p.toString(), p.toString());
+		return "";
+	}
+
+	/**
+	 * Materializes the vocabulary with several workers running concurrently,
+	 * sharing the Quest instance (and its connection pool). Each worker takes
+	 * the next predicate to materialize, runs its query on its own connection
+	 * and writes the assertions to its own sink. The progress and throughput
+	 * are logged as the predicates are completed.
+	 *
+	 * @param workers number of workers (clamped to the size of the connection pool, max_pool_size)
+	 * @return the number of assertions
+	 */
+	public long materialize(int workers, MaterializationSink.Factory sinkFactory) throws Exception {
+		if (workers < 1)
+			throw new IllegalArgumentException("The number of workers must be at least 1: " + workers);
+		workers = Math.min(workers, questInstance.getMaxPoolSize());
+
+		final Queue<Predicate> predicates = new ConcurrentLinkedQueue<>(vocabulary);
+		final int total = predicates.size();
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicLong triples = new AtomicLong();
+		final long start = System.currentTimeMillis();
+
+		List<MaterializationSink> sinks = new ArrayList<>(workers);
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		Exception failure = null;
+		try {
+			for (int i = 0; i < workers; i++)
+				sinks.add(sinkFactory.create(i));
+
+			List<Future<Void>> futures = new ArrayList<>(workers);
+			for (final MaterializationSink sink : sinks)
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						materialize(predicates, sink, triples, done, total, start);
+						return null;
+					}
+				}));
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException e) {
+					throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+				}
+			}
+		}
+		catch (Exception e) {
+			failure = e;
+			throw e;
+		}
+		finally {
+			// stops the other workers (if any failed) and waits for them before closing the sinks
+			predicates.clear();
+			executor.shutdownNow();
+			awaitTermination(executor);
+			for (MaterializationSink sink : sinks) {
+				try {
+					sink.close();
+				}
+				catch (Exception e) {
+					if (failure == null)
+						failure = e;
+					else
+						failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) // an error closing a sink
+			throw failure;
+		counter = triples.get();
+		return counter;
+	}
+
+	/**
+	 * Waits for the workers to return (they return after the assertions of their
+	 * current predicate once the queue of predicates is cleared)
+	 */
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (executor.awaitTermination(1, TimeUnit.MINUTES))
+					break;
+				log.warn("Waiting for the materialization workers to return");
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private void materialize(Queue<Predicate> predicates, MaterializationSink sink, AtomicLong triples,
+							 AtomicInteger done, int total, long start) throws Exception {
+		QuestConnection questConn = questInstance.getConnection();
+		try {
+			if (doStreamResults)
+				questConn.setAutoCommit(false);
+
+			Predicate predicate;
+			while ((predicate = predicates.poll()) != null) {
+				long count = 0;
+				QuestStatement stm = questConn.createStatement();
+				try {
+					if (doStreamResults)
+						stm.setFetchSize(FETCH_SIZE);
+					GraphResultSet results = (GraphResultSet) stm.execute(getQuery(predicate));
+					if (results != null) {
+						while (results.hasNext()) {
+							for (Assertion assertion : results.next()) {
+								sink.add(assertion);
+								count++;
+							}
+						}
+						results.close();
+					}
+				}
+				finally {
+					stm.close();
+				}
+
+				long all = triples.addAndGet(count);
+				long elapsed = Math.max(1, System.currentTimeMillis() - start);
+				log.info("Materialized {} ({} triples): {}/{} predicates, {} triples, {} triples/s",
+						predicate, count, done.incrementAndGet(), total, all, all * 1000 / elapsed);
+			}
+		}
+		finally {
+			if (doStreamResults)
+				questConn.setAutoCommit(true);
+			questConn.close();
+		}
+	}
+
 	public int getVocabSize() {
 		return vocabulary.size();
 	}
@@ -295,8 +452,6 @@ public class QuestMaterializer {
 	private class VirtualTripleIterator implements Iterator<Assertion> {
 
 
-		private String query1 = "CONSTRUCT {?s <%s> ?o} WHERE {?s <%s> ?o}";
-		private String query2 = "CONSTRUCT {?s a <%s>} WHERE {?s a <%s>}";
 
 		private QuestConnection questConn;
 		private QuestStatement stm;
@@ -350,21 +505,6 @@ public class QuestMaterializer {
 			}
 		}
 		
-		private String getPredicateQuery(Predicate p) {
-			return String.format(query1, p.toString(), p.toString()); }
-		
-		private String getClassQuery(Predicate p) {
-			return String.format(query2, p.toString(), p.toString()); }
-		
-		private String getQuery(Predicate p)
-		{
-			if (p.getArity() == 1)
-				return getClassQuery(p);
-			else if (p.getArity() == 2)
-				return getPredicateQuery(p);
-			return "";
-		}
-
 		@Override
 		public boolean hasNext() {
 			try{
@@ -75,6 +75,8 @@ public class RDBMSSIRepositoryManager implements Serializable {
 	
 	static final class TableDescription {
 		final String tableName;
+		final String columns;
+		final int columnCount;
 		final String createCommand;
 		private final String insertCommand;
 		private final String selectCommand;
@@ -86,11 +88,13 @@ public class RDBMSSIRepositoryManager implements Serializable {
 		
 		TableDescription(String tableName, ImmutableMap<String, String> columnDefintions, String selectColumns) {
 			this.tableName = tableName;
+			this.columns = Joiner.on(", ").join(columnDefintions.keySet());
+			this.columnCount = columnDefintions.size();
 			this.dropCommand = "DROP TABLE " + tableName;
 			this.createCommand = "CREATE TABLE " + tableName + 
 					" ( " + Joiner.on(", ").withKeyValueSeparator(" ").join(columnDefintions) + " )";
 			this.insertCommand = "INSERT INTO " + tableName + 
-					" (" + Joiner.on(", ").join(columnDefintions.keySet()) + ") VALUES (";
+					" (" + columns + ") VALUES (";
 			this.selectCommand = "SELECT " + selectColumns + " FROM " + tableName; 
 		}
 		
@@ -127,7 +131,7 @@ public class RDBMSSIRepositoryManager implements Serializable {
 					        "IDX_TO", "INTEGER", 
 					        "ENTITY_TYPE", "INTEGER"), "*");
 
-	private final static TableDescription uriIdTable = new TableDescription("URIID",
+	final static TableDescription uriIdTable = new TableDescription("URIID",
 			ImmutableMap.of("ID", "INTEGER", 
 					        "URI", "VARCHAR(400)"), "*");
 	
@@ -262,6 +266,9 @@ public class RDBMSSIRepositoryManager implements Serializable {
 	
 	private final List<RepositoryChangedListener> changeList = new LinkedList<>();
 
+	// the indexes of each view when the mappings were last generated (see getNewMappings)
+	private Map<SemanticIndexView, Set<Integer>> mappedIndexes = null;
+
 	public RDBMSSIRepositoryManager(TBoxReasoner reasonerDag, ImmutableOntologyVocabulary voc) {
 		this.reasonerDag = reasonerDag;
 		this.voc = voc;
@@ -361,6 +368,9 @@ public class RDBMSSIRepositoryManager implements Serializable {
 		
 		log.debug("Inserting data into DB");
 
+		AssertionChangeTracker changes = new AssertionChangeTracker(data);
+		data = changes;
+
 		// The precondition for the limit number must be greater or equal to one.
 		commitLimit = (commitLimit < 1) ? 1 : commitLimit;
 		batchLimit = (batchLimit < 1) ? 1 : batchLimit;
@@ -468,6 +478,24 @@ public class RDBMSSIRepositoryManager implements Serializable {
 		conn.setAutoCommit(oldAutoCommit);
 
 		// Print the monitoring log
+		logInsertions(success, failures);
+
+		/*
+		 * fired ONLY when new data is inserted and emptiness index is updated
+		 * (this is done in order to update T-mappings)
+		 */
+		fireRepositoryChanged(changes);
+
+		return success;
+	}
+
+	private void fireRepositoryChanged(AssertionChangeTracker changes) {
+		Set<Predicate> predicates = changes.getAffectedPredicates(reasonerDag);
+		for (RepositoryChangedListener listener : changeList) 
+			listener.repositoryChanged(predicates);
+	}
+
+	static void logInsertions(int success, Map<Predicate, Integer> failures) {
 		log.debug("Total successful insertions: " + success + ".");
 		int totalFailures = 0;
 		for (Map.Entry<Predicate, Integer> entry : failures.entrySet()) {
@@ -477,14 +505,57 @@ public class RDBMSSIRepositoryManager implements Serializable {
 		if (totalFailures > 0) {
 			log.warn("Total failed insertions: " + totalFailures + ". (REASON: datatype mismatch between the ontology and database).");
 		}
+	}
 
-		/*
-		 * fired ONLY when new data is inserted and emptiness index is updated
-		 * (this is done in order to update T-mappings)
-		 */
+	// used by insertData when the database has no bulk load path
+	private static final int BULK_COMMIT_LIMIT = 100000;
+	private static final int BULK_BATCH_LIMIT = 10000;
 
-		for (RepositoryChangedListener listener : changeList) 
-			listener.repositoryChanged();
+	/**
+	 * Inserts a stream of ABox assertions through the native bulk load path
+	 * of the database (CSVREAD in H2 and COPY in PostgreSQL, see SemanticIndexBulkLoader).
+	 * The indexes (if any) are dropped for the duration of the load and then
+	 * re-created in parallel. For other databases, the assertions are inserted by insertData.
+	 *
+	 * @param conn
+	 * @param helperConnections additional connections to the same database,
+	 *                          which are used to load the data and create the indexes in parallel
+	 * @param data
+	 * @return the number of inserted assertions
+	 * @throws SQLException
+	 */
+
+	public int bulkInsertData(Connection conn, List<Connection> helperConnections, Iterator<Assertion> data) throws SQLException {
+
+		SemanticIndexBulkLoader.TableLoader tableLoader = SemanticIndexBulkLoader.getTableLoader(conn);
+		if (tableLoader == null) {
+			log.debug("No bulk load path for {}, inserting data with JDBC batches", conn.getMetaData().getDatabaseProductName());
+			return insertData(conn, data, BULK_COMMIT_LIMIT, BULK_BATCH_LIMIT);
+		}
+
+		log.debug("Bulk loading data into DB");
+
+		AssertionChangeTracker changes = new AssertionChangeTracker(data);
+
+		List<Connection> connections = new ArrayList<>(helperConnections.size() + 1);
+		connections.add(conn);
+		connections.addAll(helperConnections);
+
+		boolean wasIndexed = isIndexed;
+		if (wasIndexed)
+			dropIndexes(conn);
+
+		int success;
+		try {
+			SemanticIndexBulkLoader loader = new SemanticIndexBulkLoader(this, tableLoader, reasonerDag, cacheSI, views, uriMap);
+			success = loader.load(connections, changes);
+		}
+		finally {
+			if (wasIndexed)
+				createIndexes(conn, helperConnections);
+		}
+
+		fireRepositoryChanged(changes);
 
 		return success;
 	}
@@ -650,10 +721,21 @@ public class RDBMSSIRepositoryManager implements Serializable {
 		view.addIndex(conceptIndex);
 	}
 
-	// TODO: big issue -- URI map is incomplete -- it is never read back from the DB
-	
-	// TODO: use database to get the maximum URIId
+	// the URI map and the maximum URIId are read back from the DB in loadMetadata
 	private int maxURIId = -1;
+
+	/**
+	 * reserves a block of consecutive URI ids
+	 * (the bulk loader reserves large blocks, and so, some ids may remain unused)
+	 *
+	 * @param count
+	 * @return the first id of the block
+	 */
+	synchronized int reserveURIIds(int count) {
+		int first = maxURIId + 1;
+		maxURIId += count;
+		return first;
+	}
 	
 	private int getObjectConstantUriId(ObjectConstant c, PreparedStatement uriidStm) throws SQLException {
 		
@@ -662,9 +744,8 @@ public class RDBMSSIRepositoryManager implements Serializable {
 
 		int uri_id = uriMap.getId(uri);
 		if (uri_id < 0) {
-			uri_id = maxURIId + 1;
+			uri_id = reserveURIIds(1);
 			uriMap.set(uri, uri_id);
-			maxURIId++;
 			
 			// Construct the database INSERT statement
 			uriidStm.setInt(1, uri_id);
@@ -863,10 +944,89 @@ public class RDBMSSIRepositoryManager implements Serializable {
 		res.close();
 
 		views.load(conn);
+
+		loadURIMap(conn);
+	}
+
+	/**
+	 * reads back the URI dictionary and the maximum URI id from the URIID table
+	 * (so that the URIs can be decoded and new URIs do not collide with the stored ones)
+	 */
+
+	private void loadURIMap(Connection conn) throws SQLException {
+		uriMap.clear();
+		int maxId = -1;
+		try (Statement st = conn.createStatement()) {
+			st.setFetchSize(10000);
+			try (ResultSet res = st.executeQuery(uriIdTable.getSELECT())) {
+				while (res.next()) {
+					int id = res.getInt(1);
+					uriMap.set(res.getString(2), id);
+					maxId = Math.max(maxId, id);
+				}
+			}
+		}
+		synchronized (this) {
+			maxURIId = maxId;
+		}
+		log.debug("Loaded {} URIs from the database", uriMap.size());
 	}
 
 	
-	public Collection<OBDAMappingAxiom> getMappings() throws OBDAException {
+	public synchronized Collection<OBDAMappingAxiom> getMappings() throws OBDAException {
+		Map<SemanticIndexView, Set<Integer>> snapshot = getIndexSnapshot();
+		Collection<OBDAMappingAxiom> result = getMappings(null);
+		mappedIndexes = snapshot;
+		return result;
+	}
+
+	/**
+	 * Returns the mappings of the classes and properties that have become non-empty
+	 * in some view since the mappings were last generated (by this method or by
+	 * {@link #getMappings()}). The mappings of the other classes and properties are unchanged.
+	 */
+	public synchronized Collection<OBDAMappingAxiom> getNewMappings() throws OBDAException {
+		if (mappedIndexes == null)
+			return getMappings();
+
+		Map<SemanticIndexView, Set<Integer>> snapshot = getIndexSnapshot();
+		Collection<OBDAMappingAxiom> result = getMappings(mappedIndexes);
+		mappedIndexes = snapshot;
+		return result;
+	}
+
+	/**
+	 * registers the non-emptiness of the indexes of the views
+	 * (used by SemanticIndexBulkLoader once the data is in the database)
+	 */
+	synchronized void addIndexes(Map<SemanticIndexView, Set<Integer>> indexes) {
+		for (Map.Entry<SemanticIndexView, Set<Integer>> entry : indexes.entrySet())
+			for (Integer idx : entry.getValue())
+				entry.getKey().addIndex(idx);
+	}
+
+	private Map<SemanticIndexView, Set<Integer>> getIndexSnapshot() {
+		Map<SemanticIndexView, Set<Integer>> snapshot = new HashMap<>();
+		for (SemanticIndexView view : views.getPropertyViews())
+			snapshot.put(view, new HashSet<>(view.getIndexes()));
+		for (SemanticIndexView view : views.getClassViews())
+			snapshot.put(view, new HashSet<>(view.getIndexes()));
+		return snapshot;
+	}
+
+	private static boolean isMapped(SemanticIndexView view, List<Interval> intervals, Map<SemanticIndexView, Set<Integer>> previous) {
+		if (view.isEmptyForIntervals(intervals))
+			return false;
+		if (previous == null)
+			return true;
+		Set<Integer> indexes = previous.get(view);
+		return indexes == null || SemanticIndexView.isEmptyForIntervals(indexes, intervals);
+	}
+
+	/**
+	 * @param previous the indexes of the views for which mappings already exist (null if there are none)
+	 */
+	private Collection<OBDAMappingAxiom> getMappings(Map<SemanticIndexView, Set<Integer>> previous) throws OBDAException {
 
 		List<OBDAMappingAxiom> result = new LinkedList<>();
 
@@ -909,7 +1069,7 @@ public class RDBMSSIRepositoryManager implements Serializable {
 			 */
 			
 			for (SemanticIndexView view : views.getPropertyViews()) {
-				if (view.isEmptyForIntervals(intervals))
+				if (!isMapped(view, intervals, previous))
 					continue;
 				
 				String sourceQuery = view.getSELECT(intervalsSqlFilter);
@@ -947,7 +1107,7 @@ public class RDBMSSIRepositoryManager implements Serializable {
 			 */
 			
 			for (SemanticIndexView view : views.getPropertyViews()) {
-				if (view.isEmptyForIntervals(intervals))
+				if (!isMapped(view, intervals, previous))
 					continue;
 				
 				String sourceQuery = view.getSELECT(intervalsSqlFilter);
@@ -979,7 +1139,7 @@ public class RDBMSSIRepositoryManager implements Serializable {
 			String intervalsSqlFilter = getIntervalString(intervals);
 
 			for (SemanticIndexView view : views.getClassViews()) {
-				if (view.isEmptyForIntervals(intervals))
+				if (!isMapped(view, intervals, previous))
 					continue;
 				
 				String sourceQuery = view.getSELECT(intervalsSqlFilter);
@@ -1225,18 +1385,42 @@ public class RDBMSSIRepositoryManager implements Serializable {
 	
 	
 	public void createIndexes(Connection conn) throws SQLException {
+		createIndexes(conn, Collections.<Connection>emptyList());
+	}
+
+	/**
+	 * creates the indexes in parallel (each index on one of the connections)
+	 *
+	 * @param conn
+	 * @param helperConnections additional connections to the same database
+	 * @throws SQLException
+	 */
+
+	public void createIndexes(Connection conn, List<Connection> helperConnections) throws SQLException {
 		log.debug("Creating indexes");
+
+		List<String> commands = new ArrayList<>();
+		for (Entry<COL_TYPE, TableDescription> entry : attributeTable.entrySet())
+			commands.addAll(entry.getValue().createIndexCommands);
+		commands.addAll(classTable.createIndexCommands);
+
+		List<SemanticIndexBulkLoader.ConnectionTask> tasks = new ArrayList<>(commands.size());
+		for (final String command : commands)
+			tasks.add(new SemanticIndexBulkLoader.ConnectionTask() {
+				@Override
+				public void run(Connection connection) throws SQLException {
+					try (Statement st = connection.createStatement()) {
+						st.executeUpdate(command);
+					}
+				}
+			});
+
+		List<Connection> connections = new ArrayList<>(helperConnections.size() + 1);
+		connections.add(conn);
+		connections.addAll(helperConnections);
+		SemanticIndexBulkLoader.runOnConnections(connections, tasks, false);
+
 		try (Statement st = conn.createStatement()) {
-			for (Entry<COL_TYPE, TableDescription> entry : attributeTable.entrySet())
-				for (String s : entry.getValue().createIndexCommands)
-					st.addBatch(s);
-						
-			for (String s : classTable.createIndexCommands)
-				st.addBatch(s);
-			
-			st.executeBatch();
-			st.clearBatch();
-			
 			log.debug("Executing ANALYZE");
 			st.addBatch("ANALYZE");
 			st.executeBatch();
@@ -20,10 +20,21 @@ package it.unibz.inf.ontop.owlrefplatform.core.abox;
  * #L%
  */
 
+import it.unibz.inf.ontop.model.Predicate;
 
+import java.util.Set;
 
 public interface RepositoryChangedListener {
 
 	//Clear cache if repository changed - after addition or removal of data
 	public void repositoryChanged();
+
+	/**
+	 * Called instead of {@link #repositoryChanged()} when the classes and properties
+	 * whose instances may have changed are known (i.e., the super-classes and super-properties
+	 * of the inserted assertions)
+	 */
+	default void repositoryChanged(Set<Predicate> predicates) {
+		repositoryChanged();
+	}
 }
@@ -0,0 +1,711 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.BNode;
+import it.unibz.inf.ontop.model.ObjectConstant;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.URIConstant;
+import it.unibz.inf.ontop.model.ValueConstant;
+import it.unibz.inf.ontop.ontology.Assertion;
+import it.unibz.inf.ontop.ontology.ClassAssertion;
+import it.unibz.inf.ontop.ontology.DataPropertyAssertion;
+import it.unibz.inf.ontop.ontology.DataPropertyExpression;
+import it.unibz.inf.ontop.ontology.OClass;
+import it.unibz.inf.ontop.ontology.ObjectPropertyAssertion;
+import it.unibz.inf.ontop.ontology.ObjectPropertyExpression;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.RDBMSSIRepositoryManager.TableDescription;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.SemanticIndexCache;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk loader for the Semantic Index repository (classic ABox mode)
+ *
+ * The assertions are taken from the iterator in chunks and converted into rows by
+ * a number of worker threads. Each worker assigns URI ids from blocks reserved in the
+ * repository and writes its rows into a CSV partition file for each data table.
+ * Once all assertions are converted, the partitions are loaded through the native
+ * bulk load path of the database (CSVREAD in H2 and COPY in PostgreSQL),
+ * in parallel over the given connections.
+ *
+ * The assertions are converted exactly as in RDBMSSIRepositoryManager.insertData.
+ */
+
+class SemanticIndexBulkLoader {
+
+	private static final Logger log = LoggerFactory.getLogger(SemanticIndexBulkLoader.class);
+
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	private static final int CHUNK_SIZE = 10000;
+	private static final int URI_ID_BLOCK_SIZE = 10000;
+
+	// sent to each worker after the last chunk
+	private static final List<Assertion> END_OF_DATA = new ArrayList<>(0);
+
+	/**
+	 * loads a partition file into a table through the native bulk load path of the database
+	 */
+
+	interface TableLoader {
+		void load(Connection conn, TableDescription table, File file) throws SQLException, IOException;
+	}
+
+	/**
+	 * H2: CSVREAD reads the file on the database side, and so,
+	 * it can be used only for embedded and in-memory databases
+	 */
+
+	private static final TableLoader H2_CSVREAD = new TableLoader() {
+		@Override
+		public void load(Connection conn, TableDescription table, File file) throws SQLException {
+			StringBuilder csvColumns = new StringBuilder();
+			for (int i = 1; i <= table.columnCount; i++) {
+				if (i > 1)
+					csvColumns.append(',');
+				csvColumns.append('C').append(i);
+			}
+			String path = file.getAbsolutePath().replace("'", "''");
+			try (Statement st = conn.createStatement()) {
+				st.executeUpdate("INSERT INTO " + table.tableName + " (" + table.columns + ")" +
+						" SELECT * FROM CSVREAD('" + path + "', '" + csvColumns + "', 'charset=UTF-8')");
+			}
+		}
+	};
+
+	private static final TableLoader POSTGRESQL_COPY = new TableLoader() {
+		@Override
+		public void load(Connection conn, TableDescription table, File file) throws SQLException, IOException {
+			PostgreSQLCopy.copyIn(conn, "COPY " + table.tableName + " (" + table.columns + ") FROM STDIN WITH CSV", file);
+		}
+	};
+
+	/**
+	 * returns the native bulk load path of the database
+	 *
+	 * @param conn
+	 * @return null if the database has no supported bulk load path
+	 * @throws SQLException
+	 */
+
+	static TableLoader getTableLoader(Connection conn) throws SQLException {
+		DatabaseMetaData md = conn.getMetaData();
+		String product = md.getDatabaseProductName();
+		if (product.equals("H2")) {
+			String url = md.getURL();
+			if (url.startsWith("jdbc:h2:tcp:") || url.startsWith("jdbc:h2:ssl:"))
+				return null;
+			return H2_CSVREAD;
+		}
+		if (product.equals("PostgreSQL") && PostgreSQLCopy.isSupported(conn))
+			return POSTGRESQL_COPY;
+		return null;
+	}
+
+	/**
+	 * a unit of work to be run on one of the connections (see runOnConnections)
+	 */
+
+	interface ConnectionTask {
+		void run(Connection conn) throws SQLException, IOException;
+	}
+
+	/**
+	 * runs the tasks in parallel, one thread per connection
+	 *
+	 * In the transactional mode, the connections are committed only once all tasks have succeeded;
+	 * otherwise, all of them are rolled back. The commits are not atomic (there is no distributed
+	 * transaction): if a commit fails, the connections not yet committed are rolled back.
+	 *
+	 * @param connections
+	 * @param tasks
+	 * @param transactional if true, all tasks are committed together
+	 * @throws SQLException
+	 */
+
+	static void runOnConnections(List<Connection> connections, Collection<ConnectionTask> tasks, boolean transactional) throws SQLException {
+
+		final Queue<ConnectionTask> queue = new ConcurrentLinkedQueue<>(tasks);
+		// after a failure, the other connections take no more tasks
+		final AtomicBoolean failed = new AtomicBoolean();
+
+		// the auto-commit modes of the connections (in the transactional mode)
+		List<Boolean> autoCommits = new ArrayList<>(connections.size());
+		int committed = 0;
+		try {
+			if (transactional)
+				for (Connection conn : connections) {
+					autoCommits.add(conn.getAutoCommit());
+					conn.setAutoCommit(false);
+				}
+
+			ExecutorService executor = Executors.newFixedThreadPool(connections.size());
+			try {
+				List<Future<Void>> futures = new ArrayList<>(connections.size());
+				for (final Connection conn : connections)
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws SQLException, IOException {
+							try {
+								for (ConnectionTask task = queue.poll(); task != null && !failed.get(); task = queue.poll())
+									task.run(conn);
+							}
+							catch (SQLException | IOException | RuntimeException e) {
+								failed.set(true);
+								throw e;
+							}
+							return null;
+						}
+					}));
+
+				// all the tasks are finished before the connections are committed or rolled back
+				Exception error = null;
+				for (Future<Void> future : futures) {
+					try {
+						get(future);
+					}
+					catch (SQLException | RuntimeException e) {
+						if (error == null)
+							error = e;
+						else
+							error.addSuppressed(e);
+					}
+				}
+				if (error instanceof SQLException)
+					throw (SQLException) error;
+				if (error != null)
+					throw (RuntimeException) error;
+			}
+			finally {
+				executor.shutdown();
+			}
+
+			if (transactional)
+				for (Connection conn : connections) {
+					conn.commit();
+					committed++;
+				}
+		}
+		finally {
+			for (int i = 0; i < autoCommits.size(); i++) {
+				Connection conn = connections.get(i);
+				try {
+					if (i >= committed)
+						conn.rollback();
+					conn.setAutoCommit(autoCommits.get(i));
+				}
+				catch (SQLException e) {
+					log.warn("Cannot roll back the bulk load: {}", e.toString());
+				}
+			}
+		}
+	}
+
+	private static void get(Future<Void> future) throws SQLException {
+		try {
+			future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted bulk load", e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException)
+				throw (SQLException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new SQLException(cause);
+		}
+	}
+
+
+
+	private final RDBMSSIRepositoryManager repository;
+	private final TableLoader tableLoader;
+	private final TBoxReasoner reasonerDag;
+	private final SemanticIndexCache cacheSI;
+	private final SemanticIndexViewsManager views;
+	private final SemanticIndexURIMap uriMap;
+
+	SemanticIndexBulkLoader(RDBMSSIRepositoryManager repository, TableLoader tableLoader, TBoxReasoner reasonerDag,
+							SemanticIndexCache cacheSI, SemanticIndexViewsManager views, SemanticIndexURIMap uriMap) {
+		this.repository = repository;
+		this.tableLoader = tableLoader;
+		this.reasonerDag = reasonerDag;
+		this.cacheSI = cacheSI;
+		this.views = views;
+		this.uriMap = uriMap;
+	}
+
+	/**
+	 * converts the assertions into partitions and loads them into the database
+	 *
+	 * @param connections connections to the database (the partitions are loaded in parallel)
+	 * @param data
+	 * @return the number of inserted assertions
+	 * @throws SQLException
+	 */
+
+	int load(List<Connection> connections, Iterator<Assertion> data) throws SQLException {
+
+		BlockingQueue<List<Assertion>> queue = new ArrayBlockingQueue<>(2 * THREADS);
+
+		// the URIs assigned ids by the workers are removed if the load fails
+		int uriMapSize = uriMap.size();
+		boolean loaded = false;
+
+		List<Worker> workers = new ArrayList<>(THREADS);
+		try {
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			try {
+				List<Future<Void>> futures = new ArrayList<>(THREADS);
+				for (int i = 0; i < THREADS; i++) {
+					Worker worker = new Worker(queue);
+					workers.add(worker);
+					futures.add(executor.submit(worker));
+				}
+
+				try {
+					List<Assertion> chunk = new ArrayList<>(CHUNK_SIZE);
+					while (data.hasNext()) {
+						chunk.add(data.next());
+						if (chunk.size() == CHUNK_SIZE) {
+							put(queue, chunk);
+							chunk = new ArrayList<>(CHUNK_SIZE);
+						}
+					}
+					if (!chunk.isEmpty())
+						put(queue, chunk);
+				}
+				finally {
+					// the workers always drain the queue, and so, this cannot block for long
+					for (int i = 0; i < THREADS; i++)
+						put(queue, END_OF_DATA);
+
+					for (Future<Void> future : futures)
+						get(future);
+				}
+			}
+			finally {
+				executor.shutdown();
+			}
+
+			int success = 0;
+			Map<Predicate, Integer> failures = new HashMap<>();
+			Map<SemanticIndexView, Set<Integer>> indexes = new HashMap<>();
+			List<ConnectionTask> tasks = new ArrayList<>();
+			for (Worker worker : workers) {
+				if (worker.error != null)
+					throw new SQLException("Cannot write the bulk load partitions", worker.error);
+
+				success += worker.success;
+				for (Map.Entry<Predicate, Integer> entry : worker.failures.entrySet()) {
+					Integer counter = failures.get(entry.getKey());
+					failures.put(entry.getKey(), (counter == null) ? entry.getValue() : counter + entry.getValue());
+				}
+				for (Map.Entry<SemanticIndexView, Set<Integer>> entry : worker.indexes.entrySet()) {
+					Set<Integer> set = indexes.get(entry.getKey());
+					if (set == null) {
+						set = new HashSet<>();
+						indexes.put(entry.getKey(), set);
+					}
+					set.addAll(entry.getValue());
+				}
+				for (final Partition partition : worker.partitions.values())
+					tasks.add(new ConnectionTask() {
+						@Override
+						public void run(Connection conn) throws SQLException, IOException {
+							tableLoader.load(conn, partition.table, partition.file);
+						}
+					});
+			}
+
+			// the new non-emptiness indexes are stored in the same transaction as the data
+			final Map<SemanticIndexView, Set<Integer>> newIndexes = new HashMap<>();
+			for (Map.Entry<SemanticIndexView, Set<Integer>> entry : indexes.entrySet()) {
+				Set<Integer> set = new HashSet<>(entry.getValue());
+				set.removeAll(entry.getKey().getIndexes());
+				if (!set.isEmpty())
+					newIndexes.put(entry.getKey(), set);
+			}
+			if (!newIndexes.isEmpty())
+				tasks.add(new ConnectionTask() {
+					@Override
+					public void run(Connection conn) throws SQLException {
+						views.store(conn, newIndexes);
+					}
+				});
+
+			log.debug("Loading {} partitions over {} connections", tasks.size(), connections.size());
+			runOnConnections(connections, tasks, true);
+			loaded = true;
+
+			// register non-emptiness only once the data is in the database
+			repository.addIndexes(newIndexes);
+
+			RDBMSSIRepositoryManager.logInsertions(success, failures);
+			return success;
+		}
+		finally {
+			if (!loaded)
+				uriMap.truncate(uriMapSize);
+
+			for (Worker worker : workers)
+				for (Partition partition : worker.partitions.values())
+					partition.file.delete();
+		}
+	}
+
+	private static void put(BlockingQueue<List<Assertion>> queue, List<Assertion> chunk) throws SQLException {
+		try {
+			queue.put(chunk);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted bulk load", e);
+		}
+	}
+
+
+
+	private static final class Partition {
+		final TableDescription table;
+		final File file;
+		final Writer writer;
+
+		Partition(TableDescription table) throws IOException {
+			this.table = table;
+			this.file = File.createTempFile("quest-" + table.tableName.toLowerCase() + "-", ".csv");
+			this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+		}
+	}
+
+	/**
+	 * converts chunks of assertions into rows of its own partitions
+	 *
+	 * All the state is local to the worker, except for the (concurrent) URI map.
+	 */
+
+	private final class Worker implements Callable<Void> {
+
+		private final BlockingQueue<List<Assertion>> queue;
+
+		private final Map<TableDescription, Partition> partitions = new HashMap<>();
+		private final Map<SemanticIndexView, Set<Integer>> indexes = new HashMap<>();
+		private final Map<Predicate, Integer> failures = new HashMap<>();
+		private int success = 0;
+		private IOException error;
+
+		// the block of reserved URI ids [nextURIId, endURIId)
+		private int nextURIId, endURIId;
+
+		private final StringBuilder row = new StringBuilder();
+
+		Worker(BlockingQueue<List<Assertion>> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public Void call() throws InterruptedException {
+			while (true) {
+				List<Assertion> chunk = queue.take();
+				if (chunk == END_OF_DATA)
+					break;
+				// after an error, the queue is only drained
+				if (error != null)
+					continue;
+				try {
+					for (Assertion ax : chunk)
+						process(ax);
+				}
+				catch (IOException e) {
+					error = e;
+				}
+			}
+
+			for (Partition partition : partitions.values()) {
+				try {
+					partition.writer.close();
+				}
+				catch (IOException e) {
+					if (error == null)
+						error = e;
+				}
+			}
+			return null;
+		}
+
+		private void process(Assertion ax) throws IOException {
+			Predicate predicate;
+			if (ax instanceof ClassAssertion)
+				predicate = ((ClassAssertion) ax).getConcept().getPredicate();
+			else if (ax instanceof ObjectPropertyAssertion)
+				predicate = ((ObjectPropertyAssertion) ax).getProperty().getPredicate();
+			else if (ax instanceof DataPropertyAssertion)
+				predicate = ((DataPropertyAssertion) ax).getProperty().getPredicate();
+			else
+				return;
+
+			try {
+				row.setLength(0);
+				if (ax instanceof ClassAssertion)
+					process((ClassAssertion) ax);
+				else if (ax instanceof ObjectPropertyAssertion)
+					process((ObjectPropertyAssertion) ax);
+				else
+					process((DataPropertyAssertion) ax);
+				success++;
+			}
+			catch (RuntimeException e) {
+				Integer counter = failures.get(predicate);
+				if (counter == null)
+					counter = 0;
+				failures.put(predicate, counter + 1);
+			}
+		}
+
+		private void process(ObjectPropertyAssertion ax) throws IOException {
+
+			ObjectPropertyExpression ope0 = ax.getProperty();
+			if (ope0.isInverse())
+				throw new RuntimeException("INVERSE PROPERTIES ARE NOT SUPPORTED IN ABOX:" + ax);
+
+			ObjectPropertyExpression ope = reasonerDag.getObjectPropertyDAG().getCanonicalForm(ope0);
+
+			ObjectConstant o1, o2;
+			if (ope.isInverse()) {
+				// the canonical representative is inverse and so, it is not indexed
+				o1 = ax.getObject();
+				o2 = ax.getSubject();
+				ope = ope.getInverse();
+			}
+			else {
+				o1 = ax.getSubject();
+				o2 = ax.getObject();
+			}
+
+			int idx = cacheSI.getEntry(ope).getIndex();
+
+			SemanticIndexView view = views.getView(o1.getType(), o2.getType());
+
+			int uri_id = getObjectConstantUriId(o1);
+			int uri2_id = getObjectConstantUriId(o2);
+
+			// "URI1", "URI2", "IDX", ISBNODE, ISBNODE2
+			row.append(uri_id).append(',').append(uri2_id).append(',').append(idx).append(',')
+					.append(isBNode(o1)).append(',').append(isBNode(o2)).append('\n');
+			write(RDBMSSIRepositoryManager.attributeTable.get(COL_TYPE.OBJECT));
+
+			addIndex(view, idx);
+		}
+
+		private void process(DataPropertyAssertion ax) throws IOException {
+
+			// replace the property by its canonical representative
+			DataPropertyExpression dpe0 = ax.getProperty();
+			DataPropertyExpression dpe = reasonerDag.getDataPropertyDAG().getCanonicalForm(dpe0);
+			int idx = cacheSI.getEntry(dpe).getIndex();
+
+			ObjectConstant subject = ax.getSubject();
+			int uri_id = getObjectConstantUriId(subject);
+
+			ValueConstant object = ax.getValue();
+			COL_TYPE objectType = object.getType();
+
+			SemanticIndexView view = views.getView(subject.getType(), objectType);
+
+			String value = object.getValue();
+
+			row.append(uri_id).append(',');
+			switch (objectType) {
+				case LITERAL:
+				case LITERAL_LANG:
+				case STRING:
+					appendString(value);
+					break;
+				case INT:
+				case UNSIGNED_INT:
+					row.append(Integer.parseInt(value));
+					break;
+				case INTEGER:
+				case NEGATIVE_INTEGER:
+				case POSITIVE_INTEGER:
+				case NON_NEGATIVE_INTEGER:
+				case NON_POSITIVE_INTEGER:
+				case LONG:
+					row.append(Long.parseLong(value));
+					break;
+				case FLOAT:
+					row.append((double) Float.parseFloat(value));
+					break;
+				case DOUBLE:
+					row.append(Double.parseDouble(value));
+					break;
+				case DECIMAL:
+					row.append(new BigDecimal(value).toPlainString());
+					break;
+				case DATETIME_STAMP:
+				case DATETIME:
+					row.append(XsdDatatypeConverter.parseXsdDateTime(value));
+					break;
+				case BOOLEAN:
+					row.append(XsdDatatypeConverter.parseXsdBoolean(value) ? "TRUE" : "FALSE");
+					break;
+				default:
+					// UNSUPPORTED DATATYPE (counted as a failure)
+					throw new RuntimeException("UNSUPPORTED DATATYPE: " + objectType);
+			}
+			row.append(',').append(idx).append(',');
+
+			// the literal table has LANG before ISBNODE
+			TableDescription table;
+			if (objectType == COL_TYPE.LITERAL || objectType == COL_TYPE.LITERAL_LANG) {
+				if (objectType == COL_TYPE.LITERAL_LANG)
+					appendString(object.getLanguage());
+				row.append(',');
+				table = RDBMSSIRepositoryManager.attributeTable.get(COL_TYPE.LITERAL);
+			}
+			else
+				table = RDBMSSIRepositoryManager.attributeTable.get(objectType);
+
+			row.append(isBNode(subject)).append('\n');
+			write(table);
+
+			addIndex(view, idx);
+		}
+
+		private void process(ClassAssertion ax) throws IOException {
+
+			// replace concept by the canonical representative (which must be a concept name)
+			OClass concept0 = ax.getConcept();
+			OClass concept = (OClass)reasonerDag.getClassDAG().getCanonicalForm(concept0);
+			int conceptIndex = cacheSI.getEntry(concept).getIndex();
+
+			ObjectConstant c1 = ax.getIndividual();
+
+			SemanticIndexView view = views.getView(c1.getType());
+
+			int uri_id = getObjectConstantUriId(c1);
+
+			// "URI", "IDX", ISBNODE
+			row.append(uri_id).append(',').append(conceptIndex).append(',').append(isBNode(c1)).append('\n');
+			write(RDBMSSIRepositoryManager.classTable);
+
+			addIndex(view, conceptIndex);
+		}
+
+		private int getObjectConstantUriId(ObjectConstant c) throws IOException {
+
+			String uri = (c instanceof BNode) ? ((BNode) c).getName() : ((URIConstant) c).getURI().toString();
+
+			int uri_id = uriMap.getId(uri);
+			if (uri_id >= 0)
+				return uri_id;
+
+			if (nextURIId == endURIId) {
+				nextURIId = repository.reserveURIIds(URI_ID_BLOCK_SIZE);
+				endURIId = nextURIId + URI_ID_BLOCK_SIZE;
+			}
+
+			// another worker can assign an id to the URI first (the reserved id is then used for the next URI)
+			uri_id = uriMap.setIfAbsent(uri, nextURIId);
+			if (uri_id == nextURIId) {
+				nextURIId++;
+
+				// the row is written before the current row is complete, and so, it needs its own buffer
+				StringBuilder uriRow = new StringBuilder();
+				uriRow.append(uri_id).append(',');
+				SemanticIndexBulkLoader.appendString(uriRow, uri);
+				uriRow.append('\n');
+				getPartition(RDBMSSIRepositoryManager.uriIdTable).writer.append(uriRow);
+			}
+			return uri_id;
+		}
+
+		private void addIndex(SemanticIndexView view, int idx) {
+			Set<Integer> set = indexes.get(view);
+			if (set == null) {
+				set = new HashSet<>();
+				indexes.put(view, set);
+			}
+			set.add(idx);
+		}
+
+		private void write(TableDescription table) throws IOException {
+			getPartition(table).writer.append(row);
+		}
+
+		private Partition getPartition(TableDescription table) throws IOException {
+			Partition partition = partitions.get(table);
+			if (partition == null) {
+				partition = new Partition(table);
+				partitions.put(table, partition);
+			}
+			return partition;
+		}
+
+		private void appendString(String s) {
+			SemanticIndexBulkLoader.appendString(row, s);
+		}
+	}
+
+	private static String isBNode(ObjectConstant c) {
+		return (c.getType() == COL_TYPE.BNODE) ? "TRUE" : "FALSE";
+	}
+
+	/**
+	 * CSV string: always quoted (an empty unquoted value is NULL both in H2 and PostgreSQL)
+	 */
+
+	private static void appendString(StringBuilder bf, String s) {
+		bf.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"')
+				bf.append('"');
+			bf.append(c);
+		}
+		bf.append('"');
+	}
+}
@@ -1,21 +1,149 @@
 package it.unibz.inf.ontop.owlrefplatform.core.abox;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Dictionary of the URIs (and blank nodes) stored in the Semantic Index repository
+ *
+ * The URIs are kept in insertion order in a single byte array, front-coded in blocks
+ * of BLOCK_SIZE entries: the first URI of a block is stored in full (UTF-8), and each
+ * following URI as the length of the prefix it shares with the previous URI and
+ * the remaining suffix (URIs inserted together tend to share the namespace).
+ * The ids are primitive ints, and the URI lookup is an open-addressing hash table
+ * of entry numbers (with the hash codes kept alongside to avoid decoding).
+ *
+ * The dictionary is a copy of the URIID table (see RDBMSSIRepositoryManager.loadMetadata).
+ * Lookups in both directions can run concurrently with each other and with insertions.
+ */
 
 public class SemanticIndexURIMap {
-	
-	// Semantic Index URI reference structures
-	private final HashMap<String, Integer> uriIds = new HashMap<> (100000);
-	private final HashMap <Integer, String> uriMap2 = new HashMap<> (100000);
-	
-	
+
+	private static final int BLOCK_SIZE = 16;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// front-coded URIs
+	private byte[] data = new byte[1 << 16];
+	private int dataSize = 0;
+	private int[] blockOffsets = new int[1024];
+	private byte[] lastURI = new byte[0];
+
+	// entry number -> id
+	private int[] entryIds = new int[1 << 14];
+	private int size = 0;
+
+	// id -> entry number + 1 (0 if the id is not assigned)
+	private int[] idEntries = new int[1 << 14];
+
+	// URI hash table: entry number + 1 (0 for empty slots) and the hash code of the URI
+	private int[] slots = new int[1 << 15];
+	private int[] slotHashes = new int[1 << 15];
+
+
 	/**
 	 * set(uri, id) is used only by RDBMSSIRepository
-	 * 
+	 * (the URI must not be in the dictionary)
 	 */
 	void set(String uri, int id) {
-		uriIds.put(uri, id);
-		uriMap2.put(id, uri);
+		setIfAbsent(uri, id);
+	}
+
+	/**
+	 * setIfAbsent(uri, id) is used only by RDBMSSIRepository and SemanticIndexBulkLoader
+	 *
+	 * @return the id of the URI, which is different from id if the URI has already been assigned an id
+	 */
+	int setIfAbsent(String uri, int id) {
+		if (id < 0)
+			throw new IllegalArgumentException("NEGATIVE URI ID: " + id);
+
+		byte[] bytes = uri.getBytes(StandardCharsets.UTF_8);
+		int hash = uri.hashCode();
+
+		lock.writeLock().lock();
+		try {
+			int slot = findSlot(bytes, hash);
+			if (slots[slot] != 0)
+				return entryIds[slots[slot] - 1];
+
+			int entry = size++;
+			append(entry, bytes);
+
+			if (entry == entryIds.length)
+				entryIds = Arrays.copyOf(entryIds, entryIds.length * 2);
+			entryIds[entry] = id;
+
+			if (id >= idEntries.length)
+				idEntries = Arrays.copyOf(idEntries, Math.max(idEntries.length * 2, id + 1));
+			idEntries[id] = entry + 1;
+
+			slots[slot] = entry + 1;
+			slotHashes[slot] = hash;
+			if (size * 2 > slots.length)
+				rehash();
+
+			return id;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * removes the URIs added after the dictionary had the given size
+	 * (used by SemanticIndexBulkLoader when a load fails; no other URIs are added in the meantime)
+	 */
+	void truncate(int newSize) {
+		lock.writeLock().lock();
+		try {
+			if (newSize >= size)
+				return;
+
+			for (int entry = newSize; entry < size; entry++)
+				idEntries[entryIds[entry]] = 0;
+
+			int[] newSlots = new int[slots.length];
+			int[] newSlotHashes = new int[slots.length];
+			int mask = newSlots.length - 1;
+			for (int i = 0; i < slots.length; i++) {
+				if (slots[i] == 0 || slots[i] > newSize)
+					continue;
+				int slot = mix(slotHashes[i]) & mask;
+				while (newSlots[slot] != 0)
+					slot = (slot + 1) & mask;
+				newSlots[slot] = slots[i];
+				newSlotHashes[slot] = slotHashes[i];
+			}
+			slots = newSlots;
+			slotHashes = newSlotHashes;
+
+			dataSize = getOffset(newSize);
+			lastURI = (newSize == 0) ? new byte[0] : decode(newSize - 1);
+			size = newSize;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * removes all URIs (before the dictionary is read back from the database)
+	 */
+	void clear() {
+		lock.writeLock().lock();
+		try {
+			dataSize = 0;
+			lastURI = new byte[0];
+			size = 0;
+			Arrays.fill(idEntries, 0);
+			Arrays.fill(slots, 0);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	/***
@@ -25,15 +153,164 @@ public class SemanticIndexURIMap {
 	 * @param uri
 	 * @return
 	 */
-	
+
 	public int getId(String uri) {
-		Integer index =  uriIds.get(uri);
-		if (index != null)
-			return index;
-		return -2;
+		byte[] bytes = uri.getBytes(StandardCharsets.UTF_8);
+		int hash = uri.hashCode();
+
+		lock.readLock().lock();
+		try {
+			int slot = findSlot(bytes, hash);
+			if (slots[slot] != 0)
+				return entryIds[slots[slot] - 1];
+			return -2;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	public String getURI(Integer id) {
-		return uriMap2.get(id);
+		if (id == null || id < 0)
+			return null;
+
+		lock.readLock().lock();
+		try {
+			if (id >= idEntries.length || idEntries[id] == 0)
+				return null;
+			return new String(decode(idEntries[id] - 1), StandardCharsets.UTF_8);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of URIs in the dictionary
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+
+	private int findSlot(byte[] bytes, int hash) {
+		int mask = slots.length - 1;
+		for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+			if (slots[slot] == 0)
+				return slot;
+			if (slotHashes[slot] == hash && Arrays.equals(decode(slots[slot] - 1), bytes))
+				return slot;
+		}
+	}
+
+	private void rehash() {
+		int[] newSlots = new int[slots.length * 2];
+		int[] newSlotHashes = new int[slots.length * 2];
+		int mask = newSlots.length - 1;
+		for (int i = 0; i < slots.length; i++) {
+			if (slots[i] == 0)
+				continue;
+			int slot = mix(slotHashes[i]) & mask;
+			while (newSlots[slot] != 0)
+				slot = (slot + 1) & mask;
+			newSlots[slot] = slots[i];
+			newSlotHashes[slot] = slotHashes[i];
+		}
+		slots = newSlots;
+		slotHashes = newSlotHashes;
+	}
+
+	// String.hashCode is weak in the lower bits for URIs with common suffixes
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void append(int entry, byte[] bytes) {
+		int shared = 0;
+		if (entry % BLOCK_SIZE == 0) {
+			int block = entry / BLOCK_SIZE;
+			if (block == blockOffsets.length)
+				blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+			blockOffsets[block] = dataSize;
+		}
+		else {
+			int max = Math.min(lastURI.length, bytes.length);
+			while (shared < max && lastURI[shared] == bytes[shared])
+				shared++;
+			writeInt(shared);
+		}
+		writeInt(bytes.length - shared);
+		ensureCapacity(bytes.length - shared);
+		System.arraycopy(bytes, shared, data, dataSize, bytes.length - shared);
+		dataSize += bytes.length - shared;
+		lastURI = bytes;
+	}
+
+	private byte[] decode(int entry) {
+		int[] pos = { blockOffsets[entry / BLOCK_SIZE] };
+
+		int length = readInt(pos);
+		byte[] uri = Arrays.copyOfRange(data, pos[0], pos[0] + Math.max(length, 64));
+		pos[0] += length;
+
+		for (int e = entry - entry % BLOCK_SIZE + 1; e <= entry; e++) {
+			int shared = readInt(pos);
+			int suffix = readInt(pos);
+			length = shared + suffix;
+			if (length > uri.length)
+				uri = Arrays.copyOf(uri, Math.max(length, uri.length * 2));
+			System.arraycopy(data, pos[0], uri, shared, suffix);
+			pos[0] += suffix;
+		}
+		return (length == uri.length) ? uri : Arrays.copyOf(uri, length);
+	}
+
+	// the offset of an existing entry in the data
+	private int getOffset(int entry) {
+		int[] pos = { blockOffsets[entry / BLOCK_SIZE] };
+		if (entry % BLOCK_SIZE == 0)
+			return pos[0];
+
+		int length = readInt(pos);
+		pos[0] += length;
+		for (int e = entry - entry % BLOCK_SIZE + 1; e < entry; e++) {
+			readInt(pos); // shared
+			int suffix = readInt(pos);
+			pos[0] += suffix;
+		}
+		return pos[0];
+	}
+
+	// variable-length encoding of non-negative ints (7 bits per byte)
+
+	private void writeInt(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			data[dataSize++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[dataSize++] = (byte) value;
+	}
+
+	private int readInt(int[] pos) {
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = data[pos[0]++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	private void ensureCapacity(int extra) {
+		if (dataSize + extra > data.length)
+			data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + extra));
 	}
 }
@@ -33,6 +33,13 @@ public class SemanticIndexView {
 	}
 	
 	public boolean isEmptyForIntervals(List<Interval> intervals) {
+		return isEmptyForIntervals(indexes, intervals);
+	}
+
+	/**
+	 * @param indexes the indexes of a view (e.g., a copy of {@link #getIndexes()})
+	 */
+	public static boolean isEmptyForIntervals(Set<Integer> indexes, List<Interval> intervals) {
 		for (Interval interval : intervals) 
 			for (Integer i = interval.getStart(); i <= interval.getEnd(); i++) 
 				if (indexes.contains(i)) 
@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class SemanticIndexViewsManager {
 
@@ -153,11 +154,24 @@ public class SemanticIndexViewsManager {
 	 */
 
 	public void store(Connection conn) throws SQLException {
+		Map<SemanticIndexView, Set<Integer>> indexes = new HashMap<>();
+		for (SemanticIndexView view : views.values())
+			indexes.put(view, view.getIndexes());
+		store(conn, indexes);
+	}
+
+	/**
+	 * Stores the given indexes of the views in the emptiness index in the database
+	 * (the indexes must not be stored yet)
+	 * @throws SQLException
+	 */
+
+	public void store(Connection conn, Map<SemanticIndexView, Set<Integer>> indexes) throws SQLException {
 		
 		try (PreparedStatement stm = conn.prepareStatement(RDBMSSIRepositoryManager.emptinessIndexTable.getINSERT("?, ?, ?, ?"))) {
-			for (SemanticIndexView view : views.values()) {
-				SemanticIndexViewID viewId = view.getId();
-				for (Integer idx : view.getIndexes()) {
+			for (Map.Entry<SemanticIndexView, Set<Integer>> entry : indexes.entrySet()) {
+				SemanticIndexViewID viewId = entry.getKey().getId();
+				for (Integer idx : entry.getValue()) {
 					if (viewId.getType2() == null) {
 						// class view (only type1 is relevant)
 						stm.setInt(1, 0); // SITable.CLASS.ordinal()
@@ -9,6 +9,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import it.unibz.inf.ontop.model.BuiltinPredicate;
 import it.unibz.inf.ontop.model.CQIE;
@@ -24,9 +26,12 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 
 	private final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
 	
-	private final Map<CQIE,IndexedCQ> indexedCQcache = new HashMap<>();
+	// concurrent: the T-mappings of the DAG nodes are constructed in parallel
+	private final Map<CQIE,IndexedCQ> indexedCQcache = new ConcurrentHashMap<>();
 	
 	private final LinearInclusionDependencies dependencies;
+
+	private final QueryTranslationContext context; // null if the global fresh variables are used
 	
 	/***
 	 * Constructs a CQC utility using the given query. If Sigma is not null and
@@ -35,6 +40,7 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 	 */
 	public CQContainmentCheckUnderLIDs() {
 		dependencies = null;
+		context = null;
 	}
 
 	/**
@@ -43,6 +49,19 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 	 */
 	public CQContainmentCheckUnderLIDs(LinearInclusionDependencies dependencies) {
 		this.dependencies = dependencies;
+		this.context = null;
+	}
+
+	/**
+	 * CQC utility for the translation of one query: the labelled nulls of the
+	 * chase are taken from the fresh variables of the query context
+	 *
+	 * @param dependencies a set of ABox dependencies
+	 * @param context the context of the query being translated
+	 */
+	public CQContainmentCheckUnderLIDs(LinearInclusionDependencies dependencies, QueryTranslationContext context) {
+		this.dependencies = dependencies;
+		this.context = context;
 	}
 	
 	
@@ -61,7 +80,9 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 		for (Function fact : atoms) {
 			derivedAtoms.add(fact);
 			for (CQIE rule : dependencies.getRules(fact.getFunctionSymbol())) {
-				rule = fac.getFreshCQIECopy(rule);
+				rule = (context == null)
+						? fac.getFreshCQIECopy(rule)
+						: fac.getFreshCQIECopy(rule, context.getFreshSuffix());
 				Function ruleBody = rule.getBody().get(0);
 				Substitution theta = UnifierUtilities.getMGU(ruleBody, fact);
 				if (theta != null && !theta.isEmpty()) {
@@ -169,9 +190,9 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 		return indexedQ1.computeHomomorphism(q2);
 	}	
 
-	static int redundantCounter = 0;
-	public static int twoAtomQs = 0;
-	public static int oneAtomQs = 0;
+	static final AtomicInteger redundantCounter = new AtomicInteger();
+	public static final AtomicInteger twoAtomQs = new AtomicInteger();
+	public static final AtomicInteger oneAtomQs = new AtomicInteger();
 	
 	public CQIE removeRedundantAtoms(CQIE query) {
 		List<Function> databaseAtoms = new ArrayList<>(query.getBody().size());
@@ -187,7 +208,7 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 			}
 
 		if (databaseAtoms.size() < 2) {
-			oneAtomQs++;
+			oneAtomQs.incrementAndGet();
 			return query;
 		}
 		
@@ -198,14 +219,14 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 		for (int i = 0; i < databaseAtoms.size(); i++) {
 			Function atomToBeRemoved = databaseAtoms.get(i);
 			if (checkRedundant(db, groundTerms, atomToBeRemoved)) {
-				System.out.println("  REDUNDANT " + ++redundantCounter + ": " + atomToBeRemoved + " IN " + query);
+				System.out.println("  REDUNDANT " + redundantCounter.incrementAndGet() + ": " + atomToBeRemoved + " IN " + query);
 				query.getBody().remove(atomToBeRemoved);
 				databaseAtoms.remove(atomToBeRemoved);
 				i--;
 			}
 		}
 		
-		twoAtomQs++;
+		twoAtomQs.incrementAndGet();
 		return query;
 	}
 	
@@ -225,7 +246,7 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 		CQIE q0 = fac.getCQIE(db.getHead(), atomsToLeave);
 		// if db is homomorphically embeddable into q0
 		if (computeHomomorphsim(q0, db) != null) {
-			oneAtomQs++;
+			oneAtomQs.incrementAndGet();
 			return true;
 		}
 		return false;
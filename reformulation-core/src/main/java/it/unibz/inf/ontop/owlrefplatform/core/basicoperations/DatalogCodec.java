@@ -0,0 +1,378 @@
+package it.unibz.inf.ontop.owlrefplatform.core.basicoperations;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.impl.BNodePredicateImpl;
+import it.unibz.inf.ontop.model.impl.DatatypePredicateImpl;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
+import it.unibz.inf.ontop.model.impl.PredicateImpl;
+import it.unibz.inf.ontop.model.impl.URITemplatePredicateImpl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary encoding of datalog rules, terms and predicates.
+ *
+ * Java serialization cannot be used: the built-in predicates and constants (the operations,
+ * the datatypes, the SPARQL join and left join, the null and boolean constants) are compared
+ * by reference, so the decoder returns the instances of the data factory for them.
+ *
+ * The predicates and the strings are written once and referred to by their index afterwards,
+ * so an Encoder and a Decoder must be used for a whole stream.
+ */
+
+public class DatalogCodec {
+
+	private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+	// terms
+	private static final byte VARIABLE = 0;
+	private static final byte FUNCTION = 1;
+	private static final byte VALUE_CONSTANT = 2;
+	private static final byte URI_CONSTANT = 3;
+	private static final byte BNODE = 4;
+
+	// predicates
+	private static final byte OPERATION = 0;
+	private static final byte ALGEBRA_OPERATOR = 1;
+	private static final byte DATATYPE = 2;
+	private static final byte URI_TEMPLATE = 3;
+	private static final byte BNODE_TEMPLATE = 4;
+	private static final byte TRIPLE = 5;
+	private static final byte OTHER = 6;
+
+	public static class Encoder {
+
+		private final DataOutputStream out;
+
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		// predicates are equal if they have the same name, hence the keys include the kind, arity and types
+		private final Map<String, Integer> predicates = new HashMap<>();
+
+		public Encoder(DataOutputStream out) {
+			this.out = out;
+		}
+
+		public void writeRule(CQIE rule) throws IOException {
+			writeFunction(rule.getHead());
+			out.writeInt(rule.getBody().size());
+			for (Function atom : rule.getBody())
+				writeFunction(atom);
+		}
+
+		public void writeTerm(Term term) throws IOException {
+			if (term instanceof Variable) {
+				out.writeByte(VARIABLE);
+				writeString(((Variable) term).getName());
+			}
+			else if (term instanceof Function) {
+				out.writeByte(FUNCTION);
+				writeFunction((Function) term);
+			}
+			else if (term instanceof ValueConstant) {
+				ValueConstant c = (ValueConstant) term;
+				out.writeByte(VALUE_CONSTANT);
+				writeString(c.getValue());
+				writeType(c.getType());
+				writeString(c.getLanguage());
+			}
+			else if (term instanceof URIConstant) {
+				out.writeByte(URI_CONSTANT);
+				writeString(((URIConstant) term).getURI());
+			}
+			else if (term instanceof BNode) {
+				out.writeByte(BNODE);
+				writeString(((BNode) term).getName());
+			}
+			else
+				throw new IllegalArgumentException("Unsupported term: " + term);
+		}
+
+		private void writeFunction(Function function) throws IOException {
+			writePredicate(function.getFunctionSymbol());
+			out.writeInt(function.getTerms().size());
+			for (Term term : function.getTerms())
+				writeTerm(term);
+		}
+
+		public void writePredicate(Predicate predicate) throws IOException {
+			byte kind = getKind(predicate);
+			COL_TYPE[] types = null;
+			if (kind == DATATYPE || kind == OTHER) {
+				types = new COL_TYPE[predicate.getArity()];
+				boolean typed = false;
+				for (int i = 0; i < types.length; i++) {
+					types[i] = predicate.getType(i);
+					typed = typed || types[i] != null;
+				}
+				if (!typed)
+					types = null;
+			}
+
+			String key = kind + " " + predicate.getArity() + " " + Arrays.toString(types) + " " + predicate.getName();
+			Integer index = predicates.get(key);
+			if (index != null) {
+				out.writeInt(index);
+				return;
+			}
+			out.writeInt(predicates.size());
+			predicates.put(key, predicates.size());
+
+			out.writeByte(kind);
+			switch (kind) {
+				case OPERATION:
+					writeString(((ExpressionOperation) predicate).name());
+					break;
+				case URI_TEMPLATE:
+				case BNODE_TEMPLATE:
+					out.writeInt(predicate.getArity());
+					break;
+				case TRIPLE:
+					break;
+				default:
+					writeString(predicate.getName());
+					out.writeInt(predicate.getArity());
+					out.writeBoolean(types != null);
+					if (types != null)
+						for (COL_TYPE type : types)
+							writeType(type);
+			}
+		}
+
+		private void writeType(COL_TYPE type) throws IOException {
+			writeString(type == null ? null : type.name());
+		}
+
+		public void writeString(String s) throws IOException {
+			if (s == null) {
+				out.writeInt(-1);
+				return;
+			}
+			Integer index = strings.get(s);
+			if (index != null) {
+				out.writeInt(index);
+				return;
+			}
+			out.writeInt(strings.size());
+			strings.put(s, strings.size());
+			// writeUTF is limited to 64K
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static byte getKind(Predicate predicate) {
+		if (predicate instanceof ExpressionOperation)
+			return OPERATION;
+		if (predicate instanceof AlgebraOperatorPredicate)
+			return ALGEBRA_OPERATOR;
+		if (predicate instanceof DatatypePredicate)
+			return DATATYPE;
+		if (predicate instanceof URITemplatePredicate)
+			return URI_TEMPLATE;
+		if (predicate instanceof BNodePredicate)
+			return BNODE_TEMPLATE;
+		if (predicate == PredicateImpl.QUEST_TRIPLE_PRED)
+			return TRIPLE;
+		return OTHER;
+	}
+
+	public static class Decoder {
+
+		private final DataInputStream in;
+
+		private final List<String> strings = new ArrayList<>();
+
+		private final List<Predicate> predicates = new ArrayList<>();
+
+		private final Map<String, Predicate> datatypes = new HashMap<>();
+
+		public Decoder(DataInputStream in) {
+			this.in = in;
+			for (Predicate predicate : fac.getDatatypeFactory().getDatatypePredicates())
+				addDatatype(predicate);
+			addDatatype(fac.getDatatypeFactory().getTypePredicate(COL_TYPE.LITERAL_LANG));
+		}
+
+		private void addDatatype(Predicate predicate) {
+			COL_TYPE[] types = new COL_TYPE[predicate.getArity()];
+			for (int i = 0; i < types.length; i++)
+				types[i] = predicate.getType(i);
+			datatypes.put(predicate.getName() + " " + Arrays.toString(types), predicate);
+		}
+
+		public CQIE readRule() throws IOException {
+			Function head = readFunction();
+			int size = in.readInt();
+			List<Function> body = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				body.add(readFunction());
+			return fac.getCQIE(head, body);
+		}
+
+		public Term readTerm() throws IOException {
+			byte tag = in.readByte();
+			switch (tag) {
+				case VARIABLE:
+					return fac.getVariable(readString());
+				case FUNCTION:
+					return readFunction();
+				case VALUE_CONSTANT:
+					return readValueConstant();
+				case URI_CONSTANT:
+					return fac.getConstantURI(readString());
+				case BNODE:
+					return fac.getConstantBNode(readString());
+				default:
+					throw new IOException("Unknown term tag " + tag);
+			}
+		}
+
+		private Function readFunction() throws IOException {
+			Predicate predicate = readPredicate();
+			int size = in.readInt();
+			List<Term> terms = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				terms.add(readTerm());
+			return fac.getFunction(predicate, terms);
+		}
+
+		private ValueConstant readValueConstant() throws IOException {
+			String value = readString();
+			COL_TYPE type = readType();
+			String language = readString();
+			if (type == COL_TYPE.LITERAL_LANG)
+				return fac.getConstantLiteral(value, language);
+
+			ValueConstant constant = fac.getConstantLiteral(value, type);
+			for (ValueConstant c : new ValueConstant[] { OBDAVocabulary.NULL, OBDAVocabulary.TRUE, OBDAVocabulary.FALSE })
+				if (c.getType() == type && c.equals(constant))
+					return c;
+			return constant;
+		}
+
+		public Predicate readPredicate() throws IOException {
+			int index = in.readInt();
+			if (index < predicates.size())
+				return predicates.get(index);
+			if (index != predicates.size())
+				throw new IOException("Unknown predicate " + index);
+
+			Predicate predicate;
+			byte kind = in.readByte();
+			switch (kind) {
+				case OPERATION:
+					try {
+						predicate = ExpressionOperation.valueOf(readString());
+					}
+					catch (IllegalArgumentException e) {
+						throw new IOException(e);
+					}
+					break;
+				case URI_TEMPLATE:
+					predicate = new URITemplatePredicateImpl(in.readInt());
+					break;
+				case BNODE_TEMPLATE:
+					predicate = new BNodePredicateImpl(in.readInt());
+					break;
+				case TRIPLE:
+					predicate = PredicateImpl.QUEST_TRIPLE_PRED;
+					break;
+				case ALGEBRA_OPERATOR:
+				case DATATYPE:
+				case OTHER:
+					String name = readString();
+					int arity = in.readInt();
+					COL_TYPE[] types = null;
+					if (in.readBoolean()) {
+						types = new COL_TYPE[arity];
+						for (int i = 0; i < arity; i++)
+							types[i] = readType();
+					}
+					predicate = getPredicate(kind, name, arity, types);
+					break;
+				default:
+					throw new IOException("Unknown predicate kind " + kind);
+			}
+			predicates.add(predicate);
+			return predicate;
+		}
+
+		private Predicate getPredicate(byte kind, String name, int arity, COL_TYPE[] types) throws IOException {
+			if (kind == ALGEBRA_OPERATOR) {
+				if (name.equals(OBDAVocabulary.SPARQL_JOIN.getName()))
+					return OBDAVocabulary.SPARQL_JOIN;
+				if (name.equals(OBDAVocabulary.SPARQL_LEFTJOIN.getName()))
+					return OBDAVocabulary.SPARQL_LEFTJOIN;
+				throw new IOException("Unknown algebra operator " + name);
+			}
+			if (kind == DATATYPE) {
+				Predicate predicate = datatypes.get(name + " " + Arrays.toString(types));
+				if (predicate != null)
+					return predicate;
+				if (types == null)
+					throw new IOException("Datatype " + name + " without types");
+				// datatypes of R2RML mappings
+				return new DatatypePredicateImpl(name, types);
+			}
+			if (types == null)
+				return fac.getPredicate(name, arity);
+			return fac.getPredicate(name, types);
+		}
+
+		private COL_TYPE readType() throws IOException {
+			String name = readString();
+			if (name == null)
+				return null;
+			try {
+				return COL_TYPE.valueOf(name);
+			}
+			catch (IllegalArgumentException e) {
+				throw new IOException(e);
+			}
+		}
+
+		public String readString() throws IOException {
+			int index = in.readInt();
+			if (index == -1)
+				return null;
+			if (index < strings.size())
+				return strings.get(index);
+			if (index != strings.size())
+				throw new IOException("Unknown string " + index);
+
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			String s = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(s);
+			return s;
+		}
+	}
+}
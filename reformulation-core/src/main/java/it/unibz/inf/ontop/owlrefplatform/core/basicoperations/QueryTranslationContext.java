@@ -0,0 +1,101 @@
+package it.unibz.inf.ontop.owlrefplatform.core.basicoperations;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.CQIE;
+import it.unibz.inf.ontop.model.DatalogProgram;
+import it.unibz.inf.ontop.model.Function;
+import it.unibz.inf.ontop.model.Term;
+import it.unibz.inf.ontop.model.Variable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * State of the translation of one query (rewriting, flattening and unfolding).
+ *
+ * <p>
+ * The suffixes of the fresh variables are taken from a counter local to
+ * the query, so that the translation neither depends on nor interferes
+ * with the translation of other queries running at the same time
+ * (and always produces the same SQL for the same query).
+ *
+ * <p>
+ * A fresh variable is named by appending "_" and the suffix to the name of a variable.
+ * The suffixes that end the names of the variables of the query (e.g., 1 for ?x_1) are
+ * skipped, so that a fresh variable never captures a variable of the query.
+ *
+ * <p>
+ * A context is used by one thread only and is not thread-safe.
+ */
+public class QueryTranslationContext {
+
+	private int freshSuffix = 0;
+
+	private final Set<Integer> reservedSuffixes = new HashSet<>();
+
+	public QueryTranslationContext() {
+	}
+
+	/**
+	 * Context for the translation of the given query
+	 */
+	public QueryTranslationContext(DatalogProgram query) {
+		reserveSuffixes(query);
+	}
+
+	/**
+	 * Reserves the suffixes of the names of the variables of the query
+	 * (must be called before the first fresh suffix is taken)
+	 */
+	public void reserveSuffixes(DatalogProgram query) {
+		for (CQIE rule : query.getRules()) {
+			reserveSuffixes(rule.getHead());
+			for (Function atom : rule.getBody())
+				reserveSuffixes(atom);
+		}
+	}
+
+	private void reserveSuffixes(Term term) {
+		if (term instanceof Variable) {
+			String name = ((Variable) term).getName();
+			int i = name.length();
+			while (i > 0 && Character.isDigit(name.charAt(i - 1)))
+				i--;
+			if (i > 0 && i < name.length() && name.charAt(i - 1) == '_' && name.length() - i < 10)
+				reservedSuffixes.add(Integer.valueOf(name.substring(i)));
+		}
+		else if (term instanceof Function) {
+			for (Term t : ((Function) term).getTerms())
+				reserveSuffixes(t);
+		}
+	}
+
+	/**
+	 * Returns a suffix for fresh variables, unique within this query
+	 */
+	public int getFreshSuffix() {
+		do {
+			++freshSuffix;
+		} while (reservedSuffixes.contains(freshSuffix));
+		return freshSuffix;
+	}
+}
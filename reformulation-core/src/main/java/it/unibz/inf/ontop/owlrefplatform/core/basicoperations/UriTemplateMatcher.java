@@ -20,6 +20,8 @@ package it.unibz.inf.ontop.owlrefplatform.core.basicoperations;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import it.unibz.inf.ontop.model.CQIE;
 import it.unibz.inf.ontop.model.Constant;
 import it.unibz.inf.ontop.model.Function;
@@ -31,14 +33,33 @@ import it.unibz.inf.ontop.model.Variable;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+/**
+ * Matches URI constants against the URI templates of the mappings.
+ *
+ * The templates are indexed by their constant prefix (the part before the first {})
+ * in a character trie: walking a URI down the trie gives the templates whose prefix
+ * is a prefix of the URI, and only these candidates are matched, the most specific
+ * (the longest) first. The matches of the most recently used URIs are cached.
+ *
+ * Every {} matches a non-empty string without line terminators; the template strings
+ * are matched literally.
+ */
 
 public class UriTemplateMatcher {
 
 	private static final OBDADataFactory ofac = OBDADataFactoryImpl.getInstance();
 
-	private final Map<Pattern, Function> uriTemplateMatcher = new HashMap<>();
+	private static final int MATCH_CACHE_SIZE = 10000;
+
+	private static final Match NO_MATCH = new Match(null, null);
+
+	private final TrieNode root = new TrieNode();
+
+	private int templateCount;
+
+	// the templates are immutable once created, so the cached matches can be shared by the queries
+	private final Cache<String, Match> matchCache = CacheBuilder.newBuilder().maximumSize(MATCH_CACHE_SIZE).build();
 	
 	/**
 	 * creates a URI template matcher 
@@ -78,25 +99,22 @@ public class UriTemplateMatcher {
 					 * URI without template, we get it directly from the column
 					 * of the table, and the function is only f(x)
 					 */
-					if (templateStrings.contains("(.+)")) {
+					if (templateStrings.contains("{}")) {
 						continue;
 					}
 
 					Function templateFunction = ofac.getUriTemplate(ofac.getVariable("x"));
-					Pattern matcher = Pattern.compile("(.+)");
-					uriTemplateMatcher.uriTemplateMatcher.put(matcher, templateFunction);
-					templateStrings.add("(.+)");
+					uriTemplateMatcher.add("{}", templateFunction);
+					templateStrings.add("{}");
 				} else {
 					ValueConstant template = (ValueConstant) fun.getTerms().get(0);
 					String templateString = template.getValue();
-					templateString = templateString.replace("{}", "(.+)");
 
 					if (templateStrings.contains(templateString)) {
 						continue;
 					}
 
-					Pattern matcher = Pattern.compile(templateString);
-					uriTemplateMatcher.uriTemplateMatcher.put(matcher, fun);
+					uriTemplateMatcher.add(templateString, fun);
 					templateStrings.add(templateString);
 
 				}
@@ -104,6 +122,16 @@ public class UriTemplateMatcher {
 		}
 		return uriTemplateMatcher;
 	}
+
+	private void add(String templateString, Function function) {
+		Template template = new Template(templateString.split("\\{\\}", -1), function, templateCount++);
+
+		TrieNode node = root;
+		String prefix = template.literals[0];
+		for (int i = 0; i < prefix.length(); i++)
+			node = node.getOrCreateChild(prefix.charAt(i));
+		node.templates.add(template);
+	}
 	
 	
 	/***
@@ -114,25 +142,14 @@ public class UriTemplateMatcher {
 	public Function generateURIFunction(String uriString) {
 		Function functionURI = null;
 
-		List<Pattern> patternsMatched = new LinkedList<>();
-		for (Pattern pattern : uriTemplateMatcher.keySet()) {
-
-			Matcher matcher = pattern.matcher(uriString);
-			boolean match = matcher.matches();
-			if (!match) {
-				continue;
-			}
-			patternsMatched.add(pattern);
+		Match match = matchCache.getIfPresent(uriString);
+		if (match == null) {
+			match = match(uriString);
+			matchCache.put(uriString, match);
 		}
-		Comparator<Pattern> comparator = new Comparator<Pattern>() {
-		    public int compare(Pattern c1, Pattern c2) {
-		        return c2.pattern().length() - c1.pattern().length() ; // use your logic
-		    }
-		};
-
-		Collections.sort(patternsMatched, comparator); 
-		for (Pattern pattern : patternsMatched) {
-			Function matchingFunction = uriTemplateMatcher.get(pattern);
+
+		if (match != NO_MATCH) {
+			Function matchingFunction = match.template.function;
 			Term baseParameter = matchingFunction.getTerms().get(0);
 			if (baseParameter instanceof Constant) {
 				/*
@@ -140,16 +157,11 @@ public class UriTemplateMatcher {
 				 * uri("http://....", var1, var2,...) <p> we need to match var1,
 				 * var2, etc with substrings from the subjectURI
 				 */
-				Matcher matcher = pattern.matcher(uriString);
-				if ( matcher.matches()) {
-					List<Term> values = new ArrayList<>(matcher.groupCount());
-					values.add(baseParameter);
-					for (int i = 0; i < matcher.groupCount(); i++) {
-						String value = matcher.group(i + 1);
-						values.add(ofac.getConstantLiteral(value));
-					}
-					functionURI = ofac.getUriTemplate(values);
-				}
+				List<Term> values = new ArrayList<>(match.values.length + 1);
+				values.add(baseParameter);
+				for (String value : match.values)
+					values.add(ofac.getConstantLiteral(value));
+				functionURI = ofac.getUriTemplate(values);
 			} 
 			else if (baseParameter instanceof Variable) {
 				/*
@@ -158,7 +170,6 @@ public class UriTemplateMatcher {
 				 */
 				functionURI = ofac.getUriTemplate(ofac.getConstantLiteral(uriString));
 			}
-			break;
 		}
 		if (functionURI == null) {
 			/* If we cannot match against a template, we try to match against the most general template (which will
@@ -169,4 +180,149 @@ public class UriTemplateMatcher {
 			
 		return functionURI;
 	}
+
+	/**
+	 * finds the most specific template matching the URI
+	 */
+	private Match match(String uriString) {
+		// the templates whose prefix is a prefix of the URI
+		List<Template> candidates = new ArrayList<>();
+		TrieNode node = root;
+		candidates.addAll(node.templates);
+		for (int i = 0; i < uriString.length(); i++) {
+			node = node.getChild(uriString.charAt(i));
+			if (node == null)
+				break;
+			candidates.addAll(node.templates);
+		}
+
+		Collections.sort(candidates);
+		for (Template template : candidates) {
+			String[] values = template.match(uriString);
+			if (values != null)
+				return new Match(template, values);
+		}
+		return NO_MATCH;
+	}
+
+
+	private static final class Match {
+		private final Template template;
+		private final String[] values;
+
+		Match(Template template, String[] values) {
+			this.template = template;
+			this.values = values;
+		}
+	}
+
+	/**
+	 * a URI template: constant strings separated by {}
+	 */
+	private static final class Template implements Comparable<Template> {
+		private final String[] literals;
+		private final Function function;
+		private final int specificity;
+		private final int order;
+
+		Template(String[] literals, Function function, int order) {
+			this.literals = literals;
+			this.function = function;
+			this.order = order;
+			int length = 0;
+			for (String literal : literals)
+				length += literal.length();
+			this.specificity = length + 4 * (literals.length - 1);
+		}
+
+		/**
+		 * the more specific (longer) templates come first
+		 */
+		@Override
+		public int compareTo(Template other) {
+			if (specificity != other.specificity)
+				return other.specificity - specificity;
+			return order - other.order;
+		}
+
+		/**
+		 * @return the values of {} or null if the URI does not match
+		 */
+		String[] match(String uri) {
+			int placeholders = literals.length - 1;
+			String prefix = literals[0], suffix = literals[placeholders];
+			if (placeholders == 0)
+				return uri.equals(prefix) ? new String[0] : null;
+
+			int end = uri.length() - suffix.length();
+			if (end < prefix.length() || !uri.startsWith(prefix) || !uri.startsWith(suffix, end))
+				return null;
+
+			String[] values = new String[placeholders];
+			return match(uri, 0, prefix.length(), end, values) ? values : null;
+		}
+
+		/**
+		 * matches {} number i and the rest of the URI up to end,
+		 * trying the longest values first (as greedy regular expressions do)
+		 */
+		private boolean match(String uri, int i, int start, int end, String[] values) {
+			if (i == values.length - 1)
+				return isValue(uri, start, end) && set(values, i, uri.substring(start, end));
+
+			String literal = literals[i + 1];
+			for (int pos = uri.lastIndexOf(literal, end - literal.length()); pos > start;
+				 	pos = uri.lastIndexOf(literal, pos - 1)) {
+				if (isValue(uri, start, pos) && match(uri, i + 1, pos + literal.length(), end, values))
+					return set(values, i, uri.substring(start, pos));
+			}
+			return false;
+		}
+
+		private static boolean set(String[] values, int i, String value) {
+			values[i] = value;
+			return true;
+		}
+
+		private static boolean isValue(String uri, int start, int end) {
+			if (start >= end)
+				return false;
+			for (int i = start; i < end; i++) {
+				char c = uri.charAt(i);
+				if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+					return false;
+			}
+			return true;
+		}
+	}
+
+	private static final class TrieNode {
+		private char[] labels = new char[0];
+		private TrieNode[] children = new TrieNode[0];
+		private final List<Template> templates = new ArrayList<>(1);
+
+		TrieNode getChild(char c) {
+			int i = Arrays.binarySearch(labels, c);
+			return (i >= 0) ? children[i] : null;
+		}
+
+		TrieNode getOrCreateChild(char c) {
+			int i = Arrays.binarySearch(labels, c);
+			if (i >= 0)
+				return children[i];
+
+			i = -i - 1;
+			char[] newLabels = new char[labels.length + 1];
+			TrieNode[] newChildren = new TrieNode[children.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, i);
+			System.arraycopy(children, 0, newChildren, 0, i);
+			newLabels[i] = c;
+			newChildren[i] = new TrieNode();
+			System.arraycopy(labels, i, newLabels, i + 1, labels.length - i);
+			System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+			labels = newLabels;
+			children = newChildren;
+			return newChildren[i];
+		}
+	}
 }
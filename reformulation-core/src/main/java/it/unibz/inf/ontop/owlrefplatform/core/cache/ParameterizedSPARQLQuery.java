@@ -0,0 +1,169 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A SPARQL query string in which the plain (untyped) string literals
+ * have been replaced by parameter slots.
+ *
+ * <p>
+ * Every slot is filled in the template with a sentinel literal, so that
+ * the template is itself a valid SPARQL query that can be parsed and
+ * translated once for all the queries of the same shape. The original
+ * lexical values are kept in order of occurrence.
+ *
+ * <p>
+ * IRIs, typed literals and numbers are left untouched because they
+ * influence URI template matching and typing during the translation.
+ * Literals containing escape sequences are also left untouched.
+ */
+public class ParameterizedSPARQLQuery {
+
+	/*
+	 * Random per-JVM token that makes sentinels impossible to
+	 * confuse with user data
+	 */
+	private static final String SENTINEL_PREFIX = "ontop-param-" + UUID.randomUUID().toString().replace("-", "") + "-";
+
+	private final String template;
+	private final ImmutableList<String> values;
+
+	private ParameterizedSPARQLQuery(String template, ImmutableList<String> values) {
+		this.template = template;
+		this.values = values;
+	}
+
+	/**
+	 * Returns the template query (with sentinel literals in place of the parameters)
+	 */
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Returns the lexical values of the parameters in the original query
+	 */
+	public List<String> getValues() {
+		return values;
+	}
+
+	public boolean hasParameters() {
+		return !values.isEmpty();
+	}
+
+	/**
+	 * Returns the lexical value used in the template for the i-th parameter
+	 */
+	public static String getSentinel(int i) {
+		return SENTINEL_PREFIX + i + "-";
+	}
+
+	/**
+	 * Extracts the string literals of the query into parameter slots.
+	 * If the query contains constructs the scanner cannot deal with safely,
+	 * the query is returned as a template without parameters.
+	 *
+	 * @param sparql the SPARQL query string
+	 * @return the parameterized query
+	 */
+	public static ParameterizedSPARQLQuery create(String sparql) {
+		StringBuilder sb = new StringBuilder(sparql.length());
+		ImmutableList.Builder<String> values = ImmutableList.builder();
+		int count = 0;
+
+		int len = sparql.length();
+		int i = 0;
+		while (i < len) {
+			char c = sparql.charAt(i);
+			if (c == '<') {
+				int end = getIRIEnd(sparql, i);
+				sb.append(sparql, i, end);
+				i = end;
+			}
+			else if (c == '#') {
+				int end = sparql.indexOf('\n', i);
+				if (end == -1)
+					end = len;
+				sb.append(sparql, i, end);
+				i = end;
+			}
+			else if (c == '"' || c == '\'') {
+				String quote = (sparql.startsWith("" + c + c + c, i)) ? ("" + c + c + c) : ("" + c);
+				int start = i + quote.length();
+				int end = getLiteralEnd(sparql, start, quote);
+				if (end == -1) // unterminated literal, let the parser report it
+					return new ParameterizedSPARQLQuery(sparql, ImmutableList.<String>of());
+
+				int next = end + quote.length();
+				String lexical = sparql.substring(start, end);
+				if (lexical.indexOf('\\') != -1 || sparql.startsWith("^^", next)) {
+					// escaped or typed literals are kept verbatim
+					sb.append(sparql, i, next);
+				}
+				else {
+					sb.append('"').append(getSentinel(count++)).append('"');
+					values.add(lexical);
+				}
+				i = next;
+			}
+			else if (c == '\\') {
+				// escapes in prefixed names: not worth the risk
+				return new ParameterizedSPARQLQuery(sparql, ImmutableList.<String>of());
+			}
+			else {
+				sb.append(c);
+				i++;
+			}
+		}
+		return new ParameterizedSPARQLQuery(sb.toString(), values.build());
+	}
+
+	/**
+	 * IRIREF ::= '<' ([^<>"{}|^`\]-[#x00-#x20])* '>'
+	 * If the characters after '<' do not form an IRI, '<' is an operator
+	 */
+	private static int getIRIEnd(String sparql, int start) {
+		for (int i = start + 1; i < sparql.length(); i++) {
+			char c = sparql.charAt(i);
+			if (c == '>')
+				return i + 1;
+			if (c <= ' ' || "<\"{}|^`\\".indexOf(c) != -1)
+				break;
+		}
+		return start + 1;
+	}
+
+	private static int getLiteralEnd(String sparql, int start, String quote) {
+		for (int i = start; i < sparql.length(); i++) {
+			char c = sparql.charAt(i);
+			if (c == '\\')
+				i++;
+			else if (sparql.startsWith(quote, i))
+				return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,68 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+/**
+ * SQL query with JDBC placeholders (?) together with the string values
+ * to be bound to them. The SQL string is shared by all the SPARQL queries
+ * of the same shape, which allows the JDBC driver (and the connection pool)
+ * to reuse the prepared statement.
+ */
+public class PreparedSQLQuery {
+
+	private final String sql;
+	private final List<String> parameters;
+	private final int parameterType;
+
+	/**
+	 * @param parameterType the JDBC type (java.sql.Types) with which the parameters are bound
+	 */
+	public PreparedSQLQuery(String sql, List<String> parameters, int parameterType) {
+		this.sql = sql;
+		this.parameters = parameters;
+		this.parameterType = parameterType;
+	}
+
+	public String getSQL() {
+		return sql;
+	}
+
+	/**
+	 * Values of the placeholders, in order (all strings, bound with getParameterType)
+	 */
+	public List<String> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * The JDBC type (java.sql.Types) of the parameters in the dialect of the source
+	 */
+	public int getParameterType() {
+		return parameterType;
+	}
+
+	@Override
+	public String toString() {
+		return sql + "\nparameters: " + parameters;
+	}
+}
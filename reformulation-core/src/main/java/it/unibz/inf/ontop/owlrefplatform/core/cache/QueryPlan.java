@@ -0,0 +1,243 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of rewriting and unfolding a SPARQL query: the SQL string,
+ * possibly with parameter slots, and the signature of the answer.
+ *
+ * <p>
+ * The SQL is stored as a list of fragments. Between two consecutive
+ * fragments comes the SQL literal of the parameter whose index is given
+ * in slots (fragments.size() == slots.length + 1).
+ *
+ * <p>
+ * The plan of a query over several data sources holds its {@link FederatedQuery}
+ * (its SQL is then only a description of the SQL queries).
+ */
+public class QueryPlan {
+
+	private final ImmutableList<String> fragments;
+	private final int[] slots;
+	private final ImmutableList<String> signature;
+	private final boolean parametric;
+	private final String preparedSQL;
+	private final FederatedQuery federatedQuery; // null if the query is over a single data source
+	private final ImmutableSet<Predicate> predicates;
+	private final boolean unknownURIs;
+
+	private QueryPlan(ImmutableList<String> fragments, int[] slots, List<String> signature, boolean parametric) {
+		this(fragments, slots, signature, parametric, null, ImmutableSet.<Predicate>of(), false);
+	}
+
+	private QueryPlan(ImmutableList<String> fragments, int[] slots, List<String> signature, boolean parametric,
+					  FederatedQuery federatedQuery, ImmutableSet<Predicate> predicates, boolean unknownURIs) {
+		this.fragments = fragments;
+		this.preparedSQL = Joiner.on('?').join(fragments);
+		this.slots = slots;
+		this.signature = ImmutableList.copyOf(signature);
+		this.parametric = parametric;
+		this.federatedQuery = federatedQuery;
+		this.predicates = predicates;
+		this.unknownURIs = unknownURIs;
+	}
+
+	/**
+	 * Plan for exactly one query (no parameters)
+	 */
+	public static QueryPlan create(String sql, List<String> signature) {
+		return new QueryPlan(ImmutableList.of(sql), new int[0], signature, false);
+	}
+
+	/**
+	 * Plan for a query over several data sources (no parameters)
+	 */
+	public static QueryPlan createFederated(FederatedQuery query) {
+		return new QueryPlan(ImmutableList.of(query.toString()), new int[0], query.getSignature(), false, query, ImmutableSet.<Predicate>of(), false);
+	}
+
+	/**
+	 * Marks a query shape whose literals cannot be turned into parameters
+	 * (for instance, because some of them were evaluated during the unfolding).
+	 */
+	public static QueryPlan nonParametric() {
+		return new QueryPlan(ImmutableList.<String>of(), new int[0], ImmutableList.<String>of(), false);
+	}
+
+	/**
+	 * Splits the SQL translation of a template query at the occurrences of the
+	 * sentinel literals.
+	 *
+	 * @return the parametric plan or null if some sentinel does not occur
+	 *          exactly in the form of an SQL string literal, or does not occur at all
+	 */
+	public static QueryPlan createParametric(String sql, List<String> signature, int numberOfParameters, SQLQueryGenerator generator) {
+		ImmutableList.Builder<String> fragments = ImmutableList.builder();
+		List<Integer> slots = new ArrayList<>();
+		int[] occurrences = new int[numberOfParameters];
+
+		int pos = 0;
+		while (true) {
+			int next = -1, param = -1, length = 0;
+			for (int i = 0; i < numberOfParameters; i++) {
+				String literal = generator.getSQLLexicalFormString(ParameterizedSPARQLQuery.getSentinel(i));
+				int idx = sql.indexOf(literal, pos);
+				if (idx != -1 && (next == -1 || idx < next)) {
+					next = idx;
+					param = i;
+					length = literal.length();
+				}
+			}
+			if (next == -1)
+				break;
+
+			fragments.add(sql.substring(pos, next));
+			slots.add(param);
+			occurrences[param]++;
+			pos = next + length;
+		}
+		fragments.add(sql.substring(pos));
+
+		for (int i = 0; i < numberOfParameters; i++) {
+			if (occurrences[i] == 0)
+				return null;
+			// every occurrence of the sentinel must have been consumed
+			if (countOccurrences(sql, ParameterizedSPARQLQuery.getSentinel(i)) != occurrences[i])
+				return null;
+		}
+		return new QueryPlan(fragments.build(), Ints.toArray(slots), signature, true);
+	}
+
+	/**
+	 * Returns the plan with the predicates of the rewriting of its query (see {@link #getPredicates()})
+	 */
+	public QueryPlan withPredicates(Set<Predicate> predicates) {
+		return new QueryPlan(fragments, slots, signature, parametric, federatedQuery, ImmutableSet.copyOf(predicates), unknownURIs);
+	}
+
+	/**
+	 * Returns the plan marked as translated with URIs of the query that were not in
+	 * the dictionary of the Semantic Index (see {@link #hasUnknownURIs()})
+	 */
+	public QueryPlan withUnknownURIs() {
+		return new QueryPlan(fragments, slots, signature, parametric, federatedQuery, predicates, true);
+	}
+
+	/**
+	 * Returns the predicates of the rewriting of the query, which were unfolded with the
+	 * mappings: the plan is no longer valid when their mappings change
+	 */
+	public Set<Predicate> getPredicates() {
+		return predicates;
+	}
+
+	/**
+	 * Returns true if some URIs of the query were not in the dictionary of the Semantic Index
+	 * when the query was translated: their ids in the plan (-2) match no data, so the plan
+	 * is no longer valid when URIs are added to the dictionary
+	 */
+	public boolean hasUnknownURIs() {
+		return unknownURIs;
+	}
+
+	public boolean isParametric() {
+		return parametric;
+	}
+
+	public List<String> getSignature() {
+		return signature;
+	}
+
+	public boolean isFederated() {
+		return federatedQuery != null;
+	}
+
+	/**
+	 * @return the translation over several data sources, or null if the query is over a single data source
+	 */
+	public FederatedQuery getFederatedQuery() {
+		return federatedQuery;
+	}
+
+	/**
+	 * Instantiates the SQL query with the given parameter values
+	 */
+	public String getSQL(List<String> values, SQLQueryGenerator generator) {
+		if (slots.length == 0)
+			return fragments.get(0);
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < slots.length; i++) {
+			sb.append(fragments.get(i));
+			sb.append(generator.getSQLLexicalFormString(values.get(slots[i])));
+		}
+		sb.append(fragments.get(slots.length));
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the SQL query with a JDBC placeholder (?) in each parameter slot
+	 */
+	public String getPreparedSQL() {
+		return preparedSQL;
+	}
+
+	/**
+	 * Returns the parameter values in the order of the placeholders of the prepared SQL
+	 */
+	public List<String> getPreparedSQLParameters(List<String> values) {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (int slot : slots)
+			builder.add(values.get(slot));
+		return builder.build();
+	}
+
+	/**
+	 * Approximate size of the plan in characters (used as a weight for eviction)
+	 */
+	public int getWeight() {
+		int weight = 0;
+		for (String f : fragments)
+			weight += 2 * f.length();
+		for (String s : signature)
+			weight += s.length();
+		return weight + slots.length;
+	}
+
+	private static int countOccurrences(String s, String sub) {
+		int count = 0;
+		for (int idx = s.indexOf(sub); idx != -1; idx = s.indexOf(sub, idx + sub.length()))
+			count++;
+		return count;
+	}
+}
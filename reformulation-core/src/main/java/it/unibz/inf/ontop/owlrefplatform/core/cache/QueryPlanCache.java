@@ -0,0 +1,123 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import it.unibz.inf.ontop.model.Predicate;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded cache of query plans, keyed by SPARQL query (or query template) strings.
+ *
+ * <p>
+ * The cache is bounded by the total weight (approximately, the number of characters
+ * of the keys and of the SQL) of its entries, and evicts the least recently
+ * used entries first. Hits, misses and evictions are recorded.
+ */
+public class QueryPlanCache {
+
+	private final Cache<String, QueryPlan> cache;
+	private long generation = 0;
+
+	/**
+	 * @param maxWeight maximal total weight of the entries (0 disables the cache)
+	 */
+	public QueryPlanCache(long maxWeight) {
+		cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher(new Weigher<String, QueryPlan>() {
+					@Override
+					public int weigh(String key, QueryPlan plan) {
+						return key.length() + plan.getWeight();
+					}
+				})
+				.recordStats()
+				.build();
+	}
+
+	public QueryPlan get(String key) {
+		return cache.getIfPresent(key);
+	}
+
+	public void put(String key, QueryPlan plan) {
+		cache.put(key, plan);
+	}
+
+	/**
+	 * Returns the current generation (to be passed to {@link #put(String, QueryPlan, long)}
+	 * when the plan has been computed)
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Stores a plan if no plan has been invalidated since the given generation
+	 * (the plan may then be based on outdated mappings)
+	 */
+	public synchronized void put(String key, QueryPlan plan, long generation) {
+		if (generation == this.generation)
+			cache.put(key, plan);
+	}
+
+	public synchronized void clear() {
+		generation++;
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Removes the plans of the queries over some of the given predicates (see {@link QueryPlan#getPredicates()})
+	 */
+	public synchronized void invalidate(Set<Predicate> predicates) {
+		generation++;
+		for (Map.Entry<String, QueryPlan> e : cache.asMap().entrySet())
+			if (!Collections.disjoint(e.getValue().getPredicates(), predicates))
+				cache.invalidate(e.getKey());
+	}
+
+	/**
+	 * Removes the plans translated with URIs that were not in the dictionary of the
+	 * Semantic Index (see {@link QueryPlan#hasUnknownURIs()})
+	 */
+	public synchronized void invalidateUnknownURIs() {
+		generation++;
+		for (Map.Entry<String, QueryPlan> e : cache.asMap().entrySet())
+			if (e.getValue().hasUnknownURIs())
+				cache.invalidate(e.getKey());
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns a snapshot of the hit, miss and eviction counters
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+}
@@ -0,0 +1,261 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.RepositoryChangedListener;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.query.algebra.BNodeGenerator;
+import org.openrdf.query.algebra.FunctionCall;
+import org.openrdf.query.algebra.StatementPattern;
+import org.openrdf.query.algebra.helpers.QueryModelVisitorBase;
+import org.openrdf.query.parser.ParsedQuery;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded cache of the answers to SELECT queries over a Semantic Index repository
+ * (classic mode), keyed by the normalized query (its SPARQL algebra).
+ *
+ * <p>
+ * The cache is bounded by the total weight (approximately, the number of bytes
+ * of the rows) of its entries, and evicts the least recently used entries first.
+ * Larger answers are not cached.
+ *
+ * <p>
+ * When data is inserted into the repository, the entries over the classes and
+ * properties whose instances may have changed are invalidated (all of them if the
+ * changes are not known). Answers computed while the repository was changing
+ * are not stored: each invalidation starts a new generation, and an answer is
+ * only stored in the generation in which its query was started.
+ *
+ * <p>
+ * The answers to the queries that call NOW, RAND, UUID, STRUUID or BNODE
+ * change at each execution and are not cached.
+ */
+public class QueryResultCache implements RepositoryChangedListener {
+
+	/**
+	 * The answer to a query: the rows of constants are not modified
+	 */
+	public static final class Result {
+		private final ImmutableList<String> signature;
+		private final List<Constant[]> rows;
+		private final Set<String> predicates; // null if the query depends on all of them
+		private final long weight;
+
+		private Result(List<String> signature, List<Constant[]> rows, Set<String> predicates, long weight) {
+			this.signature = ImmutableList.copyOf(signature);
+			this.rows = rows;
+			this.predicates = predicates;
+			this.weight = weight;
+		}
+
+		public List<String> getSignature() {
+			return signature;
+		}
+
+		public List<Constant[]> getRows() {
+			return rows;
+		}
+
+		private boolean dependsOn(Set<String> changed) {
+			if (predicates == null)
+				return true;
+			for (String predicate : predicates)
+				if (changed.contains(predicate))
+					return true;
+			return false;
+		}
+	}
+
+	// the SPARQL functions whose values change at each call (BNODE is a BNodeGenerator)
+	private static final ImmutableSet<String> NON_DETERMINISTIC_FUNCTIONS = ImmutableSet.of("NOW", "RAND", "UUID", "STRUUID");
+
+	private static final int ENTRY_OVERHEAD = 64;
+	private static final int ROW_OVERHEAD = 16;
+	private static final int CONSTANT_OVERHEAD = 48;
+
+	private final Cache<String, Result> cache;
+	private final long maxEntryWeight;
+	private long generation = 0;
+
+	/**
+	 * @param maxWeight maximal total weight of the entries (approx. in bytes)
+	 */
+	public QueryResultCache(long maxWeight) {
+		cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher(new Weigher<String, Result>() {
+					@Override
+					public int weigh(String key, Result result) {
+						return (int) Math.min(Integer.MAX_VALUE, 2 * key.length() + result.weight);
+					}
+				})
+				.recordStats()
+				.build();
+		// the cache is divided into segments, each with a share of the weight
+		maxEntryWeight = maxWeight / 16;
+	}
+
+	/**
+	 * Returns the key of a query: its algebra is independent of the prefixes,
+	 * the whitespace and the comments of the query string
+	 */
+	public static String getKey(ParsedQuery pq) {
+		return pq.getTupleExpr().toString();
+	}
+
+	/**
+	 * Returns the URIs of the classes and properties of the triple patterns of a query,
+	 * or null if a triple pattern has a variable in place of a class or a property
+	 */
+	public static Set<String> getPredicates(ParsedQuery pq) {
+		final Set<String> predicates = new HashSet<>();
+		final boolean[] any = { false };
+		pq.getTupleExpr().visit(new QueryModelVisitorBase<RuntimeException>() {
+			@Override
+			public void meet(StatementPattern triple) {
+				Value p = triple.getPredicateVar().getValue();
+				Value o = triple.getObjectVar().getValue();
+				if (p == null || (p.equals(RDF.TYPE) && !(o instanceof URI)))
+					any[0] = true;
+				else
+					predicates.add(p.equals(RDF.TYPE) ? o.stringValue() : p.stringValue());
+			}
+		});
+		return any[0] ? null : predicates;
+	}
+
+	/**
+	 * Returns true if the answer to a query may change without any change of the data
+	 * (the query calls NOW, RAND, UUID, STRUUID or BNODE)
+	 */
+	public static boolean isNonDeterministic(ParsedQuery pq) {
+		final boolean[] found = { false };
+		pq.getTupleExpr().visit(new QueryModelVisitorBase<RuntimeException>() {
+			@Override
+			public void meet(FunctionCall call) {
+				if (NON_DETERMINISTIC_FUNCTIONS.contains(call.getURI()))
+					found[0] = true;
+				super.meet(call);
+			}
+
+			@Override
+			public void meet(BNodeGenerator generator) {
+				found[0] = true;
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * Returns the approximate weight of a row
+	 */
+	public static long weigh(Constant[] row) {
+		long weight = ROW_OVERHEAD + 8 * row.length;
+		for (Constant c : row)
+			if (c != null) {
+				String value = c.getValue();
+				weight += CONSTANT_OVERHEAD + ((value != null) ? 2 * value.length() : 0);
+			}
+		return weight;
+	}
+
+	/**
+	 * Answers heavier than this weight are not cached
+	 */
+	public long getMaxEntryWeight() {
+		return maxEntryWeight;
+	}
+
+	/**
+	 * Returns the cached answer to a query (null if the answer is not in the cache)
+	 */
+	public Result get(String key) {
+		return cache.getIfPresent(key);
+	}
+
+	/**
+	 * Returns the current generation (to be passed to {@link #put}
+	 * when the answer to the query has been read)
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Stores the answer to a query if the repository has not changed
+	 * since the given generation
+	 *
+	 * @param predicates see {@link #getPredicates(ParsedQuery)}
+	 * @param weight the total weight of the rows (see {@link #weigh(Constant[])})
+	 */
+	public synchronized void put(String key, long generation, Set<String> predicates,
+								 List<String> signature, List<Constant[]> rows, long weight) {
+		if (generation == this.generation && weight <= maxEntryWeight)
+			cache.put(key, new Result(signature, rows, predicates, ENTRY_OVERHEAD + weight));
+	}
+
+	@Override
+	public synchronized void repositoryChanged() {
+		generation++;
+		cache.invalidateAll();
+	}
+
+	@Override
+	public synchronized void repositoryChanged(Set<Predicate> predicates) {
+		generation++;
+		Set<String> changed = new HashSet<>();
+		for (Predicate predicate : predicates)
+			changed.add(predicate.getName());
+		for (Map.Entry<String, Result> e : cache.asMap().entrySet())
+			if (e.getValue().dependsOn(changed))
+				cache.invalidate(e.getKey());
+	}
+
+	public void clear() {
+		repositoryChanged();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns a snapshot of the hit, miss and eviction counters
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+}
@@ -0,0 +1,75 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQuery;
+import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
+
+import java.util.List;
+
+/**
+ * The plan of a SPARQL query together with the values of its parameters,
+ * as looked up once in the cache for the execution of the query.
+ */
+public class QueryTranslation {
+
+	private final QueryPlan plan;
+	private final List<String> values;
+	private final SQLQueryGenerator generator;
+
+	/**
+	 * @param values the values of the parameters of the query (empty if the plan is not parametric)
+	 */
+	public QueryTranslation(QueryPlan plan, List<String> values, SQLQueryGenerator generator) {
+		this.plan = plan;
+		this.values = values;
+		this.generator = generator;
+	}
+
+	/**
+	 * The SQL query with the literals (see QueryPlan.getSQL)
+	 */
+	public String getSQL() {
+		return plan.getSQL(values, generator);
+	}
+
+	/**
+	 * The SQL query with JDBC placeholders for the parameters, or null if
+	 * the plan is not parametric (in which case getSQL should be used)
+	 */
+	public PreparedSQLQuery getPreparedSQL() {
+		if (!plan.isParametric())
+			return null;
+		return new PreparedSQLQuery(plan.getPreparedSQL(), plan.getPreparedSQLParameters(values),
+				generator.getStringParameterType());
+	}
+
+	/**
+	 * The translation over several data sources, or null if the query is over the default data source only
+	 */
+	public FederatedQuery getFederatedQuery() {
+		return plan.getFederatedQuery();
+	}
+
+	public List<String> getSignature() {
+		return plan.getSignature();
+	}
+}
@@ -0,0 +1,188 @@
+package it.unibz.inf.ontop.owlrefplatform.core.federation;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * The translation of a query over several data sources: the answers are the
+ * concatenation of the answers of the components, each of which is either
+ * a single SQL query (the union of the CQs over one data source) or a join
+ * of SQL queries over different data sources (a CQ that spans them).
+ *
+ * <p>
+ * DISTINCT, LIMIT and OFFSET apply to the concatenation (they are evaluated
+ * by the result set, the SQL queries only return at most OFFSET + LIMIT rows).
+ */
+public class FederatedQuery {
+
+	/**
+	 * An SQL query over a data source. Its result set has the usual
+	 * three columns (type, language, value) per variable of the signature.
+	 */
+	public static class SourceQuery {
+
+		private final URI source;
+		private final String sql;
+		private final ImmutableList<String> signature;
+
+		SourceQuery(URI source, String sql, List<String> signature) {
+			this.source = source;
+			this.sql = sql;
+			this.signature = ImmutableList.copyOf(signature);
+		}
+
+		public URI getSource() {
+			return source;
+		}
+
+		public String getSQL() {
+			return sql;
+		}
+
+		public List<String> getSignature() {
+			return signature;
+		}
+
+		@Override
+		public String toString() {
+			return "-- " + source + "\n" + sql;
+		}
+	}
+
+	/**
+	 * A component of the query: the SQL queries in parts are joined on the
+	 * given columns (a single part needs no join).
+	 *
+	 * <p>
+	 * The rows of part i (i > 0) match a combination of rows of the parts 0..i-1
+	 * if the values of keyColumns[i] are equal to the values of probeColumns[i],
+	 * which are pairs (part, column) with part < i. The answer columns are the pairs
+	 * in answerColumns. Columns start at 1.
+	 */
+	public static class Component {
+
+		private final ImmutableList<SourceQuery> parts;
+		private final int[][] keyColumns;
+		private final int[][][] probeColumns;
+		private final int[][] answerColumns;
+
+		Component(List<SourceQuery> parts, int[][] keyColumns, int[][][] probeColumns, int[][] answerColumns) {
+			this.parts = ImmutableList.copyOf(parts);
+			this.keyColumns = keyColumns;
+			this.probeColumns = probeColumns;
+			this.answerColumns = answerColumns;
+		}
+
+		Component(SourceQuery query) {
+			this(ImmutableList.of(query), new int[1][0], new int[1][0][], null);
+		}
+
+		public List<SourceQuery> getParts() {
+			return parts;
+		}
+
+		public boolean isJoin() {
+			return parts.size() > 1;
+		}
+
+		public int[] getKeyColumns(int part) {
+			return keyColumns[part];
+		}
+
+		public int[][] getProbeColumns(int part) {
+			return probeColumns[part];
+		}
+
+		/**
+		 * @return the pair (part, column) of the given answer column (starting at 1)
+		 */
+		public int[] getAnswerColumn(int column) {
+			return answerColumns[column - 1];
+		}
+	}
+
+	private final ImmutableList<Component> components;
+	private final ImmutableList<String> signature;
+	private final boolean distinct;
+	private final long limit;
+	private final long offset;
+
+	FederatedQuery(List<Component> components, List<String> signature, boolean distinct, long limit, long offset) {
+		this.components = ImmutableList.copyOf(components);
+		this.signature = ImmutableList.copyOf(signature);
+		this.distinct = distinct;
+		this.limit = limit;
+		this.offset = offset;
+	}
+
+	public List<Component> getComponents() {
+		return components;
+	}
+
+	/**
+	 * @return the SQL queries of all components, in the order of the components and their parts
+	 */
+	public List<SourceQuery> getSourceQueries() {
+		ImmutableList.Builder<SourceQuery> builder = ImmutableList.builder();
+		for (Component c : components)
+			builder.addAll(c.getParts());
+		return builder.build();
+	}
+
+	public List<String> getSignature() {
+		return signature;
+	}
+
+	public boolean isDistinct() {
+		return distinct;
+	}
+
+	/**
+	 * @return the maximal number of answers (-1 for no limit)
+	 */
+	public long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the number of answers to skip (-1 for none)
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Component c : components) {
+			if (sb.length() > 0)
+				sb.append(";\n");
+			sb.append(c.isJoin() ? "-- JOIN OF\n" : "");
+			for (int i = 0; i < c.getParts().size(); i++)
+				sb.append(i > 0 ? ";\n" : "").append(c.getParts().get(i));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,314 @@
+package it.unibz.inf.ontop.owlrefplatform.core.federation;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
+import it.unibz.inf.ontop.model.impl.TermUtils;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.EQNormalizer;
+import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
+import it.unibz.inf.ontop.sql.DBMetadata;
+import it.unibz.inf.ontop.sql.Relation2DatalogPredicate;
+import it.unibz.inf.ontop.sql.RelationDefinition;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates the unfolding of a query over several data sources.
+ *
+ * <p>
+ * Each CQ of the unfolding is routed to the data source of its relations
+ * (CQs without relations, i.e., facts, go to the default data source), and
+ * the CQs of each data source make a single SQL query. A CQ whose relations
+ * belong to different data sources is split into one CQ per data source,
+ * which also returns the values of the variables shared with the other CQs,
+ * and the answers are joined by the result set on these values (numbers and
+ * booleans by their values, the other values in their string form; see
+ * {@link it.unibz.inf.ontop.owlrefplatform.core.resultset.HashJoinTupleResultSet}).
+ * This requires each filter and each answer term of the CQ to
+ * be over the relations of a single data source, and each nested join or
+ * optional to be over a single data source.
+ *
+ * <p>
+ * ORDER BY and GROUP BY are supported only if all the CQs are over the same
+ * data source.
+ */
+public class FederatedQueryGenerator {
+
+	private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+	private final SQLQueryGenerator generator;
+	private final ImmutableMap<Predicate, URI> relationSources;
+	private final URI defaultSource;
+	private final DBMetadata metadata;
+
+	/**
+	 * @param generator the SQL generator (all the data sources have the same SQL dialect)
+	 * @param relationSources the data source of each relation in the mappings
+	 * @param defaultSource the data source of the CQs without relations
+	 * @param metadata the metadata of the relations (for the types of the join columns)
+	 */
+	public FederatedQueryGenerator(SQLQueryGenerator generator, Map<Predicate, URI> relationSources, URI defaultSource,
+								   DBMetadata metadata) {
+		this.generator = generator;
+		this.metadata = metadata;
+		this.relationSources = ImmutableMap.copyOf(relationSources);
+		this.defaultSource = defaultSource;
+	}
+
+	public URI getDefaultSource() {
+		return defaultSource;
+	}
+
+	public FederatedQuery generate(DatalogProgram query, List<String> signature) throws OBDAException {
+		Map<URI, List<CQIE>> unions = new LinkedHashMap<>();
+		List<CQIE> joins = new ArrayList<>();
+		for (CQIE cq : query.getRules()) {
+			Set<URI> sources = new HashSet<>();
+			for (Function atom : cq.getBody())
+				collectSources(atom, sources);
+
+			if (sources.size() > 1) {
+				joins.add(cq);
+			}
+			else {
+				URI source = sources.isEmpty() ? defaultSource : sources.iterator().next();
+				List<CQIE> union = unions.get(source);
+				if (union == null) {
+					union = new ArrayList<>();
+					unions.put(source, union);
+				}
+				union.add(cq);
+			}
+		}
+
+		OBDAQueryModifiers modifiers = query.getQueryModifiers();
+		if (joins.isEmpty() && unions.size() == 1) {
+			URI source = unions.keySet().iterator().next();
+			FederatedQuery.SourceQuery sourceQuery =
+					new FederatedQuery.SourceQuery(source, generator.generateSourceQuery(query, signature), signature);
+			return new FederatedQuery(ImmutableList.of(new FederatedQuery.Component(sourceQuery)), signature, false, -1, -1);
+		}
+
+		if (modifiers.hasOrder() || modifiers.hasGroup())
+			throw new OBDAException("ORDER BY and GROUP BY are not supported in queries whose answers come from several data sources");
+
+		// each SQL query returns at most OFFSET + LIMIT rows
+		OBDAQueryModifiers sourceModifiers = new OBDAQueryModifiers();
+		if (modifiers.isDistinct())
+			sourceModifiers.setDistinct();
+		if (modifiers.hasLimit())
+			sourceModifiers.setLimit(modifiers.getLimit() + Math.max(modifiers.getOffset(), 0));
+
+		List<FederatedQuery.Component> components = new ArrayList<>();
+		for (Map.Entry<URI, List<CQIE>> union : unions.entrySet()) {
+			DatalogProgram program = fac.getDatalogProgram(sourceModifiers.clone(), union.getValue());
+			String sql = generator.generateSourceQuery(program, signature);
+			components.add(new FederatedQuery.Component(new FederatedQuery.SourceQuery(union.getKey(), sql, signature)));
+		}
+		for (CQIE cq : joins)
+			components.add(split(cq, signature));
+
+		return new FederatedQuery(components, signature, modifiers.isDistinct(), modifiers.getLimit(), modifiers.getOffset());
+	}
+
+	/**
+	 * Splits the CQ into one CQ per data source
+	 */
+	private FederatedQuery.Component split(CQIE query, List<String> signature) throws OBDAException {
+		CQIE cq = query.clone();
+		// the joins by equalities are turned into shared variables
+		EQNormalizer.enforceEqualities(cq);
+
+		Map<URI, List<Function>> bodies = new LinkedHashMap<>();
+		Map<URI, Set<Variable>> variables = new LinkedHashMap<>();
+		List<Function> conditions = new ArrayList<>();
+		for (Function atom : cq.getBody()) {
+			Set<URI> sources = new HashSet<>();
+			collectSources(atom, sources);
+			if (sources.size() > 1)
+				throw new OBDAException("Cannot split a nested join or optional over several data sources: " + atom);
+
+			if (sources.isEmpty()) {
+				conditions.add(atom);
+			}
+			else {
+				URI source = sources.iterator().next();
+				if (!bodies.containsKey(source)) {
+					bodies.put(source, new ArrayList<Function>());
+					variables.put(source, new HashSet<Variable>());
+				}
+				bodies.get(source).add(atom);
+				TermUtils.addReferencedVariablesTo(variables.get(source), atom);
+			}
+		}
+
+		List<URI> sources = new ArrayList<>(bodies.keySet());
+		for (Function condition : conditions)
+			bodies.get(sources.get(getSourceIndex(condition, sources, variables, "filter"))).add(condition);
+
+		// the answer terms of each data source
+		List<Term> headTerms = cq.getHead().getTerms();
+		List<List<Integer>> answers = new ArrayList<>();
+		for (int i = 0; i < sources.size(); i++)
+			answers.add(new ArrayList<Integer>());
+		for (int i = 0; i < headTerms.size(); i++)
+			answers.get(getSourceIndex(headTerms.get(i), sources, variables, "answer term")).add(i);
+
+		// the variables shared by several data sources
+		Set<Variable> shared = new LinkedHashSet<>();
+		Set<Variable> seen = new HashSet<>();
+		for (Set<Variable> vars : variables.values())
+			for (Variable v : vars)
+				if (!seen.add(v))
+					shared.add(v);
+
+		List<FederatedQuery.SourceQuery> parts = new ArrayList<>();
+		List<Map<Variable, Integer>> sharedColumns = new ArrayList<>();
+		int[][] answerColumns = new int[headTerms.size()][];
+		int[][] keyColumns = new int[sources.size()][];
+		int[][][] probeColumns = new int[sources.size()][][];
+		for (int p = 0; p < sources.size(); p++) {
+			URI source = sources.get(p);
+			List<Term> terms = new ArrayList<>();
+			List<String> partSignature = new ArrayList<>();
+			for (int i : answers.get(p)) {
+				terms.add(headTerms.get(i));
+				partSignature.add(signature.get(i));
+				answerColumns[i] = new int[] { p, terms.size() };
+			}
+
+			Map<Variable, Integer> columns = new LinkedHashMap<>();
+			List<int[]> keys = new ArrayList<>();
+			for (Variable v : shared) {
+				if (!variables.get(source).contains(v))
+					continue;
+				// typed by the column, so that the joins compare numbers by their values
+				COL_TYPE type = getJoinType(v, bodies.get(source));
+				terms.add(fac.getTypedTerm(v, (type != null) ? type : COL_TYPE.STRING));
+				partSignature.add(getFreshName(signature, partSignature));
+				columns.put(v, terms.size());
+				for (int q = 0; q < p; q++)
+					if (sharedColumns.get(q).containsKey(v)) {
+						keys.add(new int[] { terms.size(), q, sharedColumns.get(q).get(v) });
+						break;
+					}
+			}
+			sharedColumns.add(columns);
+
+			keyColumns[p] = new int[keys.size()];
+			probeColumns[p] = new int[keys.size()][];
+			for (int k = 0; k < keys.size(); k++) {
+				keyColumns[p][k] = keys.get(k)[0];
+				probeColumns[p][k] = new int[] { keys.get(k)[1], keys.get(k)[2] };
+			}
+
+			Function head = fac.getFunction(fac.getPredicate(OBDAVocabulary.QUEST_QUERY, terms.size()), terms);
+			DatalogProgram program = fac.getDatalogProgram(new OBDAQueryModifiers(),
+					ImmutableList.of(fac.getCQIE(head, bodies.get(source))));
+			parts.add(new FederatedQuery.SourceQuery(source, generator.generateSourceQuery(program, partSignature), partSignature));
+		}
+		return new FederatedQuery.Component(parts, keyColumns, probeColumns, answerColumns);
+	}
+
+	/**
+	 * Returns the index of the first data source whose relations contain all
+	 * the variables of the term (0 if the term has no variables)
+	 */
+	private static int getSourceIndex(Term term, List<URI> sources, Map<URI, Set<Variable>> variables, String kind) throws OBDAException {
+		Set<Variable> vars = new HashSet<>();
+		TermUtils.addReferencedVariablesTo(vars, term);
+		for (int i = 0; i < sources.size(); i++)
+			if (variables.get(sources.get(i)).containsAll(vars))
+				return i;
+		throw new OBDAException("Cannot evaluate a " + kind + " over several data sources: " + term);
+	}
+
+	/**
+	 * Returns the datatype of a shared variable: the numbers and booleans are
+	 * typed by the column of the first relation with the variable, and all the
+	 * other values are compared as strings (null if no relation has the variable)
+	 */
+	private COL_TYPE getJoinType(Variable v, List<Function> body) {
+		for (Function atom : body) {
+			if (atom.isAlgebraFunction()) {
+				List<Function> subatoms = new ArrayList<>();
+				for (Term t : atom.getTerms())
+					if (t instanceof Function)
+						subatoms.add((Function) t);
+				COL_TYPE type = getJoinType(v, subatoms);
+				if (type != null)
+					return type;
+			}
+			else if (atom.isDataFunction()) {
+				int position = atom.getTerms().indexOf(v);
+				if (position == -1)
+					continue;
+				RelationDefinition relation = metadata.getRelation(Relation2DatalogPredicate
+						.createRelationFromPredicateName(metadata.getQuotedIDFactory(), atom.getFunctionSymbol()));
+				if (relation == null)
+					return COL_TYPE.STRING;
+				COL_TYPE type = fac.getJdbcTypeMapper().getPredicate(relation.getAttribute(position + 1).getType());
+				switch (type) {
+					case INTEGER:
+					case DECIMAL:
+					case DOUBLE:
+					case BOOLEAN:
+						return type;
+					default:
+						return COL_TYPE.STRING;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String getFreshName(List<String> signature, List<String> partSignature) {
+		for (int i = 0; ; i++) {
+			String name = "j" + i;
+			if (!signature.contains(name) && !partSignature.contains(name))
+				return name;
+		}
+	}
+
+	private void collectSources(Function atom, Set<URI> sources) {
+		if (atom.isAlgebraFunction()) {
+			for (Term t : atom.getTerms())
+				if (t instanceof Function)
+					collectSources((Function) t, sources);
+		}
+		else if (atom.isDataFunction()) {
+			URI source = relationSources.get(atom.getFunctionSymbol());
+			sources.add(source != null ? source : defaultSource);
+		}
+	}
+}
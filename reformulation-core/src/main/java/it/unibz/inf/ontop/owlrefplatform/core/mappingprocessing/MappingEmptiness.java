@@ -0,0 +1,97 @@
+package it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.CQIE;
+import it.unibz.inf.ontop.model.Predicate;
+
+import java.util.Set;
+
+/**
+ * Which classes and properties have instances according to their rules in the unfolder
+ * (see {@link MappingEmptinessAnalyzer}). A predicate without rules is empty, unless
+ * its rules are incomplete (e.g., because of the exclusions from the T-mappings).
+ */
+public class MappingEmptiness {
+
+	private final ImmutableSet<Predicate> nonEmptyPredicates;
+	private final ImmutableSet<Predicate> unknownPredicates;
+	private final ImmutableMap<Predicate, ImmutableList<CQIE>> prunedRules;
+	private final int probeCount;
+
+	public MappingEmptiness(Set<Predicate> nonEmptyPredicates, Set<Predicate> unknownPredicates,
+			ImmutableMap<Predicate, ImmutableList<CQIE>> prunedRules, int probeCount) {
+		this.nonEmptyPredicates = ImmutableSet.copyOf(nonEmptyPredicates);
+		this.unknownPredicates = ImmutableSet.copyOf(unknownPredicates);
+		this.prunedRules = prunedRules;
+		this.probeCount = probeCount;
+	}
+
+	/**
+	 * Whether one of the rules of the predicate has answers
+	 */
+	public boolean isNonEmpty(Predicate predicate) {
+		return nonEmptyPredicates.contains(predicate);
+	}
+
+	/**
+	 * Whether none of the rules of the predicate has answers and the rules are complete
+	 */
+	public boolean isEmpty(Predicate predicate) {
+		return !nonEmptyPredicates.contains(predicate) && !unknownPredicates.contains(predicate);
+	}
+
+	public ImmutableSet<Predicate> getNonEmptyPredicates() {
+		return nonEmptyPredicates;
+	}
+
+	/**
+	 * Returns the predicates whose emptiness is not known (some of their rules could not be
+	 * checked or their rules are incomplete)
+	 */
+	public ImmutableSet<Predicate> getUnknownPredicates() {
+		return unknownPredicates;
+	}
+
+	/**
+	 * Returns the rules with answers of the predicates that have rules without answers
+	 * (a predicate without such rules is mapped to an empty list)
+	 */
+	public ImmutableMap<Predicate, ImmutableList<CQIE>> getPrunedRules() {
+		return prunedRules;
+	}
+
+	/**
+	 * Returns the number of SQL queries executed for the analysis
+	 */
+	public int getProbeCount() {
+		return probeCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d non-empty predicates, %d unknown predicates, %d predicates with empty rules (%d probes)",
+				nonEmptyPredicates.size(), unknownPredicates.size(), prunedRules.size(), probeCount);
+	}
+}
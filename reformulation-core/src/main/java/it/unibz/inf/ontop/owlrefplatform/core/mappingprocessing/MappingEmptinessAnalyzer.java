@@ -0,0 +1,226 @@
+package it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
+import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the rules of the unfolder (the T-mappings) that have no answers in the data sources.
+ * The body of each rule is translated into a boolean SQL query with LIMIT 1 (a probe).
+ * The rules with the same body (e.g., the mapping of a class and the rules derived from it
+ * for its super-classes) share their probe, and the probes are executed concurrently.
+ *
+ * <p>
+ * The T-mappings give all the instances of a class or property, so a predicate is empty
+ * whenever none of its rules has an answer.
+ */
+public class MappingEmptinessAnalyzer {
+
+	/**
+	 * Executes the probes (on a connection of the given data source)
+	 */
+	public interface ProbeExecutor {
+		/**
+		 * @return whether the SQL query returns a row
+		 */
+		boolean hasAnswers(URI source, String sql) throws Exception;
+	}
+
+	private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+	private static final Logger log = LoggerFactory.getLogger(MappingEmptinessAnalyzer.class);
+
+	private static final class Probe {
+		private final URI source;
+		private final String sql;
+		// null until the probe is executed successfully
+		private volatile Boolean hasAnswers;
+
+		Probe(URI source, String sql) {
+			this.source = source;
+			this.sql = sql;
+		}
+	}
+
+	// the rules that cannot be translated into a probe
+	private static final Probe UNKNOWN = new Probe(null, null);
+
+	private final SQLQueryGenerator generator;
+	private final ImmutableMap<Predicate, URI> relationSources;
+	private final URI defaultSource;
+
+	/**
+	 * @param generator the SQL generator of the probes
+	 * @param relationSources the data source of each relation in the mappings
+	 * @param defaultSource the data source of the relations that are not in relationSources
+	 */
+	public MappingEmptinessAnalyzer(SQLQueryGenerator generator, Map<Predicate, URI> relationSources, URI defaultSource) {
+		this.generator = generator;
+		this.relationSources = ImmutableMap.copyOf(relationSources);
+		this.defaultSource = defaultSource;
+	}
+
+	/**
+	 * @param rules the rules of each predicate
+	 * @param incomplete the predicates whose rules do not give all their instances
+	 * @param executor runs the probes
+	 * @param probeExecutor executes a probe
+	 */
+	public MappingEmptiness analyze(Map<Predicate, List<CQIE>> rules, Set<Predicate> incomplete,
+			ExecutorService executor, final ProbeExecutor probeExecutor) throws OBDAException {
+
+		// the probe of each rule (null for the rules without relations, e.g., the facts of the ontology)
+		Map<Predicate, List<Probe>> ruleProbes = new LinkedHashMap<>();
+		Map<URI, Map<String, Probe>> probes = new HashMap<>();
+		List<Probe> distinctProbes = new ArrayList<>();
+		int ruleCount = 0;
+		for (Map.Entry<Predicate, List<CQIE>> entry : rules.entrySet()) {
+			List<Probe> list = new ArrayList<>(entry.getValue().size());
+			for (CQIE rule : entry.getValue())
+				list.add(getProbe(rule, probes, distinctProbes));
+			ruleProbes.put(entry.getKey(), list);
+			ruleCount += list.size();
+		}
+		log.debug("Emptiness analysis of {} rules with {} probes", ruleCount, distinctProbes.size());
+
+		List<Future<Void>> futures = new ArrayList<>(distinctProbes.size());
+		for (final Probe probe : distinctProbes)
+			futures.add(executor.submit(() -> {
+				probe.hasAnswers = probeExecutor.hasAnswers(probe.source, probe.sql);
+				return null;
+			}));
+
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					futures.get(i).get();
+				}
+				catch (ExecutionException e) {
+					log.warn("Cannot execute the probe {}: {}", distinctProbes.get(i).sql, e.getCause().getMessage());
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			for (Future<Void> future : futures)
+				future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new OBDAException("The emptiness analysis has been interrupted", e);
+		}
+
+		Set<Predicate> nonEmpty = new HashSet<>();
+		Set<Predicate> unknown = new HashSet<>(incomplete);
+		ImmutableMap.Builder<Predicate, ImmutableList<CQIE>> prunedRules = ImmutableMap.builder();
+		for (Map.Entry<Predicate, List<CQIE>> entry : rules.entrySet()) {
+			List<CQIE> predicateRules = entry.getValue();
+			List<Probe> predicateProbes = ruleProbes.get(entry.getKey());
+
+			ImmutableList.Builder<CQIE> kept = ImmutableList.builder();
+			boolean hasAnswers = false, known = true, pruned = false;
+			for (int i = 0; i < predicateRules.size(); i++) {
+				Probe probe = predicateProbes.get(i);
+				if (probe == null || Boolean.TRUE.equals(probe.hasAnswers)) {
+					hasAnswers = true;
+					kept.add(predicateRules.get(i));
+				}
+				else if (probe.hasAnswers == null) {
+					known = false;
+					kept.add(predicateRules.get(i));
+				}
+				else
+					pruned = true;
+			}
+
+			if (hasAnswers)
+				nonEmpty.add(entry.getKey());
+			else if (!known)
+				unknown.add(entry.getKey());
+			if (pruned)
+				prunedRules.put(entry.getKey(), kept.build());
+		}
+		return new MappingEmptiness(nonEmpty, unknown, prunedRules.build(), distinctProbes.size());
+	}
+
+	/**
+	 * Returns the probe of the rule (the rules with the same source query share the probe)
+	 */
+	private Probe getProbe(CQIE rule, Map<URI, Map<String, Probe>> probes, List<Probe> distinctProbes) {
+		Set<URI> sources = new HashSet<>();
+		for (Function atom : rule.getBody())
+			collectSources(atom, sources);
+		if (sources.isEmpty())
+			return null;
+		if (sources.size() > 1)
+			return UNKNOWN;
+
+		String sql;
+		try {
+			OBDAQueryModifiers modifiers = new OBDAQueryModifiers();
+			modifiers.setLimit(1);
+			Function head = fac.getFunction(fac.getPredicate(OBDAVocabulary.QUEST_QUERY, 0), Collections.<Term>emptyList());
+			CQIE query = fac.getCQIE(head, rule.clone().getBody());
+			sql = generator.generateSourceQuery(fac.getDatalogProgram(modifiers, Collections.singletonList(query)),
+					Collections.<String>emptyList());
+		}
+		catch (Exception e) {
+			log.debug("Cannot generate the probe of {}: {}", rule, e.getMessage());
+			return UNKNOWN;
+		}
+
+		URI source = sources.iterator().next();
+		Map<String, Probe> sourceProbes = probes.get(source);
+		if (sourceProbes == null) {
+			sourceProbes = new HashMap<>();
+			probes.put(source, sourceProbes);
+		}
+		Probe probe = sourceProbes.get(sql);
+		if (probe == null) {
+			probe = new Probe(source, sql);
+			sourceProbes.put(sql, probe);
+			distinctProbes.add(probe);
+		}
+		return probe;
+	}
+
+	private void collectSources(Function atom, Set<URI> sources) {
+		if (atom.isAlgebraFunction()) {
+			for (Term t : atom.getTerms())
+				if (t instanceof Function)
+					collectSources((Function) t, sources);
+		}
+		else if (atom.isDataFunction()) {
+			URI source = relationSources.get(atom.getFunctionSymbol());
+			sources.add(source != null ? source : defaultSource);
+		}
+	}
+}
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Class for TMapping Optimization. The Mappings for the classes and properties in the configuration are assumed to "exact".
@@ -41,6 +42,15 @@ public class TMappingExclusionConfig {
         return  properties.contains(propertyExpression.getName());
     }
 
+    public boolean isEmpty(){
+        return classes.isEmpty() && properties.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "classes: " + new TreeSet<>(classes) + ", properties: " + new TreeSet<>(properties);
+    }
+
     private static final TMappingExclusionConfig EMPTY = new TMappingExclusionConfig(Collections.<String>emptySet(), Collections.<String>emptySet());
 
     /**
@@ -40,14 +40,22 @@ import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class TMappingProcessor {
 
@@ -55,13 +63,115 @@ public class TMappingProcessor {
 
 	private static final boolean noCQC = false;		
 
+	/**
+	 * The T-mapping rules of all predicates
+	 */
+	private static final class TMappingIndex extends ConcurrentHashMap<Predicate, TMappingIndexEntry> {
+
+		private final boolean bySignature;
+
+		TMappingIndex(boolean bySignature) {
+			this.bySignature = bySignature;
+		}
+	}
+
+	/**
+	 * The T-mapping rules of a predicate.
+	 *
+	 * The rules are indexed by the signature of their heads (see TMappingRule.getHeadSignature):
+	 * a new rule is compared (with homomorphism checks) only with the rules with the same
+	 * signature and the rules without signature. The order of the rules is the order of their
+	 * insertion.
+	 *
+	 * The rules of a predicate are only modified by one task (see getTMappings), the methods
+	 * are synchronized so that the rules are visible to the thread that collects them.
+	 */
 	private static class TMappingIndexEntry implements Iterable<TMappingRule> {
-		private final List<TMappingRule> rules = new LinkedList<>();
-	
+
+		// whether the candidates for homomorphism checks are selected by the signatures
+		private final boolean bySignature;
+
+		private static final class IndexedRule {
+			private final TMappingRule rule;
+			private final long seq;
+			private final Set<IndexedRule> bucket;
+
+			IndexedRule(TMappingRule rule, long seq, Set<IndexedRule> bucket) {
+				this.rule = rule;
+				this.seq = seq;
+				this.bucket = bucket;
+			}
+		}
+
+		private static final Comparator<IndexedRule> INSERTION_ORDER = new Comparator<IndexedRule>() {
+			@Override
+			public int compare(IndexedRule e1, IndexedRule e2) {
+				return Long.compare(e1.seq, e2.seq);
+			}
+		};
+
+		// all rules in the order of insertion
+		private final Set<IndexedRule> rules = new LinkedHashSet<>();
+		private final Map<List<Object>, Set<IndexedRule>> rulesBySignature = new HashMap<>();
+		private final Set<IndexedRule> rulesWithoutSignature = new LinkedHashSet<>();
+		private long seq;
+
+		TMappingIndexEntry(boolean bySignature) {
+			this.bySignature = bySignature;
+		}
 
 		@Override
-		public Iterator<TMappingRule> iterator() {
-			return rules.iterator();
+		public synchronized Iterator<TMappingRule> iterator() {
+			List<TMappingRule> list = new ArrayList<>(rules.size());
+			for (IndexedRule e : rules)
+				list.add(e.rule);
+			return list.iterator();
+		}
+
+		synchronized int size() {
+			return rules.size();
+		}
+
+		private void add(TMappingRule rule) {
+			List<Object> signature = bySignature ? rule.getHeadSignature() : null;
+			Set<IndexedRule> bucket;
+			if (signature != null) {
+				bucket = rulesBySignature.get(signature);
+				if (bucket == null) {
+					bucket = new LinkedHashSet<>();
+					rulesBySignature.put(signature, bucket);
+				}
+			}
+			else
+				bucket = rulesWithoutSignature;
+
+			IndexedRule e = new IndexedRule(rule, seq++, bucket);
+			bucket.add(e);
+			rules.add(e);
+		}
+
+		private void remove(IndexedRule e) {
+			e.bucket.remove(e);
+			rules.remove(e);
+		}
+
+		/**
+		 * the rules that can be compared with the given one by homomorphisms (in the order of insertion):
+		 * if the signatures of the heads differ then there can be no homomorphism in either direction
+		 */
+		private List<IndexedRule> getCandidates(TMappingRule rule) {
+			List<Object> signature = bySignature ? rule.getHeadSignature() : null;
+			if (signature == null)
+				return new ArrayList<>(rules);
+
+			Set<IndexedRule> bucket = rulesBySignature.get(signature);
+			List<IndexedRule> candidates = new ArrayList<>(rulesWithoutSignature);
+			if (bucket != null) {
+				candidates.addAll(bucket);
+				if (!rulesWithoutSignature.isEmpty())
+					Collections.sort(candidates, INSERTION_ORDER);
+			}
+			return candidates;
 		}
 
 		/***
@@ -113,27 +223,28 @@ public class TMappingProcessor {
 		 * @param newmapping
 		 *            The new mapping for A/P
 		 */
-		public void mergeMappingsWithCQC(TMappingRule newRule) {
+		public synchronized void mergeMappingsWithCQC(TMappingRule newRule) {
 			
 			// Facts are just added
 			if (newRule.isFact()) {
-				rules.add(newRule);
+				add(newRule);
 				return;
 			}
 		
+			List<IndexedRule> candidates = getCandidates(newRule);
+
 			if (noCQC) {
-				for (TMappingRule r : rules)
-					if (r.equals(newRule))
+				for (IndexedRule e : candidates)
+					if (e.rule.equals(newRule))
 						return;
 				
-				rules.add(newRule);
+				add(newRule);
 				return;
 			}
 			
-			Iterator<TMappingRule> mappingIterator = rules.iterator();
-			while (mappingIterator.hasNext()) {
+			for (IndexedRule currentEntry : candidates) {
 
-				TMappingRule currentRule = mappingIterator.next(); 
+				TMappingRule currentRule = currentEntry.rule; 
 				// ROMAN (14 Oct 2015): quick fix, but one has to be more careful with variables in filters
 				if (currentRule.equals(newRule))
 					return;
@@ -155,7 +266,7 @@ public class TMappingProcessor {
 				if ((fromNewRule != null) && checkConditions(currentRule, newRule, fromNewRule)) {		
 					// The existing query is more specific than the new query, so we
 					// need to add the new query and remove the old	 
-					mappingIterator.remove();
+					remove(currentEntry);
 					continue;
 				} 
 				
@@ -206,14 +317,14 @@ public class TMappingProcessor {
 
 					filterAtoms.add(newconditions);	
 					
-	                mappingIterator.remove();
+					remove(currentEntry);
 	                
 					newRule = new TMappingRule(currentRule, filterAtoms);
 
 					break;
 				}				
 			}
-			rules.add(newRule);
+			add(newRule);
 		}
 		
 		private boolean checkConditions(TMappingRule rule1, TMappingRule rule2, Substitution toRule1) {
@@ -237,34 +348,117 @@ public class TMappingProcessor {
 
 
 	/**
-	 * constructs the TMappings for object properties using DAG
+	 * constructs the TMappings for an object property node of the DAG
 	 * @param mappingIndex
 	 * @param originalMappings
 	 * @param dag
+	 * @param propertySet
 	 * @param full
 	 */
-	private static void getObjectTMappings(Map<Predicate, TMappingIndexEntry> mappingIndex, 
+	private static void getObjectTMappings(TMappingIndex mappingIndex, 
 			Map<Predicate, List<TMappingRule>> originalMappings,
-			EquivalencesDAG<ObjectPropertyExpression> dag, 
+			EquivalencesDAG<ObjectPropertyExpression> dag, Equivalences<ObjectPropertyExpression> propertySet,
 			boolean full, TMappingExclusionConfig excludeFromTMappings) {
 
-		for (Equivalences<ObjectPropertyExpression> propertySet : dag) {
+		ObjectPropertyExpression current = propertySet.getRepresentative();
+		if (current.isInverse())
+			return;
 
-			ObjectPropertyExpression current = propertySet.getRepresentative();
-			if (current.isInverse())
-				continue;
+		// for optimization
+		if(excludeFromTMappings.contains(current)){
+			return;
+		}
+
+		/* Getting the current node mappings */
+		Predicate currentPredicate = current.getPredicate();
+		TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
+
+		for (Equivalences<ObjectPropertyExpression> descendants : dag.getSub(propertySet)) {
+			for(ObjectPropertyExpression childproperty : descendants) {
+
+				/*
+				 * adding the mappings of the children as own mappings, the new
+				 * mappings use the current predicate instead of the child's
+				 * predicate and, if the child is inverse and the current is
+				 * positive, it will also invert the terms in the head
+				 */
+				boolean requiresInverse = childproperty.isInverse();
+
+				List<TMappingRule> childmappings = originalMappings.get(childproperty.getPredicate());
+				if (childmappings == null)
+					continue;
+				
+				for (TMappingRule childmapping : childmappings) {
+					
+					List<Term> terms = childmapping.getHeadTerms();
+
+					Function newMappingHead;
+					if (!requiresInverse) {
+						if (!full)
+							continue;
+						newMappingHead = fac.getFunction(currentPredicate, terms);
+					} 
+					else {
+						newMappingHead = fac.getFunction(currentPredicate, terms.get(1), terms.get(0));
+					}
+					TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
+					currentNodeMappings.mergeMappingsWithCQC(newmapping);
+				}
+			}
+		}
+
+		/* Setting up mappings for the equivalent classes */
+		for (ObjectPropertyExpression equivProperty : propertySet) {
+				 
+			Predicate p = equivProperty.getPredicate();
 
-			// for optimization
-			if(excludeFromTMappings.contains(current)){
+			// skip the property and its inverse (if it is symmetric)
+			if (p.equals(current.getPredicate()))
 				continue;
+			
+			TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
+				
+			for (TMappingRule currentNodeMapping : currentNodeMappings) {
+				List<Term> terms = currentNodeMapping.getHeadTerms();
+				
+				Function newhead;
+				if (!equivProperty.isInverse()) 
+					newhead = fac.getFunction(p, terms);
+				else 
+					newhead = fac.getFunction(p, terms.get(1), terms.get(0));
+				
+				TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
+				equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
 			}
+		}
+	}
 
-			/* Getting the current node mappings */
-			Predicate currentPredicate = current.getPredicate();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
+	/**
+	 * constructs the TMappings for a data property node of the DAG
+	 * @param mappingIndex
+	 * @param originalMappings
+	 * @param dag
+	 * @param propertySet
+	 * @param full
+	 */
+	private static void getDataTMappings(TMappingIndex mappingIndex, 
+			Map<Predicate, List<TMappingRule>> originalMappings,
+			EquivalencesDAG<DataPropertyExpression> dag, Equivalences<DataPropertyExpression> propertySet,
+			boolean full, TMappingExclusionConfig excludeFromTMappings) {
+		
+		DataPropertyExpression current = propertySet.getRepresentative();
 
-			for (Equivalences<ObjectPropertyExpression> descendants : dag.getSub(propertySet)) {
-				for(ObjectPropertyExpression childproperty : descendants) {
+		// for optimization
+		if(excludeFromTMappings.contains(current)){
+			return;
+		}
+		/* Getting the current node mappings */
+		Predicate currentPredicate = current.getPredicate();
+		TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
+
+		if (full) {
+			for (Equivalences<DataPropertyExpression> descendants : dag.getSub(propertySet)) {
+				for(DataPropertyExpression childproperty : descendants) {
 
 					/*
 					 * adding the mappings of the children as own mappings, the new
@@ -272,8 +466,6 @@ public class TMappingProcessor {
 					 * predicate and, if the child is inverse and the current is
 					 * positive, it will also invert the terms in the head
 					 */
-					boolean requiresInverse = childproperty.isInverse();
-
 					List<TMappingRule> childmappings = originalMappings.get(childproperty.getPredicate());
 					if (childmappings == null)
 						continue;
@@ -282,124 +474,149 @@ public class TMappingProcessor {
 						
 						List<Term> terms = childmapping.getHeadTerms();
 
-						Function newMappingHead;
-						if (!requiresInverse) {
-							if (!full)
-								continue;
-							newMappingHead = fac.getFunction(currentPredicate, terms);
-						} 
-						else {
-							newMappingHead = fac.getFunction(currentPredicate, terms.get(1), terms.get(0));
-						}
+						Function newMappingHead = fac.getFunction(currentPredicate, terms);
 						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
 						currentNodeMappings.mergeMappingsWithCQC(newmapping);
 					}
 				}
 			}
+		}
 
-			/* Setting up mappings for the equivalent classes */
-			for (ObjectPropertyExpression equivProperty : propertySet) {
-					 
-				Predicate p = equivProperty.getPredicate();
+		/* Setting up mappings for the equivalent classes */
+		for (DataPropertyExpression equivProperty : propertySet) {
+		
+			 
+			Predicate p = equivProperty.getPredicate();
 
-				// skip the property and its inverse (if it is symmetric)
-				if (p.equals(current.getPredicate()))
-					continue;
+			// skip the property and its inverse (if it is symmetric)
+			if (p.equals(current.getPredicate()))
+				continue;
+			
+			TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
 				
-				TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
-					
-				for (TMappingRule currentNodeMapping : currentNodeMappings) {
-					List<Term> terms = currentNodeMapping.getHeadTerms();
-					
-					Function newhead;
-					if (!equivProperty.isInverse()) 
-						newhead = fac.getFunction(p, terms);
-					else 
-						newhead = fac.getFunction(p, terms.get(1), terms.get(0));
-					
-					TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
-					equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
-				}
+			for (TMappingRule currentNodeMapping : currentNodeMappings) {
+				Function newhead = fac.getFunction(p, currentNodeMapping.getHeadTerms());
+				
+				TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
+				equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
 			}
-		} // Properties loop ended
-		
+		}
 	}
 
 	/**
-	 * constructs the TMappings for data properties using DAG
+	 * constructs the TMappings for a class node of the DAG
 	 * @param mappingIndex
 	 * @param originalMappings
 	 * @param dag
+	 * @param classSet
 	 * @param full
 	 */
-	private static void getDataTMappings(Map<Predicate, TMappingIndexEntry> mappingIndex, 
+	private static void getClassTMappings(TMappingIndex mappingIndex, 
 			Map<Predicate, List<TMappingRule>> originalMappings,
-			EquivalencesDAG<DataPropertyExpression> dag, 
+			EquivalencesDAG<ClassExpression> dag, Equivalences<ClassExpression> classSet,
 			boolean full, TMappingExclusionConfig excludeFromTMappings) {
-		
-		for (Equivalences<DataPropertyExpression> propertySet : dag) {
 
-			DataPropertyExpression current = propertySet.getRepresentative();
+		if (!(classSet.getRepresentative() instanceof OClass)) 
+			return;
 
-			// for optimization
-			if(excludeFromTMappings.contains(current)){
-				continue;
-			}
-			/* Getting the current node mappings */
-			Predicate currentPredicate = current.getPredicate();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
-
-			if (full) {
-				for (Equivalences<DataPropertyExpression> descendants : dag.getSub(propertySet)) {
-					for(DataPropertyExpression childproperty : descendants) {
-
-						/*
-						 * adding the mappings of the children as own mappings, the new
-						 * mappings use the current predicate instead of the child's
-						 * predicate and, if the child is inverse and the current is
-						 * positive, it will also invert the terms in the head
-						 */
-						List<TMappingRule> childmappings = originalMappings.get(childproperty.getPredicate());
-						if (childmappings == null)
-							continue;
-						
-						for (TMappingRule childmapping : childmappings) {
-							
-							List<Term> terms = childmapping.getHeadTerms();
+		OClass current = (OClass)classSet.getRepresentative();
 
-							Function newMappingHead = fac.getFunction(currentPredicate, terms);
-							TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
-							currentNodeMappings.mergeMappingsWithCQC(newmapping);
-						}
-					}
-				}
-			}
+		// FIXME: consider equivalences
+		// USE OF excludeFromTMappings
+		if(excludeFromTMappings.contains(current)){
+			return;
+		}
 
-			/* Setting up mappings for the equivalent classes */
-			for (DataPropertyExpression equivProperty : propertySet) {
-			
-				 
-				Predicate p = equivProperty.getPredicate();
+		/* Getting the current node mappings */
+		Predicate currentPredicate = current.getPredicate();
+		TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
+
+		for (Equivalences<ClassExpression> descendants : dag.getSub(classSet)) {
+			for (ClassExpression childDescription : descendants) {
+
+
+				/* adding the mappings of the children as own mappings, the new
+				 * mappings. There are three cases, when the child is a named
+				 * class, or when it is an \exists P or \exists \inv P. 
+				 */
+				
+				boolean isClass, isInverse;
+
+				Predicate childPredicate;					
+				if (childDescription instanceof OClass) {
+					if (!full)
+						continue;
+					childPredicate = ((OClass) childDescription).getPredicate();
+					isClass = true;
+					isInverse = false;
+
+					/*
+					 * USE OF excludeFromTMappings
+					 */
+					if(excludeFromTMappings.contains((OClass) childDescription)){
+						continue;
+					}
 
-				// skip the property and its inverse (if it is symmetric)
-				if (p.equals(current.getPredicate()))
+				} 
+				else if (childDescription instanceof ObjectSomeValuesFrom) {
+					ObjectPropertyExpression some = ((ObjectSomeValuesFrom) childDescription).getProperty();
+					childPredicate = some.getPredicate();
+					isClass = false;
+					isInverse = some.isInverse();
+				} 
+				else {
+					assert (childDescription instanceof DataSomeValuesFrom);
+					DataPropertyExpression some = ((DataSomeValuesFrom) childDescription).getProperty();
+					childPredicate = some.getPredicate();
+					isClass = false;
+					isInverse = false;  // can never be an inverse
+				} 
+				
+				List<TMappingRule> childmappings = originalMappings.get(childPredicate);
+				if (childmappings == null)
 					continue;
 				
-				TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
+				for (TMappingRule childmapping : childmappings) {
 					
-				for (TMappingRule currentNodeMapping : currentNodeMappings) {
-					Function newhead = fac.getFunction(p, currentNodeMapping.getHeadTerms());
-					
-					TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
-					equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
+					List<Term> terms = childmapping.getHeadTerms();
+
+					Function newMappingHead;
+					if (isClass) {
+						newMappingHead = fac.getFunction(currentPredicate, terms);
+					} 
+					else {
+						if (!isInverse) 
+							newMappingHead = fac.getFunction(currentPredicate, terms.get(0));
+						else 
+							newMappingHead = fac.getFunction(currentPredicate, terms.get(1));
+					}
+					TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
+					currentNodeMappings.mergeMappingsWithCQC(newmapping);
 				}
 			}
-		} // Properties loop ended
+		}
+
 		
+		/* Setting up mappings for the equivalent classes */
+		for (ClassExpression equiv : classSet) {
+			if (!(equiv instanceof OClass) || equiv.equals(current))
+				continue;
+			
+			Predicate p = ((OClass) equiv).getPredicate();
+			TMappingIndexEntry equivalentClassMappings = getMappings(mappingIndex, p);	
+			
+			for (TMappingRule currentNodeMapping : currentNodeMappings) {
+				Function newhead = fac.getFunction(p, currentNodeMapping.getHeadTerms());
+
+				TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
+				equivalentClassMappings.mergeMappingsWithCQC(newrule);
+			}
+		}
 	}
 	
 	/**
-	 * constructs the TMappings using DAG
+	 * constructs the TMappings using DAG (in the calling thread)
+	 *
 	 * @param originalMappings
 	 * @param reasoner
 	 * @param full (false for the Semantic Index)
@@ -407,6 +624,36 @@ public class TMappingProcessor {
 	 */
 
 	public static List<CQIE> getTMappings(List<CQIE> originalMappings, TBoxReasoner reasoner, boolean full, CQContainmentCheckUnderLIDs cqc, TMappingExclusionConfig excludeFromTMappings) {
+		return getTMappings(originalMappings, reasoner, full, cqc, excludeFromTMappings, null);
+	}
+
+	/**
+	 * constructs the TMappings using DAG
+	 *
+	 * The nodes of the DAGs can be processed in parallel: the T-mappings of a node are
+	 * built from the original mappings of its descendants (not from their T-mappings),
+	 * and each node only adds rules for its own predicates. The two nodes of an object
+	 * property and of its inverse share their predicates, and are processed by the same task.
+	 *
+	 * @param originalMappings
+	 * @param reasoner
+	 * @param full (false for the Semantic Index)
+	 * @param executor runs the tasks for the predicates and DAG nodes (null to run them in the calling thread);
+	 *                 it is not shut down
+	 * @return
+	 */
+
+	public static List<CQIE> getTMappings(List<CQIE> originalMappings, TBoxReasoner reasoner, boolean full, CQContainmentCheckUnderLIDs cqc, TMappingExclusionConfig excludeFromTMappings,
+										  ExecutorService executor) {
+		return getTMappings(originalMappings, reasoner, full, cqc, excludeFromTMappings, executor, true);
+	}
+
+	/**
+	 * @param bySignature whether only the rules with the same head signature are compared
+	 *                    by homomorphism checks (false for comparing all rules of a predicate)
+	 */
+	static List<CQIE> getTMappings(List<CQIE> originalMappings, TBoxReasoner reasoner, boolean full, CQContainmentCheckUnderLIDs cqc, TMappingExclusionConfig excludeFromTMappings,
+								   ExecutorService executor, boolean bySignature) {
 		
 		final boolean printouts = false;
 		
@@ -416,9 +663,9 @@ public class TMappingProcessor {
 		if (excludeFromTMappings == null)
 			throw new NullPointerException("excludeFromTMappings");
 		
-		Map<Predicate, TMappingIndexEntry> mappingIndex = new HashMap<>();
+		final TMappingIndex mappingIndex = new TMappingIndex(bySignature);
 
-		Map<Predicate, List<TMappingRule>> originalMappingIndex = new HashMap<>();
+		final Map<Predicate, List<TMappingRule>> originalMappingIndex = new ConcurrentHashMap<>();
 		
 		/***
 		 * Creates an index of all mappings based on the predicate of the head of
@@ -430,166 +677,110 @@ public class TMappingProcessor {
 
 		if (printouts)
 			System.out.println("===CHECKING REDUNDANCY: " + cqc);
-		for (CQIE mapping : originalMappings) {	
 
-			if (!noCQC)
-				mapping = cqc.removeRedundantAtoms(mapping);
-			else {
-				int c = 0;
-				for (Function a : mapping.getBody()) 
-					if (!(a.getFunctionSymbol() instanceof BuiltinPredicate))
-						c++;
-				
-				if (c == 1)
-					CQContainmentCheckUnderLIDs.oneAtomQs++;
-				else if (c == 2)
-					CQContainmentCheckUnderLIDs.twoAtomQs++;
-			}	
-			
-			TMappingRule rule = new TMappingRule(mapping.getHead(), mapping.getBody(), cqc);
+		Map<Predicate, List<CQIE>> mappingsByPredicate = new LinkedHashMap<>();
+		for (CQIE mapping : originalMappings) {	
 			Predicate ruleIndex = mapping.getHead().getFunctionSymbol();
-			List<TMappingRule> ms = originalMappingIndex.get(ruleIndex);
+			List<CQIE> ms = mappingsByPredicate.get(ruleIndex);
 			if (ms == null) {
-				ms = new LinkedList<>();
-				originalMappingIndex.put(ruleIndex, ms);
+				ms = new ArrayList<>();
+				mappingsByPredicate.put(ruleIndex, ms);
 			}
-			ms.add(rule);
-						
-			TMappingIndexEntry set = getMappings(mappingIndex, ruleIndex);
-			set.mergeMappingsWithCQC(rule);
+			ms.add(mapping);
 		}
+
+		List<Callable<Void>> tasks = new ArrayList<>(mappingsByPredicate.size());
+		for (final Entry<Predicate, List<CQIE>> entry : mappingsByPredicate.entrySet()) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					indexMappings(mappingIndex, originalMappingIndex, entry.getKey(), entry.getValue(), cqc);
+					return null;
+				}
+			});
+		}
+		runAll(executor, tasks);
+
 		if (printouts)
 			System.out.println("===END OF CHECKING REDUNDANCY: " + CQContainmentCheckUnderLIDs.oneAtomQs + "/" + CQContainmentCheckUnderLIDs.twoAtomQs);
 		
 
 		/*
-		 * We start with the property mappings, since class t-mappings require
-		 * that these are already processed. 
-		 * Processing mappings for all Properties
+		 * Processing mappings for all Properties and Classes
 		 *
 		 * We process the mappings for the descendants of the current node,
 		 * adding them to the list of mappings of the current node as defined in
 		 * the TMappings specification.
 		 */
 
-		getObjectTMappings(mappingIndex, originalMappingIndex, reasoner.getObjectPropertyDAG(), full, excludeFromTMappings);
-		getDataTMappings(mappingIndex, originalMappingIndex, reasoner.getDataPropertyDAG(), full, excludeFromTMappings);
-
-		/*
-		 * Property t-mappings are done, we now continue with class t-mappings.
-		 * Starting with the leafs.
-		 */
-
-		for (Equivalences<ClassExpression> classSet : reasoner.getClassDAG()) {
-
-			if (!(classSet.getRepresentative() instanceof OClass)) 
-				continue;
-
-			OClass current = (OClass)classSet.getRepresentative();
-
-			// FIXME: consider equivalences
-            // USE OF excludeFromTMappings
-			if(excludeFromTMappings.contains(current)){
-				continue;
+		tasks = new ArrayList<>();
+
+		// the sub-nodes are computed (and cached) sequentially:
+		// the lazy caches of the DAGs and jgrapht graphs are then only read by the tasks
+
+		// the nodes {P, Q^-} and {P^-, Q} both add rules for P and Q: they are processed 
+		// by the same task (in the order of the DAG), so that each predicate has a single writer
+		final EquivalencesDAG<ObjectPropertyExpression> objectDAG = reasoner.getObjectPropertyDAG();
+		Map<Set<Predicate>, List<Equivalences<ObjectPropertyExpression>>> objectNodes = new LinkedHashMap<>();
+		for (Equivalences<ObjectPropertyExpression> propertySet : objectDAG) {
+			objectDAG.getSub(propertySet);
+			Set<Predicate> predicates = new HashSet<>();
+			for (ObjectPropertyExpression property : propertySet)
+				predicates.add(property.getPredicate());
+			List<Equivalences<ObjectPropertyExpression>> nodes = objectNodes.get(predicates);
+			if (nodes == null) {
+				nodes = new ArrayList<>(2);
+				objectNodes.put(predicates, nodes);
 			}
-
-			/* Getting the current node mappings */
-			Predicate currentPredicate = current.getPredicate();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
-
-			for (Equivalences<ClassExpression> descendants : reasoner.getClassDAG().getSub(classSet)) {
-				for (ClassExpression childDescription : descendants) {
-
-
-                    /* adding the mappings of the children as own mappings, the new
-					 * mappings. There are three cases, when the child is a named
-					 * class, or when it is an \exists P or \exists \inv P. 
-					 */
-					
-					boolean isClass, isInverse;
-
-					Predicate childPredicate;					
-					if (childDescription instanceof OClass) {
-						if (!full)
-							continue;
-						childPredicate = ((OClass) childDescription).getPredicate();
-						isClass = true;
-						isInverse = false;
-
-                        /*
-                         * USE OF excludeFromTMappings
-                         */
-                        if(excludeFromTMappings.contains((OClass) childDescription)){
-                            continue;
-                        }
-
-					} 
-					else if (childDescription instanceof ObjectSomeValuesFrom) {
-						ObjectPropertyExpression some = ((ObjectSomeValuesFrom) childDescription).getProperty();
-						childPredicate = some.getPredicate();
-						isClass = false;
-						isInverse = some.isInverse();
-					} 
-					else {
-						assert (childDescription instanceof DataSomeValuesFrom);
-						DataPropertyExpression some = ((DataSomeValuesFrom) childDescription).getProperty();
-						childPredicate = some.getPredicate();
-						isClass = false;
-						isInverse = false;  // can never be an inverse
-					} 
-					
-					List<TMappingRule> childmappings = originalMappingIndex.get(childPredicate);
-					if (childmappings == null)
-						continue;
-					
-					for (TMappingRule childmapping : childmappings) {
-						
-						List<Term> terms = childmapping.getHeadTerms();
-
-						Function newMappingHead;
-						if (isClass) {
-							newMappingHead = fac.getFunction(currentPredicate, terms);
-						} 
-						else {
-							if (!isInverse) 
-								newMappingHead = fac.getFunction(currentPredicate, terms.get(0));
-							else 
-								newMappingHead = fac.getFunction(currentPredicate, terms.get(1));
-						}
-						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
-						currentNodeMappings.mergeMappingsWithCQC(newmapping);
-					}
+			nodes.add(propertySet);
+		}
+		for (final List<Equivalences<ObjectPropertyExpression>> nodes : objectNodes.values()) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (Equivalences<ObjectPropertyExpression> propertySet : nodes)
+						getObjectTMappings(mappingIndex, originalMappingIndex, objectDAG, propertySet, full, excludeFromTMappings);
+					return null;
 				}
-			}
+			});
+		}
 
-			
-			/* Setting up mappings for the equivalent classes */
-			for (ClassExpression equiv : classSet) {
-				if (!(equiv instanceof OClass) || equiv.equals(current))
-					continue;
-				
-				Predicate p = ((OClass) equiv).getPredicate();
-				TMappingIndexEntry equivalentClassMappings = getMappings(mappingIndex, p);	
-				
-				for (TMappingRule currentNodeMapping : currentNodeMappings) {
-					Function newhead = fac.getFunction(p, currentNodeMapping.getHeadTerms());
+		final EquivalencesDAG<DataPropertyExpression> dataDAG = reasoner.getDataPropertyDAG();
+		for (final Equivalences<DataPropertyExpression> propertySet : dataDAG) {
+			dataDAG.getSub(propertySet);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					getDataTMappings(mappingIndex, originalMappingIndex, dataDAG, propertySet, full, excludeFromTMappings);
+					return null;
+				}
+			});
+		}
 
-					TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
-					equivalentClassMappings.mergeMappingsWithCQC(newrule);
+		final EquivalencesDAG<ClassExpression> classDAG = reasoner.getClassDAG();
+		for (final Equivalences<ClassExpression> classSet : classDAG) {
+			classDAG.getSub(classSet);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					getClassTMappings(mappingIndex, originalMappingIndex, classDAG, classSet, full, excludeFromTMappings);
+					return null;
 				}
-			}
+			});
 		}
+
+		runAll(executor, tasks);
 		
 		Map<Integer, Set<Predicate>> frequences = new HashMap<>();
 		
 		
 		List<CQIE> tmappingsProgram = new LinkedList<>();
 		for (Entry<Predicate, TMappingIndexEntry> entry : mappingIndex.entrySet()) {
-			if (printouts && !entry.getValue().rules.isEmpty()) {
-				Set<Predicate> freq = frequences.get(entry.getValue().rules.size());
+			if (printouts && entry.getValue().size() > 0) {
+				Set<Predicate> freq = frequences.get(entry.getValue().size());
 				if (freq == null) {
 					freq = new HashSet<>();
-					frequences.put(entry.getValue().rules.size(), freq);
+					frequences.put(entry.getValue().size(), freq);
 				}
 				freq.add(entry.getKey());
 			}
@@ -606,8 +797,8 @@ public class TMappingProcessor {
 			for (Integer idx : sorted) {
 				for (Predicate p : frequences.get(idx)) {
 					TMappingIndexEntry e = 	mappingIndex.get(p);
-					System.out.println(p + " " + e.rules.size());
-					for (TMappingRule r : e.rules) 
+					System.out.println(p + " " + e.size());
+					for (TMappingRule r : e) 
 						System.out.println("    " + r.asCQIE());
 				}
 			}
@@ -622,13 +813,82 @@ public class TMappingProcessor {
 		return tmappingsProgram;
 	}
 
+	/**
+	 * adds the original mappings of a predicate to the indexes
+	 */
+	private static void indexMappings(TMappingIndex mappingIndex, 
+			Map<Predicate, List<TMappingRule>> originalMappingIndex,
+			Predicate ruleIndex, List<CQIE> mappings, CQContainmentCheckUnderLIDs cqc) {
+
+		List<TMappingRule> ms = new ArrayList<>(mappings.size());
+		TMappingIndexEntry set = getMappings(mappingIndex, ruleIndex);
+		for (CQIE mapping : mappings) {
+
+			if (!noCQC)
+				mapping = cqc.removeRedundantAtoms(mapping);
+			else {
+				int c = 0;
+				for (Function a : mapping.getBody()) 
+					if (!(a.getFunctionSymbol() instanceof BuiltinPredicate))
+						c++;
+				
+				if (c == 1)
+					CQContainmentCheckUnderLIDs.oneAtomQs.incrementAndGet();
+				else if (c == 2)
+					CQContainmentCheckUnderLIDs.twoAtomQs.incrementAndGet();
+			}	
+			
+			TMappingRule rule = new TMappingRule(mapping.getHead(), mapping.getBody(), cqc);
+			ms.add(rule);
+			set.mergeMappingsWithCQC(rule);
+		}
+		originalMappingIndex.put(ruleIndex, ms);
+	}
+
+	/**
+	 * runs the tasks and waits for all of them to complete
+	 * (in the calling thread if there is no executor)
+	 */
+	private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) {
+		if (executor == null) {
+			for (Callable<Void> task : tasks)
+				try {
+					task.call();
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			return;
+		}
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) 
+				future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("T-mapping construction interrupted", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
 	
-	private static TMappingIndexEntry getMappings(Map<Predicate, TMappingIndexEntry> mappingIndex, Predicate current) {
+	private static TMappingIndexEntry getMappings(TMappingIndex mappingIndex, Predicate current) {
 		
 		TMappingIndexEntry currentMappings = mappingIndex.get(current);	
 		if (currentMappings == null) {
-			currentMappings = new TMappingIndexEntry();
-			mappingIndex.put(current, currentMappings);
+			currentMappings = new TMappingIndexEntry(mappingIndex.bySignature);
+			TMappingIndexEntry previous = mappingIndex.putIfAbsent(current, currentMappings);
+			if (previous != null)
+				currentMappings = previous;
 		}
 		return currentMappings;
 	}
@@ -209,6 +209,35 @@ public class TMappingRule {
 	public List<Term> getHeadTerms() {
 		return head.getTerms();
 	}
+
+	/**
+	 * The signature of the head: for each term, the function symbol, arity and the first
+	 * argument (e.g., the URI template) of a functional term, or the constant.
+	 * There is no homomorphism (in either direction) between rules with different signatures.
+	 *
+	 * @return null if the head contains a term that can be mapped onto other terms
+	 *              (a variable or a functional term without a constant first argument)
+	 */
+	List<Object> getHeadSignature() {
+		List<Object> signature = new ArrayList<>(head.getArity() * 3 + 1);
+		signature.add(head.getFunctionSymbol());
+		for (Term term : head.getTerms()) {
+			if (term instanceof Constant) {
+				signature.add(term);
+			}
+			else if (term instanceof Function) {
+				Function f = (Function)term;
+				if (f.getArity() == 0 || !(f.getTerm(0) instanceof Constant))
+					return null;
+				signature.add(f.getFunctionSymbol());
+				signature.add(f.getArity());
+				signature.add(f.getTerm(0));
+			}
+			else
+				return null;
+		}
+		return signature;
+	}
 	
 	public int databaseAtomsSize() {
 		return databaseAtoms.size();
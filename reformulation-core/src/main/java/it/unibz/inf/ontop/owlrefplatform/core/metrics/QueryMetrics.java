@@ -0,0 +1,39 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Receives the profile of each query answered by Quest (for instance, to feed
+ * a metrics library). The default implementation is {@link QueryMetricsRegistry},
+ * another one can be set with Quest.setQueryMetrics.
+ *
+ * <p>
+ * Implementations must be thread-safe: the queries of all the statements are
+ * recorded concurrently.
+ */
+public interface QueryMetrics {
+
+	/**
+	 * Called once the query is completed: its result set is exhausted or closed
+	 * (or the query has no result set to iterate, e.g., ASK queries)
+	 */
+	void record(QueryProfile profile);
+}
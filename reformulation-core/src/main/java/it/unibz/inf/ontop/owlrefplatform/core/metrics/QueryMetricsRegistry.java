@@ -0,0 +1,251 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The default {@link QueryMetrics} of Quest: a latency histogram per stage
+ * and for the whole query, histograms of the sizes of the rewritings and
+ * unfoldings, the hit ratios of the query caches and the slow-query log.
+ * It can be registered as an MXBean (it.unibz.inf.ontop:type=QueryMetrics).
+ *
+ * <p>
+ * The translation stages are only recorded for the queries that were
+ * translated (not for those whose SQL translation was in the cache).
+ */
+public class QueryMetricsRegistry implements QueryMetrics, QueryMetricsRegistryMXBean {
+
+	private static final Logger log = LoggerFactory.getLogger(QueryMetricsRegistry.class);
+
+	private static final AtomicInteger instances = new AtomicInteger();
+
+	private static final String TOTAL = "TOTAL";
+
+	private final Map<QueryStage, Histogram> stages = new EnumMap<>(QueryStage.class);
+	private final Histogram total = new Histogram();
+	private final Histogram cqsBeforeUnfolding = new Histogram();
+	private final Histogram cqsAfterUnfolding = new Histogram();
+
+	private final SlowQueryLog slowQueryLog; // null if there is no slow-query log
+	private final Supplier<CacheStats> parsedQueryCacheStats;
+	private final Supplier<CacheStats> queryPlanCacheStats;
+
+	// the cache statistics at the last reset
+	private volatile CacheStats parsedQueryCacheBaseline;
+	private volatile CacheStats queryPlanCacheBaseline;
+
+	private ObjectName objectName = null; // not registered
+
+	/**
+	 * @param slowQueryThreshold in milliseconds (0 for no slow-query log)
+	 * @param parsedQueryCacheStats the statistics of the cache of parsed SPARQL queries
+	 * @param queryPlanCacheStats the statistics of the cache of SQL translations
+	 */
+	public QueryMetricsRegistry(long slowQueryThreshold, Supplier<CacheStats> parsedQueryCacheStats,
+								Supplier<CacheStats> queryPlanCacheStats) {
+		for (QueryStage stage : QueryStage.values())
+			stages.put(stage, new Histogram());
+		this.slowQueryLog = (slowQueryThreshold > 0) ? new SlowQueryLog(slowQueryThreshold) : null;
+		this.parsedQueryCacheStats = parsedQueryCacheStats;
+		this.queryPlanCacheStats = queryPlanCacheStats;
+		this.parsedQueryCacheBaseline = parsedQueryCacheStats.get();
+		this.queryPlanCacheBaseline = queryPlanCacheStats.get();
+	}
+
+	@Override
+	public void record(QueryProfile profile) {
+		for (QueryStage stage : QueryStage.values())
+			if (!profile.isCached() || !isTranslationStage(stage))
+				stages.get(stage).record(profile.getNanos(stage));
+		total.record(profile.getTotalNanos());
+
+		if (!profile.isCached() && profile.getCQsAfterUnfolding() >= 0) {
+			cqsBeforeUnfolding.record(profile.getCQsBeforeUnfolding());
+			cqsAfterUnfolding.record(profile.getCQsAfterUnfolding());
+		}
+
+		if (slowQueryLog != null)
+			slowQueryLog.record(profile);
+	}
+
+	private static boolean isTranslationStage(QueryStage stage) {
+		switch (stage) {
+		case TRANSLATE:
+		case SAME_AS:
+		case REWRITE:
+		case UNFOLD:
+		case EXPRESSION_EVALUATION:
+		case SQL_GENERATION:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return the latency histogram of the stage (in nanoseconds)
+	 */
+	public Histogram getHistogram(QueryStage stage) {
+		return stages.get(stage);
+	}
+
+	/**
+	 * @return the latency histogram of the whole queries (in nanoseconds)
+	 */
+	public Histogram getTotalHistogram() {
+		return total;
+	}
+
+	public Histogram getCQsBeforeUnfoldingHistogram() {
+		return cqsBeforeUnfolding;
+	}
+
+	public Histogram getCQsAfterUnfoldingHistogram() {
+		return cqsAfterUnfolding;
+	}
+
+	@Override
+	public long getQueryCount() {
+		return total.getCount();
+	}
+
+	@Override
+	public long getSlowQueryCount() {
+		return (slowQueryLog != null) ? slowQueryLog.getCount() : 0;
+	}
+
+	@Override
+	public Map<String, Double> getMeanLatencies() {
+		Map<String, Double> map = new LinkedHashMap<>();
+		for (QueryStage stage : QueryStage.values())
+			map.put(stage.name(), stages.get(stage).getMean() / 1e6);
+		map.put(TOTAL, total.getMean() / 1e6);
+		return map;
+	}
+
+	@Override
+	public Map<String, Double> getMedianLatencies() {
+		return getPercentiles(0.5);
+	}
+
+	@Override
+	public Map<String, Double> get99thPercentileLatencies() {
+		return getPercentiles(0.99);
+	}
+
+	private Map<String, Double> getPercentiles(double p) {
+		Map<String, Double> map = new LinkedHashMap<>();
+		for (QueryStage stage : QueryStage.values())
+			map.put(stage.name(), stages.get(stage).getPercentile(p) / 1e6);
+		map.put(TOTAL, total.getPercentile(p) / 1e6);
+		return map;
+	}
+
+	@Override
+	public Map<String, Double> getMaxLatencies() {
+		Map<String, Double> map = new LinkedHashMap<>();
+		for (QueryStage stage : QueryStage.values())
+			map.put(stage.name(), stages.get(stage).getMax() / 1e6);
+		map.put(TOTAL, total.getMax() / 1e6);
+		return map;
+	}
+
+	@Override
+	public double getMeanCQsBeforeUnfolding() {
+		return cqsBeforeUnfolding.getMean();
+	}
+
+	@Override
+	public double getMeanCQsAfterUnfolding() {
+		return cqsAfterUnfolding.getMean();
+	}
+
+	@Override
+	public long getMaxCQsAfterUnfolding() {
+		return cqsAfterUnfolding.getMax();
+	}
+
+	@Override
+	public double getParsedQueryCacheHitRatio() {
+		return parsedQueryCacheStats.get().minus(parsedQueryCacheBaseline).hitRate();
+	}
+
+	@Override
+	public double getQueryPlanCacheHitRatio() {
+		return queryPlanCacheStats.get().minus(queryPlanCacheBaseline).hitRate();
+	}
+
+	@Override
+	public void reset() {
+		for (Histogram histogram : stages.values())
+			histogram.reset();
+		total.reset();
+		cqsBeforeUnfolding.reset();
+		cqsAfterUnfolding.reset();
+		parsedQueryCacheBaseline = parsedQueryCacheStats.get();
+		queryPlanCacheBaseline = queryPlanCacheStats.get();
+	}
+
+	/**
+	 * Registers the registry in the platform MBean server, under a name unique
+	 * in the JVM (errors are logged)
+	 */
+	public synchronized void registerMBean() {
+		if (objectName != null)
+			return;
+		try {
+			ObjectName name = new ObjectName("it.unibz.inf.ontop:type=QueryMetrics,name=quest" + instances.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			objectName = name;
+			log.debug("Query metrics registered as {}", name);
+		}
+		catch (JMException e) {
+			log.warn("Cannot register the query metrics in JMX: {}", e.getMessage());
+		}
+	}
+
+	public synchronized void unregisterMBean() {
+		if (objectName == null)
+			return;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		}
+		catch (JMException e) {
+			log.debug(e.getMessage());
+		}
+		objectName = null;
+	}
+}
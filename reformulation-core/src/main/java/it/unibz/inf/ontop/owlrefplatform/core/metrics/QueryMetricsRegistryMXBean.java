@@ -0,0 +1,60 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link QueryMetricsRegistry}. The latencies are in
+ * milliseconds, by stage (see {@link QueryStage}) and for the whole query ("TOTAL").
+ */
+public interface QueryMetricsRegistryMXBean {
+
+	long getQueryCount();
+
+	long getSlowQueryCount();
+
+	Map<String, Double> getMeanLatencies();
+
+	Map<String, Double> getMedianLatencies();
+
+	Map<String, Double> get99thPercentileLatencies();
+
+	Map<String, Double> getMaxLatencies();
+
+	/**
+	 * @return the mean number of CQs of the rewritings (queries translated only)
+	 */
+	double getMeanCQsBeforeUnfolding();
+
+	/**
+	 * @return the mean number of CQs of the unfoldings (queries translated only)
+	 */
+	double getMeanCQsAfterUnfolding();
+
+	long getMaxCQsAfterUnfolding();
+
+	double getParsedQueryCacheHitRatio();
+
+	double getQueryPlanCacheHitRatio();
+
+	void reset();
+}
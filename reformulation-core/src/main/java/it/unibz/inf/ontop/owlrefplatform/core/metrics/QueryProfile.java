@@ -0,0 +1,134 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Locale;
+
+/**
+ * The time (in nanoseconds) spent in each stage of the answering of a query,
+ * with the size of its rewriting and unfolding. A profile is filled by the
+ * statement executing the query (one thread at a time) and is passed to the
+ * {@link QueryMetrics} of Quest once the query is completed.
+ *
+ * <p>
+ * The translation stages are 0 if the SQL translation was in the cache.
+ */
+public class QueryProfile {
+
+	private final String sparql;
+	private final long[] nanos = new long[QueryStage.values().length];
+
+	private String sql;
+	private boolean cached = false;
+	private int cqsBeforeUnfolding = -1;
+	private int cqsAfterUnfolding = -1;
+
+	public QueryProfile(String sparql) {
+		this.sparql = sparql;
+	}
+
+	public String getSPARQL() {
+		return sparql;
+	}
+
+	/**
+	 * @return the SQL translation (null if the query was not translated)
+	 */
+	public String getSQL() {
+		return sql;
+	}
+
+	public void setSQL(String sql) {
+		this.sql = sql;
+	}
+
+	/**
+	 * Adds the time elapsed since start (given by System.nanoTime) to the stage
+	 */
+	public void addSince(QueryStage stage, long start) {
+		nanos[stage.ordinal()] += System.nanoTime() - start;
+	}
+
+	public long getNanos(QueryStage stage) {
+		return nanos[stage.ordinal()];
+	}
+
+	/**
+	 * @return the time spent in all the stages but FIRST_ROW (which is part of FETCH)
+	 */
+	public long getTotalNanos() {
+		long total = 0;
+		for (QueryStage stage : QueryStage.values())
+			if (stage != QueryStage.FIRST_ROW)
+				total += nanos[stage.ordinal()];
+		return total;
+	}
+
+	/**
+	 * @return whether the SQL translation was found in the cache
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
+	public void setCached(boolean cached) {
+		this.cached = cached;
+	}
+
+	/**
+	 * @return the number of CQs of the rewriting (-1 if the query was not translated)
+	 */
+	public int getCQsBeforeUnfolding() {
+		return cqsBeforeUnfolding;
+	}
+
+	/**
+	 * @return the number of CQs of the unfolding (-1 if the query was not translated)
+	 */
+	public int getCQsAfterUnfolding() {
+		return cqsAfterUnfolding;
+	}
+
+	public void setUnfoldingSizes(int before, int after) {
+		this.cqsBeforeUnfolding = before;
+		this.cqsAfterUnfolding = after;
+	}
+
+	/**
+	 * @return the time of each stage in milliseconds, e.g., "parse=0.120ms, translate=1.500ms, ..."
+	 */
+	public String getStageBreakdown() {
+		StringBuilder sb = new StringBuilder();
+		for (QueryStage stage : QueryStage.values()) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(stage.name().toLowerCase(Locale.ENGLISH))
+					.append(String.format(Locale.ENGLISH, "=%.3fms", nanos[stage.ordinal()] / 1e6));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ENGLISH, "%.3fms (%s%s)", getTotalNanos() / 1e6, getStageBreakdown(),
+				cached ? ", cached translation" : ", UCQ " + cqsBeforeUnfolding + " -> " + cqsAfterUnfolding + " CQs");
+	}
+}
@@ -0,0 +1,47 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * The stages of the answering of a SPARQL query, timed by {@link QueryProfile}
+ */
+public enum QueryStage {
+	/** parsing of the SPARQL string (or lookup in the cache of parsed queries) */
+	PARSE,
+	/** translation of the SPARQL algebra into Datalog */
+	TRANSLATE,
+	/** owl:sameAs rewriting, equivalences and flattening */
+	SAME_AS,
+	/** rewriting w.r.t. the TBox */
+	REWRITE,
+	/** unfolding with the (T-)mappings */
+	UNFOLD,
+	/** evaluation of the boolean expressions of the unfolding */
+	EXPRESSION_EVALUATION,
+	/** generation of the SQL string */
+	SQL_GENERATION,
+	/** execution of the SQL query (until the JDBC result set is returned) */
+	SQL_EXECUTION,
+	/** the first call to nextRow of the result set */
+	FIRST_ROW,
+	/** all the calls to nextRow of the result set (the first one included) */
+	FETCH
+}
@@ -0,0 +1,63 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs the SPARQL query, its SQL translation and the time of each stage of
+ * the queries slower than a threshold, at the WARN level of the logger
+ * it.unibz.inf.ontop.owlrefplatform.core.metrics.SlowQueryLog (which can be
+ * directed to its own file in the logging configuration).
+ */
+public class SlowQueryLog implements QueryMetrics {
+
+	private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+	private final long thresholdNanos;
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * @param threshold in milliseconds
+	 */
+	public SlowQueryLog(long threshold) {
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(threshold);
+	}
+
+	@Override
+	public void record(QueryProfile profile) {
+		if (profile.getTotalNanos() < thresholdNanos)
+			return;
+		count.increment();
+		log.warn("Slow query: {}\nSPARQL:\n{}\nSQL:\n{}", profile, profile.getSPARQL(), profile.getSQL());
+	}
+
+	/**
+	 * @return the number of slow queries logged so far
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+}
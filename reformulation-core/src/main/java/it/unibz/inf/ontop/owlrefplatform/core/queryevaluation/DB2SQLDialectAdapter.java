@@ -109,6 +109,12 @@ public class DB2SQLDialectAdapter extends SQL99DialectAdapter {
 		String strType = null;
 		if (type == Types.VARCHAR) {
 			strType = "VARCHAR(500)";
+		} else if (type == Types.DECIMAL) {
+			strType = "DECFLOAT(34)";
+		} else if (type == Types.DOUBLE) {
+			strType = "DOUBLE";
+		} else if (type == Types.TIMESTAMP) {
+			strType = "TIMESTAMP";
 		} else {
 			throw new RuntimeException("Unsupported SQL type");
 		}
@@ -174,4 +180,10 @@ public class DB2SQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		// the WITHIN GROUP clause is optional in DB2
+		return String.format("LISTAGG(%s, %s)", value, separator);
+	}
+
 }
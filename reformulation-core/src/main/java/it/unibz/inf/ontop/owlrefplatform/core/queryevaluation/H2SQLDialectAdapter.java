@@ -149,4 +149,9 @@ public class H2SQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 	
+
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("GROUP_CONCAT(%s SEPARATOR %s)", value, separator);
+	}
 }
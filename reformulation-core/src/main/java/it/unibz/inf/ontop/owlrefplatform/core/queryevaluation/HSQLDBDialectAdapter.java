@@ -100,6 +100,12 @@ public class HSQLDBDialectAdapter extends SQL99DialectAdapter {
 		String strType = null;
 		if (type == Types.VARCHAR) {
 			strType = "VARCHAR(400)";
+		} else if (type == Types.DECIMAL) {
+			strType = "DECIMAL(128,32)";
+		} else if (type == Types.DOUBLE) {
+			strType = "DOUBLE";
+		} else if (type == Types.TIMESTAMP) {
+			strType = "TIMESTAMP";
 		} else {
 			throw new RuntimeException("Unsupported SQL type");
 		}
@@ -235,4 +241,9 @@ public class HSQLDBDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 	
+
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("GROUP_CONCAT(%s SEPARATOR %s)", value, separator);
+	}
 }
@@ -121,6 +121,12 @@ public class MonetDBSQLDialectAdapter extends SQL99DialectAdapter {
         String strType = null;
         if (type == Types.VARCHAR) {
             strType = "STRING";
+        } else if (type == Types.DECIMAL) {
+            strType = "DECIMAL(18,9)";
+        } else if (type == Types.DOUBLE) {
+            strType = "DOUBLE";
+        } else if (type == Types.TIMESTAMP) {
+            strType = "TIMESTAMP";
         } else {
             throw new RuntimeException("Unsupported SQL type");
         }
@@ -248,4 +254,8 @@ public class MonetDBSQLDialectAdapter extends SQL99DialectAdapter {
         return sqlQuote(signatureVariableName + proposedSuffix);
     }
 
+    @Override
+    public String sqlGroupConcat(String value, String separator) {
+        return String.format("GROUP_CONCAT(%s, %s)", value, separator);
+    }
 }
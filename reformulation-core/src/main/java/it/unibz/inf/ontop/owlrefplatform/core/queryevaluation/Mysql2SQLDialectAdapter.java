@@ -32,7 +32,7 @@ public class Mysql2SQLDialectAdapter extends SQL99DialectAdapter {
 		SqlDatatypes = new HashMap<Integer, String>();
 		SqlDatatypes.put(Types.INTEGER, "INT");
         SqlDatatypes.put(Types.BIGINT, "BIGINT");
-		SqlDatatypes.put(Types.DECIMAL, "DECIMAL");
+		SqlDatatypes.put(Types.DECIMAL, "DECIMAL(65,30)");
 		SqlDatatypes.put(Types.REAL, "FLOAT");
         SqlDatatypes.put(Types.FLOAT, "FLOAT");
 		SqlDatatypes.put(Types.DOUBLE, "DOUBLE");
@@ -240,4 +240,9 @@ public class Mysql2SQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 	
+
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("GROUP_CONCAT(%s SEPARATOR %s)", value, separator);
+	}
 }
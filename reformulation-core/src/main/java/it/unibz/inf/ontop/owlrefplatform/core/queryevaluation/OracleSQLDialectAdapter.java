@@ -44,6 +44,7 @@ public class OracleSQLDialectAdapter extends SQL99DialectAdapter {
 		SqlDatatypes = new HashMap<Integer, String>();
 		SqlDatatypes.put(Types.DECIMAL, "NUMBER");
 		SqlDatatypes.put(Types.FLOAT, "FLOAT");
+		SqlDatatypes.put(Types.DOUBLE, "BINARY_DOUBLE");
 		SqlDatatypes.put(Types.CHAR, "CHAR");
 		SqlDatatypes.put(Types.VARCHAR, "VARCHAR(4000)");
 		SqlDatatypes.put(Types.CLOB, "CLOB");
@@ -368,4 +369,9 @@ public class OracleSQLDialectAdapter extends SQL99DialectAdapter {
 		throw new RuntimeException("Impossible to create a new variable " + varPrefix + "???" + suffix + " : already " +
 				Math.pow(10, VARIABLE_NUMBER_LENGTH) + " of them.");
 	}
+
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("LISTAGG(%s, %s) WITHIN GROUP (ORDER BY NULL)", value, separator);
+	}
 }
@@ -110,6 +110,12 @@ public class PostgreSQLDialectAdapter extends SQL99DialectAdapter {
 		String strType = null;
 		if (type == Types.VARCHAR) {
 			strType = "VARCHAR(10485760)";
+		} else if (type == Types.DECIMAL) {
+			strType = "NUMERIC";
+		} else if (type == Types.DOUBLE) {
+			strType = "DOUBLE PRECISION";
+		} else if (type == Types.TIMESTAMP) {
+			strType = "TIMESTAMP";
 		} else {
 			throw new RuntimeException("Unsupported SQL type");
 		}
@@ -158,6 +164,15 @@ public class PostgreSQLDialectAdapter extends SQL99DialectAdapter {
 		return "SELECT 1";
 	}
 	
+	/**
+	 * The strings are bound with an unspecified type, as the literals in the SQL:
+	 * a varchar parameter cannot be compared with a column of another type
+	 */
+	@Override
+	public int getStringParameterType() {
+		return Types.OTHER;
+	}
+
 	@Override 
 	public String getSQLLexicalFormBoolean(boolean value) {
 		return value ? 	"TRUE" : "FALSE";
@@ -209,4 +224,8 @@ public class PostgreSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("STRING_AGG(%s, %s)", value, separator);
+	}
 }
@@ -21,4 +21,9 @@ public class SAPHANASQLDialectAdapter extends SQL99DialectAdapter {
             }
         }
     }
+
+    @Override
+    public String sqlGroupConcat(String value, String separator) {
+        return String.format("STRING_AGG(%s, %s)", value, separator);
+    }
 }
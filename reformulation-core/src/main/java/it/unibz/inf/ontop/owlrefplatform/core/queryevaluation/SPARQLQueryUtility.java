@@ -28,6 +28,8 @@ import org.openrdf.query.parser.ParsedQuery;
 import org.openrdf.query.parser.ParsedTupleQuery;
 import org.openrdf.query.parser.sparql.SPARQLParser;
 
+import java.util.Collection;
+
 public class SPARQLQueryUtility {
 	
 	private String query;
@@ -182,6 +184,18 @@ public class SPARQLQueryUtility {
 				+ constant + "> ?p ?o}";
 	}
 	
+	/**
+	 * CONSTRUCT query returning the triples in which one of the given URIs
+	 * occurs as a subject or as an object (DESCRIBE of a batch of URIs)
+	 */
+	public static String getConstructDescribeQuery(Collection<String> constants) {
+		StringBuilder values = new StringBuilder();
+		for (String constant : constants)
+			values.append(" <").append(constant).append(">");
+		return "CONSTRUCT { ?s ?p ?o } WHERE { { VALUES ?s {" + values + " } ?s ?p ?o } UNION "
+				+ "{ VALUES ?o {" + values + " } ?s ?p ?o } }";
+	}
+
 	public static String getSelectObjQuery(String constant) {
 		return "SELECT * WHERE { ?s ?p <" + constant + "> }";
 }
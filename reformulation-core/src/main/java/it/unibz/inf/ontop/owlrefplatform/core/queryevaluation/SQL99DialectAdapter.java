@@ -306,6 +306,12 @@ public class SQL99DialectAdapter implements SQLDialectAdapter {
 		String strType = null;
 		if (type == Types.VARCHAR) {
 			strType = "CHAR";
+		} else if (type == Types.DECIMAL) {
+			strType = "DECIMAL";
+		} else if (type == Types.DOUBLE) {
+			strType = "DOUBLE PRECISION";
+		} else if (type == Types.TIMESTAMP) {
+			strType = "TIMESTAMP";
 		} else {
 			throw new RuntimeException("Unsupported SQL type");
 		}
@@ -340,6 +346,11 @@ public class SQL99DialectAdapter implements SQLDialectAdapter {
 
 		return "'" + constant.replaceAll("(?<!')'(?!')","''") + "'";
 	}
+
+	@Override
+	public int getStringParameterType() {
+		return Types.VARCHAR;
+	}
 	
 	@Override 
 	public String getSQLLexicalFormBoolean(boolean value) {
@@ -437,7 +448,8 @@ public class SQL99DialectAdapter implements SQLDialectAdapter {
 
 	
 
-
-
-
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		throw new UnsupportedOperationException("GROUP_CONCAT is not supported in this dialect.");
+	}
 }
@@ -68,6 +68,14 @@ public interface SQLDialectAdapter {
 	public String strConcat(String[] strings);
 
 	public String strReplace(String str, String oldstr, String newstr);
+
+	/**
+	 * Returns the aggregate that concatenates the values of a group (GROUP_CONCAT in SPARQL)
+	 *
+	 * @param value the aggregated column (possibly preceded by DISTINCT)
+	 * @param separator the separator (an SQL string literal)
+	 */
+	public String sqlGroupConcat(String value, String separator);
 	
 	/*
 	 * Table/Column name functions
@@ -101,6 +109,13 @@ public interface SQLDialectAdapter {
 	public String getDummyTable();
 	
 	public String getSQLLexicalFormString(String constant);
+
+	/**
+	 * Returns the JDBC type (a constant from java.sql.Types) with which a string
+	 * is bound to a parameter of a prepared statement in place of the SQL string
+	 * literal of the constant.
+	 */
+	public int getStringParameterType();
 	
 	public String getSQLLexicalFormBoolean(boolean value);
 	
@@ -210,6 +210,12 @@ public class SQLServerSQLDialectAdapter extends SQL99DialectAdapter {
 		String strType = null;
 		if (type == Types.VARCHAR) {
 			strType = "VARCHAR(8000)";
+		} else if (type == Types.DECIMAL) {
+			strType = "DECIMAL(38,10)";
+		} else if (type == Types.DOUBLE) {
+			strType = "FLOAT";
+		} else if (type == Types.TIMESTAMP) {
+			strType = "DATETIME";
 		} else {
 			throw new RuntimeException("Unsupported SQL type");
 		}
@@ -283,5 +289,8 @@ public class SQLServerSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
-
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("STRING_AGG(%s, %s)", value, separator);
+	}
 }
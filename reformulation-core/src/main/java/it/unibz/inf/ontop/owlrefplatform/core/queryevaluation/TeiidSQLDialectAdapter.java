@@ -98,6 +98,12 @@ public class TeiidSQLDialectAdapter extends SQL99DialectAdapter {
 		String strType = null;
 		if (type == Types.VARCHAR) {
 			strType = "VARCHAR";
+		} else if (type == Types.DECIMAL) {
+			strType = "BIGDECIMAL";
+		} else if (type == Types.DOUBLE) {
+			strType = "DOUBLE";
+		} else if (type == Types.TIMESTAMP) {
+			strType = "TIMESTAMP";
 		} else {
 			throw new RuntimeException("Unsupported SQL type");
 		}
@@ -177,4 +183,9 @@ public class TeiidSQLDialectAdapter extends SQL99DialectAdapter {
 		}
 	}
 	
+
+	@Override
+	public String sqlGroupConcat(String value, String separator) {
+		return String.format("STRING_AGG(%s, %s)", value, separator);
+	}
 }
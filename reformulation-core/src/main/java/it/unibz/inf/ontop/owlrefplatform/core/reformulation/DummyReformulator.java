@@ -24,6 +24,7 @@ import it.unibz.inf.ontop.model.DatalogProgram;
 import it.unibz.inf.ontop.model.OBDAException;
 import it.unibz.inf.ontop.ontology.ImmutableOntologyVocabulary;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.LinearInclusionDependencies;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
 import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
 
 /***
@@ -40,6 +41,11 @@ public class DummyReformulator implements QueryRewriter {
 		return input;
 	}
 
+	@Override
+	public DatalogProgram rewrite(DatalogProgram input, QueryTranslationContext context) throws OBDAException {
+		return input;
+	}
+
 	@Override
 	public void setTBox(TBoxReasoner ontology, ImmutableOntologyVocabulary voc, LinearInclusionDependencies sigma) {
 		// NO-OP		
@@ -24,12 +24,19 @@ import it.unibz.inf.ontop.model.DatalogProgram;
 import it.unibz.inf.ontop.model.OBDAException;
 import it.unibz.inf.ontop.ontology.ImmutableOntologyVocabulary;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.LinearInclusionDependencies;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
 import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
 
 public interface QueryRewriter {
 
 	public DatalogProgram rewrite(DatalogProgram input) throws OBDAException;
 
+	/**
+	 * Rewrites the query within the translation context of the query
+	 * (the rewriter itself may be used by several threads at the same time).
+	 */
+	public DatalogProgram rewrite(DatalogProgram input, QueryTranslationContext context) throws OBDAException;
+
 	/***
 	 * Sets the ontology and the ABox dependencies that this rewriter should 
 	 * use to compute any reformulation.
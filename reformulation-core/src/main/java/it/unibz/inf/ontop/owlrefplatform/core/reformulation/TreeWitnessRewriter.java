@@ -38,6 +38,7 @@ import it.unibz.inf.ontop.ontology.DataSomeValuesFrom;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.CQCUtilities;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.CQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.LinearInclusionDependencies;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
 import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
 import it.unibz.inf.ontop.owlrefplatform.core.reformulation.QueryConnectedComponent.Edge;
 import it.unibz.inf.ontop.owlrefplatform.core.reformulation.QueryConnectedComponent.Loop;
@@ -64,7 +65,6 @@ public class TreeWitnessRewriter implements QueryRewriter {
 
 	private TBoxReasoner reasoner;
 	private ImmutableOntologyVocabulary voc;
-	private CQContainmentCheckUnderLIDs dataDependenciesCQC;
 	private LinearInclusionDependencies sigma;
 	
 	private Collection<TreeWitnessGenerator> generators;
@@ -77,7 +77,6 @@ public class TreeWitnessRewriter implements QueryRewriter {
 		this.voc = voc;
 		this.sigma = sigma;
 		
-		dataDependenciesCQC = new CQContainmentCheckUnderLIDs(sigma);
 		
 		generators = TreeWitnessGenerator.getTreeWitnessGenerators(reasoner);
 		
@@ -103,11 +102,8 @@ public class TreeWitnessRewriter implements QueryRewriter {
 		return fac.getFunction(predicate, arguments);
 	}
 	
-	private int freshVarIndex = 0;
-	
-	private Variable getFreshVariable() {
-		freshVarIndex++;
-		return fac.getVariable("twr" + freshVarIndex); 
+	private static Variable getFreshVariable(QueryTranslationContext context) {
+		return fac.getVariable("twr_" + context.getFreshSuffix()); 
 	}
 	
 	/*
@@ -115,7 +111,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 	 * the `free' variable of the generators is replaced by the term r0;
 	 */
 
-	private List<Function> getAtomsForGenerators(Collection<TreeWitnessGenerator> gens, Term r0)  {
+	private List<Function> getAtomsForGenerators(Collection<TreeWitnessGenerator> gens, Term r0, QueryTranslationContext context)  {
 		Collection<ClassExpression> concepts = TreeWitnessGenerator.getMaximalBasicConcepts(gens, reasoner);		
 		List<Function> genAtoms = new ArrayList<>(concepts.size());
 		
@@ -128,12 +124,12 @@ public class TreeWitnessRewriter implements QueryRewriter {
 			else if (con instanceof ObjectSomeValuesFrom) {
 				ObjectPropertyExpression some = ((ObjectSomeValuesFrom)con).getProperty();
 				atom = (!some.isInverse()) ?  
-						fac.getFunction(some.getPredicate(), r0, getFreshVariable()) : 
-							fac.getFunction(some.getPredicate(), getFreshVariable(), r0);  						 
+						fac.getFunction(some.getPredicate(), r0, getFreshVariable(context)) : 
+							fac.getFunction(some.getPredicate(), getFreshVariable(context), r0);  						 
 			}
 			else {
 				DataPropertyExpression some = ((DataSomeValuesFrom)con).getProperty();
-				atom = fac.getFunction(some.getPredicate(), r0, getFreshVariable());
+				atom = fac.getFunction(some.getPredicate(), r0, getFreshVariable(context));
 			}
 			genAtoms.add(atom);
 		}
@@ -146,7 +142,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 	 * rewrites a given connected CQ with the rules put into output
 	 */
 	
-	private List<CQIE> rewriteCC(QueryConnectedComponent cc, Function headAtom,  DatalogProgram edgeDP) {
+	private List<CQIE> rewriteCC(QueryConnectedComponent cc, Function headAtom,  DatalogProgram edgeDP, QueryTranslationContext context) {
 		
 		List<CQIE> outputRules = new LinkedList<>();	
 		String headURI = headAtom.getFunctionSymbol().getName();
@@ -155,7 +151,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 
 		if (cc.hasNoFreeTerms()) {  
 			if (!cc.isDegenerate() || cc.getLoop() != null) 
-				for (Function a : getAtomsForGenerators(tws.getGeneratorsOfDetachedCC(), getFreshVariable())) {
+				for (Function a : getAtomsForGenerators(tws.getGeneratorsOfDetachedCC(), getFreshVariable(context), context)) {
 					outputRules.add(fac.getCQIE(headAtom, a)); 
 				}
 		}
@@ -177,7 +173,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 				twf.add((predicate.getArity() == 1) ? fac.getFunction(predicate, r0) : fac.getFunction(predicate, r0, r0));
 			}
 			
-			List<Function> genAtoms = getAtomsForGenerators(tw.getGenerators(), r0);			
+			List<Function> genAtoms = getAtomsForGenerators(tw.getGenerators(), r0, context);			
 			boolean subsumes = false;
 //			for (Function a : genAtoms) 				
 //				if (twf.subsumes(a)) {
@@ -278,10 +274,15 @@ public class TreeWitnessRewriter implements QueryRewriter {
 		return outputRules;
 	}
 	
-	private double time = 0;
+	private double time = 0; // statistics only, the updates are not synchronized
 	
 	@Override
 	public DatalogProgram rewrite(DatalogProgram dp) {
+		return rewrite(dp, new QueryTranslationContext(dp));
+	}
+
+	@Override
+	public DatalogProgram rewrite(DatalogProgram dp, QueryTranslationContext context) {
 		
 		double startime = System.currentTimeMillis();
 		
@@ -298,7 +299,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 				log.debug("CONNECTED COMPONENT ({})" + " EXISTS {}", cc.getFreeVariables(), cc.getQuantifiedVariables());
 				log.debug("     WITH EDGES {} AND LOOP {}", cc.getEdges(), cc.getLoop());
 				log.debug("     NON-DL ATOMS {}", cc.getNonDLAtoms());
-				outputRules.addAll(rewriteCC(cc, cqieAtom, edgeDP)); 				
+				outputRules.addAll(rewriteCC(cc, cqieAtom, edgeDP, context)); 				
 			}
 			else {
 				if (ccDP == null)
@@ -310,7 +311,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 					log.debug("     WITH EDGES {} AND LOOP {}", cc.getEdges(), cc.getLoop());
 					log.debug("     NON-DL ATOMS {}", cc.getNonDLAtoms());
 					Function ccAtom = getHeadAtom(cqieURI, "_CC_" + (ccDP.getRules().size() + 1), cc.getFreeVariables());
-					List<CQIE> list = rewriteCC(cc, ccAtom, edgeDP); 
+					List<CQIE> list = rewriteCC(cc, ccAtom, edgeDP, context); 
 					ccDP.appendRule(list);
 					ccBody.add(ccAtom);
 				}
@@ -334,7 +335,7 @@ public class TreeWitnessRewriter implements QueryRewriter {
 	
 		// extra CQC 
 		if (outputRules.size() > 1) 
-			CQCUtilities.removeContainedQueries(outputRules, dataDependenciesCQC);
+			CQCUtilities.removeContainedQueries(outputRules, new CQContainmentCheckUnderLIDs(sigma, context));
 		
 		DatalogProgram output = fac.getDatalogProgram(dp.getQueryModifiers(), outputRules);
 		for (CQIE cq : output.getRules())
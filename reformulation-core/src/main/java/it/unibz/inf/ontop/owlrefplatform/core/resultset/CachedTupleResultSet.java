@@ -0,0 +1,95 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.OBDAStatement;
+import it.unibz.inf.ontop.model.TupleResultSet;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryResultCache;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Result set over an answer in the {@link QueryResultCache}.
+ */
+public class CachedTupleResultSet implements TupleResultSet {
+
+	private final List<String> signature;
+	private final List<Constant[]> rows;
+	private final OBDAStatement st;
+
+	private int next = 0;
+	private Constant[] row = null;
+
+	public CachedTupleResultSet(QueryResultCache.Result result, OBDAStatement st) {
+		this.signature = result.getSignature();
+		this.rows = result.getRows();
+		this.st = st;
+	}
+
+	@Override
+	public boolean nextRow() throws OBDAException {
+		if (next == rows.size()) {
+			row = null;
+			return false;
+		}
+		row = rows.get(next++);
+		return true;
+	}
+
+	@Override
+	public Constant getConstant(int column) throws OBDAException {
+		if (row == null)
+			throw new NoSuchElementException();
+		return row[column - 1];
+	}
+
+	@Override
+	public Constant getConstant(String name) throws OBDAException {
+		return getConstant(signature.indexOf(name) + 1);
+	}
+
+	@Override
+	public int getColumnCount() {
+		return signature.size();
+	}
+
+	@Override
+	public List<String> getSignature() {
+		return signature;
+	}
+
+	@Override
+	public int getFetchSize() throws OBDAException {
+		return rows.size();
+	}
+
+	@Override
+	public void close() throws OBDAException {
+	}
+
+	@Override
+	public OBDAStatement getStatement() {
+		return st;
+	}
+}
@@ -0,0 +1,126 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.OBDAStatement;
+import it.unibz.inf.ontop.model.TupleResultSet;
+import it.unibz.inf.ontop.owlrefplatform.core.cache.QueryResultCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result set that copies the rows it returns and, once all of them have
+ * been read, stores them in the {@link QueryResultCache}.
+ *
+ * <p>
+ * The constants of each row are read when the row is reached. The rows are no longer
+ * copied when their weight exceeds the limit of the cache (nor when the result
+ * set is closed before its end): the answer is then not cached.
+ */
+public class CachingTupleResultSet implements TupleResultSet {
+
+	private final TupleResultSet rs;
+	private final QueryResultCache cache;
+	private final String key;
+	private final long generation;
+	private final Set<String> predicates;
+
+	private List<Constant[]> rows = new ArrayList<>(); // null when the rows are not copied
+	private long weight = 0;
+	private Constant[] row = null;
+
+	/**
+	 * @param generation the generation of the cache when the query was started
+	 * @param predicates see {@link QueryResultCache#getPredicates}
+	 */
+	public CachingTupleResultSet(TupleResultSet rs, QueryResultCache cache, String key, long generation, Set<String> predicates) {
+		this.rs = rs;
+		this.cache = cache;
+		this.key = key;
+		this.generation = generation;
+		this.predicates = predicates;
+	}
+
+	@Override
+	public boolean nextRow() throws OBDAException {
+		if (!rs.nextRow()) {
+			row = null;
+			if (rows != null) {
+				cache.put(key, generation, predicates, rs.getSignature(), rows, weight);
+				rows = null;
+			}
+			return false;
+		}
+		if (rows != null) {
+			row = new Constant[rs.getColumnCount()];
+			for (int i = 0; i < row.length; i++)
+				row[i] = rs.getConstant(i + 1);
+			weight += QueryResultCache.weigh(row);
+			if (weight <= cache.getMaxEntryWeight())
+				rows.add(row);
+			else
+				rows = null;
+		}
+		else
+			row = null;
+		return true;
+	}
+
+	@Override
+	public Constant getConstant(int column) throws OBDAException {
+		return (row != null) ? row[column - 1] : rs.getConstant(column);
+	}
+
+	@Override
+	public Constant getConstant(String name) throws OBDAException {
+		return (row != null) ? row[rs.getSignature().indexOf(name)] : rs.getConstant(name);
+	}
+
+	@Override
+	public int getColumnCount() {
+		return rs.getColumnCount();
+	}
+
+	@Override
+	public List<String> getSignature() {
+		return rs.getSignature();
+	}
+
+	@Override
+	public int getFetchSize() throws OBDAException {
+		return rs.getFetchSize();
+	}
+
+	@Override
+	public void close() throws OBDAException {
+		rows = null;
+		rs.close();
+	}
+
+	@Override
+	public OBDAStatement getStatement() {
+		return rs.getStatement();
+	}
+}
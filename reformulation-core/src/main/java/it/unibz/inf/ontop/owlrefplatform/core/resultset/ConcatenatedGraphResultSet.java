@@ -0,0 +1,93 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import it.unibz.inf.ontop.model.GraphResultSet;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.ontology.Assertion;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Concatenation of the graph result sets of a sequence of CONSTRUCT queries
+ * (the batches of a DESCRIBE query). The next query is executed only when the
+ * result set of the previous one is exhausted, so that the queries can share
+ * the same statement and no result is materialized.
+ */
+public class ConcatenatedGraphResultSet implements GraphResultSet {
+
+	private final Iterator<String> queries;
+	private final Function<String, GraphResultSet> executor;
+
+	// results added by addNewResultSet, returned before the ones of the queries
+	private final Deque<List<Assertion>> addedResults = new ArrayDeque<>();
+
+	private GraphResultSet current;
+
+	public ConcatenatedGraphResultSet(Iterator<String> queries, Function<String, GraphResultSet> executor) {
+		this.queries = queries;
+		this.executor = executor;
+	}
+
+	@Override
+	public boolean hasNext() throws OBDAException {
+		if (!addedResults.isEmpty())
+			return true;
+		while (current == null || !current.hasNext()) {
+			if (current != null) {
+				current.close();
+				current = null;
+			}
+			if (!queries.hasNext())
+				return false;
+			current = executor.apply(queries.next());
+		}
+		return true;
+	}
+
+	@Override
+	public List<Assertion> next() throws OBDAException {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		if (!addedResults.isEmpty())
+			return addedResults.poll();
+		return current.next();
+	}
+
+	@Override
+	public void addNewResultSet(List<Assertion> result) {
+		addedResults.add(result);
+	}
+
+	@Override
+	public void close() throws OBDAException {
+		if (current != null) {
+			current.close();
+			current = null;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.OBDAStatement;
+import it.unibz.inf.ontop.model.TupleResultSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Concatenation of the tuple result sets of the components of a query over
+ * several data sources, with the same signature. DISTINCT is enforced on
+ * the rows returned (with a {@link RowFingerprintSet} of the constants),
+ * and then OFFSET and LIMIT.
+ *
+ * <p>
+ * Closing the result set closes the components and then the resources
+ * given (the SQL statements and connections of the components).
+ */
+public class ConcatenatedTupleResultSet implements TupleResultSet {
+
+	private static final HashFunction fingerprint = Hashing.murmur3_128();
+
+	private final List<TupleResultSet> components;
+	private final List<String> signature;
+	private final OBDAStatement st;
+	private final AutoCloseable resources;
+
+	private final RowFingerprintSet distinctKeys; // null if the rows are not distinct
+	private long toSkip;
+	private long remaining;
+
+	private int current = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param distinctMemory the memory budget of DISTINCT (in bytes, negative if the rows are not distinct)
+	 * @param limit the maximal number of rows (-1 for no limit)
+	 * @param offset the number of rows to skip (-1 for none)
+	 */
+	public ConcatenatedTupleResultSet(List<TupleResultSet> components, List<String> signature, OBDAStatement st,
+									  long distinctMemory, long limit, long offset, AutoCloseable resources) {
+		this.components = components;
+		this.signature = signature;
+		this.st = st;
+		this.resources = resources;
+		this.distinctKeys = (distinctMemory >= 0) ? new RowFingerprintSet(distinctMemory) : null;
+		this.toSkip = Math.max(offset, 0);
+		this.remaining = (limit >= 0) ? limit : Long.MAX_VALUE;
+	}
+
+	@Override
+	public boolean nextRow() throws OBDAException {
+		while (remaining > 0 && current < components.size()) {
+			if (!components.get(current).nextRow()) {
+				current++;
+				continue;
+			}
+			if (distinctKeys != null && !isNewRow())
+				continue;
+			if (toSkip > 0) {
+				toSkip--;
+				continue;
+			}
+			remaining--;
+			return true;
+		}
+		close();
+		return false;
+	}
+
+	private boolean isNewRow() throws OBDAException {
+		TupleResultSet component = components.get(current);
+		Hasher hasher = fingerprint.newHasher();
+		for (int column = 1; column <= signature.size(); column++) {
+			Constant c = component.getConstant(column);
+			if (c == null) {
+				hasher.putInt(-1);
+			}
+			else {
+				String string = c.toString();
+				hasher.putInt(string.length()).putUnencodedChars(string);
+			}
+		}
+		ByteBuffer hash = ByteBuffer.wrap(hasher.hash().asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			return distinctKeys.add(hash.getLong(0), hash.getLong(8));
+		}
+		catch (IOException e) {
+			throw new OBDAException("Error storing the rows of a DISTINCT query on disk", e);
+		}
+	}
+
+	@Override
+	public Constant getConstant(int column) throws OBDAException {
+		return components.get(current).getConstant(column);
+	}
+
+	@Override
+	public Constant getConstant(String name) throws OBDAException {
+		return components.get(current).getConstant(name);
+	}
+
+	@Override
+	public int getColumnCount() {
+		return signature.size();
+	}
+
+	@Override
+	public List<String> getSignature() {
+		return signature;
+	}
+
+	@Override
+	public int getFetchSize() throws OBDAException {
+		return components.isEmpty() ? 0 : components.get(0).getFetchSize();
+	}
+
+	@Override
+	public void close() throws OBDAException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			if (distinctKeys != null)
+				distinctKeys.close();
+			for (TupleResultSet component : components)
+				component.close();
+		}
+		finally {
+			try {
+				resources.close();
+			}
+			catch (Exception e) {
+				throw new OBDAException(e);
+			}
+		}
+	}
+
+	@Override
+	public OBDAStatement getStatement() {
+		return st;
+	}
+}
@@ -0,0 +1,255 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.OBDAStatement;
+import it.unibz.inf.ontop.model.TupleResultSet;
+import it.unibz.inf.ontop.model.ValueConstant;
+import it.unibz.inf.ontop.owlrefplatform.core.federation.FederatedQuery;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Join of the result sets of the parts of a CQ over several data sources
+ * (see {@link FederatedQuery.Component}).
+ *
+ * <p>
+ * The rows of all the parts but the first are read into hash tables indexed
+ * by their join columns when the result set is created; the rows of the first
+ * part are streamed and each of them is extended with the matching rows of the
+ * other parts. Rows with a NULL in a join column match no row, as in SQL.
+ *
+ * <p>
+ * The hash tables are bounded by a maximal number of rows (the option
+ * federated_join_max_rows): the result set cannot be created if the parts
+ * but the first have more rows. The numeric and boolean values are compared
+ * by their values, not by their lexical forms (e.g., an integer column in one
+ * source matches a decimal column in another).
+ */
+public class HashJoinTupleResultSet implements TupleResultSet {
+
+	private final List<TupleResultSet> parts;
+	private final FederatedQuery.Component join;
+	private final List<String> signature;
+	private final OBDAStatement st;
+
+	// the rows of each part (but the first) by their join keys
+	private final List<Map<List<Object>, List<Constant[]>>> tables = new ArrayList<>();
+
+	// the current row of each part, the matching rows of each part and the next one to use
+	private final Constant[][] row;
+	private final List<List<Constant[]>> matches = new ArrayList<>();
+	private final int[] positions;
+
+	private boolean started = false;
+
+	/**
+	 * @param parts the result sets of the parts of the join (closed with this result set)
+	 * @param maxRows the maximal number of rows of the hash tables (0 for no limit)
+	 */
+	public HashJoinTupleResultSet(List<TupleResultSet> parts, FederatedQuery.Component join,
+								  List<String> signature, OBDAStatement st, long maxRows) throws OBDAException {
+		this.parts = parts;
+		this.join = join;
+		this.signature = signature;
+		this.st = st;
+		this.row = new Constant[parts.size()][];
+		this.positions = new int[parts.size()];
+
+		tables.add(null);
+		matches.add(null);
+		long rowCount = 0;
+		for (int p = 1; p < parts.size(); p++) {
+			Map<List<Object>, List<Constant[]>> table = new HashMap<>();
+			TupleResultSet rs = parts.get(p);
+			while (rs.nextRow()) {
+				Constant[] values = readRow(rs);
+				List<Object> key = getKey(values, join.getKeyColumns(p));
+				if (key == null)
+					continue;
+				if (maxRows > 0 && ++rowCount > maxRows) {
+					close();
+					throw new OBDAException("The join of the results of several data sources exceeds "
+							+ maxRows + " rows in memory (see federated_join_max_rows)");
+				}
+				List<Constant[]> rows = table.get(key);
+				if (rows == null) {
+					rows = new ArrayList<>(1);
+					table.put(key, rows);
+				}
+				rows.add(values);
+			}
+			rs.close();
+			tables.add(table);
+			matches.add(null);
+		}
+	}
+
+	@Override
+	public boolean nextRow() throws OBDAException {
+		int last = parts.size() - 1;
+		// the deepest part with a next matching row
+		int p = started ? last : 0;
+		started = true;
+		while (true) {
+			if (advance(p)) {
+				if (p == last)
+					return true;
+				p++;
+				List<Object> probe = getProbeKey(p);
+				matches.set(p, (probe != null) ? tables.get(p).get(probe) : null);
+				positions[p] = 0;
+			}
+			else if (p == 0) {
+				return false;
+			}
+			else {
+				p--;
+			}
+		}
+	}
+
+	private boolean advance(int p) throws OBDAException {
+		if (p == 0) {
+			if (!parts.get(0).nextRow())
+				return false;
+			row[0] = readRow(parts.get(0));
+			return true;
+		}
+		List<Constant[]> rows = matches.get(p);
+		if (rows == null || positions[p] == rows.size())
+			return false;
+		row[p] = rows.get(positions[p]++);
+		return true;
+	}
+
+	private List<Object> getProbeKey(int p) {
+		int[][] columns = join.getProbeColumns(p);
+		Object[] key = new Object[columns.length];
+		for (int k = 0; k < columns.length; k++) {
+			Constant value = row[columns[k][0]][columns[k][1] - 1];
+			if (value == null)
+				return null;
+			key[k] = normalize(value);
+		}
+		return Arrays.asList(key);
+	}
+
+	private static List<Object> getKey(Constant[] values, int[] columns) {
+		Object[] key = new Object[columns.length];
+		for (int k = 0; k < columns.length; k++) {
+			Constant value = values[columns[k] - 1];
+			if (value == null)
+				return null;
+			key[k] = normalize(value);
+		}
+		return Arrays.asList(key);
+	}
+
+	/**
+	 * returns the value of a numeric or boolean literal, and the constant itself otherwise
+	 */
+	private static Object normalize(Constant value) {
+		if (value instanceof ValueConstant) {
+			String lexical = ((ValueConstant) value).getValue().trim();
+			switch (((ValueConstant) value).getType()) {
+				case INTEGER:
+				case DECIMAL:
+				case DOUBLE:
+				case FLOAT:
+				case LONG:
+				case INT:
+				case NEGATIVE_INTEGER:
+				case NON_NEGATIVE_INTEGER:
+				case POSITIVE_INTEGER:
+				case NON_POSITIVE_INTEGER:
+				case UNSIGNED_INT:
+					try {
+						// 1, 1.0 and 1.00 are the same number
+						return new BigDecimal(lexical).stripTrailingZeros();
+					}
+					catch (NumberFormatException e) {
+						return value; // NaN and INF
+					}
+				case BOOLEAN:
+					if (lexical.equals("1") || lexical.equalsIgnoreCase("true"))
+						return Boolean.TRUE;
+					if (lexical.equals("0") || lexical.equalsIgnoreCase("false"))
+						return Boolean.FALSE;
+					return value;
+				default:
+					return value;
+			}
+		}
+		return value;
+	}
+
+	private static Constant[] readRow(TupleResultSet rs) throws OBDAException {
+		Constant[] values = new Constant[rs.getColumnCount()];
+		for (int i = 0; i < values.length; i++)
+			values[i] = rs.getConstant(i + 1);
+		return values;
+	}
+
+	@Override
+	public Constant getConstant(int column) throws OBDAException {
+		int[] partColumn = join.getAnswerColumn(column);
+		return row[partColumn[0]][partColumn[1] - 1];
+	}
+
+	@Override
+	public Constant getConstant(String name) throws OBDAException {
+		return getConstant(signature.indexOf(name) + 1);
+	}
+
+	@Override
+	public int getColumnCount() {
+		return signature.size();
+	}
+
+	@Override
+	public List<String> getSignature() {
+		return signature;
+	}
+
+	@Override
+	public int getFetchSize() throws OBDAException {
+		return parts.get(0).getFetchSize();
+	}
+
+	@Override
+	public void close() throws OBDAException {
+		for (TupleResultSet part : parts)
+			part.close();
+	}
+
+	@Override
+	public OBDAStatement getStatement() {
+		return st;
+	}
+}
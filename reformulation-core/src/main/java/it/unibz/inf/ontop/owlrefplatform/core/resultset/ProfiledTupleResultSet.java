@@ -0,0 +1,119 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.OBDAStatement;
+import it.unibz.inf.ontop.model.TupleResultSet;
+import it.unibz.inf.ontop.model.ValueBuilder;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryMetrics;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryProfile;
+import it.unibz.inf.ontop.owlrefplatform.core.metrics.QueryStage;
+
+import java.util.List;
+
+/**
+ * Times the calls to nextRow of a tuple result set (FIRST_ROW and FETCH) and
+ * passes the profile of the query to the metrics once the rows are exhausted
+ * or the result set is closed, whichever comes first.
+ */
+public class ProfiledTupleResultSet implements TupleResultSet {
+
+	private final TupleResultSet rs;
+	private final QueryProfile profile;
+	private final QueryMetrics metrics;
+
+	private boolean first = true;
+	private boolean recorded = false;
+
+	public ProfiledTupleResultSet(TupleResultSet rs, QueryProfile profile, QueryMetrics metrics) {
+		this.rs = rs;
+		this.profile = profile;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public boolean nextRow() throws OBDAException {
+		long start = System.nanoTime();
+		boolean next = rs.nextRow();
+		profile.addSince(QueryStage.FETCH, start);
+		if (first) {
+			profile.addSince(QueryStage.FIRST_ROW, start);
+			first = false;
+		}
+		if (!next)
+			record();
+		return next;
+	}
+
+	private void record() {
+		if (!recorded) {
+			recorded = true;
+			metrics.record(profile);
+		}
+	}
+
+	@Override
+	public Constant getConstant(int column) throws OBDAException {
+		return rs.getConstant(column);
+	}
+
+	@Override
+	public Constant getConstant(String name) throws OBDAException {
+		return rs.getConstant(name);
+	}
+
+	@Override
+	public <T> T getValue(int column, ValueBuilder<T> builder) throws OBDAException {
+		return rs.getValue(column, builder);
+	}
+
+	@Override
+	public int getColumnCount() {
+		return rs.getColumnCount();
+	}
+
+	@Override
+	public List<String> getSignature() {
+		return rs.getSignature();
+	}
+
+	@Override
+	public int getFetchSize() throws OBDAException {
+		return rs.getFetchSize();
+	}
+
+	@Override
+	public void close() throws OBDAException {
+		try {
+			rs.close();
+		}
+		finally {
+			record();
+		}
+	}
+
+	@Override
+	public OBDAStatement getStatement() {
+		return rs.getStatement();
+	}
+}
@@ -20,34 +20,45 @@ package it.unibz.inf.ontop.owlrefplatform.core.resultset;
  * #L%
  */
 
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import it.unibz.inf.ontop.model.Constant;
 import it.unibz.inf.ontop.model.OBDAException;
 import it.unibz.inf.ontop.model.OBDAStatement;
 import it.unibz.inf.ontop.model.TupleResultSet;
 import it.unibz.inf.ontop.owlrefplatform.core.QuestStatement;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.sql.ResultSet;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Class to handle distinct in SPARQL query. Avoid returning duplicate rows.
  * See test case DistinctResultSetTest
+ * 
+ * <p>
+ * Each row is identified by a 128-bit fingerprint of its SQL values (type, language 
+ * and value of each column). The fingerprints of the rows returned so far are kept
+ * in a {@link RowFingerprintSet}, which spills to disk beyond the memory budget 
+ * of Quest (see QuestPreferences.DISTINCT_RESULTSET_MEMORY).
  */
 
 public class QuestDistinctTupleResultSet implements TupleResultSet {
 
-    private QuestTupleResultSet questTupleResultSet;
+    private static final HashFunction fingerprint = Hashing.murmur3_128();
 
-    private Set<List<Object>> distinctKeys;
+    private final QuestTupleResultSet questTupleResultSet;
+
+    private final RowFingerprintSet distinctKeys;
 
     public QuestDistinctTupleResultSet(ResultSet set, List<String> signature, QuestStatement st) throws OBDAException {
 
         questTupleResultSet = new QuestTupleResultSet(set, signature, st);
 
-        distinctKeys = new HashSet<>();
+        distinctKeys = new RowFingerprintSet(st.questInstance.getDistinctResultSetMemory());
 
     }
 
@@ -69,7 +80,7 @@ public class QuestDistinctTupleResultSet implements TupleResultSet {
 
     @Override
     public void close() throws OBDAException {
-        distinctKeys.clear();
+        distinctKeys.close();
         questTupleResultSet.close();
 
     }
@@ -83,29 +94,37 @@ public class QuestDistinctTupleResultSet implements TupleResultSet {
     public boolean nextRow() throws OBDAException {
         // return the row only if it is not a duplicate
 
-        boolean next = false;
-        
-        List<Object> row = null; 
-        do{
-            next = questTupleResultSet.nextRow();
-            if (next) {
-                row = new ArrayList<>();
-                for (int i = 1; i <= getSignature().size();  i ++ ) {
-                    
-                    int column = i * 3;
-                    row.add(questTupleResultSet.getRawObject(column-2));  //type
-                    row.add(questTupleResultSet.getRawObject(column-1)); //lang
-                    row.add(questTupleResultSet.getRawObject(column)); //value
-                    
-                }
-            }
-            else{
-                distinctKeys.clear();
-                break;
+        try {
+            while (questTupleResultSet.nextRow()) {
+                Hasher hasher = fingerprint.newHasher();
+                int columns = 3 * getSignature().size();
+                for (int column = 1; column <= columns; column++)
+                    putValue(hasher, questTupleResultSet.getRawObject(column));  // type, lang, value
+
+                ByteBuffer hash = ByteBuffer.wrap(hasher.hash().asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+                if (distinctKeys.add(hash.getLong(0), hash.getLong(8)))
+                    return true;
             }
-        }while( !distinctKeys.add(row) );
-        
-        return next;
+        }
+        catch (IOException e) {
+            throw new OBDAException("Error storing the rows of a DISTINCT query on disk", e);
+        }
+        distinctKeys.close();
+        return false;
+    }
+
+    private static void putValue(Hasher hasher, Object value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        }
+        else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            hasher.putInt(bytes.length).putBytes(bytes);
+        }
+        else {
+            String string = value.toString();
+            hasher.putInt(string.length()).putUnencodedChars(string);
+        }
     }
 
     @Override
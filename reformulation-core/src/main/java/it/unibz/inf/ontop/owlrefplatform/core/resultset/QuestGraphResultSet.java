@@ -33,78 +33,64 @@ import org.openrdf.model.impl.LiteralImpl;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.query.algebra.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
+/**
+ * Graph result set of a CONSTRUCT or DESCRIBE query. The triples are built
+ * lazily from the current row of the underlying tuple result set, so nothing
+ * but the current row is held in memory.
+ */
 public class QuestGraphResultSet implements GraphResultSet {
 
-	private List<List<Assertion>> results = new ArrayList<>();
+	// results added by addNewResultSet, returned before the ones of the tuple result set
+	private final Deque<List<Assertion>> addedResults = new ArrayDeque<>();
 
-	private TupleResultSet tupleResultSet;
+	private final TupleResultSet tupleResultSet;
 
+	private final SesameConstructTemplate sesameTemplate;
 
-	private SesameConstructTemplate sesameTemplate;
+	private final Map<String, ValueExpr> extMap;
 
-	List<ExtensionElem> extList = null;
-	
-	Map<String, ValueExpr> extMap = null;
-	
-	//store results in case of describe queries
-	private boolean storeResults = false;
+	// true if the cursor has been moved by hasNext but the row has not been returned by next yet
+	private boolean rowAvailable = false;
 
-	private OBDADataFactory dfac = OBDADataFactoryImpl.getInstance();
-	private AssertionFactory ofac = AssertionFactoryImpl.getInstance();
+	private final OBDADataFactory dfac = OBDADataFactoryImpl.getInstance();
+	private final AssertionFactory ofac = AssertionFactoryImpl.getInstance();
 
-	public QuestGraphResultSet(TupleResultSet results, SesameConstructTemplate template,
-			boolean storeResult) throws OBDAException {
+	public QuestGraphResultSet(TupleResultSet results, SesameConstructTemplate template) throws OBDAException {
 		this.tupleResultSet = results;
 		this.sesameTemplate = template;
-		this.storeResults = storeResult;
-		processResultSet(tupleResultSet, sesameTemplate);
-	}
 
-    private void processResultSet(TupleResultSet resSet, SesameConstructTemplate template)
-			throws OBDAException {
-		if (storeResults) {
-			//process current result set into local buffer, 
-			//since additional results will be collected
-			while (resSet.nextRow()) {
-				this.results.add(processResults(resSet, template));
-			}
+		Extension ex = template.getExtension();
+		if (ex != null) {
+			extMap = new HashMap<>();
+			for (ExtensionElem anExtList : ex.getElements())
+				extMap.put(anExtList.getName(), anExtList.getExpr());
 		}
+		else
+			extMap = null;
 	}
-	
+
 	@Override
 	public void addNewResultSet(List<Assertion> result)
 	{
-		results.add(result);
+		addedResults.add(result);
 	}
 
 	/**
 	 * The method to actually process the current result set Row.
 	 * Construct a list of assertions from the current result set row.
-	 * In case of describe it is called to process and store all 
-	 * the results from a resultset.
-	 * In case of construct it is called upon next, to process
-	 * the only current result set.
 	 */
 	private List<Assertion> processResults(TupleResultSet result,
 			SesameConstructTemplate template) throws OBDAException {
 		List<Assertion> tripleAssertions = new ArrayList<>();
 		List<ProjectionElemList> peLists = template.getProjectionElemList();
-		
-		Extension ex = template.getExtension();
-		if (ex != null) 
-			{
-				extList = ex.getElements();
-				Map<String, ValueExpr> newExtMap = new HashMap<>();
-                for (ExtensionElem anExtList : extList) {
-                    newExtMap.put(anExtList.getName(), anExtList.getExpr());
-                }
-				extMap = newExtMap;
-			}
 		for (ProjectionElemList peList : peLists) {
 		int size = peList.getElements().size();
 		
@@ -143,24 +129,22 @@ public class QuestGraphResultSet implements GraphResultSet {
 	
 	@Override
 	public boolean hasNext() throws OBDAException {
-		//in case of describe, we return the collected results list information
-		if (storeResults) {
-			return results.size() != 0;
-		} else {
-			//in case of construct advance the result set cursor on hasNext
-			return tupleResultSet.nextRow();
-		}
+		if (!addedResults.isEmpty())
+			return true;
+		// hasNext may be called several times before next
+		if (!rowAvailable)
+			rowAvailable = tupleResultSet.nextRow();
+		return rowAvailable;
 	}
 
 	@Override
 	public List<Assertion> next() throws OBDAException {
-		//if we collect results, then remove and return the next one in the list
-		if (results.size() > 0) {
-			return results.remove(0);
-		} else {
-			//otherwise we need to process the unstored result
-			return processResults(tupleResultSet, sesameTemplate);
-		}
+		if (!hasNext())
+			throw new NoSuchElementException();
+		if (!addedResults.isEmpty())
+			return addedResults.poll();
+		rowAvailable = false;
+		return processResults(tupleResultSet, sesameTemplate);
 	}
 
 	private Constant getConstant(ProjectionElem node, TupleResultSet resSet)
@@ -32,6 +32,7 @@ import java.net.URISyntaxException;
 import java.sql.*;
 import java.sql.ResultSet;
 import java.text.*;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -43,12 +44,19 @@ public class QuestTupleResultSet implements TupleResultSet {
 	private final QuestStatement st;
 	private final List<String> signature;
 	
-	private static final DecimalFormat formatter = new DecimalFormat("0.0###E0");
+	// not thread-safe, hence one per result set
+	private final DecimalFormat formatter = new DecimalFormat("0.0###E0");
+
+	// the types indexed by their codes (replaces the map lookup in COL_TYPE.getQuestType)
+	private static final COL_TYPE[] typesByCode;
 
 	static {
-		DecimalFormatSymbols symbol = DecimalFormatSymbols.getInstance();
-		symbol.setDecimalSeparator('.');
-		formatter.setDecimalFormatSymbols(symbol);
+		int max = 0;
+		for (COL_TYPE type : COL_TYPE.values())
+			max = Math.max(max, type.getQuestCode());
+		typesByCode = new COL_TYPE[max + 1];
+		for (int code = 0; code <= max; code++)
+			typesByCode[code] = COL_TYPE.getQuestType(code);
 	}
 	
 	private final Map<String, Integer> columnMap;
@@ -56,7 +64,36 @@ public class QuestTupleResultSet implements TupleResultSet {
 
 	private int bnodeCounter = 0;
 
-	private final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+	// the constants of the current row, each column is decoded at most once
+	private final Constant[] row;
+	private final boolean[] decoded;
+
+	private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+	// builds the constants returned by getConstant
+	private static final ValueBuilder<Constant> constants = new ValueBuilder<Constant>() {
+		@Override
+		public Constant getURI(String uri) {
+			return fac.getConstantURI(uri);
+		}
+
+		@Override
+		public Constant getBNode(String name) {
+			return fac.getConstantBNode(name);
+		}
+
+		@Override
+		public Constant getLiteral(String value, String language) {
+			return (language == null) ? fac.getConstantLiteral(value) : fac.getConstantLiteral(value, language);
+		}
+
+		@Override
+		public Constant getLiteral(String value, COL_TYPE type) {
+			if (type == COL_TYPE.BOOLEAN)
+				return fac.getBooleanConstant(value.equals("true"));
+			return fac.getConstantLiteral(value, type);
+		}
+	};
 	private final SemanticIndexURIMap uriMap;
 	
 	private final boolean isOracle;
@@ -79,19 +116,34 @@ public class QuestTupleResultSet implements TupleResultSet {
 	 * @throws OBDAException
 	 */
 	public QuestTupleResultSet(ResultSet set, List<String> signature, QuestStatement st) throws OBDAException {
+		this(set, signature, st, st.questInstance.getUriMap(), st.questInstance.getMetaData());
+	}
+
+	/**
+	 * @param uriMap the Semantic Index dictionary (null in virtual mode)
+	 * @param metadata the metadata of the database (for the driver name and version)
+	 */
+	QuestTupleResultSet(ResultSet set, List<String> signature, QuestStatement st,
+			SemanticIndexURIMap uriMap, DBMetadata metadata) {
 		this.rs = set;
 		this.st = st;
-		this.uriMap = st.questInstance.getUriMap();
+		this.uriMap = uriMap;
 		this.signature = signature;
 		
+		DecimalFormatSymbols symbol = DecimalFormatSymbols.getInstance();
+		symbol.setDecimalSeparator('.');
+		formatter.setDecimalFormatSymbols(symbol);
+		
 		columnMap = new HashMap<>(signature.size() * 2);
 		bnodeMap = new HashMap<>(1000);
 
 		for (int j = 1; j <= signature.size(); j++) {
 			columnMap.put(signature.get(j - 1), j);
 		}
+		
+		row = new Constant[signature.size()];
+		decoded = new boolean[signature.size()];
 
-		DBMetadata metadata = st.questInstance.getMetaData();
 		String vendor =  metadata.getDriverName();
 		isOracle = vendor.contains("Oracle");
 		isMsSQL = vendor.contains("SQL Server");
@@ -133,6 +185,7 @@ public class QuestTupleResultSet implements TupleResultSet {
 
 	@Override
     public boolean nextRow() throws OBDAException {
+		Arrays.fill(decoded, false);
 		try {
 			return rs.next();
 		} catch (SQLException e) {
@@ -140,6 +193,23 @@ public class QuestTupleResultSet implements TupleResultSet {
 		}
 	}
 
+	/**
+	 * Reads the next rows of the result set (at most maxRows) into the given buffers:
+	 * columns[i][r] receives the constant in column i + 1 of the r-th row read.
+	 * The buffers can be reused from one batch to the next.
+	 * 
+	 * @return the number of rows read (less than maxRows only at the end of the result set)
+	 */
+	public int nextBatch(Constant[][] columns, int maxRows) throws OBDAException {
+		int rows = 0;
+		while (rows < maxRows && nextRow()) {
+			for (int i = 0; i < columns.length; i++) 
+				columns[i][rows] = getConstant(i + 1);
+			rows++;
+		}
+		return rows;
+	}
+
 	@Override
     public void close() throws OBDAException {
 		try {
@@ -169,150 +239,200 @@ public class QuestTupleResultSet implements TupleResultSet {
 	 */
 	@Override
 	public Constant getConstant(int column) throws OBDAException {
+		if (!decoded[column - 1]) {
+			row[column - 1] = decode(column, constants);
+			decoded[column - 1] = true;
+		}
+		return row[column - 1];
+	}
+	
+	/***
+	 * Builds the value at column "column" (starting at 1) directly from the
+	 * JDBC row, without creating a constant. The value is not kept: each call
+	 * reads the database row again.
+	 */
+	@Override
+	public <T> T getValue(int column, ValueBuilder<T> builder) throws OBDAException {
+		if (decoded[column - 1])
+			return builder.getValue(row[column - 1]);
+		return decode(column, builder);
+	}
+	
+	/***
+	 * Reads the type code first and then the value, once, with the JDBC 
+	 * accessor of its type.
+	 */
+	private <T> T decode(int column, ValueBuilder<T> builder) throws OBDAException {
 		column = column * 3; // recall that the real SQL result set has 3
 								// columns per value. From each group of 3 the actual value is the
 								// 3rd column, the 2nd is the language, the 1st is the type code (an integer)
 
-		Constant result = null;
-		String value = "";
+		T result = null;
+		String value = null;
 
 		try {
-			value = rs.getString(column);
-		    
-			if (value == null) {
-				return null;
-			} 
-			else {
-				int t = rs.getInt(column - 2);
-			    COL_TYPE type = COL_TYPE.getQuestType(t);
-			    if (type == null)
-			    	throw new RuntimeException("typeCode unknown: " + t);
+			int t = rs.getInt(column - 2);
+			COL_TYPE type = (t >= 0 && t < typesByCode.length) ? typesByCode[t] : null;
+			if (type == null) {
+				if (rs.getString(column) == null)
+					return null;
+				throw new RuntimeException("typeCode unknown: " + t);
+			}
 			    
-				switch (type) {
-				case NULL:
-					result = null;
-					break;
+			switch (type) {
+			case NULL:
+				result = null;
+				break;
 					
-				case OBJECT:
-					if (uriMap != null) {
-						try {
-							Integer id = Integer.parseInt(value);
-							value = uriMap.getURI(id);
-						} 
-						catch (NumberFormatException e) {
-							 // If its not a number, then it has to be a URI, so
-							 // we leave realValue as it is.
-						}
+			case OBJECT:
+				value = rs.getString(column);
+				if (value == null)
+					return null;
+				if (uriMap != null) {
+					int id = parseURIId(value);
+					// If its not a number, then it has to be a URI, so
+					// we leave realValue as it is.
+					if (id >= 0) {
+						String uri = uriMap.getURI(id);
+						if (uri == null)
+							throw new OBDAException("Unknown URI id in the Semantic Index: " + id);
+						value = uri;
 					}
-					result = fac.getConstantURI(value.trim());
-					break;
+				}
+				result = builder.getURI(value.trim());
+				break;
 					
-				case BNODE:
-					String scopedLabel = this.bnodeMap.get(value);
-					if (scopedLabel == null) {
-						scopedLabel = "b" + bnodeCounter;
-						bnodeCounter += 1;
-						bnodeMap.put(value, scopedLabel);
-					}
-					result = fac.getConstantBNode(scopedLabel);
-					break;
+			case BNODE:
+				value = rs.getString(column);
+				if (value == null)
+					return null;
+				String scopedLabel = this.bnodeMap.get(value);
+				if (scopedLabel == null) {
+					scopedLabel = "b" + bnodeCounter;
+					bnodeCounter += 1;
+					bnodeMap.put(value, scopedLabel);
+				}
+				result = builder.getBNode(scopedLabel);
+				break;
 					
-				case LITERAL:
-					// The constant is a literal, we need to find if its
-					// rdfs:Literal or a normal literal and construct it
-					// properly.
-					String language = rs.getString(column - 1);
-					if (language == null || language.trim().equals("")) 
-						result = fac.getConstantLiteral(value);
-					else 
-						result = fac.getConstantLiteral(value, language);
-					break;
+			case LITERAL:
+				// The constant is a literal, we need to find if its
+				// rdfs:Literal or a normal literal and construct it
+				// properly.
+				value = rs.getString(column);
+				if (value == null)
+					return null;
+				String language = rs.getString(column - 1);
+				if (language == null || language.trim().equals("")) 
+					result = builder.getLiteral(value, (String)null);
+				else 
+					result = builder.getLiteral(value, language);
+				break;
 					
-				case BOOLEAN:
-					boolean bvalue = rs.getBoolean(column);
-					result = fac.getBooleanConstant(bvalue);
-					break;
+			case BOOLEAN:
+				boolean bvalue = rs.getBoolean(column);
+				if (rs.wasNull())
+					return null;
+				result = builder.getLiteral(bvalue ? "true" : "false", COL_TYPE.BOOLEAN);
+				break;
 				
-				case DOUBLE:
-					double d = rs.getDouble(column);
-					String s = formatter.format(d); // format name into correct double representation
-					result = fac.getConstantLiteral(s, COL_TYPE.DOUBLE);
-					break;
+			case DOUBLE:
+				double d = rs.getDouble(column);
+				if (rs.wasNull())
+					return null;
+				String s = formatter.format(d); // format name into correct double representation
+				result = builder.getLiteral(s, COL_TYPE.DOUBLE);
+				break;
 					
-				case DATETIME:
-                    /** set.getTimestamp() gives problem with MySQL and Oracle drivers we need to specify the dateformat
-                    MySQL DateFormat ("MMM DD YYYY HH:mmaa");
-                    Oracle DateFormat "dd-MMM-yy HH.mm.ss.SSSSSS aa" For oracle driver v.11 and less
-                    Oracle "dd-MMM-yy HH:mm:ss,SSSSSS" FOR ORACLE DRIVER 12.1.0.2
-                    To overcome the problem we create a new Timestamp */
-                    try {
-                        Timestamp tsvalue = rs.getTimestamp(column);
-                        result = fac.getConstantLiteral(tsvalue.toString().replace(' ', 'T'), COL_TYPE.DATETIME);
-                    }
-                    catch (Exception e) {
-                        if (isMsSQL || isOracle) {
-                            try {
-                            	java.util.Date date = dateFormat.parse(value);
-                                Timestamp ts = new Timestamp(date.getTime());
-                                result = fac.getConstantLiteral(ts.toString().replace(' ', 'T'), COL_TYPE.DATETIME);
-                            } 
-                            catch (ParseException pe) {
-                                throw new RuntimeException(pe);
-                            }
+			case DATETIME:
+                /** set.getTimestamp() gives problem with MySQL and Oracle drivers we need to specify the dateformat
+                MySQL DateFormat ("MMM DD YYYY HH:mmaa");
+                Oracle DateFormat "dd-MMM-yy HH.mm.ss.SSSSSS aa" For oracle driver v.11 and less
+                Oracle "dd-MMM-yy HH:mm:ss,SSSSSS" FOR ORACLE DRIVER 12.1.0.2
+                To overcome the problem we create a new Timestamp */
+                try {
+                    Timestamp tsvalue = rs.getTimestamp(column);
+                    if (tsvalue == null)
+                    	return null;
+                    result = builder.getLiteral(tsvalue.toString().replace(' ', 'T'), COL_TYPE.DATETIME);
+                }
+                catch (Exception e) {
+                    if (isMsSQL || isOracle) {
+                        try {
+                        	value = rs.getString(column);
+                        	java.util.Date date = dateFormat.parse(value);
+                            Timestamp ts = new Timestamp(date.getTime());
+                            result = builder.getLiteral(ts.toString().replace(' ', 'T'), COL_TYPE.DATETIME);
                         } 
-                        else
-                            throw new RuntimeException(e);
-                    }
-                    break;
+                        catch (ParseException pe) {
+                            throw new RuntimeException(pe);
+                        }
+                    } 
+                    else
+                        throw new RuntimeException(e);
+                }
+                break;
                
-				case DATETIME_STAMP:    
-					if (!isOracle) {
-						result = fac.getConstantLiteral(value.replaceFirst(" ", "T").replaceAll(" ", ""), COL_TYPE.DATETIME_STAMP);					
-					}
-					else {
-						/* oracle has the type timestamptz. The format returned by getString is not a valid xml format
-						we need to transform it. We first take the information about the timezone value, that is lost
-						during the conversion in java.util.Date and then we proceed with the conversion. */
-						try {
-							int indexTimezone = value.lastIndexOf(" ");
-							String timezone = value.substring(indexTimezone+1);
-							String datetime = value.substring(0, indexTimezone);
+			case DATETIME_STAMP:    
+				value = rs.getString(column);
+				if (value == null)
+					return null;
+				if (!isOracle) {
+					result = builder.getLiteral(value.replaceFirst(" ", "T").replaceAll(" ", ""), COL_TYPE.DATETIME_STAMP);					
+				}
+				else {
+					/* oracle has the type timestamptz. The format returned by getString is not a valid xml format
+					we need to transform it. We first take the information about the timezone value, that is lost
+					during the conversion in java.util.Date and then we proceed with the conversion. */
+					try {
+						int indexTimezone = value.lastIndexOf(" ");
+						String timezone = value.substring(indexTimezone+1);
+						String datetime = value.substring(0, indexTimezone);
 							
-							java.util.Date date = dateFormat.parse(datetime);
-							Timestamp ts = new Timestamp(date.getTime());
-							result = fac.getConstantLiteral(ts.toString().replaceFirst(" ", "T").replaceAll(" ", "")+timezone, COL_TYPE.DATETIME_STAMP);
-						} 
-						catch (ParseException pe) {
-							throw new RuntimeException(pe);
-						}
+						java.util.Date date = dateFormat.parse(datetime);
+						Timestamp ts = new Timestamp(date.getTime());
+						result = builder.getLiteral(ts.toString().replaceFirst(" ", "T").replaceAll(" ", "")+timezone, COL_TYPE.DATETIME_STAMP);
+					} 
+					catch (ParseException pe) {
+						throw new RuntimeException(pe);
 					}
-					break;
+				}
+				break;
 					
-				case DATE:
-					if (!isOracle) {
-						Date dvalue = rs.getDate(column);
-						result = fac.getConstantLiteral(dvalue.toString(), COL_TYPE.DATE);
+			case DATE:
+				if (!isOracle) {
+					Date dvalue = rs.getDate(column);
+					if (dvalue == null)
+						return null;
+					result = builder.getLiteral(dvalue.toString(), COL_TYPE.DATE);
+				} 
+				else {
+					value = rs.getString(column);
+					if (value == null)
+						return null;
+					try {
+						DateFormat df = new SimpleDateFormat("dd-MMM-yy" ,  Locale.ENGLISH);
+						java.util.Date date = df.parse(value);
 					} 
-					else {
-						try {
-							DateFormat df = new SimpleDateFormat("dd-MMM-yy" ,  Locale.ENGLISH);
-							java.util.Date date = df.parse(value);
-						} 
-						catch (ParseException e) {
-							throw new RuntimeException(e);
-						}
-						result = fac.getConstantLiteral(value.toString(), COL_TYPE.DATE);
+					catch (ParseException e) {
+						throw new RuntimeException(e);
 					}
-					break;
+					result = builder.getLiteral(value.toString(), COL_TYPE.DATE);
+				}
+				break;
 					
-				case TIME:
-					Time tvalue = rs.getTime(column);						
-					result = fac.getConstantLiteral(tvalue.toString().replace(' ', 'T'), COL_TYPE.TIME);
-					break;
+			case TIME:
+				Time tvalue = rs.getTime(column);
+				if (tvalue == null)
+					return null;
+				result = builder.getLiteral(tvalue.toString().replace(' ', 'T'), COL_TYPE.TIME);
+				break;
 				
-				default:
-					result = fac.getConstantLiteral(value, type);
-				}
+			default:
+				value = rs.getString(column);
+				if (value == null)
+					return null;
+				result = builder.getLiteral(value, type);
 			}
 		} 
 		catch (IllegalArgumentException e) {
@@ -343,6 +463,24 @@ public class QuestTupleResultSet implements TupleResultSet {
 		return result;
 	}
 
+	/**
+	 * Returns the Semantic Index id of a URI or -1 if the value is not an id
+	 * (avoids the exceptions of Integer.parseInt on URIs)
+	 */
+	private static int parseURIId(String value) {
+		int length = value.length();
+		if (length == 0 || length > 10)
+			return -1;
+		long id = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			id = id * 10 + (c - '0');
+		}
+		return (id <= Integer.MAX_VALUE) ? (int)id : -1;
+	}
+
 
 	@Override
 	public Constant getConstant(String name) throws OBDAException {
@@ -0,0 +1,397 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+/*
+ * #%L
+ * ontop-reformulation-core
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of 128-bit row fingerprints with a bounded memory footprint.
+ * 
+ * <p>
+ * The fingerprints are kept in an open-addressing hash table of primitive longs.
+ * When the table reaches the memory budget, its content is sorted and written
+ * to a temporary file (a run), and the table is emptied. A lookup then checks 
+ * the table and each run: the runs have a sparse index in memory, so that at
+ * most one block is read from each run. When there are eight runs, they are
+ * merged into a single one, so that a lookup never reads more than eight blocks.
+ * 
+ * <p>
+ * The set only answers membership: the rows themselves are not buffered, so
+ * spilling does not change the order in which they are returned.
+ * 
+ * <p>
+ * Not thread-safe. The temporary files are deleted by {@link #close()}.
+ */
+public class RowFingerprintSet {
+
+	private static final int ENTRY_SIZE = 16; // bytes per fingerprint
+	private static final int BLOCK_SIZE = 256; // fingerprints per block of a run
+	private static final int MIN_CAPACITY = 1024;
+	private static final int MAX_CAPACITY = 1 << 29;
+	private static final int MAX_RUNS = 8; // number of runs before they are merged
+
+	private final int maxEntries; // number of fingerprints in memory before spilling
+
+	private long[] table; // pairs (hi, lo), (0, 0) is a free slot
+	private int capacity; // number of slots (a power of 2)
+	private int size;
+
+	private final List<Run> runs = new ArrayList<>();
+
+	/**
+	 * @param memoryBudget approximate number of bytes used by the in-memory table
+	 */
+	public RowFingerprintSet(long memoryBudget) {
+		// at most half of the slots are used (the table grows up to 2 * maxEntries slots)
+		long entries = Math.max(MIN_CAPACITY / 2, Math.min(memoryBudget / (2 * ENTRY_SIZE), MAX_CAPACITY / 2));
+		this.maxEntries = Integer.highestOneBit((int) entries);
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Adds the fingerprint to the set.
+	 * 
+	 * @return true if the fingerprint was not in the set
+	 */
+	public boolean add(long hi, long lo) throws IOException {
+		if (hi == 0 && lo == 0)
+			lo = 1; // (0, 0) marks the free slots 
+
+		int slot = find(table, capacity, hi, lo);
+		if (table[slot] != 0 || table[slot + 1] != 0)
+			return false;
+
+		for (Run run : runs)
+			if (run.contains(hi, lo))
+				return false;
+
+		table[slot] = hi;
+		table[slot + 1] = lo;
+		size++;
+
+		if (size >= maxEntries)
+			spill();
+		else if (2 * size > capacity)
+			rehash(2 * capacity);
+		return true;
+	}
+
+	/**
+	 * Number of runs written to disk so far
+	 */
+	public int getSpilledRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Empties the set and deletes the temporary files
+	 */
+	public void close() {
+		for (Run run : runs)
+			run.delete();
+		runs.clear();
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		this.capacity = capacity;
+		this.table = new long[2 * capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the index in the table of the fingerprint or of the free slot where it should go
+	 */
+	private static int find(long[] table, int capacity, long hi, long lo) {
+		int mask = capacity - 1;
+		int i = (int) (hi ^ (hi >>> 32)) & mask;
+		while (true) {
+			int slot = 2 * i;
+			long h = table[slot], l = table[slot + 1];
+			if ((h == hi && l == lo) || (h == 0 && l == 0))
+				return slot;
+			i = (i + 1) & mask;
+		}
+	}
+
+	private void rehash(int newCapacity) {
+		long[] old = table;
+		int oldSize = size;
+		allocate(newCapacity);
+		for (int slot = 0; slot < old.length; slot += 2) 
+			if (old[slot] != 0 || old[slot + 1] != 0) {
+				int s = find(table, capacity, old[slot], old[slot + 1]);
+				table[s] = old[slot];
+				table[s + 1] = old[slot + 1];
+			}
+		size = oldSize;
+	}
+
+	private void spill() throws IOException {
+		// compact and sort the fingerprints
+		int n = 0;
+		for (int slot = 0; slot < table.length; slot += 2) 
+			if (table[slot] != 0 || table[slot + 1] != 0) {
+				table[2 * n] = table[slot];
+				table[2 * n + 1] = table[slot + 1];
+				n++;
+			}
+		sort(table, 0, n - 1);
+		RunWriter writer = new RunWriter(n);
+		try {
+			for (int i = 0; i < n; i++)
+				writer.write(table[2 * i], table[2 * i + 1]);
+			runs.add(writer.finish());
+		}
+		finally {
+			writer.close();
+		}
+		allocate(MIN_CAPACITY);
+
+		if (runs.size() >= MAX_RUNS)
+			merge();
+	}
+
+	/**
+	 * k-way merge of all the runs into a single one (the runs are disjoint, 
+	 * and k is small enough for a linear scan of the heads)
+	 */
+	private void merge() throws IOException {
+		int k = runs.size();
+		long total = 0;
+		for (Run run : runs)
+			total += run.size;
+		if (total > Integer.MAX_VALUE)
+			return; // keep the runs as they are
+
+		DataInputStream[] in = new DataInputStream[k];
+		int[] remaining = new int[k];
+		long[] heads = new long[2 * k];
+		RunWriter writer = new RunWriter((int) total);
+		Run merged;
+		try {
+			for (int r = 0; r < k; r++) {
+				Run run = runs.get(r);
+				in[r] = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), 1 << 16));
+				remaining[r] = run.size;
+				advance(in, remaining, heads, r);
+			}
+			while (true) {
+				int min = -1;
+				for (int r = 0; r < k; r++)
+					if (remaining[r] >= 0 && (min == -1 || compare(heads, r, heads[2 * min], heads[2 * min + 1]) < 0))
+						min = r;
+				if (min == -1)
+					break;
+				writer.write(heads[2 * min], heads[2 * min + 1]);
+				advance(in, remaining, heads, min);
+			}
+			merged = writer.finish();
+		}
+		finally {
+			writer.close();
+			for (DataInputStream s : in)
+				if (s != null)
+					s.close();
+		}
+		// the files are deleted once their streams are closed (deleting an open file fails on Windows)
+		for (Run run : runs)
+			run.delete();
+		runs.clear();
+		runs.add(merged);
+	}
+
+	/**
+	 * Reads the next fingerprint of run r into its head, remaining[r] is -1 when the run is exhausted
+	 */
+	private static void advance(DataInputStream[] in, int[] remaining, long[] heads, int r) throws IOException {
+		if (remaining[r] == 0) {
+			remaining[r] = -1;
+			return;
+		}
+		heads[2 * r] = in[r].readLong();
+		heads[2 * r + 1] = in[r].readLong();
+		remaining[r]--;
+	}
+
+	private static int compare(long[] a, int i, long hi, long lo) {
+		int c = Long.compare(a[2 * i], hi);
+		return (c != 0) ? c : Long.compare(a[2 * i + 1], lo);
+	}
+
+	private static void swap(long[] a, int i, int j) {
+		long h = a[2 * i], l = a[2 * i + 1];
+		a[2 * i] = a[2 * j];
+		a[2 * i + 1] = a[2 * j + 1];
+		a[2 * j] = h;
+		a[2 * j + 1] = l;
+	}
+
+	/**
+	 * Quicksort of the pairs in positions from..to (the fingerprints are random,
+	 * so the middle element is a good enough pivot)
+	 */
+	private static void sort(long[] a, int from, int to) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			long ph = a[2 * mid], pl = a[2 * mid + 1];
+			int i = from, j = to;
+			while (i <= j) {
+				while (compare(a, i, ph, pl) < 0) i++;
+				while (compare(a, j, ph, pl) > 0) j--;
+				if (i <= j) 
+					swap(a, i++, j--);
+			}
+			// recurse on the smaller part
+			if (j - from < to - i) {
+				sort(a, from, j);
+				from = i;
+			}
+			else {
+				sort(a, i, to);
+				to = j;
+			}
+		}
+	}
+
+	/**
+	 * Writes a sorted sequence of fingerprints to a new run
+	 */
+	private static final class RunWriter {
+		private final File file;
+		private final DataOutputStream out;
+		private final long[] index;
+		private int size;
+		private boolean finished;
+
+		RunWriter(int expectedSize) throws IOException {
+			this.file = File.createTempFile("ontop-distinct", ".run");
+			file.deleteOnExit();
+			int blocks = (expectedSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			this.index = new long[2 * blocks];
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		}
+
+		void write(long hi, long lo) throws IOException {
+			if (size % BLOCK_SIZE == 0) {
+				index[2 * (size / BLOCK_SIZE)] = hi;
+				index[2 * (size / BLOCK_SIZE) + 1] = lo;
+			}
+			out.writeLong(hi);
+			out.writeLong(lo);
+			size++;
+		}
+
+		Run finish() throws IOException {
+			out.close();
+			Run run = new Run(file, size, index);
+			finished = true;
+			return run;
+		}
+
+		/**
+		 * Deletes the file unless the run was finished
+		 */
+		void close() throws IOException {
+			if (!finished) {
+				out.close();
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * A sorted sequence of fingerprints in a temporary file
+	 */
+	private static final class Run {
+		private final File file;
+		private final RandomAccessFile raf;
+		private final int size;
+		private final long[] index; // first fingerprint of each block (pairs)
+		private final byte[] buffer = new byte[BLOCK_SIZE * ENTRY_SIZE];
+
+		Run(File file, int size, long[] index) throws IOException {
+			this.file = file;
+			this.size = size;
+			this.index = index;
+			this.raf = new RandomAccessFile(file, "r");
+		}
+
+		boolean contains(long hi, long lo) throws IOException {
+			// the last block whose first fingerprint is not greater than (hi, lo)
+			int low = 0, high = index.length / 2 - 1, block = -1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int c = compare(index, mid, hi, lo);
+				if (c == 0)
+					return true;
+				if (c < 0) {
+					block = mid;
+					low = mid + 1;
+				}
+				else
+					high = mid - 1;
+			}
+			if (block == -1)
+				return false;
+
+			int entries = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+			raf.seek((long) block * BLOCK_SIZE * ENTRY_SIZE);
+			raf.readFully(buffer, 0, entries * ENTRY_SIZE);
+			ByteBuffer bb = ByteBuffer.wrap(buffer);
+			low = 0; 
+			high = entries - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				long h = bb.getLong(mid * ENTRY_SIZE), l = bb.getLong(mid * ENTRY_SIZE + 8);
+				int c = (h != hi) ? Long.compare(h, hi) : Long.compare(l, lo);
+				if (c == 0)
+					return true;
+				if (c < 0)
+					low = mid + 1;
+				else
+					high = mid - 1;
+			}
+			return false;
+		}
+
+		void delete() {
+			try {
+				raf.close();
+			}
+			catch (IOException e) {
+				// ignore, the file is deleted anyway
+			}
+			file.delete();
+		}
+	}
+}
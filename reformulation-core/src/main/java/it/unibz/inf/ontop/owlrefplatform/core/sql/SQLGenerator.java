@@ -23,6 +23,7 @@ package it.unibz.inf.ontop.owlrefplatform.core.sql;
 import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.sql.*;
 import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.OBDAQueryModifiers.AggregateCondition;
 import it.unibz.inf.ontop.model.OBDAQueryModifiers.OrderCondition;
 import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
@@ -60,6 +61,7 @@ public class SQLGenerator implements SQLQueryGenerator {
 	
 	private static final String VIEW_NAME = "QVIEW%s";
 	private static final String VIEW_NAME_PREFIX = "QVIEW";
+	private static final String GROUP_VIEW_NAME = "SUB_GVIEW";
 
 	private final DBMetadata metadata;
 	private final SQLDialectAdapter sqladapter;
@@ -67,9 +69,6 @@ public class SQLGenerator implements SQLQueryGenerator {
 	private final boolean distinctResultSet;
 	private final String replace1, replace2;
 
-	private boolean isDistinct = false;
-	private boolean isOrderBy = false;
-	
 	private final SemanticIndexURIMap uriRefIds; // non-null in the Semantic Index mode
 	
 	private final DatatypeFactory dtfac = OBDADataFactoryImpl.getInstance().getDatatypeFactory();
@@ -160,12 +159,12 @@ public class SQLGenerator implements SQLQueryGenerator {
 	 */
 	@Override
 	public String generateSourceQuery(DatalogProgram query, List<String> signature) throws OBDAException {
-		isDistinct = hasSelectDistinctStatement(query);
-		isOrderBy = hasOrderByClause(query);
 		if (query.getQueryModifiers().hasModifiers()) {
 			final String indent = "   ";
 			final String outerViewName = "SUB_QVIEW";
-			String subquery = generateQuery(query, signature, indent);
+			String subquery = query.getQueryModifiers().hasGroup()
+					? generateGroupQuery(query, signature)
+					: generateQuery(query, signature, hasSelectDistinctStatement(query), Collections.<String>emptySet());
 
 			String modifier = "";
 			List<OrderCondition> conditions = query.getQueryModifiers().getSortConditions();
@@ -180,7 +179,7 @@ public class SQLGenerator implements SQLQueryGenerator {
 			sql += modifier;
 			return sql;
 		} else {
-			return generateQuery(query, signature, "");
+			return generateQuery(query, signature, false, Collections.<String>emptySet());
 		}
 	}
 
@@ -189,6 +188,16 @@ public class SQLGenerator implements SQLQueryGenerator {
 		return distinctResultSet;
 	}
 
+	@Override
+	public String getSQLLexicalFormString(String value) {
+		return sqladapter.getSQLLexicalFormString(value);
+	}
+
+	@Override
+	public int getStringParameterType() {
+		return sqladapter.getStringParameterType();
+	}
+
 	private boolean hasSelectDistinctStatement(DatalogProgram query) {
 		boolean toReturn = false;
 		if (query.getQueryModifiers().hasModifiers()) {
@@ -209,14 +218,22 @@ public class SQLGenerator implements SQLQueryGenerator {
 	/**
 	 * Main method. Generates the full query, taking into account
 	 * limit/offset/order by.
+	 *
+	 * @param nativeColumns the signature variables whose values are not cast to strings
+	 *                      (the arguments of SUM, AVG, MIN and MAX): they keep their database
+	 *                      type if it is the same in all the SPJ queries of the union, and are
+	 *                      cast to a common type otherwise (see getCommonSQLType)
 	 */
 	private String generateQuery(DatalogProgram query, List<String> signature,
-			String indent) throws OBDAException {
+			boolean isDistinct, Set<String> nativeColumns) throws OBDAException {
 
+		// the generator is shared by all the queries: nothing query-specific is stored in its fields
+		boolean isOrderBy = hasOrderByClause(query);
 		int numberOfQueries = query.getRules().size();
 
-		List<String> queriesStrings = new LinkedList<>();
-		/* Main loop, constructing the SPJ query for each CQ */
+		List<CQIE> cqs = new LinkedList<>();
+		List<QueryAliasIndex> indexes = new LinkedList<>();
+		/* Normalizing the CQs */
 		for (CQIE cq : query.getRules()) {
 
 			/*
@@ -258,7 +275,29 @@ public class SQLGenerator implements SQLQueryGenerator {
 				continue;
 			}
 
-			QueryAliasIndex index = new QueryAliasIndex(cq);
+			cqs.add(cq);
+			indexes.add(new QueryAliasIndex(cq, isDistinct || isOrderBy));
+		}
+
+		/*
+		 * The SQL type of each native column in the union: the SPJ queries 
+		 * whose column has another type cast it to that type
+		 */
+		Map<String, Integer> unionColumnTypes = new HashMap<>();
+		for (String column : nativeColumns) {
+			int hpos = signature.indexOf(column);
+			Set<Integer> types = new HashSet<>();
+			Iterator<QueryAliasIndex> indexIterator = indexes.iterator();
+			for (CQIE cq : cqs)
+				types.add(getSQLType(cq.getHead().getTerm(hpos), indexIterator.next()));
+			unionColumnTypes.put(column, getCommonSQLType(types));
+		}
+
+		List<String> queriesStrings = new LinkedList<>();
+		/* Main loop, constructing the SPJ query for each CQ */
+		Iterator<QueryAliasIndex> indexIterator = indexes.iterator();
+		for (CQIE cq : cqs) {
+			QueryAliasIndex index = indexIterator.next();
 
 			boolean innerdistincts = false;
 			if (isDistinct && !distinctResultSet && numberOfQueries == 1) {
@@ -267,7 +306,7 @@ public class SQLGenerator implements SQLQueryGenerator {
 
 			String FROM = getFROM(cq, index);
 			String WHERE = getWHERE(cq, index);
-			String SELECT = getSelectClause(signature, cq, index, innerdistincts);
+			String SELECT = getSelectClause(signature, cq, index, innerdistincts, unionColumnTypes);
 
 			String querystr = SELECT + FROM + WHERE;
 			queriesStrings.add(querystr);
@@ -293,6 +332,265 @@ public class SQLGenerator implements SQLQueryGenerator {
 		return result.toString();
 	}
 
+	/**
+	 * returns the type of a column of a union whose SQL queries have the given types
+	 * (null for a term that is not a column): the type itself if there is only one,
+	 * DECIMAL or DOUBLE for numbers, TIMESTAMP for dates and timestamps, and VARCHAR
+	 * otherwise (e.g., for strings and numbers)
+	 */
+	private static int getCommonSQLType(Set<Integer> types) {
+		if (types.size() == 1 && !types.contains(null))
+			return types.iterator().next();
+
+		boolean exact = true, numeric = true, datetime = true;
+		for (Integer type : types) {
+			if (type == null)
+				return Types.VARCHAR;
+			switch (type) {
+				case Types.TINYINT:
+				case Types.SMALLINT:
+				case Types.INTEGER:
+				case Types.BIGINT:
+				case Types.DECIMAL:
+				case Types.NUMERIC:
+					datetime = false;
+					break;
+				case Types.REAL:
+				case Types.FLOAT:
+				case Types.DOUBLE:
+					exact = false;
+					datetime = false;
+					break;
+				case Types.DATE:
+				case Types.TIMESTAMP:
+					numeric = false;
+					break;
+				default:
+					return Types.VARCHAR;
+			}
+		}
+		if (numeric)
+			return exact ? Types.DECIMAL : Types.DOUBLE;
+		if (datetime)
+			return Types.TIMESTAMP;
+		return Types.VARCHAR;
+	}
+
+	/**
+	 * Generates the query with GROUP BY and aggregates (and HAVING).
+	 *
+	 * The union of the SPJ queries computes the GROUP BY variables and the arguments
+	 * of the aggregates (see OBDAQueryModifiers.getGroupedVariables), and the grouping
+	 * is done by the enclosing query over its view:
+	 *
+	 * SELECT x, AGG(y) FROM (union) SUB_GVIEW GROUP BY x HAVING ...
+	 *
+	 * The arguments of SUM, AVG, MIN and MAX keep their database types (or a common
+	 * numeric or datetime type if the SPJ queries of the union disagree).
+	 * The datatype of SUM, MIN and MAX is the datatype of the argument
+	 * (the largest type code if the group has values of different datatypes).
+	 */
+	private String generateGroupQuery(DatalogProgram query, List<String> signature) throws OBDAException {
+		OBDAQueryModifiers modifiers = query.getQueryModifiers();
+
+		List<Variable> groupedVariables = modifiers.getGroupedVariables();
+		List<String> groupedSignature = new ArrayList<>(groupedVariables.size());
+		for (Variable var : groupedVariables)
+			groupedSignature.add(var.getName());
+
+		Set<String> nativeColumns = new HashSet<>();
+		for (AggregateCondition c : modifiers.getAggregateConditions()) {
+			ExpressionOperation op = c.getOperation();
+			if (op == ExpressionOperation.SUM || op == ExpressionOperation.AVG
+					|| op == ExpressionOperation.MIN || op == ExpressionOperation.MAX)
+				nativeColumns.add(c.getArgument().getName());
+		}
+		// DISTINCT is applied after grouping
+		String subquery = generateQuery(query, groupedSignature, false, nativeColumns);
+
+		// the names of the columns in the subquery (in the order of getSelectClause)
+		Set<String> subqueryVariableNames = new HashSet<>();
+		Map<Variable, String[]> columns = new HashMap<>();
+		for (Variable var : groupedVariables) {
+			String[] names = new String[3];
+			String[] suffixes = { typeSuffix, langSuffix, "" };
+			for (int i = 0; i < 3; i++) {
+				String name = sqladapter.nameTopVariable(var.getName(), suffixes[i], subqueryVariableNames);
+				subqueryVariableNames.add(name);
+				names[i] = GROUP_VIEW_NAME + "." + name;
+			}
+			columns.put(var, names);
+		}
+
+		Map<Variable, AggregateCondition> aggregates = new HashMap<>();
+		for (AggregateCondition c : modifiers.getAggregateConditions())
+			aggregates.put(c.getVariable(), c);
+
+		// the values of the variables in HAVING
+		Map<Variable, String> values = new HashMap<>();
+		for (Variable var : modifiers.getGroupConditions())
+			values.put(var, columns.get(var)[2]);
+		for (AggregateCondition c : modifiers.getAggregateConditions())
+			values.put(c.getVariable(), getAggregateValue(c, columns));
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("SELECT ");
+		if (modifiers.isDistinct() && !distinctResultSet)
+			sb.append("DISTINCT ");
+
+		Set<String> sqlVariableNames = new HashSet<>();
+		for (int hpos = 0; hpos < signature.size(); hpos++) {
+			Variable var = OBDADataFactoryImpl.getInstance().getVariable(signature.get(hpos));
+			String typeName = sqladapter.nameTopVariable(signature.get(hpos), typeSuffix, sqlVariableNames);
+			sqlVariableNames.add(typeName);
+			String langName = sqladapter.nameTopVariable(signature.get(hpos), langSuffix, sqlVariableNames);
+			sqlVariableNames.add(langName);
+			String mainName = sqladapter.nameTopVariable(signature.get(hpos), "", sqlVariableNames);
+			sqlVariableNames.add(mainName);
+
+			String type, lang, main;
+			AggregateCondition c = aggregates.get(var);
+			if (c != null) {
+				String[] arg = (c.getArgument() == null) ? null : columns.get(c.getArgument());
+				switch (c.getOperation()) {
+					case COUNT:
+						type = String.valueOf(COL_TYPE.INTEGER.getQuestCode());
+						lang = "NULL";
+						break;
+					case AVG:
+						// AVG of integers and decimals is a decimal
+						type = String.format("CASE WHEN MAX(%s) IN (%d, %d) THEN MAX(%s) ELSE %d END", arg[0],
+								COL_TYPE.DOUBLE.getQuestCode(), COL_TYPE.FLOAT.getQuestCode(), arg[0],
+								COL_TYPE.DECIMAL.getQuestCode());
+						lang = "NULL";
+						break;
+					case GROUP_CONCAT:
+						type = String.valueOf(COL_TYPE.LITERAL.getQuestCode());
+						lang = "NULL";
+						break;
+					case SUM:
+						type = String.format("MAX(%s)", arg[0]);
+						lang = "NULL";
+						break;
+					default: // MIN and MAX
+						type = String.format("MAX(%s)", arg[0]);
+						lang = String.format("MAX(%s)", arg[1]);
+				}
+				main = values.get(var);
+				if (c.getOperation() != ExpressionOperation.GROUP_CONCAT)
+					main = sqladapter.sqlCast(main, Types.VARCHAR);
+			}
+			else if (columns.containsKey(var)) {
+				String[] names = columns.get(var);
+				type = names[0];
+				lang = names[1];
+				main = names[2];
+			}
+			else {
+				type = String.valueOf(COL_TYPE.NULL.getQuestCode());
+				lang = "NULL";
+				main = "NULL";
+			}
+			sb.append("\n   ");
+			sb.append(String.format(typeStrForSELECT, type, typeName)).append(", ");
+			sb.append(String.format(langStrForSELECT, lang, langName)).append(", ");
+			sb.append(String.format("%s AS %s", main, mainName));
+			if (hpos < signature.size() - 1)
+				sb.append(", ");
+		}
+
+		sb.append("\nFROM (\n").append(subquery).append("\n) ").append(GROUP_VIEW_NAME);
+
+		if (!modifiers.getGroupConditions().isEmpty()) {
+			StringBuilder groupBy = new StringBuilder();
+			for (Variable var : modifiers.getGroupConditions())
+				for (String column : columns.get(var)) {
+					if (groupBy.length() > 0)
+						groupBy.append(", ");
+					groupBy.append(column);
+				}
+			sb.append("\nGROUP BY ").append(groupBy);
+		}
+
+		if (!modifiers.getHavingConditions().isEmpty()) {
+			StringBuilder having = new StringBuilder();
+			for (Function condition : modifiers.getHavingConditions()) {
+				if (having.length() > 0)
+					having.append(" AND ");
+				having.append(getHavingCondition(condition, values, true));
+			}
+			sb.append("\nHAVING ").append(having);
+		}
+		return sb.toString();
+	}
+
+	private String getAggregateValue(AggregateCondition c, Map<Variable, String[]> columns) {
+		if (c.getArgument() == null)
+			return "COUNT(*)";
+
+		String arg = columns.get(c.getArgument())[2];
+		if (c.isDistinct())
+			arg = "DISTINCT " + arg;
+
+		switch (c.getOperation()) {
+			case COUNT:
+				return String.format("COUNT(%s)", arg);
+			case SUM:
+				return String.format("SUM(%s)", arg);
+			case AVG:
+				// avoids the integer division of some databases
+				return String.format("AVG(%s * 1.0)", arg);
+			case MIN:
+				return String.format("MIN(%s)", arg);
+			case MAX:
+				return String.format("MAX(%s)", arg);
+			case GROUP_CONCAT:
+				return sqladapter.sqlGroupConcat(arg, sqladapter.getSQLLexicalFormString(c.getSeparator()));
+			default:
+				throw new RuntimeException("Unsupported aggregate: " + c.getOperation());
+		}
+	}
+
+	/**
+	 * HAVING conditions are over the GROUP BY variables and the aggregates
+	 * (which are not columns of any view), hence the expressions are
+	 * rendered here rather than by getSQLString
+	 */
+	private String getHavingCondition(Term term, Map<Variable, String> values, boolean useBrackets) {
+		if (term == OBDAVocabulary.NULL) {
+			return "NULL";
+		}
+		else if (term instanceof ValueConstant) {
+			return getSQLLexicalForm((ValueConstant) term);
+		}
+		else if (term instanceof Variable) {
+			String value = values.get(term);
+			if (value == null)
+				throw new RuntimeException("Unbound variable found in HAVING clause: " + term);
+			return value;
+		}
+		else if (term instanceof Function) {
+			Function function = (Function) term;
+			Predicate functionSymbol = function.getFunctionSymbol();
+			if (function.isDataTypeFunction() && function.getArity() == 1) {
+				return getHavingCondition(function.getTerm(0), values, useBrackets);
+			}
+			else if (operations.containsKey(functionSymbol) && functionSymbol != ExpressionOperation.IS_TRUE) {
+				String expressionFormat = operations.get(functionSymbol);
+				if (function.getArity() == 1) {
+					return String.format(expressionFormat, getHavingCondition(function.getTerm(0), values, true));
+				}
+				else if (function.getArity() == 2) {
+					String result = String.format(expressionFormat,
+							getHavingCondition(function.getTerm(0), values, true),
+							getHavingCondition(function.getTerm(1), values, true));
+					return useBrackets ? String.format("(%s)", result) : result;
+				}
+			}
+		}
+		throw new RuntimeException("Unsupported expression in HAVING: " + term);
+	}
+
 	/***
 	 * Returns a string with boolean conditions formed with the boolean atoms
 	 * found in the atoms list.
@@ -730,7 +1028,7 @@ public class SQLGenerator implements SQLQueryGenerator {
 	 * @return the sql select clause
 	 */
 	private String getSelectClause(List<String> signature, CQIE query,
-			QueryAliasIndex index, boolean distinct) throws OBDAException {
+			QueryAliasIndex index, boolean distinct, Map<String, Integer> columnTypes) throws OBDAException {
 		/*
 		 * If the head has size 0 this is a boolean query.
 		 */
@@ -761,7 +1059,8 @@ public class SQLGenerator implements SQLQueryGenerator {
 			Term ht = hit.next();
 			String typeColumn = getTypeColumnForSELECT(ht, signature, hpos, sqlVariableNames);
 			String langColumn = getLangColumnForSELECT(ht, signature, hpos,	index, sqlVariableNames);
-			String mainColumn = getMainColumnForSELECT(ht, signature, hpos, index, sqlVariableNames);
+			String mainColumn = getMainColumnForSELECT(ht, signature, hpos, index, sqlVariableNames,
+					columnTypes.get(signature.get(hpos)));
 
 			sb.append("\n   ");
 			sb.append(typeColumn);
@@ -778,7 +1077,8 @@ public class SQLGenerator implements SQLQueryGenerator {
 	}
 
 	private String getMainColumnForSELECT(Term ht,
-			List<String> signature, int hpos, QueryAliasIndex index, Set<String> sqlVariableNames) {
+			List<String> signature, int hpos, QueryAliasIndex index, Set<String> sqlVariableNames,
+			Integer columnType) {
 
 		/**
 		 * Creates a variable name that fits to the restrictions of the SQL dialect.
@@ -843,10 +1143,21 @@ public class SQLGenerator implements SQLQueryGenerator {
 		else 
 			throw new RuntimeException("Cannot generate SELECT for term: " + ht);
 
+		/*
+		 * The value of a native column is cast to the type of the column in the union
+		 * (if it has another type)
+		 */
+		Integer type = (columnType == null) ? null : getSQLType(ht, index);
+		if (columnType != null && type != null && type.intValue() == columnType) {
+			// keeps its database type
+		}
+		else if (columnType != null && columnType != Types.VARCHAR) {
+			mainColumn = sqladapter.sqlCast(mainColumn, columnType);
+		}
 		/*
 		 * If we have a column we need to still CAST to VARCHAR
 		 */
-		if (mainColumn.charAt(0) != '\'' && mainColumn.charAt(0) != '(') {
+		else if (mainColumn.charAt(0) != '\'' && mainColumn.charAt(0) != '(') {
 			if (!isStringColType(ht, index)) {
 				mainColumn = sqladapter.sqlCast(mainColumn, Types.VARCHAR);
 			}
@@ -1097,7 +1408,7 @@ public class SQLGenerator implements SQLQueryGenerator {
 			if (vex.size() == 1) {	
 				return vex.get(0);
 			}
-			return getStringConcatenation(vex.toArray(new String[]{}));
+			return getStringConcatenation(vex.toArray(new String[]{}), index);
 			
 		} 
 		else if (t instanceof Variable) {
@@ -1133,20 +1444,62 @@ public class SQLGenerator implements SQLQueryGenerator {
 	}
 
 	// TODO: move to SQLAdapter
-	private String getStringConcatenation(String[] params) {
+	private String getStringConcatenation(String[] params, QueryAliasIndex index) {
 		String toReturn = sqladapter.strConcat(params);
 		if (sqladapter instanceof DB2SQLDialectAdapter) {
 			/*
 			 * A work around to handle DB2 (>9.1) issue SQL0134N: Improper use of a string column, host variable, constant, or function name.
 			 * http://publib.boulder.ibm.com/infocenter/db2luw/v9r5/index.jsp?topic=%2Fcom.ibm.db2.luw.messages.sql.doc%2Fdoc%2Fmsql00134n.html
 			 */
-			if (isDistinct || isOrderBy) {
+			if (index.hasDistinctOrOrderBy) {
 				return sqladapter.sqlCast(toReturn, Types.VARCHAR);
 			}
 		}
 		return toReturn;
 	}
 
+	/**
+	 * returns the SQL type of the value of a term in the SELECT clause
+	 * (null if the term is not a column of a database relation)
+	 */
+	private Integer getSQLType(Term term, QueryAliasIndex index) {
+		if (term instanceof Function) {
+			Function function = (Function) term;
+			if (function.isDataTypeFunction() && function.getArity() == 1)
+				return getSQLType(function.getTerm(0), index);
+		}
+		else if (term instanceof Variable) {
+			Attribute a = getAttribute((Variable) term, index);
+			if (a != null)
+				return a.getType();
+		}
+		return null;
+	}
+
+	private Attribute getAttribute(Variable var, QueryAliasIndex index) {
+		Set<QualifiedAttributeID> viewdef = index.getColumnReferences(var);
+		QualifiedAttributeID def = viewdef.iterator().next();
+		QuotedID attributeId = def.getAttribute();
+		RelationID tableId = null;
+		// ROMAN (8 Oct 2015)
+		// case conversion to be removed
+		if (def.getRelation().getTableName().toUpperCase().startsWith(VIEW_NAME_PREFIX)) {
+			for (Map.Entry<Function, RelationID> entry : index.viewNames.entrySet()) {
+				RelationID value = entry.getValue();
+				if (value.equals(def.getRelation())) {
+					tableId = Relation2DatalogPredicate
+								.createRelationFromPredicateName(metadata.getQuotedIDFactory(), entry.getKey().getFunctionSymbol());
+					break;
+				}
+			}
+		}
+		DatabaseRelationDefinition table = metadata.getDatabaseRelation(tableId);
+		if (table == null)
+			return null;
+		// ROMAN (15 Oct 2015): i'm not sure what to do if it is a view (i.e., a complex subquery)
+		return table.getAttribute(attributeId);
+	}
+
 	private boolean isStringColType(Term term, QueryAliasIndex index) {
 		if (term instanceof Function) {
 			Function function = (Function) term;
@@ -1169,26 +1522,8 @@ public class SQLGenerator implements SQLQueryGenerator {
 			}
 		} 
 		else if (term instanceof Variable) {
-			Set<QualifiedAttributeID> viewdef = index.getColumnReferences((Variable) term);
-			QualifiedAttributeID def = viewdef.iterator().next();
-			QuotedID attributeId = def.getAttribute();
-			RelationID tableId = null;
-			// ROMAN (8 Oct 2015)
-			// case conversion to be removed
-			if (def.getRelation().getTableName().toUpperCase().startsWith(VIEW_NAME_PREFIX)) {
-				for (Map.Entry<Function, RelationID> entry : index.viewNames.entrySet()) {
-					RelationID value = entry.getValue();
-					if (value.equals(def.getRelation())) {
-						tableId = Relation2DatalogPredicate
-									.createRelationFromPredicateName(metadata.getQuotedIDFactory(), entry.getKey().getFunctionSymbol());
-						break;
-					}
-				}
-			}
-			DatabaseRelationDefinition table = metadata.getDatabaseRelation(tableId);
-			if (table != null) {
-				// ROMAN (15 Oct 2015): i'm not sure what to do if it is a view (i.e., a complex subquery)
-	 			Attribute a = table.getAttribute(attributeId);
+			Attribute a = getAttribute((Variable) term, index);
+			if (a != null) {
 				switch (a.getType()) {
 					case Types.VARCHAR:
 					// case Types.CHAR: // ROMAN (10 Oct 2015) -- otherwise PgsqlDatatypeTest.all fails 
@@ -1239,7 +1574,8 @@ public class SQLGenerator implements SQLQueryGenerator {
 			if (uriRefIds != null) { // in the Semantic Index mode
 				if (ct.getType() == COL_TYPE.OBJECT || ct.getType() == COL_TYPE.LITERAL) {
 					int id = uriRefIds.getId(ct.getValue());
-					if (id >= 0)
+					// a URI that is not in the dictionary is compared with the ids as -2, which matches no data
+					if (id >= 0 || ct.getType() == COL_TYPE.OBJECT)
 						return sqladapter.getSQLLexicalFormString(String.valueOf(id));
 				}
 			}
@@ -1523,7 +1859,11 @@ public class SQLGenerator implements SQLQueryGenerator {
 		int dataTableCount = 0;
 		boolean isEmpty = false;
 
-		public QueryAliasIndex(CQIE query) {
+		// the query has DISTINCT or ORDER BY modifiers
+		final boolean hasDistinctOrOrderBy;
+
+		public QueryAliasIndex(CQIE query, boolean hasDistinctOrOrderBy) {
+			this.hasDistinctOrOrderBy = hasDistinctOrOrderBy;
 			List<Function> body = query.getBody();
 			generateViews(body);
 		}
@@ -48,4 +48,15 @@ public interface SQLQueryGenerator extends Serializable {
 	public String generateSourceQuery(DatalogProgram query, List<String> signature) throws OBDAException;
 
 	public boolean hasDistinctResultSet() ;
+
+	/**
+	 * Returns the SQL string literal for the given value in the dialect of the source
+	 */
+	public String getSQLLexicalFormString(String value);
+
+	/**
+	 * Returns the JDBC type (a constant from java.sql.Types) with which a string
+	 * parameter is bound in the dialect of the source
+	 */
+	public int getStringParameterType();
 }
@@ -11,6 +11,7 @@ import it.unibz.inf.ontop.model.*;
 import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
 import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.EQNormalizer;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.QueryTranslationContext;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.Substitution;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.SubstitutionUtilities;
 import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.UnifierUtilities;
@@ -28,9 +29,15 @@ public class SPARQLQueryFlattener {
      */
     private final List<Predicate> irreducible = new LinkedList<>();
 	private final DatalogProgram program;
+	private final QueryTranslationContext context;
 
     public SPARQLQueryFlattener(DatalogProgram program) {
+		this(program, new QueryTranslationContext(program));
+	}
+
+	public SPARQLQueryFlattener(DatalogProgram program, QueryTranslationContext context) {
 		this.program = program;
+		this.context = context;
 	}
 
 	/***
@@ -262,7 +269,7 @@ public class SPARQLQueryFlattener {
 
         List<CQIE> result = new LinkedList<>();
         for (CQIE candidateRule : definitions) {
-            CQIE freshRule = termFactory.getFreshCQIECopy(candidateRule);
+            CQIE freshRule = termFactory.getFreshCQIECopy(candidateRule, context.getFreshSuffix());
             // IMPORTANT: getMGU changes arguments
             Substitution mgu = UnifierUtilities.getMGU(freshRule.getHead(), atom);
             if (mgu == null) {
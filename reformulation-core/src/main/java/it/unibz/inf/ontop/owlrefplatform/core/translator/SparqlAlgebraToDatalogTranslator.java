@@ -112,8 +112,19 @@ public class SparqlAlgebraToDatalogTranslator {
             answerVariables = Collections.emptyList();
         }
 
-        Predicate pred = ofac.getPredicate(OBDAVocabulary.QUEST_QUERY, answerVariables.size());
-        Function head = ofac.getFunction(pred, answerVariables);
+        OBDAQueryModifiers modifiers = program.getQueryModifiers();
+        List<Term> headVariables;
+        if (modifiers.hasGroup()) {
+            if (answerVariables.isEmpty())
+                throw new IllegalArgumentException("GROUP BY is supported only in SELECT and CONSTRUCT queries");
+            // the query computes the values to be grouped, the aggregates are computed by the SQL query
+            headVariables = new ArrayList<>(modifiers.getGroupedVariables());
+        }
+        else
+            headVariables = answerVariables;
+
+        Predicate pred = ofac.getPredicate(OBDAVocabulary.QUEST_QUERY, headVariables.size());
+        Function head = ofac.getFunction(pred, headVariables);
         appendRule(head, body.atoms);
 
         List<String> signature = Lists.transform(answerVariables, t -> ((Variable)t).getName());
@@ -263,6 +274,7 @@ public class SparqlAlgebraToDatalogTranslator {
             Join join = (Join) node;
             TranslationResult a1 = translate(join.getLeftArg());
             TranslationResult a2 = translate(join.getRightArg());
+            checkNotGrouped(node);
             ImmutableSet<Variable> vars = Sets.union(a1.variables, a2.variables).immutableCopy();
 
             if (a1.isBGP && a2.isBGP) {             // collect triple patterns into BGPs
@@ -281,6 +293,7 @@ public class SparqlAlgebraToDatalogTranslator {
             LeftJoin lj = (LeftJoin) node;
             TranslationResult a1 = translate(lj.getLeftArg());
             TranslationResult a2 = translate(lj.getRightArg());
+            checkNotGrouped(node);
             ImmutableSet<Variable> vars = Sets.union(a1.variables, a2.variables).immutableCopy();
 
             Function body = ofac.getSPARQLLeftJoin(wrapNonTriplePattern(a1),
@@ -298,6 +311,7 @@ public class SparqlAlgebraToDatalogTranslator {
             Union union = (Union) node;
             TranslationResult a1 = translate(union.getLeftArg());
             TranslationResult a2 = translate(union.getRightArg());
+            checkNotGrouped(node);
             ImmutableSet<Variable> vars = Sets.union(a1.variables, a2.variables).immutableCopy();
 
             TranslationResult res = createFreshNode(vars);
@@ -310,6 +324,11 @@ public class SparqlAlgebraToDatalogTranslator {
             TranslationResult a = translate(filter.getArg());
 
             Function f = getFilterExpression(filter.getCondition(), a.variables);
+            if (program.getQueryModifiers().hasGroup()) {
+                // HAVING (the aggregates are replaced by variables bound in the GROUP)
+                program.getQueryModifiers().addHavingCondition(f);
+                return a;
+            }
             ImmutableList<Function> atoms = ImmutableList.<Function>builder().addAll(a.atoms).add(f).build();
             // TODO: split ANDs in the FILTER?
 
@@ -346,6 +365,7 @@ public class SparqlAlgebraToDatalogTranslator {
             if (noRenaming)
                 return new TranslationResult(sub.atoms, vars, false);
 
+            checkNotGrouped(node);
             Function head = getFreshHead(sVars);
             appendRule(head, sub.atoms);
 
@@ -355,6 +375,14 @@ public class SparqlAlgebraToDatalogTranslator {
         else if (node instanceof Extension) {     // EXTEND algebra operation
             Extension extension = (Extension) node;
             TranslationResult sub = translate(extension.getArg());
+            if (program.getQueryModifiers().hasGroup()) {
+                // the aggregates are bound to the same variables in the GROUP
+                for (ExtensionElem ee : extension.getElements())
+                    if (!sub.variables.contains(ofac.getVariable(ee.getName())))
+                        throw new IllegalArgumentException("Only aggregates are supported in the SELECT clause "
+                                + "of a query with GROUP BY. This query has " + ee);
+                return sub;
+            }
             final Stream<ExtensionElem> nontrivialBindings = extension.getElements().stream()
                     // ignore EXTEND(P, v, v), which is sometimes introduced by Sesame SPARQL parser
                     .filter(ee -> !(ee.getExpr() instanceof Var && ee.getName().equals(((Var) ee.getExpr()).getName())));
@@ -384,12 +412,88 @@ public class SparqlAlgebraToDatalogTranslator {
                     appendRule(res.atoms.get(0), p.getAtomsExtendedWithNulls(allVars)));
             return res;
         }
-        else if (node instanceof Group) {
-            throw new IllegalArgumentException("GROUP BY is not supported yet");
+        else if (node instanceof Group) {   // GROUP algebra operation
+            Group group = (Group) node;
+            TranslationResult sub = translate(group.getArg());
+            checkNotGrouped(node);
+            OBDAQueryModifiers modifiers = program.getQueryModifiers();
+
+            Set<Variable> vars = new LinkedHashSet<>();
+            for (String name : group.getGroupBindingNames()) {
+                Variable var = ofac.getVariable(name);
+                // unbound variables form a single group
+                if (sub.variables.contains(var)) {
+                    modifiers.addGroupCondition(var);
+                    vars.add(var);
+                }
+            }
+
+            // aggregates of expressions are applied to fresh variables bound to the expressions
+            List<ExtensionElem> bindings = new ArrayList<>();
+            for (GroupElem ge : group.getGroupElements()) {
+                Variable var = ofac.getVariable(ge.getName());
+                if (!vars.add(var))
+                    throw new IllegalArgumentException("Duplicate binding for variable " + var);
+
+                AggregateOperatorBase op = (AggregateOperatorBase) ge.getOperator();
+                ValueExpr arg = op.getArg();
+                Variable argVar;
+                if (arg == null)  // COUNT(*)
+                    argVar = null;
+                else if (arg instanceof Var && sub.variables.contains(ofac.getVariable(((Var) arg).getName())))
+                    argVar = ofac.getVariable(((Var) arg).getName());
+                else {
+                    String name = "agg" + bindings.size() + ge.getName();
+                    bindings.add(new ExtensionElem(arg, name));
+                    argVar = ofac.getVariable(name);
+                }
+
+                String separator = null;
+                ExpressionOperation operation;
+                if (op instanceof Count)
+                    operation = ExpressionOperation.COUNT;
+                else if (op instanceof Sum)
+                    operation = ExpressionOperation.SUM;
+                else if (op instanceof Avg)
+                    operation = ExpressionOperation.AVG;
+                else if (op instanceof Min)
+                    operation = ExpressionOperation.MIN;
+                else if (op instanceof Max)
+                    operation = ExpressionOperation.MAX;
+                else if (op instanceof Sample)  // any value of the group is a sample
+                    operation = ExpressionOperation.MIN;
+                else if (op instanceof GroupConcat) {
+                    operation = ExpressionOperation.GROUP_CONCAT;
+                    ValueExpr s = ((GroupConcat) op).getSeparator();
+                    separator = (s == null) ? " " : ((Literal) ((ValueConstant) s).getValue()).getLabel();
+                }
+                else
+                    throw new IllegalArgumentException("Not supported aggregate: " + op);
+
+                modifiers.addAggregateCondition(var, operation, argVar, op.isDistinct(), separator);
+            }
+
+            if (!bindings.isEmpty())
+                sub = sub.extendWithBindings(
+                        bindings.stream(),
+                        ee -> ofac.getVariable(ee.getName()),
+                        (ee, v) -> getExpression(ee.getExpr(), v));
+
+            return new TranslationResult(sub.atoms, ImmutableSet.copyOf(vars), false);
         }
         throw new IllegalArgumentException("Not supported: " + node);
     }
 
+    /**
+     * The GROUP BY modifiers are applied to the whole query,
+     * so grouping is supported only at the top level (below ORDER BY, LIMIT and the projection)
+     */
+    private void checkNotGrouped(TupleExpr node) {
+        if (program.getQueryModifiers().hasGroup())
+            throw new IllegalArgumentException("GROUP BY is supported only at the top level of the query. "
+                    + "This query has " + node);
+    }
+
     /**
      *
      * @param expr  expression
@@ -608,7 +712,7 @@ public class SparqlAlgebraToDatalogTranslator {
             // other subclasses
             // IRIFunction: IRI (Sec 17.4.2.8) for constructing IRIs
             // IsNumeric:  isNumeric (Sec 17.4.2.4) for checking whether the argument is a numeric value
-            // AggregateOperatorBase: Avg, Min, Max, etc.
+            // AggregateOperatorBase: Avg, Min, Max, etc. (only in GROUP, see above)
             // Like:  ??
             // IsResource: ??
             // LocalName: ??
@@ -99,6 +99,37 @@ public class DatalogUnfolder {
 		extensionalPredicates.removeAll(ruleIndex.keySet());
 	}
 
+	/**
+	 * Unfolder with the rules of another unfolder, in which the rules of the given
+	 * predicates are replaced (the rules of the other predicates are shared).
+	 * 
+	 * @param rules the new rules of the predicates (a predicate without rules is removed)
+	 */
+	public DatalogUnfolder(DatalogUnfolder unfolder, Map<Predicate, List<CQIE>> rules) {
+		this.primaryKeys = unfolder.primaryKeys;
+		
+		ruleIndex.putAll(unfolder.ruleIndex);
+		extensionalPredicates.addAll(unfolder.extensionalPredicates);
+		for (Map.Entry<Predicate, List<CQIE>> e : rules.entrySet()) {
+			if (e.getValue().isEmpty()) {
+				ruleIndex.remove(e.getKey());
+				continue;
+			}
+			ruleIndex.put(e.getKey(), new LinkedList<>(e.getValue()));
+			for (CQIE mappingrule : e.getValue())
+				for (Function atom : mappingrule.getBody()) 
+					collectPredicates(extensionalPredicates, atom);
+		}
+		extensionalPredicates.removeAll(ruleIndex.keySet());
+	}
+
+	/**
+	 * Returns the rules of each predicate (not to be modified)
+	 */
+	public Map<Predicate, List<CQIE>> getRules() {
+		return Collections.unmodifiableMap(ruleIndex);
+	}
+
 	private final void collectPredicates(Set<Predicate> predicates, Function atom) {
 		if (atom.isAlgebraFunction()) {
 			for (Term innerTerm : atom.getTerms()) 
@@ -175,6 +206,14 @@ public class DatalogUnfolder {
 	 * 
 	 */
 	public DatalogProgram unfold(DatalogProgram inputquery) {
+		return unfold(inputquery, new QueryTranslationContext(inputquery));
+	}
+
+	/***
+	 * Same as {@link #unfold(DatalogProgram)}, with the fresh variables taken from the
+	 * given context (the unfolder may be used by several threads at the same time).
+	 */
+	public DatalogProgram unfold(DatalogProgram inputquery, QueryTranslationContext context) {
 
 		List<CQIE> workingSet = new LinkedList<>();
 		for (CQIE query : inputquery.getRules()) 
@@ -183,7 +222,7 @@ public class DatalogUnfolder {
 		for (CQIE query : workingSet)
 			EQNormalizer.enforceEqualities(query);
 
-		computePartialEvaluation(workingSet);	
+		computePartialEvaluation(workingSet, context);	
 		
 		// We need to enforce equality again, because at this point it is 
 		//  possible that there is still some EQ(...) 
@@ -934,14 +973,14 @@ public class DatalogUnfolder {
 
 	 * @return
 	 */
-	private void computePartialEvaluation(List<CQIE> workingList) {
+	private void computePartialEvaluation(List<CQIE> workingList, QueryTranslationContext context) {
 
 		ListIterator<CQIE> iterator = workingList.listIterator();
 		
 		while (iterator.hasNext()) {
 			CQIE rule = iterator.next(); 
 
-			List<CQIE> result = computePartialEvaluation(rule.getBody(), rule, new Stack<Integer>(), false);
+			List<CQIE> result = computePartialEvaluation(rule.getBody(), rule, new Stack<Integer>(), false, context);
 
 			if (result == null) {
 				// if the result is null the rule is logically empty
@@ -980,7 +1019,7 @@ public class DatalogUnfolder {
 	 */
 
 	private List<CQIE> computePartialEvaluation(List<Function> atoms, CQIE rule, Stack<Integer> termidx,
-			boolean parentIsLeftJoin) {
+			boolean parentIsLeftJoin, QueryTranslationContext context) {
 
 		int nonBooleanAtomCounter = 0;
 
@@ -999,7 +1038,7 @@ public class DatalogUnfolder {
 
 				boolean isLeftJoinSecondArgument = nonBooleanAtomCounter == 2 && parentIsLeftJoin;
 				List<CQIE> result = resolveDataAtom(atom, rule, termidx, parentIsLeftJoin,
-						isLeftJoinSecondArgument);
+						isLeftJoinSecondArgument, context);
 
 				if (result == null)
 					return null;
@@ -1020,7 +1059,7 @@ public class DatalogUnfolder {
 				for (Term t : atom.getTerms())
 					innerTerms.add((Function)t);
 				
-				List<CQIE> result = computePartialEvaluation(innerTerms, rule, termidx, focusAtomIsLeftJoin);
+				List<CQIE> result = computePartialEvaluation(innerTerms, rule, termidx, focusAtomIsLeftJoin, context);
 
 				if (result == null)
 					return null;
@@ -1085,7 +1124,7 @@ public class DatalogUnfolder {
 	 * @see UnifierUtilities
 	 */
 	private List<CQIE> resolveDataAtom(Function focusAtom, CQIE rule, Stack<Integer> termidx, boolean isLeftJoin,
-			boolean isSecondAtomInLeftJoin) {
+			boolean isSecondAtomInLeftJoin, QueryTranslationContext context) {
 
 		/*
 		 * Leaf predicates are ignored (as boolean or algebra predicates)
@@ -1120,7 +1159,7 @@ public class DatalogUnfolder {
 		else {
 			// Note, in this step result may get new CQIEs inside
 			result = generateResolutionResult(focusAtom, rule, termidx, rulesDefiningTheAtom, isLeftJoin,
-					isSecondAtomInLeftJoin);
+					isSecondAtomInLeftJoin, context);
 		}
 
 		if (result == null) {
@@ -1221,7 +1260,8 @@ public class DatalogUnfolder {
 	 * @return
 	 */
 	private List<CQIE> generateResolutionResult(Function focusAtom, CQIE rule, Stack<Integer> termidx, 
-			List<CQIE> rulesDefiningTheAtom, boolean isLeftJoin, boolean isSecondAtomOfLeftJoin) {
+			List<CQIE> rulesDefiningTheAtom, boolean isLeftJoin, boolean isSecondAtomOfLeftJoin,
+			QueryTranslationContext context) {
 
 		List<CQIE> candidateMatches = new LinkedList<>(rulesDefiningTheAtom);
 		List<CQIE> result = new LinkedList<>();
@@ -1230,7 +1270,7 @@ public class DatalogUnfolder {
 		for (CQIE candidateRule : candidateMatches) {
 
 			/* getting a rule with unique variables */
-			CQIE freshRule = termFactory.getFreshCQIECopy(candidateRule);
+			CQIE freshRule = termFactory.getFreshCQIECopy(candidateRule, context.getFreshSuffix());
 
 			Substitution mgu = UnifierUtilities.getMGU(freshRule.getHead(), focusAtom);
 			if (mgu == null) {
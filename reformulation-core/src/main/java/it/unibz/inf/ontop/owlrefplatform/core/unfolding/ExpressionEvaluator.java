@@ -604,6 +604,10 @@ public class ExpressionEvaluator {
 				return fac.getFunctionNEQ(f.getTerm(0), f.getTerm(1));
 			}
 		} else if (teval instanceof Constant) {
+			if (teval == OBDAVocabulary.TRUE)
+				return OBDAVocabulary.FALSE;
+			if (teval == OBDAVocabulary.FALSE)
+				return OBDAVocabulary.TRUE;
 			return teval;
 		}
 		return term;
@@ -0,0 +1,123 @@
+package it.unibz.inf.ontop.owlrefplatform.core;
+
+import it.unibz.inf.ontop.model.OBDAException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryExecutorTest {
+
+    private final ExecutorService pool = QueryExecutor.createThreadPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Blocks until it is cancelled, as a JDBC statement would
+     */
+    private static class BlockingExecution implements QueryExecutor.Execution {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AtomicBoolean finished = new AtomicBoolean(false);
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                cancelled.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            finished.set(true);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.countDown();
+        }
+    }
+
+    @Test
+    public void testDeadline() {
+        QueryExecutor executor = new QueryExecutor(pool, 0, 0, 100);
+        BlockingExecution execution = new BlockingExecution();
+        try {
+            executor.execute(execution);
+            fail();
+        }
+        catch (OBDAException e) {
+            // the execution has been cancelled and has returned
+            assertTrue(execution.finished.get());
+        }
+    }
+
+    @Test
+    public void testIgnoredCancel() throws Exception {
+        QueryExecutor executor = new QueryExecutor(pool, 0, 0, 100, 100);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        // a driver that ignores the cancellation
+        QueryExecutor.Execution execution = new QueryExecutor.Execution() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+        try {
+            executor.execute(execution);
+            fail();
+        }
+        catch (OBDAException e) {
+            // the execution has been abandoned and interrupted
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testAdmission() throws Exception {
+        final QueryExecutor executor = new QueryExecutor(pool, 1, 50, 0);
+        final BlockingExecution execution = new BlockingExecution();
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(execution);
+            }
+        });
+        first.start();
+        assertTrue(execution.started.await(5, TimeUnit.SECONDS));
+
+        BlockingExecution second = new BlockingExecution();
+        try {
+            executor.execute(second);
+            fail();
+        }
+        catch (OBDAException e) {
+            assertFalse(second.started.getCount() == 0);
+        }
+
+        execution.cancel();
+        first.join();
+
+        // the permit has been released
+        second.cancel();
+        executor.execute(second);
+        assertTrue(second.finished.get());
+    }
+}
@@ -0,0 +1,106 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.ObjectConstant;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.ontology.*;
+import it.unibz.inf.ontop.ontology.impl.DatatypeImpl;
+import it.unibz.inf.ontop.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasonerImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AssertionChangeTrackerTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+    private static final OntologyFactory ofac = OntologyFactoryImpl.getInstance();
+
+    private static final String NS = "http://example.org/";
+
+    private static final ObjectConstant a = fac.getConstantURI(NS + "a");
+    private static final ObjectConstant b = fac.getConstantURI(NS + "b");
+
+    private TBoxReasoner reasoner;
+
+    private OClass person, student, professor, teacher, course, adult;
+    private ObjectPropertyExpression teaches, involvedIn, supervises;
+    private DataPropertyExpression age;
+
+    @Before
+    public void setUp() throws Exception {
+        OntologyVocabulary vb = ofac.createVocabulary();
+        person = vb.createClass(NS + "Person");
+        student = vb.createClass(NS + "Student");
+        professor = vb.createClass(NS + "Professor");
+        teacher = vb.createClass(NS + "Teacher");
+        course = vb.createClass(NS + "Course");
+        adult = vb.createClass(NS + "Adult");
+        teaches = vb.createObjectProperty(NS + "teaches");
+        involvedIn = vb.createObjectProperty(NS + "involvedIn");
+        supervises = vb.createObjectProperty(NS + "supervises");
+        age = vb.createDataProperty(NS + "age");
+
+        Ontology ontology = ofac.createOntology(vb);
+        ontology.addSubClassOfAxiom(student, person);
+        ontology.addSubPropertyOfAxiom(teaches, involvedIn);
+        ontology.addSubClassOfAxiom(teaches.getDomain(), teacher);
+        ontology.addSubClassOfAxiom(teaches.getRange(), course);
+        ontology.addSubClassOfAxiom(professor, supervises.getDomain());
+        ontology.addSubClassOfAxiom(age.getDomainRestriction(DatatypeImpl.rdfsLiteral), adult);
+        reasoner = TBoxReasonerImpl.create(ontology);
+    }
+
+    private Set<Predicate> getAffectedPredicates(Assertion... assertions) {
+        AssertionChangeTracker tracker = new AssertionChangeTracker(ImmutableList.copyOf(assertions).iterator());
+        while (tracker.hasNext())
+            tracker.next();
+        return tracker.getAffectedPredicates(reasoner);
+    }
+
+    @Test
+    public void testNoAssertions() {
+        assertTrue(getAffectedPredicates().isEmpty());
+    }
+
+    @Test
+    public void testSuperClasses() throws Exception {
+        assertEquals(ImmutableSet.of(student.getPredicate(), person.getPredicate()),
+                getAffectedPredicates(ofac.createClassAssertion(student, a)));
+        assertEquals(ImmutableSet.of(person.getPredicate()),
+                getAffectedPredicates(ofac.createClassAssertion(person, a)));
+    }
+
+    @Test
+    public void testDomainAndRange() throws Exception {
+        // the super-properties and the classes of the subject and of the object
+        assertEquals(ImmutableSet.of(teaches.getPredicate(), involvedIn.getPredicate(),
+                        teacher.getPredicate(), course.getPredicate()),
+                getAffectedPredicates(ofac.createObjectPropertyAssertion(teaches, a, b)));
+        assertEquals(ImmutableSet.of(age.getPredicate(), adult.getPredicate()),
+                getAffectedPredicates(ofac.createDataPropertyAssertion(age, a, fac.getConstantLiteral("42"))));
+    }
+
+    @Test
+    public void testExistentialSuperClass() throws Exception {
+        // a professor supervises someone (who may be returned by the rewriting of a query over supervises)
+        assertEquals(ImmutableSet.of(professor.getPredicate(), supervises.getPredicate()),
+                getAffectedPredicates(ofac.createClassAssertion(professor, a)));
+    }
+
+    @Test
+    public void testSeveralAssertions() throws Exception {
+        assertEquals(ImmutableSet.of(student.getPredicate(), person.getPredicate(),
+                        professor.getPredicate(), supervises.getPredicate()),
+                getAffectedPredicates(ofac.createClassAssertion(student, a),
+                        ofac.createClassAssertion(professor, b), ofac.createClassAssertion(student, b)));
+    }
+}
@@ -0,0 +1,253 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.ObjectConstant;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.ontology.Assertion;
+import it.unibz.inf.ontop.ontology.DataPropertyExpression;
+import it.unibz.inf.ontop.ontology.OClass;
+import it.unibz.inf.ontop.ontology.ObjectPropertyExpression;
+import it.unibz.inf.ontop.ontology.Ontology;
+import it.unibz.inf.ontop.ontology.OntologyFactory;
+import it.unibz.inf.ontop.ontology.OntologyVocabulary;
+import it.unibz.inf.ontop.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasonerImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SemanticIndexBulkLoaderTest {
+
+	private static final OBDADataFactory dfac = OBDADataFactoryImpl.getInstance();
+	private static final OntologyFactory ofac = OntologyFactoryImpl.getInstance();
+
+	private Connection conn;
+	private RDBMSSIRepositoryManager repository;
+	private List<Assertion> assertions;
+	private Ontology ontology;
+	private OClass a;
+
+	@Before
+	public void setUp() throws Exception {
+		conn = DriverManager.getConnection("jdbc:h2:mem:sibulkloader", "sa", "");
+
+		OntologyVocabulary vb = ofac.createVocabulary();
+		a = vb.createClass("http://example.org/A");
+		ObjectPropertyExpression p = vb.createObjectProperty("http://example.org/p");
+		DataPropertyExpression d = vb.createDataProperty("http://example.org/d");
+		ontology = ofac.createOntology(vb);
+
+		repository = new RDBMSSIRepositoryManager(TBoxReasonerImpl.create(ontology), ontology.getVocabulary());
+		repository.generateMetadata();
+		repository.createDBSchemaAndInsertMetadata(conn);
+
+		ObjectConstant x = dfac.getConstantURI("http://example.org/x");
+		ObjectConstant y = dfac.getConstantURI("http://example.org/y");
+		ObjectConstant b = dfac.getConstantBNode("b0");
+
+		assertions = ImmutableList.<Assertion>of(
+				ofac.createClassAssertion(a, x),
+				ofac.createClassAssertion(a, b),
+				ofac.createObjectPropertyAssertion(p, x, y),
+				ofac.createDataPropertyAssertion(d, x, dfac.getConstantLiteral("say \"hi\", twice")),
+				ofac.createDataPropertyAssertion(d, x, dfac.getConstantLiteral("hallo", "de")),
+				ofac.createDataPropertyAssertion(d, y, dfac.getConstantLiteral("42", COL_TYPE.INTEGER)),
+				ofac.createDataPropertyAssertion(d, y, dfac.getConstantLiteral("forty-two", COL_TYPE.INTEGER)));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		repository.dropDBSchema(conn);
+		conn.close();
+	}
+
+	@Test
+	public void testBulkInsert() throws Exception {
+		// the last assertion has an invalid integer value
+		assertEquals(6, repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator()));
+
+		try (Statement st = conn.createStatement()) {
+			assertEquals(3, count(st, "SELECT COUNT(*) FROM URIID"));
+			assertEquals(2, count(st, "SELECT COUNT(*) FROM QUEST_CLASS_ASSERTION"));
+			assertEquals(1, count(st, "SELECT COUNT(*) FROM QUEST_CLASS_ASSERTION WHERE ISBNODE = TRUE"));
+
+			int x = repository.getUriMap().getId("http://example.org/x");
+			int y = repository.getUriMap().getId("http://example.org/y");
+			assertTrue(x >= 0 && y >= 0);
+			assertEquals(x, count(st, "SELECT ID FROM URIID WHERE URI = 'http://example.org/x'"));
+			assertEquals(1, count(st, "SELECT COUNT(*) FROM QUEST_OBJECT_PROPERTY_ASSERTION " +
+					"WHERE URI1 = " + x + " AND URI2 = " + y + " AND ISBNODE = FALSE AND ISBNODE2 = FALSE"));
+
+			assertEquals(1, count(st, "SELECT COUNT(*) FROM QUEST_DATA_PROPERTY_LITERAL_ASSERTION " +
+					"WHERE VAL = 'say \"hi\", twice' AND LANG IS NULL"));
+			assertEquals(1, count(st, "SELECT COUNT(*) FROM QUEST_DATA_PROPERTY_LITERAL_ASSERTION " +
+					"WHERE VAL = 'hallo' AND LANG = 'de'"));
+			assertEquals(42, count(st, "SELECT VAL FROM QUEST_DATA_PROPERTY_INTEGER_ASSERTION WHERE URI = " + y));
+		}
+	}
+
+	@Test
+	public void testBulkInsertIntoIndexedRepository() throws Exception {
+		repository.createIndexes(conn);
+
+		assertEquals(6, repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator()));
+		assertTrue(repository.isIndexed(conn));
+
+		// the URIs are not assigned new ids
+		assertEquals(6, repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator()));
+		try (Statement st = conn.createStatement()) {
+			assertEquals(3, count(st, "SELECT COUNT(*) FROM URIID"));
+			assertEquals(4, count(st, "SELECT COUNT(*) FROM QUEST_CLASS_ASSERTION"));
+		}
+	}
+
+	@Test
+	public void testURIMapIsReadBack() throws Exception {
+		repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator());
+		int x = repository.getUriMap().getId("http://example.org/x");
+
+		RDBMSSIRepositoryManager restored = new RDBMSSIRepositoryManager(TBoxReasonerImpl.create(ontology), ontology.getVocabulary());
+		restored.loadMetadata(conn);
+		assertEquals(x, restored.getUriMap().getId("http://example.org/x"));
+		assertEquals("http://example.org/x", restored.getUriMap().getURI(x));
+
+		// new URIs get ids above the stored ones
+		ObjectConstant z = dfac.getConstantURI("http://example.org/z");
+		restored.bulkInsertData(conn, Collections.<Connection>emptyList(),
+				ImmutableList.<Assertion>of(ofac.createClassAssertion(a, z)).iterator());
+		int maxId = Math.max(x, Math.max(restored.getUriMap().getId("http://example.org/y"), restored.getUriMap().getId("b0")));
+		assertTrue(restored.getUriMap().getId("http://example.org/z") > maxId);
+	}
+
+	@Test
+	public void testEmptinessIndexIsStored() throws Exception {
+		repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator());
+		// two class views and four property views (the invalid integer is not registered)
+		try (Statement st = conn.createStatement()) {
+			assertEquals(6, count(st, "SELECT COUNT(*) FROM NONEMPTYNESSINDEX"));
+		}
+
+		// the stored indexes are not stored again
+		repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator());
+		try (Statement st = conn.createStatement()) {
+			assertEquals(6, count(st, "SELECT COUNT(*) FROM NONEMPTYNESSINDEX"));
+		}
+	}
+
+	@Test
+	public void testUnsupportedDatatypeIsAFailure() throws Exception {
+		ObjectConstant x = dfac.getConstantURI("http://example.org/x");
+		DataPropertyExpression d = ontology.getVocabulary().getDataProperty("http://example.org/d");
+		assertEquals(0, repository.bulkInsertData(conn, Collections.<Connection>emptyList(),
+				ImmutableList.<Assertion>of(ofac.createDataPropertyAssertion(d, x, dfac.getConstantLiteral("2016-06-28", COL_TYPE.DATE))).iterator()));
+	}
+
+	@Test
+	public void testFailedLoadIsRolledBack() throws Exception {
+		repository.bulkInsertData(conn, Collections.<Connection>emptyList(),
+				ImmutableList.<Assertion>of(ofac.createClassAssertion(a, dfac.getConstantURI("http://example.org/x"))).iterator());
+
+		// the class assertions cannot be loaded
+		try (Statement st = conn.createStatement()) {
+			st.executeUpdate("DROP TABLE QUEST_CLASS_ASSERTION");
+		}
+		try {
+			repository.bulkInsertData(conn, Collections.<Connection>emptyList(), assertions.iterator());
+			fail();
+		}
+		catch (SQLException e) {
+			// expected
+		}
+
+		// neither the data nor the new URIs are kept
+		assertTrue(conn.getAutoCommit());
+		assertTrue(repository.getUriMap().getId("http://example.org/x") >= 0);
+		assertEquals(-2, repository.getUriMap().getId("http://example.org/y"));
+		try (Statement st = conn.createStatement()) {
+			assertEquals(1, count(st, "SELECT COUNT(*) FROM URIID"));
+			assertEquals(0, count(st, "SELECT COUNT(*) FROM QUEST_OBJECT_PROPERTY_ASSERTION"));
+			assertEquals(1, count(st, "SELECT COUNT(*) FROM NONEMPTYNESSINDEX"));
+		}
+	}
+
+	@Test
+	public void testRunOnConnectionsCommitsAllOrNothing() throws Exception {
+		// the connections are to two databases (with the same table)
+		try (Connection conn2 = DriverManager.getConnection("jdbc:h2:mem:sibulkloader2", "sa", "")) {
+			final List<Connection> connections = ImmutableList.of(conn, conn2);
+			for (Connection c : connections)
+				try (Statement st = c.createStatement()) {
+					st.executeUpdate("CREATE TABLE T (ID INTEGER)");
+				}
+
+			List<SemanticIndexBulkLoader.ConnectionTask> tasks = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				final int id = i;
+				tasks.add(new SemanticIndexBulkLoader.ConnectionTask() {
+					@Override
+					public void run(Connection conn) throws SQLException {
+						try (Statement st = conn.createStatement()) {
+							st.executeUpdate("INSERT INTO T VALUES (" + id + ")");
+						}
+					}
+				});
+			}
+			tasks.add(new SemanticIndexBulkLoader.ConnectionTask() {
+				@Override
+				public void run(Connection conn) throws SQLException {
+					throw new SQLException("failed task");
+				}
+			});
+
+			try {
+				SemanticIndexBulkLoader.runOnConnections(connections, tasks, true);
+				fail();
+			}
+			catch (SQLException e) {
+				assertEquals("failed task", e.getMessage());
+			}
+			assertEquals(0, countRows(connections));
+
+			SemanticIndexBulkLoader.runOnConnections(connections, tasks.subList(0, 4), true);
+			assertEquals(4, countRows(connections));
+
+			for (Connection c : connections) {
+				assertTrue(c.getAutoCommit());
+				try (Statement st = c.createStatement()) {
+					st.executeUpdate("DROP TABLE T");
+				}
+			}
+		}
+	}
+
+	private static int countRows(List<Connection> connections) throws Exception {
+		int rows = 0;
+		for (Connection c : connections)
+			try (Statement st = c.createStatement()) {
+				rows += count(st, "SELECT COUNT(*) FROM T");
+			}
+		return rows;
+	}
+
+	private static int count(Statement st, String query) throws Exception {
+		try (ResultSet rs = st.executeQuery(query)) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package it.unibz.inf.ontop.owlrefplatform.core.abox;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SemanticIndexURIMapTest {
+
+	@Test
+	public void testLookups() {
+		SemanticIndexURIMap uriMap = new SemanticIndexURIMap();
+		Map<String, Integer> expected = new HashMap<>();
+		int id = 0;
+		for (int i = 0; i < 1000; i++) {
+			// shared prefixes of different lengths, non-ASCII characters and gaps in ids
+			String uri = "http://www.Department" + (i % 7) + ".University" + (i % 3) + ".edu/Stüdent" + i;
+			if (i % 100 == 0)
+				id += 50;
+			uriMap.set(uri, id);
+			expected.put(uri, id++);
+		}
+		assertEquals(1000, uriMap.size());
+
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			assertEquals((int) entry.getValue(), uriMap.getId(entry.getKey()));
+			assertEquals(entry.getKey(), uriMap.getURI(entry.getValue()));
+		}
+
+		assertEquals(-2, uriMap.getId("http://www.Department0.University0.edu/"));
+		assertNull(uriMap.getURI(1));
+		assertNull(uriMap.getURI(id + 1));
+	}
+
+	@Test
+	public void testSetIfAbsent() {
+		SemanticIndexURIMap uriMap = new SemanticIndexURIMap();
+		assertEquals(5, uriMap.setIfAbsent("http://example.org/a", 5));
+		assertEquals(5, uriMap.setIfAbsent("http://example.org/a", 6));
+		assertNull(uriMap.getURI(6));
+
+		uriMap.clear();
+		assertEquals(0, uriMap.size());
+		assertEquals(-2, uriMap.getId("http://example.org/a"));
+		assertNull(uriMap.getURI(5));
+	}
+
+	@Test
+	public void testTruncate() {
+		SemanticIndexURIMap uriMap = new SemanticIndexURIMap();
+		for (int i = 0; i < 100; i++)
+			uriMap.set("http://example.org/a" + i, i);
+
+		// within a block and at the start of a block
+		for (int size : new int[] { 90, 37, 32, 0 }) {
+			uriMap.truncate(size);
+			assertEquals(size, uriMap.size());
+			for (int i = 0; i < 100; i++) {
+				assertEquals((i < size) ? i : -2, uriMap.getId("http://example.org/a" + i));
+				assertEquals((i < size) ? "http://example.org/a" + i : null, uriMap.getURI(i));
+			}
+
+			// new URIs are added after the remaining ones
+			uriMap.set("http://example.org/b", 200);
+			assertEquals(200, uriMap.getId("http://example.org/b"));
+			assertEquals("http://example.org/b", uriMap.getURI(200));
+			uriMap.truncate(size);
+			assertEquals(-2, uriMap.getId("http://example.org/b"));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package it.unibz.inf.ontop.owlrefplatform.core.basicoperations;
+
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.model.impl.OBDAVocabulary;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DatalogCodecTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    private static List<CQIE> roundTrip(List<CQIE> rules) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            DatalogCodec.Encoder encoder = new DatalogCodec.Encoder(out);
+            for (CQIE rule : rules)
+                encoder.writeRule(rule);
+        }
+        List<CQIE> result = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            DatalogCodec.Decoder decoder = new DatalogCodec.Decoder(in);
+            for (int i = 0; i < rules.size(); i++)
+                result.add(decoder.readRule());
+        }
+        return result;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Variable x = fac.getVariable("x"), y = fac.getVariable("y");
+        Predicate table = fac.getPredicate("PERSON", 2);
+        Function person = fac.getFunction(table, x, y);
+
+        Function uri = fac.getUriTemplate(fac.getConstantLiteral("http://example.org/person/{}"), x);
+        CQIE classRule = fac.getCQIE(
+                fac.getFunction(fac.getClassPredicate("http://example.org/Person"), uri),
+                person, fac.getFunctionIsNotNull(x), fac.getFunctionEQ(y, OBDAVocabulary.NULL));
+        CQIE propertyRule = fac.getCQIE(
+                fac.getFunction(fac.getDataPropertyPredicate("http://example.org/name"), uri,
+                        fac.getTypedTerm(y, "en")),
+                fac.getSPARQLLeftJoin(person, fac.getFunction(table, y, x)), fac.getFunctionIsTrue(OBDAVocabulary.TRUE));
+        CQIE fact = fac.getCQIE(
+                fac.getTripleAtom(fac.getConstantURI("http://example.org/a"), fac.getConstantBNode("b0"),
+                        fac.getTypedTerm(fac.getConstantLiteral("42", COL_TYPE.INTEGER), COL_TYPE.INTEGER)),
+                new ArrayList<Function>());
+
+        List<CQIE> rules = Arrays.asList(classRule, propertyRule, fact);
+        List<CQIE> decoded = roundTrip(rules);
+        assertEquals(rules.toString(), decoded.toString());
+
+        CQIE decodedClassRule = decoded.get(0);
+        assertTrue(decodedClassRule.getHead().getFunctionSymbol().isClass());
+        assertTrue(decodedClassRule.getHead().getTerm(0) instanceof Function);
+        assertTrue(((Function) decodedClassRule.getHead().getTerm(0)).getFunctionSymbol() instanceof URITemplatePredicate);
+        assertSame(ExpressionOperation.IS_NOT_NULL, decodedClassRule.getBody().get(1).getFunctionSymbol());
+        assertSame(OBDAVocabulary.NULL, decodedClassRule.getBody().get(2).getTerm(1));
+
+        CQIE decodedPropertyRule = decoded.get(1);
+        assertTrue(decodedPropertyRule.getHead().getFunctionSymbol().isDataProperty());
+        assertSame(fac.getDatatypeFactory().getTypePredicate(COL_TYPE.LITERAL_LANG),
+                ((Function) decodedPropertyRule.getHead().getTerm(1)).getFunctionSymbol());
+        assertSame(OBDAVocabulary.SPARQL_LEFTJOIN, decodedPropertyRule.getBody().get(0).getFunctionSymbol());
+        assertSame(OBDAVocabulary.TRUE, decodedPropertyRule.getBody().get(1).getTerm(0));
+
+        Function triple = decoded.get(2).getHead();
+        assertTrue(triple.getFunctionSymbol().isTriplePredicate());
+        assertSame(fac.getDatatypeFactory().getTypePredicate(COL_TYPE.INTEGER),
+                ((Function) triple.getTerm(2)).getFunctionSymbol());
+        assertTrue(triple.getTerm(1) instanceof BNode);
+    }
+}
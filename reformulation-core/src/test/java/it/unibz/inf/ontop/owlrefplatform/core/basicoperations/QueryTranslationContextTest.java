@@ -0,0 +1,43 @@
+package it.unibz.inf.ontop.owlrefplatform.core.basicoperations;
+
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueryTranslationContextTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    @Test
+    public void testSuffixesOfQueryVariablesAreSkipped() {
+        Predicate ans = fac.getPredicate("ans1", 1);
+        Predicate p = fac.getPredicate("http://example.org/p", 2);
+        Variable x1 = fac.getVariable("x_1"), y3 = fac.getVariable("y_3"), z = fac.getVariable("z2");
+        CQIE query = fac.getCQIE(fac.getFunction(ans, x1),
+                fac.getFunction(p, x1, fac.getFunction(p, y3, z)));
+
+        QueryTranslationContext context = new QueryTranslationContext(
+                fac.getDatalogProgram(new OBDAQueryModifiers(), Collections.singletonList(query)));
+        assertEquals(2, context.getFreshSuffix());
+        assertEquals(4, context.getFreshSuffix());
+        assertEquals(5, context.getFreshSuffix());
+    }
+
+    @Test
+    public void testFreshCopyDoesNotCaptureQueryVariables() {
+        Predicate ans = fac.getPredicate("ans1", 1);
+        Predicate p = fac.getPredicate("http://example.org/p", 2);
+        Variable x = fac.getVariable("x"), x1 = fac.getVariable("x_1");
+        CQIE query = fac.getCQIE(fac.getFunction(ans, x1), fac.getFunction(p, x1, x1));
+        CQIE rule = fac.getCQIE(fac.getFunction(p, x, x), fac.getFunction(fac.getPredicate("T", 1), x));
+
+        QueryTranslationContext context = new QueryTranslationContext(
+                fac.getDatalogProgram(new OBDAQueryModifiers(), Collections.singletonList(query)));
+        CQIE fresh = fac.getFreshCQIECopy(rule, context.getFreshSuffix());
+        assertEquals(fac.getVariable("x_2"), fresh.getHead().getTerm(0));
+    }
+}
@@ -0,0 +1,71 @@
+package it.unibz.inf.ontop.owlrefplatform.core.basicoperations;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.CQIE;
+import it.unibz.inf.ontop.model.Function;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.Term;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class UriTemplateMatcherTest {
+
+    private static final OBDADataFactory ofac = OBDADataFactoryImpl.getInstance();
+
+    private static CQIE mapping(String template, int arity) {
+        ImmutableList.Builder<Term> terms = ImmutableList.builder();
+        terms.add(ofac.getConstantLiteral(template));
+        for (int i = 0; i < arity; i++)
+            terms.add(ofac.getVariable("x" + i));
+        Function head = ofac.getFunction(ofac.getClassPredicate("http://example.org/C"),
+                ofac.getUriTemplate(terms.build()));
+        return ofac.getCQIE(head);
+    }
+
+    private static Function uri(String template, String... values) {
+        ImmutableList.Builder<Term> terms = ImmutableList.builder();
+        terms.add(ofac.getConstantLiteral(template));
+        for (String value : values)
+            terms.add(ofac.getConstantLiteral(value));
+        return ofac.getUriTemplate(terms.build());
+    }
+
+    private static final UriTemplateMatcher matcher = UriTemplateMatcher.create(ImmutableList.of(
+            mapping("http://example.org/{}", 1),
+            mapping("http://example.org/person/{}", 1),
+            mapping("http://example.org/person/{}/{}", 2),
+            mapping("http://other.org/{}.html", 1)));
+
+    @Test
+    public void testMostSpecificTemplate() {
+        assertEquals(uri("http://example.org/person/{}", "1"),
+                matcher.generateURIFunction("http://example.org/person/1"));
+        assertEquals(uri("http://example.org/person/{}/{}", "1/2", "3"),
+                matcher.generateURIFunction("http://example.org/person/1/2/3"));
+        assertEquals(uri("http://example.org/{}", "dept/1"),
+                matcher.generateURIFunction("http://example.org/dept/1"));
+    }
+
+    @Test
+    public void testSuffix() {
+        assertEquals(uri("http://other.org/{}.html", "a.b"),
+                matcher.generateURIFunction("http://other.org/a.b.html"));
+        // the dot is not a wildcard
+        assertEquals(ofac.getUriTemplate(ofac.getConstantLiteral("http://other.org/aXhtml")),
+                matcher.generateURIFunction("http://other.org/aXhtml"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        // {} does not match the empty string
+        assertEquals(ofac.getUriTemplate(ofac.getConstantLiteral("http://example.org/")),
+                matcher.generateURIFunction("http://example.org/"));
+        assertEquals(ofac.getUriTemplate(ofac.getConstantLiteral("http://example.com/1")),
+                matcher.generateURIFunction("http://example.com/1"));
+        // cached
+        assertEquals(ofac.getUriTemplate(ofac.getConstantLiteral("http://example.com/1")),
+                matcher.generateURIFunction("http://example.com/1"));
+    }
+}
@@ -0,0 +1,87 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.DatalogProgram;
+import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParameterizedSPARQLQueryTest {
+
+    private static final SQLQueryGenerator generator = new SQLQueryGenerator() {
+        @Override
+        public String generateSourceQuery(DatalogProgram query, List<String> signature) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasDistinctResultSet() {
+            return false;
+        }
+
+        @Override
+        public String getSQLLexicalFormString(String value) {
+            return "'" + value.replace("'", "''") + "'";
+        }
+
+        @Override
+        public int getStringParameterType() {
+            return Types.VARCHAR;
+        }
+    };
+
+    @Test
+    public void testSameShape() {
+        ParameterizedSPARQLQuery q1 = ParameterizedSPARQLQuery.create(
+                "SELECT ?x WHERE { ?x <http://example.org/name> \"Alice\"@en . FILTER(?x < 3) }");
+        ParameterizedSPARQLQuery q2 = ParameterizedSPARQLQuery.create(
+                "SELECT ?x WHERE { ?x <http://example.org/name> 'Bob'@en . FILTER(?x < 3) }");
+
+        assertEquals(q1.getTemplate(), q2.getTemplate());
+        assertEquals(ImmutableList.of("Alice"), q1.getValues());
+        assertEquals(ImmutableList.of("Bob"), q2.getValues());
+        assertTrue(q1.getTemplate().contains("\"@en"));
+    }
+
+    @Test
+    public void testUntouchedConstants() {
+        String sparql = "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n" +
+                "# a \"comment\"\n" +
+                "SELECT ?x WHERE { ?x <http://example.org/age> \"42\"^^xsd:integer ; " +
+                "<http://example.org/name> \"a\\\"b\" . }";
+        ParameterizedSPARQLQuery q = ParameterizedSPARQLQuery.create(sparql);
+
+        assertFalse(q.hasParameters());
+        assertEquals(sparql, q.getTemplate());
+    }
+
+    @Test
+    public void testParametricPlan() {
+        String sql = "SELECT * FROM T WHERE A = " + generator.getSQLLexicalFormString(ParameterizedSPARQLQuery.getSentinel(0)) +
+                " AND B = " + generator.getSQLLexicalFormString(ParameterizedSPARQLQuery.getSentinel(1)) +
+                " AND C = " + generator.getSQLLexicalFormString(ParameterizedSPARQLQuery.getSentinel(0));
+        QueryPlan plan = QueryPlan.createParametric(sql, ImmutableList.of("x"), 2, generator);
+
+        assertTrue(plan.isParametric());
+        assertEquals("SELECT * FROM T WHERE A = 'O''Neil' AND B = 'b' AND C = 'O''Neil'",
+                plan.getSQL(ImmutableList.of("O'Neil", "b"), generator));
+    }
+
+    @Test
+    public void testEvaluatedParameter() {
+        // the second literal has been evaluated away during the unfolding
+        String sql = "SELECT * FROM T WHERE A = " + generator.getSQLLexicalFormString(ParameterizedSPARQLQuery.getSentinel(0));
+        assertNull(QueryPlan.createParametric(sql, ImmutableList.of("x"), 2, generator));
+
+        // the literal is not used as an SQL string on its own
+        sql = "SELECT * FROM T WHERE A LIKE '%" + ParameterizedSPARQLQuery.getSentinel(0) + "%'";
+        assertNull(QueryPlan.createParametric(sql, ImmutableList.of("x"), 1, generator));
+    }
+}
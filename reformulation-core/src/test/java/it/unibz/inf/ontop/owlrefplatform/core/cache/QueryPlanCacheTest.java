@@ -0,0 +1,47 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.Predicate;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class QueryPlanCacheTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    private static final Predicate person = fac.getClassPredicate("http://example.org/Person");
+    private static final Predicate student = fac.getClassPredicate("http://example.org/Student");
+    private static final Predicate name = fac.getDataPropertyPredicate("http://example.org/name");
+
+    private static QueryPlan plan(Predicate... predicates) {
+        return QueryPlan.create("SELECT 1", ImmutableList.of("x")).withPredicates(ImmutableSet.copyOf(predicates));
+    }
+
+    @Test
+    public void testInvalidation() {
+        QueryPlanCache cache = new QueryPlanCache(1024 * 1024);
+        cache.put("persons", plan(person, student), cache.getGeneration());
+        cache.put("names", plan(name), cache.getGeneration());
+
+        cache.invalidate(ImmutableSet.of(student));
+        assertNull(cache.get("persons"));
+        assertNotNull(cache.get("names"));
+
+        cache.clear();
+        assertNull(cache.get("names"));
+    }
+
+    @Test
+    public void testStalePlan() {
+        QueryPlanCache cache = new QueryPlanCache(1024 * 1024);
+        long generation = cache.getGeneration();
+        cache.invalidate(ImmutableSet.of(student));
+        cache.put("names", plan(name), generation);
+        assertNull(cache.get("names"));
+    }
+}
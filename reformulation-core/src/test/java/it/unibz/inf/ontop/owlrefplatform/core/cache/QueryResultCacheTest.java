@@ -0,0 +1,119 @@
+package it.unibz.inf.ontop.owlrefplatform.core.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import org.junit.Test;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.parser.ParsedQuery;
+import org.openrdf.query.parser.QueryParserUtil;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryResultCacheTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    private static final String EX = "http://example.org/";
+
+    private static ParsedQuery parse(String sparql) throws Exception {
+        return QueryParserUtil.createParser(QueryLanguage.SPARQL).parseQuery(sparql, null);
+    }
+
+    private static List<Constant[]> rows(String... uris) {
+        ImmutableList.Builder<Constant[]> rows = ImmutableList.builder();
+        for (String uri : uris)
+            rows.add(new Constant[] { fac.getConstantURI(uri) });
+        return rows.build();
+    }
+
+    private static void put(QueryResultCache cache, String key, Set<String> predicates) {
+        List<Constant[]> rows = rows(EX + "a", EX + "b");
+        long weight = 0;
+        for (Constant[] row : rows)
+            weight += QueryResultCache.weigh(row);
+        cache.put(key, cache.getGeneration(), predicates, ImmutableList.of("x"), rows, weight);
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        String k1 = QueryResultCache.getKey(parse(
+                "PREFIX : <http://example.org/> SELECT ?x WHERE { ?x a :Person }"));
+        String k2 = QueryResultCache.getKey(parse(
+                "SELECT ?x\n WHERE {\n  ?x a <http://example.org/Person> . # comment\n}"));
+        String k3 = QueryResultCache.getKey(parse(
+                "SELECT ?x WHERE { ?x a <http://example.org/Student> }"));
+        assertEquals(k1, k2);
+        assertFalse(k1.equals(k3));
+    }
+
+    @Test
+    public void testPredicates() throws Exception {
+        assertEquals(ImmutableSet.of(EX + "Person", EX + "name"), QueryResultCache.getPredicates(parse(
+                "PREFIX : <http://example.org/> SELECT ?x ?n WHERE { ?x a :Person . OPTIONAL { ?x :name ?n } }")));
+        assertNull(QueryResultCache.getPredicates(parse(
+                "SELECT ?x ?c WHERE { ?x a ?c }")));
+        assertNull(QueryResultCache.getPredicates(parse(
+                "SELECT ?x ?p WHERE { ?x ?p <http://example.org/a> }")));
+    }
+
+    @Test
+    public void testNonDeterministic() throws Exception {
+        assertFalse(QueryResultCache.isNonDeterministic(parse(
+                "SELECT ?x ?n WHERE { ?x <http://example.org/name> ?n FILTER (STRLEN(?n) > 3) }")));
+        assertTrue(QueryResultCache.isNonDeterministic(parse(
+                "SELECT ?x ?t WHERE { ?x a <http://example.org/Person> BIND (NOW() AS ?t) }")));
+        assertTrue(QueryResultCache.isNonDeterministic(parse(
+                "SELECT ?x WHERE { ?x a <http://example.org/Person> FILTER (RAND() < 0.5) }")));
+        assertTrue(QueryResultCache.isNonDeterministic(parse(
+                "SELECT ?x ?u WHERE { ?x a <http://example.org/Person> BIND (STR(UUID()) AS ?u) }")));
+        assertTrue(QueryResultCache.isNonDeterministic(parse(
+                "SELECT ?x ?u WHERE { ?x a <http://example.org/Person> BIND (STRUUID() AS ?u) }")));
+        assertTrue(QueryResultCache.isNonDeterministic(parse(
+                "SELECT ?x ?b WHERE { ?x a <http://example.org/Person> BIND (BNODE() AS ?b) }")));
+    }
+
+    @Test
+    public void testInvalidation() {
+        QueryResultCache cache = new QueryResultCache(1024 * 1024);
+        put(cache, "persons", ImmutableSet.of(EX + "Person"));
+        put(cache, "names", ImmutableSet.of(EX + "name"));
+        put(cache, "all", null);
+        assertEquals(2, cache.get("persons").getRows().size());
+
+        cache.repositoryChanged(ImmutableSet.of(fac.getObjectPropertyPredicate(EX + "name")));
+        assertNotNull(cache.get("persons"));
+        assertNull(cache.get("names"));
+        assertNull(cache.get("all"));
+
+        cache.repositoryChanged(ImmutableSet.of(fac.getClassPredicate(EX + "Person")));
+        assertNull(cache.get("persons"));
+    }
+
+    @Test
+    public void testStaleAnswer() {
+        QueryResultCache cache = new QueryResultCache(1024 * 1024);
+        long generation = cache.getGeneration();
+        cache.repositoryChanged(ImmutableSet.of(fac.getClassPredicate(EX + "Student")));
+        cache.put("persons", generation, ImmutableSet.of(EX + "Person"), ImmutableList.of("x"), rows(EX + "a"), 100);
+        assertNull(cache.get("persons"));
+    }
+
+    @Test
+    public void testLargeAnswer() {
+        QueryResultCache cache = new QueryResultCache(1600);
+        cache.put("persons", cache.getGeneration(), ImmutableSet.of(EX + "Person"), ImmutableList.of("x"), rows(EX + "a"), 101);
+        assertNull(cache.get("persons"));
+        cache.put("persons", cache.getGeneration(), ImmutableSet.of(EX + "Person"), ImmutableList.of("x"), rows(EX + "a"), 100);
+        assertNotNull(cache.get("persons"));
+    }
+}
@@ -0,0 +1,116 @@
+package it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.srcquerygeneration.SQLQueryGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappingEmptinessAnalyzerTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    private static final Predicate person = fac.getClassPredicate("http://example.org/Person");
+    private static final Predicate student = fac.getClassPredicate("http://example.org/Student");
+    private static final Predicate course = fac.getClassPredicate("http://example.org/Course");
+    private static final Predicate teacher = fac.getClassPredicate("http://example.org/Teacher");
+    private static final Predicate room = fac.getClassPredicate("http://example.org/Room");
+    private static final Predicate building = fac.getClassPredicate("http://example.org/Building");
+
+    private static final Variable x = fac.getVariable("x");
+
+    private static final URI source = URI.create("http://example.org/source");
+
+    // the SQL of a probe is the body of its rule
+    private static final SQLQueryGenerator generator = new SQLQueryGenerator() {
+        @Override
+        public String generateSourceQuery(DatalogProgram query, List<String> signature) {
+            return query.getRules().get(0).getBody().toString();
+        }
+
+        @Override
+        public boolean hasDistinctResultSet() {
+            return false;
+        }
+
+        @Override
+        public String getSQLLexicalFormString(String value) {
+            return "'" + value + "'";
+        }
+
+        @Override
+        public int getStringParameterType() {
+            return Types.VARCHAR;
+        }
+    };
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static CQIE rule(Predicate head, String table) {
+        return fac.getCQIE(fac.getFunction(head, x), fac.getFunction(fac.getPredicate(table, 1), x));
+    }
+
+    @Test
+    public void testAnalysis() throws Exception {
+        CQIE personRule = rule(person, "PERSON");
+        CQIE fact = fac.getCQIE(fac.getFunction(teacher, fac.getConstantLiteral("a")), Collections.<Function>emptyList());
+        Map<Predicate, List<CQIE>> rules = ImmutableMap.<Predicate, List<CQIE>>of(
+                person, ImmutableList.of(personRule, rule(person, "STUDENT")),
+                student, ImmutableList.of(rule(student, "STUDENT")),
+                course, ImmutableList.of(rule(course, "COURSE")),
+                teacher, ImmutableList.of(fact));
+
+        final AtomicInteger executed = new AtomicInteger();
+        MappingEmptinessAnalyzer analyzer = new MappingEmptinessAnalyzer(generator, Collections.<Predicate, URI>emptyMap(), source);
+        MappingEmptiness emptiness = analyzer.analyze(rules, ImmutableSet.of(building), executor,
+                (URI s, String sql) -> {
+                    executed.incrementAndGet();
+                    assertEquals(source, s);
+                    if (sql.contains("COURSE"))
+                        throw new IllegalStateException("no such table");
+                    return sql.contains("PERSON");
+                });
+
+        // the rules over STUDENT share their probe
+        assertEquals(3, executed.get());
+        assertEquals(3, emptiness.getProbeCount());
+
+        assertTrue(emptiness.isNonEmpty(person));
+        assertTrue(emptiness.isNonEmpty(teacher));
+        assertTrue(emptiness.isEmpty(student));
+        assertTrue(emptiness.isEmpty(room));
+        assertFalse(emptiness.isEmpty(course));
+        assertFalse(emptiness.isNonEmpty(course));
+        assertFalse(emptiness.isEmpty(building));
+
+        assertEquals(ImmutableMap.of(person, ImmutableList.of(personRule), student, ImmutableList.<CQIE>of()),
+                emptiness.getPrunedRules());
+    }
+}
@@ -0,0 +1,125 @@
+package it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.queryevaluation.H2SQLDialectAdapter;
+import it.unibz.inf.ontop.owlrefplatform.core.sql.SQLGenerator;
+import it.unibz.inf.ontop.sql.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Executes the probes generated by the SQL generator on H2 (a populated and an empty table)
+ */
+public class MappingEmptinessProbeH2Test {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+
+    private static final Predicate person = fac.getClassPredicate("http://example.org/Person");
+    private static final Predicate student = fac.getClassPredicate("http://example.org/Student");
+    private static final Predicate teacher = fac.getClassPredicate("http://example.org/Teacher");
+
+    private static final Variable x = fac.getVariable("x");
+    private static final Variable n = fac.getVariable("n");
+
+    private static final URI source = URI.create("http://example.org/source");
+
+    private Connection conn;
+    private DBMetadata metadata;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection("jdbc:h2:mem:emptiness_probes", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE students (id integer NOT NULL PRIMARY KEY, name varchar(100))");
+            st.executeUpdate("CREATE TABLE teachers (id integer NOT NULL PRIMARY KEY)");
+            st.executeUpdate("INSERT INTO students VALUES (1, 'Anna')");
+        }
+
+        metadata = DBMetadataExtractor.createMetadata(conn);
+        QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+        DBMetadataExtractor.loadMetadata(metadata, conn,
+                ImmutableSet.of(idfac.createRelationID(null, "students"), idfac.createRelationID(null, "teachers")));
+
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    private Function atom(String table, Term... terms) {
+        for (DatabaseRelationDefinition relation : metadata.getDatabaseRelations())
+            if (relation.getID().getTableName().equals(table))
+                return Relation2DatalogPredicate.getAtom(relation, ImmutableList.copyOf(terms));
+        throw new IllegalArgumentException(table);
+    }
+
+    private static Function uri(Variable v) {
+        return fac.getUriTemplate(fac.getConstantLiteral("http://example.org/person/{}"), v);
+    }
+
+    @Test
+    public void testProbes() throws Exception {
+        CQIE studentRule = fac.getCQIE(fac.getFunction(student, uri(x)), atom("STUDENTS", x, n));
+        CQIE teacherRule = fac.getCQIE(fac.getFunction(teacher, uri(x)), atom("TEACHERS", x));
+        CQIE personStudentRule = fac.getCQIE(fac.getFunction(person, uri(x)), atom("STUDENTS", x, n));
+        CQIE personTeacherRule = fac.getCQIE(fac.getFunction(person, uri(x)), atom("TEACHERS", x));
+        Map<Predicate, List<CQIE>> rules = ImmutableMap.<Predicate, List<CQIE>>of(
+                student, ImmutableList.of(studentRule),
+                teacher, ImmutableList.of(teacherRule),
+                person, ImmutableList.of(personStudentRule, personTeacherRule));
+
+        final List<String> probes = Collections.synchronizedList(new ArrayList<String>());
+        MappingEmptinessAnalyzer analyzer = new MappingEmptinessAnalyzer(new SQLGenerator(metadata, new H2SQLDialectAdapter()),
+                Collections.<Predicate, URI>emptyMap(), source);
+        MappingEmptiness emptiness = analyzer.analyze(rules, ImmutableSet.<Predicate>of(), executor,
+                (URI s, String sql) -> {
+                    probes.add(sql);
+                    try (Statement st = conn.createStatement();
+                         ResultSet rs = st.executeQuery(sql)) {
+                        return rs.next();
+                    }
+                });
+
+        // one probe per table, which projects no column and returns at most one row
+        assertEquals(2, probes.size());
+        assertEquals(2, emptiness.getProbeCount());
+        for (String sql : probes) {
+            assertTrue(sql, sql.contains("'true' as x"));
+            assertTrue(sql, sql.toUpperCase().contains("LIMIT 1"));
+        }
+
+        assertTrue(emptiness.isNonEmpty(student));
+        assertTrue(emptiness.isNonEmpty(person));
+        assertTrue(emptiness.isEmpty(teacher));
+        assertTrue(emptiness.getUnknownPredicates().isEmpty());
+        assertEquals(ImmutableMap.of(teacher, ImmutableList.<CQIE>of(), person, ImmutableList.of(personStudentRule)),
+                emptiness.getPrunedRules());
+    }
+}
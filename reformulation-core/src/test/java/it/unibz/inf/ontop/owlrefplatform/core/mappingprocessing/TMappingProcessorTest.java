@@ -0,0 +1,183 @@
+package it.unibz.inf.ontop.owlrefplatform.core.mappingprocessing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import it.unibz.inf.ontop.model.*;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.ontology.*;
+import it.unibz.inf.ontop.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.basicoperations.CQContainmentCheckUnderLIDs;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasoner;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasonerImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TMappingProcessorTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+    private static final OntologyFactory ofac = OntologyFactoryImpl.getInstance();
+
+    private static final String NS = "http://example.org/";
+
+    private static final Variable x = fac.getVariable("x");
+    private static final Variable y = fac.getVariable("y");
+
+    private TBoxReasoner reasoner;
+    private List<CQIE> mappings;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        OntologyVocabulary vb = ofac.createVocabulary();
+        OClass a = vb.createClass(NS + "A");
+        OClass b = vb.createClass(NS + "B");
+        OClass c = vb.createClass(NS + "C");
+        OClass d = vb.createClass(NS + "D");
+        ObjectPropertyExpression p = vb.createObjectProperty(NS + "p");
+        ObjectPropertyExpression q = vb.createObjectProperty(NS + "q");
+        DataPropertyExpression r = vb.createDataProperty(NS + "r");
+        DataPropertyExpression s = vb.createDataProperty(NS + "s");
+
+        Ontology ontology = ofac.createOntology(vb);
+        ontology.addSubClassOfAxiom(a, b);
+        ontology.addSubClassOfAxiom(c, b);
+        ontology.addSubClassOfAxiom(d, a);
+        ontology.addSubPropertyOfAxiom(p, q);
+        ontology.addSubClassOfAxiom(p.getDomain(), c);
+        ontology.addSubClassOfAxiom(p.getRange(), d);
+        ontology.addSubPropertyOfAxiom(r, s);
+        reasoner = TBoxReasonerImpl.create(ontology);
+
+        Predicate pa = fac.getClassPredicate(NS + "A");
+        Predicate pc = fac.getClassPredicate(NS + "C");
+        Predicate pd = fac.getClassPredicate(NS + "D");
+        Predicate pp = fac.getObjectPropertyPredicate(NS + "p");
+        Predicate pq = fac.getObjectPropertyPredicate(NS + "q");
+        Predicate pr = fac.getDataPropertyPredicate(NS + "r");
+        Predicate ps = fac.getDataPropertyPredicate(NS + "s");
+
+        Function t1 = fac.getFunction(fac.getPredicate("T1", 2), x, y);
+        Function t2 = fac.getFunction(fac.getPredicate("T2", 1), x);
+        Function t3 = fac.getFunction(fac.getPredicate("T3", 2), x, y);
+
+        // rules with head signatures (two URI templates), rules without signatures and
+        // rules that are contained in (or merged with) other rules
+        mappings = ImmutableList.of(
+                fac.getCQIE(fac.getFunction(pa, uri("a", x)), t1),
+                fac.getCQIE(fac.getFunction(pa, uri("a", x)), t1, fac.getFunctionEQ(y, fac.getConstantLiteral("1"))),
+                fac.getCQIE(fac.getFunction(pa, uri("b", x)), t2),
+                fac.getCQIE(fac.getFunction(pc, uri("a", x)), t2),
+                fac.getCQIE(fac.getFunction(pd, x), t2),
+                fac.getCQIE(fac.getFunction(pd, uri("a", y)), t1),
+                fac.getCQIE(fac.getFunction(pp, uri("a", x), uri("a", y)), t1),
+                fac.getCQIE(fac.getFunction(pp, uri("a", x), uri("b", y)), t1, fac.getFunctionEQ(y, fac.getConstantLiteral("2"))),
+                fac.getCQIE(fac.getFunction(pq, uri("a", x), uri("a", y)), t1),
+                fac.getCQIE(fac.getFunction(pq, x, y), t3),
+                fac.getCQIE(fac.getFunction(pr, uri("a", x), y), t3),
+                fac.getCQIE(fac.getFunction(ps, uri("a", x), y), t3, fac.getFunctionEQ(y, fac.getConstantLiteral("3"))),
+                fac.getCQIE(fac.getFunction(ps, uri("b", x), y), t3));
+
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static Function uri(String template, Variable v) {
+        return fac.getUriTemplate(fac.getConstantLiteral(NS + template + "/{}"), v);
+    }
+
+    private Multiset<String> getTMappings(boolean full, ExecutorService executor, boolean bySignature) {
+        List<CQIE> rules = TMappingProcessor.getTMappings(mappings, reasoner, full, new CQContainmentCheckUnderLIDs(),
+                TMappingExclusionConfig.empty(), executor, bySignature);
+        ImmutableMultiset.Builder<String> builder = ImmutableMultiset.builder();
+        for (CQIE rule : rules)
+            builder.add(rule.toString());
+        return builder.build();
+    }
+
+    @Test
+    public void testParallelConstruction() {
+        for (boolean full : new boolean[] { true, false }) {
+            Multiset<String> sequential = getTMappings(full, null, true);
+            assertTrue(sequential.size() > mappings.size());
+            // the scheduling of the tasks does not change the result
+            for (int i = 0; i < 10; i++)
+                assertEquals(sequential, getTMappings(full, executor, true));
+        }
+    }
+
+    @Test
+    public void testSignatureIndex() {
+        for (boolean full : new boolean[] { true, false }) {
+            // comparing only the rules with the same head signature gives the same rules
+            // as comparing all the rules of a predicate
+            Multiset<String> all = getTMappings(full, null, false);
+            assertEquals(all, getTMappings(full, null, true));
+            assertEquals(all, getTMappings(full, executor, true));
+        }
+    }
+
+    @Test
+    public void testInverseEquivalence() throws Exception {
+        // e is equivalent to the inverse of f: both nodes {e, f^-} and {e^-, f} add rules for e and f
+        OntologyVocabulary vb = ofac.createVocabulary();
+        ObjectPropertyExpression e = vb.createObjectProperty(NS + "e");
+        ObjectPropertyExpression f = vb.createObjectProperty(NS + "f");
+        ObjectPropertyExpression g = vb.createObjectProperty(NS + "g");
+        Ontology ontology = ofac.createOntology(vb);
+        ontology.addSubPropertyOfAxiom(e, f.getInverse());
+        ontology.addSubPropertyOfAxiom(f.getInverse(), e);
+        ontology.addSubPropertyOfAxiom(g, e);
+        reasoner = TBoxReasonerImpl.create(ontology);
+
+        Predicate pe = fac.getObjectPropertyPredicate(NS + "e");
+        Predicate pf = fac.getObjectPropertyPredicate(NS + "f");
+        Predicate pg = fac.getObjectPropertyPredicate(NS + "g");
+        Function t1 = fac.getFunction(fac.getPredicate("T1", 2), x, y);
+        Function t3 = fac.getFunction(fac.getPredicate("T3", 2), x, y);
+        mappings = ImmutableList.of(
+                fac.getCQIE(fac.getFunction(pe, uri("a", x), uri("a", y)), t1),
+                fac.getCQIE(fac.getFunction(pf, uri("a", y), uri("a", x)), t1, fac.getFunctionEQ(y, fac.getConstantLiteral("1"))),
+                fac.getCQIE(fac.getFunction(pf, uri("b", x), uri("a", y)), t3),
+                fac.getCQIE(fac.getFunction(pg, uri("a", x), uri("b", y)), t3),
+                fac.getCQIE(fac.getFunction(pg, x, y), t1, fac.getFunctionEQ(y, fac.getConstantLiteral("2"))));
+
+        // the rules of each predicate (and their order) do not depend on the scheduling
+        Map<String, List<String>> sequential = getRulesByPredicate(null);
+        assertTrue(sequential.get(pe.getName()).size() > 1);
+        assertTrue(sequential.get(pf.getName()).size() > 1);
+        for (int i = 0; i < 20; i++)
+            assertEquals(sequential, getRulesByPredicate(executor));
+    }
+
+    private Map<String, List<String>> getRulesByPredicate(ExecutorService executor) {
+        List<CQIE> rules = TMappingProcessor.getTMappings(mappings, reasoner, true, new CQContainmentCheckUnderLIDs(),
+                TMappingExclusionConfig.empty(), executor, true);
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (CQIE rule : rules) {
+            String name = rule.getHead().getFunctionSymbol().getName();
+            List<String> list = map.get(name);
+            if (list == null) {
+                list = new ArrayList<>();
+                map.put(name, list);
+            }
+            list.add(rule.toString());
+        }
+        return map;
+    }
+}
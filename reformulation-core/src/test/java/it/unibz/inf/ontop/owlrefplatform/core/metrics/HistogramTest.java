@@ -0,0 +1,61 @@
+package it.unibz.inf.ontop.owlrefplatform.core.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        long previous = -1;
+        for (long value : new long[] { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE }) {
+            int bucket = Histogram.getBucket(value);
+            assertTrue(Histogram.getLowerBound(bucket) <= value);
+            // bucket upper bounds are within 12.5% of the lower bounds
+            long lower = Histogram.getLowerBound(bucket);
+            assertTrue(value - lower <= lower / 8);
+            // monotonic (16 and 17 are in the same bucket)
+            assertTrue(bucket >= previous);
+            previous = bucket;
+        }
+        assertEquals(Histogram.getBucket(16), Histogram.getBucket(17));
+        assertTrue(Histogram.getBucket(17) < Histogram.getBucket(18));
+        for (int bucket = 1; bucket < Histogram.getBucket(Long.MAX_VALUE); bucket++)
+            assertEquals(bucket, Histogram.getBucket(Histogram.getLowerBound(bucket)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1000; value++)
+            histogram.record(value);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getSum());
+        assertEquals(500.5, histogram.getMean(), 0);
+        assertEquals(1000, histogram.getMax());
+
+        long median = histogram.getPercentile(0.5);
+        assertTrue(median >= 500 && median <= 500 * 9 / 8);
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testReset() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        histogram.record(42);
+        histogram.record(-1);
+        assertEquals(42, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+    }
+}
@@ -0,0 +1,214 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.Constant;
+import it.unibz.inf.ontop.model.OBDADataFactory;
+import it.unibz.inf.ontop.model.OBDAException;
+import it.unibz.inf.ontop.model.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.impl.OBDADataFactoryImpl;
+import it.unibz.inf.ontop.ontology.Assertion;
+import it.unibz.inf.ontop.ontology.OClass;
+import it.unibz.inf.ontop.ontology.Ontology;
+import it.unibz.inf.ontop.ontology.OntologyFactory;
+import it.unibz.inf.ontop.ontology.OntologyVocabulary;
+import it.unibz.inf.ontop.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.RDBMSSIRepositoryManager;
+import it.unibz.inf.ontop.owlrefplatform.core.abox.SemanticIndexURIMap;
+import it.unibz.inf.ontop.owlrefplatform.core.dagjgrapht.TBoxReasonerImpl;
+import it.unibz.inf.ontop.sql.DBMetadata;
+import it.unibz.inf.ontop.sql.DBMetadataExtractor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QuestTupleResultSetTest {
+
+    private static final OBDADataFactory fac = OBDADataFactoryImpl.getInstance();
+    private static final OntologyFactory ofac = OntologyFactoryImpl.getInstance();
+
+    private static final List<String> SIGNATURE = ImmutableList.of("v", "w");
+    private static final String QUERY = "SELECT V_TYPE, V_LANG, V, W_TYPE, W_LANG, W FROM RESULTS ORDER BY ID";
+
+    private Connection conn;
+    private RDBMSSIRepositoryManager repository;
+    private SemanticIndexURIMap uriMap;
+    private DBMetadata metadata;
+    private int x;
+
+    @Before
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection("jdbc:h2:mem:questtupleresultset", "sa", "");
+
+        // the Semantic Index dictionary gets an id for x
+        OntologyVocabulary vb = ofac.createVocabulary();
+        OClass a = vb.createClass("http://example.org/A");
+        Ontology ontology = ofac.createOntology(vb);
+        repository = new RDBMSSIRepositoryManager(TBoxReasonerImpl.create(ontology), ontology.getVocabulary());
+        repository.generateMetadata();
+        repository.createDBSchemaAndInsertMetadata(conn);
+        repository.bulkInsertData(conn, Collections.<Connection>emptyList(), ImmutableList.<Assertion>of(
+                ofac.createClassAssertion(a, fac.getConstantURI("http://example.org/x"))).iterator());
+        uriMap = repository.getUriMap();
+        x = uriMap.getId("http://example.org/x");
+        metadata = DBMetadataExtractor.createMetadata(conn);
+
+        // the values of v are cast to strings, as in a union with different types in each row
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE RESULTS (ID INT, " +
+                    "V_TYPE INT, V_LANG VARCHAR(20), V VARCHAR(100), " +
+                    "W_TYPE INT, W_LANG VARCHAR(20), W DOUBLE)");
+            insert(st, 1, COL_TYPE.OBJECT, null, String.valueOf(x), 0.1);
+            insert(st, 2, COL_TYPE.OBJECT, null, "http://example.org/z", null);
+            insert(st, 3, COL_TYPE.OBJECT, null, "12345678901", 1e10);
+            insert(st, 4, COL_TYPE.LITERAL, "en", "hello", 12.5);
+            insert(st, 5, COL_TYPE.LITERAL, null, "plain", -0.0625);
+            insert(st, 6, COL_TYPE.LITERAL, "", "blank", 1234.5);
+            insert(st, 7, COL_TYPE.DOUBLE, null, "1234.5", null);
+            insert(st, 8, COL_TYPE.DECIMAL, null, "0.25", null);
+            insert(st, 9, COL_TYPE.INTEGER, null, null, null);
+            insert(st, 10, COL_TYPE.NULL, null, null, null);
+            insert(st, 11, COL_TYPE.BOOLEAN, null, "true", null);
+            insert(st, 12, COL_TYPE.DATE, null, "2016-01-02", null);
+            insert(st, 13, COL_TYPE.BNODE, null, "n1", null);
+            insert(st, 14, COL_TYPE.BNODE, null, "n1", null);
+        }
+    }
+
+    private static void insert(Statement st, int id, COL_TYPE type, String lang, String value, Double w) throws Exception {
+        st.executeUpdate(String.format("INSERT INTO RESULTS VALUES (%d, %d, %s, %s, %d, NULL, %s)",
+                id, type.getQuestCode(), quote(lang), quote(value), COL_TYPE.DOUBLE.getQuestCode(), w));
+    }
+
+    private static String quote(String s) {
+        return (s == null) ? "NULL" : "'" + s + "'";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP TABLE RESULTS");
+        }
+        repository.dropDBSchema(conn);
+        conn.close();
+    }
+
+    @Test
+    public void testDecoding() throws Exception {
+        List<List<Constant>> rows = readRows();
+        assertEquals(14, rows.size());
+
+        List<Constant> v = new ArrayList<>(), w = new ArrayList<>();
+        for (List<Constant> row : rows) {
+            v.add(row.get(0));
+            w.add(row.get(1));
+        }
+
+        assertEquals(Arrays.<Constant>asList(
+                fac.getConstantURI("http://example.org/x"),
+                // not an id
+                fac.getConstantURI("http://example.org/z"),
+                // more than 10 digits: not an id
+                fac.getConstantURI("12345678901"),
+                fac.getConstantLiteral("hello", "en"),
+                fac.getConstantLiteral("plain"),
+                fac.getConstantLiteral("blank"),
+                fac.getConstantLiteral("1.2345E3", COL_TYPE.DOUBLE),
+                fac.getConstantLiteral("0.25", COL_TYPE.DECIMAL),
+                null,
+                null,
+                fac.getBooleanConstant(true),
+                fac.getConstantLiteral("2016-01-02", COL_TYPE.DATE),
+                fac.getConstantBNode("b0"),
+                // the same label in the database gives the same blank node
+                fac.getConstantBNode("b0")), v);
+
+        assertEquals(Arrays.<Constant>asList(
+                fac.getConstantLiteral("1.0E-1", COL_TYPE.DOUBLE),
+                null,
+                fac.getConstantLiteral("1.0E10", COL_TYPE.DOUBLE),
+                fac.getConstantLiteral("1.25E1", COL_TYPE.DOUBLE),
+                fac.getConstantLiteral("-6.25E-2", COL_TYPE.DOUBLE),
+                fac.getConstantLiteral("1.2345E3", COL_TYPE.DOUBLE)), w.subList(0, 6));
+        for (Constant c : w.subList(6, w.size()))
+            assertNull(c);
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        List<List<Constant>> rows = readRows();
+        // fewer rows than the result (the last batch is not full), and more
+        for (int maxRows : new int[] { 1, 4, 14, 100 })
+            assertEquals(rows, readBatches(maxRows));
+    }
+
+    @Test
+    public void testUnknownURIId() throws Exception {
+        int unknown = uriMap.size() + 100;
+        try (Statement st = conn.createStatement()) {
+            ResultSet rs = st.executeQuery(String.format("SELECT %d, NULL, '%d'", COL_TYPE.OBJECT.getQuestCode(), unknown));
+            QuestTupleResultSet results = new QuestTupleResultSet(rs, ImmutableList.of("v"), null, uriMap, metadata);
+            assertTrue(results.nextRow());
+            try {
+                results.getConstant(1);
+                fail();
+            }
+            catch (OBDAException e) {
+                assertTrue(e.getMessage().contains(String.valueOf(unknown)));
+            }
+        }
+    }
+
+    private List<List<Constant>> readRows() throws Exception {
+        List<List<Constant>> rows = new ArrayList<>();
+        try (Statement st = conn.createStatement()) {
+            QuestTupleResultSet results = new QuestTupleResultSet(st.executeQuery(QUERY), SIGNATURE, null, uriMap, metadata);
+            while (results.nextRow()) {
+                List<Constant> row = new ArrayList<>();
+                for (int i = 1; i <= SIGNATURE.size(); i++) {
+                    Constant c = results.getConstant(i);
+                    // each cell is decoded once
+                    assertTrue(c == results.getConstant(i));
+                    row.add(c);
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<List<Constant>> readBatches(int maxRows) throws Exception {
+        List<List<Constant>> rows = new ArrayList<>();
+        try (Statement st = conn.createStatement()) {
+            QuestTupleResultSet results = new QuestTupleResultSet(st.executeQuery(QUERY), SIGNATURE, null, uriMap, metadata);
+            Constant[][] columns = new Constant[SIGNATURE.size()][maxRows];
+            int n;
+            do {
+                n = results.nextBatch(columns, maxRows);
+                assertTrue(n <= maxRows);
+                for (int r = 0; r < n; r++) {
+                    List<Constant> row = new ArrayList<>();
+                    for (Constant[] column : columns)
+                        row.add(column[r]);
+                    rows.add(row);
+                }
+            } while (n == maxRows);
+            // the result set is exhausted
+            assertEquals(0, results.nextBatch(columns, maxRows));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,61 @@
+package it.unibz.inf.ontop.owlrefplatform.core.resultset;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RowFingerprintSetTest {
+
+    @Test
+    public void testSpilling() throws Exception {
+        // the smallest budget: 512 fingerprints in memory
+        RowFingerprintSet set = new RowFingerprintSet(0);
+        Set<String> expected = new HashSet<>();
+        Random random = new Random(42);
+        try {
+            for (int i = 0; i < 20000; i++) {
+                // few distinct values, so that many of them are duplicates
+                // (hi is odd: (0, 0) and (0, 1) are the same fingerprint)
+                long hi = 2 * random.nextInt(5000) - 4999, lo = random.nextInt(2);
+                assertEquals(expected.add(hi + "/" + lo), set.add(hi, lo));
+            }
+            assertTrue(set.getSpilledRuns() > 0);
+        }
+        finally {
+            set.close();
+        }
+    }
+
+    @Test
+    public void testMergingRuns() throws Exception {
+        RowFingerprintSet set = new RowFingerprintSet(0);
+        try {
+            // all distinct: a spill every 512 fingerprints
+            for (int i = 0; i < 512 * 20; i++)
+                assertTrue(set.add(31L * i + 1, i));
+            assertTrue(set.getSpilledRuns() < 8);
+            for (int i = 0; i < 512 * 20; i++)
+                assertFalse(set.add(31L * i + 1, i));
+            assertTrue(set.add(-1, -1));
+        }
+        finally {
+            set.close();
+        }
+    }
+
+    @Test
+    public void testZeroFingerprint() throws Exception {
+        RowFingerprintSet set = new RowFingerprintSet(1024);
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(0, 0));
+        set.close();
+        assertTrue(set.add(0, 0));
+        set.close();
+    }
+}